@@ -0,0 +1,142 @@
+package net.teamrush27.frc2019.benchmark;
+
+import java.lang.reflect.Field;
+import net.teamrush27.frc2019.subsystems.impl.Drivetrain.PeriodicIO;
+import net.teamrush27.frc2019.subsystems.impl.RobotStateEstimator.StateFrame;
+import net.teamrush27.frc2019.util.CSVRowEncoder;
+import net.teamrush27.frc2019.util.CSVWritable;
+import net.teamrush27.frc2019.util.math.Rotation2d;
+import net.teamrush27.frc2019.util.math.Twist2d;
+
+/**
+ * Rows per second for the drive and state logs, encoded the old way (a {@link Field#get} per cell)
+ * and through {@link CSVRowEncoder}. Runs off the robot:
+ *
+ * <pre>./gradlew benchmark -Pbenchmark=CSVEncodingBenchmark [-PbenchmarkArgs=rows]</pre>
+ */
+public class CSVEncodingBenchmark {
+
+  private static final int WARMUP_ROUNDS = 5;
+  private static final int ROUNDS = 5;
+
+  public static void main(String... args) throws Exception {
+    int rows = args.length > 0 ? Integer.parseInt(args[0]) : 100_000;
+
+    PeriodicIO[] periodicIO = new PeriodicIO[rows];
+    StateFrame[] stateFrames = new StateFrame[rows];
+    for (int i = 0; i < rows; i++) {
+      periodicIO[i] = periodicIO(i);
+      stateFrames[i] = stateFrame(i);
+    }
+
+    run("Drivetrain.PeriodicIO", PeriodicIO.class, periodicIO);
+    run("RobotStateEstimator.StateFrame", StateFrame.class, stateFrames);
+  }
+
+  private static <T> void run(String name, Class<T> type, T[] rows) throws Exception {
+    Field[] fields = type.getFields();
+    CSVRowEncoder<T> encoder = CSVRowEncoder.forClass(type);
+    StringBuilder line = new StringBuilder();
+
+    if (!encodeReflective(fields, rows[0]).equals(encode(encoder, rows[0], line))) {
+      throw new IllegalStateException(name + " encoders disagree");
+    }
+
+    for (int round = 0; round < WARMUP_ROUNDS; round++) {
+      timeReflective(fields, rows);
+      timeEncoder(encoder, rows, line);
+    }
+
+    double reflective = 0;
+    double encoded = 0;
+    for (int round = 0; round < ROUNDS; round++) {
+      reflective = Math.max(reflective, timeReflective(fields, rows));
+      encoded = Math.max(encoded, timeEncoder(encoder, rows, line));
+    }
+
+    System.out.println(
+        String.format(
+            "%s: reflective %.0f rows/s, encoder %.0f rows/s (%.1fx)",
+            name, reflective, encoded, encoded / reflective));
+  }
+
+  private static <T> double timeReflective(Field[] fields, T[] rows) throws Exception {
+    long length = 0;
+    long start = System.nanoTime();
+    for (T row : rows) {
+      length += encodeReflective(fields, row).length();
+    }
+    return rowsPerSecond(rows.length, start, length);
+  }
+
+  private static <T> double timeEncoder(CSVRowEncoder<T> encoder, T[] rows, StringBuilder line) {
+    long length = 0;
+    long start = System.nanoTime();
+    for (T row : rows) {
+      line.setLength(0);
+      encoder.appendRow(row, line);
+      length += line.length();
+    }
+    return rowsPerSecond(rows.length, start, length);
+  }
+
+  private static double rowsPerSecond(int rows, long start, long length) {
+    double seconds = (System.nanoTime() - start) * 1e-9;
+    if (length == 0) {
+      throw new IllegalStateException("nothing encoded");
+    }
+    return rows / seconds;
+  }
+
+  /** The per-row path ReflectingCSVWriter used before the encoder. */
+  private static String encodeReflective(Field[] fields, Object value) throws Exception {
+    StringBuffer line = new StringBuffer();
+    for (Field field : fields) {
+      if (line.length() != 0) {
+        line.append(", ");
+      }
+      if (CSVWritable.class.isAssignableFrom(field.getType())) {
+        line.append(((CSVWritable) field.get(value)).toCSV());
+      } else {
+        line.append(field.get(value).toString());
+      }
+    }
+    return line.toString();
+  }
+
+  private static <T> String encode(CSVRowEncoder<T> encoder, T row, StringBuilder line) {
+    line.setLength(0);
+    encoder.appendRow(row, line);
+    return line.toString();
+  }
+
+  private static PeriodicIO periodicIO(int i) {
+    PeriodicIO io = new PeriodicIO();
+    io.timestamp = i * 0.005;
+    io.can_read_delta = 0.0004;
+    io.armPosition = i % 4096;
+    io.left_position_ticks = i * 1.5;
+    io.right_position_ticks = i * 1.25;
+    io.left_distance = i * 0.01;
+    io.right_distance = i * 0.011;
+    io.left_velocity_ticks_per_100ms = 400 + i % 17;
+    io.right_velocity_ticks_per_100ms = 410 - i % 13;
+    io.gyro_heading = Rotation2d.fromDegrees(i % 360);
+    io.left_demand = 0.5;
+    io.right_demand = 0.45;
+    return io;
+  }
+
+  private static StateFrame stateFrame(int i) {
+    StateFrame frame = new StateFrame();
+    frame.timestamp = i * 0.005;
+    frame.left_distance = i * 0.01;
+    frame.right_distance = i * 0.011;
+    frame.delta_left = 0.01;
+    frame.delta_right = 0.011;
+    frame.gyro_angle = Rotation2d.fromDegrees(i % 360);
+    frame.odometry_velocity = new Twist2d(0.01, 0, 0.001);
+    frame.predicted_velocity = new Twist2d(0.012, 0, 0.0011);
+    return frame;
+  }
+}
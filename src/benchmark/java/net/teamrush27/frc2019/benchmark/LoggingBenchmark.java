@@ -0,0 +1,114 @@
+package net.teamrush27.frc2019.benchmark;
+
+import java.lang.management.ManagementFactory;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+import org.apache.logging.log4j.util.Unbox;
+
+/**
+ * Nanoseconds and bytes allocated per call on the calling thread for the superstructure's command
+ * log line, written the old way ({@code String.format} into {@code LOG.info}) and parameterized,
+ * both enabled and below the logger's level. Runs off the robot against whichever log4j2 config is
+ * on the classpath, so the old and new configs can be compared:
+ *
+ * <pre>
+ * ./gradlew benchmark -Pbenchmark=LoggingBenchmark -Dlog4j.configurationFile=... \
+ *     [-PbenchmarkArgs="calls per tick"]
+ * </pre>
+ */
+public class LoggingBenchmark {
+
+  private static final Logger LOG = LogManager.getLogger(LoggingBenchmark.class);
+
+  private static final int WARMUP_TICKS = 2000;
+  private static final int TICKS = 2000;
+  // lets an async appender drain between ticks, as the 10ms robot period would
+  private static final long TICK_GAP_NANOS = 1_000_000;
+
+  private static final com.sun.management.ThreadMXBean THREADS =
+      (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+
+  private static double rotation = 12.5;
+  private static double extension = 7.25;
+  private static double wrist = -2.5;
+
+  public static void main(String... args) throws Exception {
+    int calls = args.length > 0 ? Integer.parseInt(args[0]) : 4;
+
+    run("format, enabled", calls, LoggingBenchmark::formatted);
+    run("parameterized, enabled", calls, LoggingBenchmark::parameterized);
+    run("format, disabled", calls, LoggingBenchmark::formattedDisabled);
+    run("parameterized, disabled", calls, LoggingBenchmark::parameterizedDisabled);
+    LogManager.shutdown();
+  }
+
+  private static void run(String name, int calls, Runnable log) {
+    for (int tick = 0; tick < WARMUP_TICKS; tick++) {
+      tick(calls, log);
+    }
+
+    long thread = Thread.currentThread().getId();
+    long nanos = 0;
+    long bytes = 0;
+    long worst = 0;
+    for (int tick = 0; tick < TICKS; tick++) {
+      long allocated = THREADS.getThreadAllocatedBytes(thread);
+      long elapsed = tick(calls, log);
+      bytes += THREADS.getThreadAllocatedBytes(thread) - allocated;
+      nanos += elapsed;
+      worst = Math.max(worst, elapsed);
+    }
+
+    System.out.println(
+        String.format(
+            "%s: %.0f ns/tick (worst %d), %d bytes/tick",
+            name, (double) nanos / TICKS, worst, bytes / TICKS));
+  }
+
+  private static long tick(int calls, Runnable log) {
+    long start = System.nanoTime();
+    for (int call = 0; call < calls; call++) {
+      rotation += 0.01;
+      log.run();
+    }
+    long elapsed = System.nanoTime() - start;
+
+    long resume = System.nanoTime() + TICK_GAP_NANOS;
+    while (System.nanoTime() < resume) {
+      Thread.onSpinWait();
+    }
+    return elapsed;
+  }
+
+  private static void formatted() {
+    LOG.info(
+        String.format(
+            "Completed Command: ROT: %s\tEXT: %s\tWRS: %s", rotation, extension, wrist));
+  }
+
+  private static void parameterized() {
+    if (LOG.isInfoEnabled()) {
+      LOG.info(
+          "Completed Command: ROT: {}\tEXT: {}\tWRS: {}",
+          Unbox.box(rotation),
+          Unbox.box(extension),
+          Unbox.box(wrist));
+    }
+  }
+
+  private static void formattedDisabled() {
+    LOG.trace(
+        String.format(
+            "Completed Command: ROT: %s\tEXT: %s\tWRS: %s", rotation, extension, wrist));
+  }
+
+  private static void parameterizedDisabled() {
+    if (LOG.isTraceEnabled()) {
+      LOG.trace(
+          "Completed Command: ROT: {}\tEXT: {}\tWRS: {}",
+          Unbox.box(rotation),
+          Unbox.box(extension),
+          Unbox.box(wrist));
+    }
+  }
+}
@@ -0,0 +1,196 @@
+package net.teamrush27.frc2019.benchmark;
+
+import java.lang.management.ManagementFactory;
+import java.lang.ref.Reference;
+import java.lang.reflect.Field;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.function.Function;
+import net.teamrush27.frc2019.constants.CompBot;
+import net.teamrush27.frc2019.util.math.Pose2dWithCurvature;
+import net.teamrush27.frc2019.util.motion.DriveMotionPlanner;
+import net.teamrush27.frc2019.util.trajectory.PackedTrajectory;
+import net.teamrush27.frc2019.util.trajectory.Trajectory;
+import net.teamrush27.frc2019.util.trajectory.TrajectoryGenerator;
+import net.teamrush27.frc2019.util.trajectory.TrajectoryGenerator.TrajectorySet.MirroredTrajectory;
+import net.teamrush27.frc2019.util.trajectory.TrajectoryIterator;
+import net.teamrush27.frc2019.util.trajectory.TrajectoryUtil;
+import net.teamrush27.frc2019.util.trajectory.TrajectoryView;
+import net.teamrush27.frc2019.util.trajectory.timing.TimedState;
+import net.teamrush27.frc2019.util.trajectory.timing.TimedView;
+import org.apache.logging.log4j.LogManager;
+
+/**
+ * Heap held per state by the comp bot's trajectory set (both sides of every mirrored trajectory) as
+ * {@link Trajectory} and as {@link PackedTrajectory}, then nanoseconds and bytes allocated per
+ * sample when stepping through each at the 10ms robot period, on its own and inside {@link
+ * DriveMotionPlanner#update}:
+ *
+ * <pre>
+ * ./gradlew benchmark -Pbenchmark=TrajectoryBenchmark [-PbenchmarkArgs=passes]
+ * </pre>
+ */
+public class TrajectoryBenchmark {
+
+  private static final double DT = 0.01;
+  private static final int WARMUP_PASSES = 200;
+  // copies of the set held at once when measuring heap, to drown out the rest of the heap's noise
+  private static final int COPIES = 50;
+
+  private static final com.sun.management.ThreadMXBean THREADS =
+      (com.sun.management.ThreadMXBean) ManagementFactory.getThreadMXBean();
+
+  private static double sink = 0;
+
+  public static void main(String... args) throws Exception {
+    int passes = args.length > 0 ? Integer.parseInt(args[0]) : 500;
+
+    TrajectoryGenerator generator = new TrajectoryGenerator(new CompBot(), null);
+    generator.generateTrajectories();
+    List<Trajectory<TimedState<Pose2dWithCurvature>>> lefts = new ArrayList<>();
+    List<PackedTrajectory> packed = new ArrayList<>();
+    for (MirroredTrajectory mirrored : mirroredTrajectories(generator.getTrajectorySet())) {
+      lefts.add(mirrored.getLeft().toTrajectory());
+      packed.add(mirrored.getLeft());
+      packed.add(mirrored.getRight());
+    }
+    List<Trajectory<TimedState<Pose2dWithCurvature>>> trajectories = new ArrayList<>();
+    int states = 0;
+    for (PackedTrajectory trajectory : packed) {
+      trajectories.add(trajectory.toTrajectory());
+      states += trajectory.length();
+    }
+
+    System.out.println(packed.size() + " trajectories, " + states + " states");
+    footprint(
+        "Trajectory",
+        states,
+        lefts,
+        left -> {
+          Trajectory<TimedState<Pose2dWithCurvature>> copy =
+              PackedTrajectory.fromTrajectory(left).toTrajectory();
+          return new Object[] {copy, TrajectoryUtil.mirrorTimed(copy)};
+        });
+    footprint(
+        "PackedTrajectory",
+        states,
+        lefts,
+        left -> {
+          PackedTrajectory copy = PackedTrajectory.fromTrajectory(left);
+          return new Object[] {copy, TrajectoryUtil.mirrorTimed(copy)};
+        });
+
+    List<TrajectoryView<TimedState<Pose2dWithCurvature>>> timedViews = new ArrayList<>();
+    List<TrajectoryView<TimedState<Pose2dWithCurvature>>> packedViews = new ArrayList<>();
+    for (int i = 0; i < packed.size(); i++) {
+      timedViews.add(new TimedView<>(trajectories.get(i)));
+      packedViews.add(packed.get(i).getTimeView());
+    }
+    run("sample, TimedView", passes, () -> sample(timedViews));
+    run("sample, PackedTrajectory", passes, () -> sample(packedViews));
+    run("planner, TimedView", passes, () -> follow(timedViews));
+    run("planner, PackedTrajectory", passes, () -> follow(packedViews));
+    LogManager.shutdown();
+  }
+
+  private static List<MirroredTrajectory> mirroredTrajectories(Object set) throws Exception {
+    List<MirroredTrajectory> mirrored = new ArrayList<>();
+    for (Field field : set.getClass().getFields()) {
+      if (field.getType() == MirroredTrajectory.class) {
+        mirrored.add((MirroredTrajectory) field.get(set));
+      }
+    }
+    return mirrored;
+  }
+
+  /** Prints the heap held per state by copies of the set, each side built by {@code copy}. */
+  private static void footprint(
+      String name,
+      int states,
+      List<Trajectory<TimedState<Pose2dWithCurvature>>> lefts,
+      Function<Trajectory<TimedState<Pose2dWithCurvature>>, Object[]> copy) {
+    Object[][] copies = new Object[COPIES][];
+    long before = usedHeap();
+    for (int i = 0; i < COPIES; i++) {
+      List<Object> set = new ArrayList<>();
+      for (Trajectory<TimedState<Pose2dWithCurvature>> left : lefts) {
+        for (Object side : copy.apply(left)) {
+          set.add(side);
+        }
+      }
+      copies[i] = set.toArray();
+    }
+    long held = usedHeap() - before;
+    Reference.reachabilityFence(copies);
+    System.out.println(
+        String.format(
+            "%s: %.1f bytes/state, %.1f KiB/set",
+            name, (double) held / COPIES / states, held / COPIES / 1024.0));
+  }
+
+  private static long usedHeap() {
+    Runtime runtime = Runtime.getRuntime();
+    long used = Long.MAX_VALUE;
+    for (int i = 0; i < 5; i++) {
+      System.gc();
+      used = Math.min(used, runtime.totalMemory() - runtime.freeMemory());
+    }
+    return used;
+  }
+
+  /** @return samples taken */
+  private static long sample(List<TrajectoryView<TimedState<Pose2dWithCurvature>>> views) {
+    long samples = 0;
+    for (TrajectoryView<TimedState<Pose2dWithCurvature>> view : views) {
+      TrajectoryIterator<TimedState<Pose2dWithCurvature>> iterator =
+          new TrajectoryIterator<>(view);
+      while (!iterator.isDone()) {
+        sink += iterator.advance(DT).state().velocity();
+        samples++;
+      }
+    }
+    return samples;
+  }
+
+  /** @return planner updates made, following each trajectory perfectly */
+  private static long follow(List<TrajectoryView<TimedState<Pose2dWithCurvature>>> views) {
+    long updates = 0;
+    DriveMotionPlanner planner = new DriveMotionPlanner(new CompBot());
+    for (TrajectoryView<TimedState<Pose2dWithCurvature>> view : views) {
+      planner.reset();
+      planner.setTrajectory(new TrajectoryIterator<>(view));
+      double timestamp = 0;
+      while (!planner.isDone()) {
+        sink += planner.update(timestamp, planner.setpoint().state().getPose()).left_velocity;
+        timestamp += DT;
+        updates++;
+      }
+    }
+    return updates;
+  }
+
+  private interface Pass {
+    /** @return operations done */
+    long run();
+  }
+
+  private static void run(String name, int passes, Pass pass) {
+    for (int i = 0; i < WARMUP_PASSES; i++) {
+      pass.run();
+    }
+
+    long thread = Thread.currentThread().getId();
+    long operations = 0;
+    long allocated = THREADS.getThreadAllocatedBytes(thread);
+    long start = System.nanoTime();
+    for (int i = 0; i < passes; i++) {
+      operations += pass.run();
+    }
+    long nanos = System.nanoTime() - start;
+    long bytes = THREADS.getThreadAllocatedBytes(thread) - allocated;
+
+    System.out.println(
+        String.format(
+            "%s: %.0f ns/op, %d bytes/op", name, (double) nanos / operations, bytes / operations));
+  }
+}
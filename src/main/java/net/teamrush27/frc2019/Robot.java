@@ -7,8 +7,6 @@
 
 package net.teamrush27.frc2019;
 
-import com.google.gson.Gson;
-
 import edu.wpi.first.wpilibj.DriverStation;
 import edu.wpi.first.wpilibj.PowerDistributionPanel;
 import edu.wpi.first.wpilibj.TimedRobot;
@@ -24,6 +22,7 @@ import net.teamrush27.frc2019.constants.RobotConfigurationFactory;
 import net.teamrush27.frc2019.loops.Looper;
 import net.teamrush27.frc2019.managers.SuperstructureManager;
 import net.teamrush27.frc2019.managers.SuperstructureManager.WantedState;
+import net.teamrush27.frc2019.subsystems.FlightSnapshotLoop;
 import net.teamrush27.frc2019.subsystems.SubsystemManager;
 import net.teamrush27.frc2019.subsystems.impl.Arm;
 import net.teamrush27.frc2019.subsystems.impl.Drivetrain;
@@ -35,8 +34,13 @@ import net.teamrush27.frc2019.subsystems.impl.SpiderLegs;
 import net.teamrush27.frc2019.subsystems.impl.Wrist;
 import net.teamrush27.frc2019.subsystems.impl.dto.DriveCommand;
 import net.teamrush27.frc2019.subsystems.impl.dto.SmartDashboardCollection;
+import net.teamrush27.frc2019.util.ContentionMonitor;
 import net.teamrush27.frc2019.util.TelemetryUtil;
 import net.teamrush27.frc2019.util.crash.CrashTracker;
+import net.teamrush27.frc2019.util.dashboard.DashboardEntry;
+import net.teamrush27.frc2019.util.dashboard.DashboardPublisher;
+import net.teamrush27.frc2019.util.dashboard.DashboardPublisher.Rate;
+import net.teamrush27.frc2019.util.log.LogSegments;
 import net.teamrush27.frc2019.util.trajectory.TrajectoryGenerator;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
@@ -70,8 +74,10 @@ public class Robot extends TimedRobot {
           superman,
           robotStateEstimator);
 
-  private final Looper enabledLooper = new Looper();
-  private final Looper disabledLooper = new Looper();
+  private final FlightSnapshotLoop flightSnapshots = new FlightSnapshotLoop(subsystemManager);
+
+  private final Looper enabledLooper = new Looper("looper.enabled");
+  private final Looper disabledLooper = new Looper("looper.disabled");
 
   private final Logger LOG = LogManager.getLogger(Robot.class);
 
@@ -79,13 +85,21 @@ public class Robot extends TimedRobot {
 
   boolean autoRan = false;
 
-  private Gson serializer = new Gson();
+  private final DashboardPublisher dashboard = DashboardPublisher.getInstance();
+  private final SmartDashboardCollection collection = new SmartDashboardCollection();
+  private final StringBuilder robotState = new StringBuilder();
+  private final DashboardEntry robotStateEntry = dashboard.text("robot.state", Rate.NORMAL);
+  private final DashboardEntry triggersEntry = dashboard.number("triggers", Rate.FAST, 0.01);
+
+  private final ContentionMonitor contentionMonitor = new ContentionMonitor();
+  private final LogSegments telemetryLogs = new LogSegments("telemetry", ".csv");
 
   boolean cheesyDrive = false;
 
   @Override
   public void robotInit() {
     subsystemManager.registerEnabledLoops(enabledLooper);
+    enabledLooper.register(flightSnapshots);
     subsystemManager.registerDisabledLoops(disabledLooper);
     TrajectoryGenerator.getInstance().generateTrajectories();
     superman.zeroSensors();
@@ -102,17 +116,22 @@ public class Robot extends TimedRobot {
 
   @Override
   public void robotPeriodic() {
-    SmartDashboardCollection collection = new SmartDashboardCollection();
+    collection.clear();
     //limelights.outputToSmartDashboard();
-    subsystemManager.outputToSmartDashboard(collection);
-    SmartDashboard.putString("robot.state", serializer.toJson(collection));
-    // enabledLooper.outputToSmartDashboard();
+    if (subsystemManager.outputToSmartDashboard(collection)) {
+      robotState.setLength(0);
+      collection.appendJSON(robotState);
+      robotStateEntry.setText(robotState);
+    }
+    enabledLooper.outputToSmartDashboard();
     // LOG.info("rot: {} ext: {} wrist: {}", arm.getArmState().getRotationInDegrees(),
     //	arm.getArmState().getExtensionInInches(), wrist.getPWMAngle());
     // wrist.outputToSmartDashboard();
 
     // gripper.outputToSmartDashboard();
-    SmartDashboard.putNumber("triggers", operatorInterface.getArmInput().getExtensionInput());
+    triggersEntry.setNumber(operatorInterface.getArmInput().getExtensionInput());
+
+    dashboard.publish();
   }
 
   @Override
@@ -241,10 +260,12 @@ public class Robot extends TimedRobot {
       led.setWantedState(LED.WantedState.DISABLED);
     }
     drivetrain.stopLogging();
+    contentionMonitor.logContention();
     //    gripper.zeroSensors();
     SmartDashboard.putString("Match Cycle", "DISABLED");
     try {
-      TelemetryUtil.getInstance().writeToFile("/media/sda1/logs/telemetry.csv");
+      TelemetryUtil.getInstance().writeToFile(telemetryLogs.next());
+      telemetryLogs.finish();
     } catch (IOException e) {
       LOG.error("could not write telemetry", e);
     }
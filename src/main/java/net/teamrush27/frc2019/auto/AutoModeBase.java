@@ -2,6 +2,7 @@ package net.teamrush27.frc2019.auto;
 
 import edu.wpi.first.wpilibj.DriverStation;
 import net.teamrush27.frc2019.auto.actions.Action;
+import net.teamrush27.frc2019.util.time.Clock;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 
@@ -57,10 +58,9 @@ public abstract class AutoModeBase {
 
     while (isActiveWithThrow() && !action.isFinished()) {
       action.update();
-      long waitTime = (long) (mUpdateRate * 1000.0);
 
       try {
-        Thread.sleep(waitTime);
+        Clock.sleep(mUpdateRate);
       } catch (InterruptedException e) {
         e.printStackTrace();
       }
@@ -1,11 +1,11 @@
 package net.teamrush27.frc2019.auto.actions.impl;
 
-import edu.wpi.first.wpilibj.Timer;
 import net.teamrush27.frc2019.auto.actions.Action;
 import net.teamrush27.frc2019.managers.SuperstructureManager;
 import net.teamrush27.frc2019.subsystems.impl.Arm;
 import net.teamrush27.frc2019.subsystems.impl.Arm.ArmState;
 import net.teamrush27.frc2019.util.math.MathUtils;
+import net.teamrush27.frc2019.util.time.Clock;
 
 public class AutoSuperstructurePosition implements Action {
   private static final SuperstructureManager superman = SuperstructureManager.getInstance();
@@ -44,12 +44,12 @@ public class AutoSuperstructurePosition implements Action {
   @Override
   public void start() {
     superman.setWantedState(wantedState, invertedRotation, hasHatch);
-    mStartTime = Timer.getFPGATimestamp();
+    mStartTime = Clock.getTimestamp();
   }
 
   @Override
   public boolean isFinished() {
-    if (Timer.getFPGATimestamp() - mStartTime > kTimeout) {
+    if (Clock.getTimestamp() - mStartTime > kTimeout) {
       System.out.println("Auto Superstructure Position timed out!!!");
       return true;
     }
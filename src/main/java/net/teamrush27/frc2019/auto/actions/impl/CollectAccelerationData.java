@@ -1,6 +1,5 @@
 package net.teamrush27.frc2019.auto.actions.impl;
 
-import edu.wpi.first.wpilibj.Timer;
 import java.util.List;
 import net.teamrush27.frc2019.auto.actions.Action;
 import net.teamrush27.frc2019.subsystems.impl.Drivetrain;
@@ -9,6 +8,7 @@ import net.teamrush27.frc2019.util.ReflectingCSVWriter;
 import net.teamrush27.frc2019.util.math.MathUtils;
 import net.teamrush27.frc2019.util.physics.DriveCharacterization;
 import net.teamrush27.frc2019.util.physics.DriveCharacterization.AccelerationDataPoint;
+import net.teamrush27.frc2019.util.time.Clock;
 
 public class CollectAccelerationData implements Action {
   private static final double kPower = 0.5;
@@ -44,7 +44,7 @@ public class CollectAccelerationData implements Action {
         new DriveCommand(
             (mReverse ? -1.0 : 1.0) * kPower,
             (mReverse ? -1.0 : 1.0) * (mTurn ? -1.0 : 1.0) * kPower));
-    mStartTime = Timer.getFPGATimestamp();
+    mStartTime = Clock.getTimestamp();
     mPrevTime = mStartTime;
   }
 
@@ -56,7 +56,7 @@ public class CollectAccelerationData implements Action {
             / 4096.0
             * Math.PI
             * 10;
-    double currentTime = Timer.getFPGATimestamp();
+    double currentTime = Clock.getTimestamp();
 
     // don't calculate acceleration until we've populated prevTime and prevVelocity
     if (mPrevTime == mStartTime) {
@@ -88,12 +88,12 @@ public class CollectAccelerationData implements Action {
 
   @Override
   public boolean isFinished() {
-    return Timer.getFPGATimestamp() - mStartTime > kTotalTime;
+    return Clock.getTimestamp() - mStartTime > kTotalTime;
   }
 
   @Override
   public void done() {
     mDrive.setOpenLoop(DriveCommand.BRAKE);
-    mCSVWriter.flush();
+    mCSVWriter.close();
   }
 }
@@ -1,6 +1,5 @@
 package net.teamrush27.frc2019.auto.actions.impl;
 
-import edu.wpi.first.wpilibj.Timer;
 import java.util.List;
 import net.teamrush27.frc2019.auto.actions.Action;
 import net.teamrush27.frc2019.base.RobotState;
@@ -9,6 +8,7 @@ import net.teamrush27.frc2019.subsystems.impl.dto.DriveCommand;
 import net.teamrush27.frc2019.util.ReflectingCSVWriter;
 import net.teamrush27.frc2019.util.physics.DriveCharacterization;
 import net.teamrush27.frc2019.util.physics.DriveCharacterization.CurvatureDataPoint;
+import net.teamrush27.frc2019.util.time.Clock;
 
 public class CollectCurvatureData implements Action {
   private static final double kMaxPower = 0.4;
@@ -41,12 +41,12 @@ public class CollectCurvatureData implements Action {
   @Override
   public void start() {
     mDrive.setOpenLoop(new DriveCommand(kStartPower, kStartPower));
-    mStartTime = Timer.getFPGATimestamp();
+    mStartTime = Clock.getTimestamp();
   }
 
   @Override
   public void update() {
-    double t = Timer.getFPGATimestamp() - mStartTime;
+    double t = Clock.getTimestamp() - mStartTime;
     if (t < kStartTime) { // give the robot some time to accelerate before recording data
       return;
     }
@@ -75,6 +75,6 @@ public class CollectCurvatureData implements Action {
   @Override
   public void done() {
     mDrive.setOpenLoop(DriveCommand.BRAKE);
-    mCSVWriter.flush();
+    mCSVWriter.close();
   }
 }
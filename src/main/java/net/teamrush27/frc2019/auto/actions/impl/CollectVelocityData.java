@@ -1,6 +1,5 @@
 package net.teamrush27.frc2019.auto.actions.impl;
 
-import edu.wpi.first.wpilibj.Timer;
 import java.util.List;
 import net.teamrush27.frc2019.auto.actions.Action;
 import net.teamrush27.frc2019.subsystems.impl.Drivetrain;
@@ -8,6 +7,7 @@ import net.teamrush27.frc2019.subsystems.impl.dto.DriveCommand;
 import net.teamrush27.frc2019.util.ReflectingCSVWriter;
 import net.teamrush27.frc2019.util.physics.DriveCharacterization;
 import net.teamrush27.frc2019.util.physics.DriveCharacterization.VelocityDataPoint;
+import net.teamrush27.frc2019.util.time.Clock;
 
 public class CollectVelocityData implements Action {
   private static final double kMaxPower = 0.25;
@@ -38,12 +38,12 @@ public class CollectVelocityData implements Action {
 
   @Override
   public void start() {
-    mStartTime = Timer.getFPGATimestamp();
+    mStartTime = Clock.getTimestamp();
   }
 
   @Override
   public void update() {
-    double percentPower = kRampRate * (Timer.getFPGATimestamp() - mStartTime);
+    double percentPower = kRampRate * (Clock.getTimestamp() - mStartTime);
     if (percentPower > kMaxPower) {
       isFinished = true;
       return;
@@ -72,6 +72,6 @@ public class CollectVelocityData implements Action {
   @Override
   public void done() {
     mDrive.setOpenLoop(DriveCommand.BRAKE);
-    mCSVWriter.flush();
+    mCSVWriter.close();
   }
 }
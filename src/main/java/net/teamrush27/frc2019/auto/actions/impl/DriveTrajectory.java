@@ -1,15 +1,14 @@
 package net.teamrush27.frc2019.auto.actions.impl;
 
-import edu.wpi.first.wpilibj.Timer;
 import net.teamrush27.frc2019.auto.actions.Action;
 import net.teamrush27.frc2019.base.RobotState;
 import net.teamrush27.frc2019.subsystems.impl.Drivetrain;
 import net.teamrush27.frc2019.util.math.Pose2d;
 import net.teamrush27.frc2019.util.math.Pose2dWithCurvature;
+import net.teamrush27.frc2019.util.time.Clock;
+import net.teamrush27.frc2019.util.trajectory.PackedTrajectory;
 import net.teamrush27.frc2019.util.trajectory.Trajectory;
-import net.teamrush27.frc2019.util.trajectory.TrajectoryIterator;
 import net.teamrush27.frc2019.util.trajectory.timing.TimedState;
-import net.teamrush27.frc2019.util.trajectory.timing.TimedView;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 
@@ -20,10 +19,24 @@ public class DriveTrajectory implements Action {
   private static final Drivetrain mDrive = Drivetrain.getInstance();
   private static final RobotState mRobotState = RobotState.getInstance();
 
-  private final TrajectoryIterator<TimedState<Pose2dWithCurvature>> mTrajectory;
+  private final PackedTrajectory mTrajectory;
   private final boolean mResetPose;
   private final boolean mResetHeading;
 
+  public DriveTrajectory(PackedTrajectory trajectory) {
+    this(trajectory, false);
+  }
+
+  public DriveTrajectory(PackedTrajectory trajectory, boolean resetPose) {
+    this(trajectory, resetPose, false);
+  }
+
+  public DriveTrajectory(PackedTrajectory trajectory, boolean resetPose, boolean resetHeading) {
+    mTrajectory = trajectory;
+    mResetPose = resetPose;
+    mResetHeading = resetHeading;
+  }
+
   public DriveTrajectory(Trajectory<TimedState<Pose2dWithCurvature>> trajectory) {
     this(trajectory, false);
   }
@@ -37,9 +50,7 @@ public class DriveTrajectory implements Action {
       Trajectory<TimedState<Pose2dWithCurvature>> trajectory,
       boolean resetPose,
       boolean resetHeading) {
-    mTrajectory = new TrajectoryIterator<>(new TimedView<>(trajectory));
-    mResetPose = resetPose;
-    mResetHeading = resetHeading;
+    this(PackedTrajectory.fromTrajectory(trajectory), resetPose, resetHeading);
   }
 
   @Override
@@ -59,15 +70,15 @@ public class DriveTrajectory implements Action {
 
   @Override
   public void start() {
-    LOG.info("Starting trajectory! (length=" + mTrajectory.getRemainingProgress() + ")");
-    Pose2d resetPose = mTrajectory.getState().state().getPose();
+    LOG.info("Starting trajectory! (length=" + mTrajectory.getDuration() + ")");
+    Pose2d resetPose = mTrajectory.getPose(0);
 
     if (!mResetHeading) {
       resetPose = new Pose2d(resetPose.getTranslation(), mDrive.getHeading());
     }
 
     if (mResetPose) {
-      mRobotState.reset(Timer.getFPGATimestamp(), resetPose);
+      mRobotState.reset(Clock.getTimestamp(), resetPose);
     }
     mDrive.setTrajectory(mTrajectory);
   }
@@ -1,8 +1,8 @@
 package net.teamrush27.frc2019.auto.actions.impl;
 
-import edu.wpi.first.wpilibj.Timer;
 import net.teamrush27.frc2019.subsystems.impl.Gripper;
 import net.teamrush27.frc2019.subsystems.impl.Gripper.WantedState;
+import net.teamrush27.frc2019.util.time.Clock;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 
@@ -26,7 +26,7 @@ public class GripperStateAction extends RunOnceAction {
   @Override
   public void runOnce() {
     Gripper.getInstance().setWantedState(wantedState);
-    this.startTime = Timer.getFPGATimestamp();
+    this.startTime = Clock.getTimestamp();
   }
 
   @Override
@@ -34,7 +34,7 @@ public class GripperStateAction extends RunOnceAction {
     if (delay == 0) {
       return true;
     }
-    if (Timer.getFPGATimestamp() - startTime > delay) {
+    if (Clock.getTimestamp() - startTime > delay) {
       LOG.info("Done setting Gripper State");
       return true;
     }
@@ -1,9 +1,9 @@
 package net.teamrush27.frc2019.auto.actions.impl;
 
-import edu.wpi.first.wpilibj.Timer;
 import net.teamrush27.frc2019.auto.actions.Action;
 import net.teamrush27.frc2019.subsystems.impl.Drivetrain;
 import net.teamrush27.frc2019.subsystems.impl.dto.DriveCommand;
+import net.teamrush27.frc2019.util.time.Clock;
 
 public class OpenLoopDrive implements Action {
   private static final Drivetrain drivetrain = Drivetrain.getInstance();
@@ -21,12 +21,12 @@ public class OpenLoopDrive implements Action {
 
   @Override
   public boolean isFinished() {
-    return Timer.getFPGATimestamp() - mStartTime > mDuration || mFinishWhenSeesCube;
+    return Clock.getTimestamp() - mStartTime > mDuration || mFinishWhenSeesCube;
   }
 
   @Override
   public void update() {
-    System.out.println((Timer.getFPGATimestamp() - mStartTime) + " > " + mDuration);
+    System.out.println((Clock.getTimestamp() - mStartTime) + " > " + mDuration);
   }
 
   @Override
@@ -37,6 +37,6 @@ public class OpenLoopDrive implements Action {
   @Override
   public void start() {
     drivetrain.setOpenLoop(new DriveCommand(mLeft, mRight));
-    mStartTime = Timer.getFPGATimestamp();
+    mStartTime = Clock.getTimestamp();
   }
 }
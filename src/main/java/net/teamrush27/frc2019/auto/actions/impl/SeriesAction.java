@@ -1,10 +1,10 @@
 package net.teamrush27.frc2019.auto.actions.impl;
 
-import edu.wpi.first.wpilibj.Timer;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
 import net.teamrush27.frc2019.auto.actions.Action;
+import net.teamrush27.frc2019.util.time.Clock;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 
@@ -34,7 +34,7 @@ public class SeriesAction implements Action {
 
   @Override
   public void start() {
-    startTime = Timer.getFPGATimestamp();
+    startTime = Clock.getTimestamp();
   }
 
   @Override
@@ -54,7 +54,7 @@ public class SeriesAction implements Action {
       mCurAction.done();
       mCurAction = null;
 
-      LOG.info("Action Completed. Elapsed Time: {}", Timer.getFPGATimestamp() - startTime);
+      LOG.info("Action Completed. Elapsed Time: {}", Clock.getTimestamp() - startTime);
     }
   }
 
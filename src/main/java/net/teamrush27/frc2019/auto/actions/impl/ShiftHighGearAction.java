@@ -1,9 +1,9 @@
 package net.teamrush27.frc2019.auto.actions.impl;
 
-import edu.wpi.first.wpilibj.Timer;
 import net.teamrush27.frc2019.auto.actions.Action;
 import net.teamrush27.frc2019.subsystems.impl.Drivetrain;
 import net.teamrush27.frc2019.subsystems.impl.dto.DriveCommand;
+import net.teamrush27.frc2019.util.time.Clock;
 
 public class ShiftHighGearAction implements Action {
   private static final double kTime = 2.0;
@@ -23,7 +23,7 @@ public class ShiftHighGearAction implements Action {
     mDrive.shift(true);
     mDrive.setOpenLoop(
         new DriveCommand((mReverse ? -1.0 : 1.0) * kPower, (mReverse ? -1.0 : 1.0) * kPower));
-    mStartTime = Timer.getFPGATimestamp();
+    mStartTime = Clock.getTimestamp();
   }
 
   @Override
@@ -31,7 +31,7 @@ public class ShiftHighGearAction implements Action {
 
   @Override
   public boolean isFinished() {
-    return Timer.getFPGATimestamp() - mStartTime > kTime;
+    return Clock.getTimestamp() - mStartTime > kTime;
   }
 
   @Override
@@ -1,7 +1,7 @@
 package net.teamrush27.frc2019.auto.actions.impl;
 
-import edu.wpi.first.wpilibj.Timer;
 import net.teamrush27.frc2019.auto.actions.Action;
+import net.teamrush27.frc2019.util.time.Clock;
 
 /**
  * Action to wait for a given amount of time To use this Action, call runAction(new
@@ -18,7 +18,7 @@ public class WaitAction implements Action {
 
   @Override
   public boolean isFinished() {
-    return Timer.getFPGATimestamp() - mStartTime >= mTimeToWait;
+    return Clock.getTimestamp() - mStartTime >= mTimeToWait;
   }
 
   @Override
@@ -29,6 +29,6 @@ public class WaitAction implements Action {
 
   @Override
   public void start() {
-    mStartTime = Timer.getFPGATimestamp();
+    mStartTime = Clock.getTimestamp();
   }
 }
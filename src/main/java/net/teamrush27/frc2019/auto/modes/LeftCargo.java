@@ -13,21 +13,21 @@ import net.teamrush27.frc2019.auto.actions.impl.SeriesAction;
 import net.teamrush27.frc2019.auto.actions.impl.WaitUntilCrossXBoundaryCommand;
 import net.teamrush27.frc2019.managers.SuperstructureManager.WantedState;
 import net.teamrush27.frc2019.subsystems.impl.Gripper;
-import net.teamrush27.frc2019.util.trajectory.Trajectory;
+import net.teamrush27.frc2019.util.trajectory.PackedTrajectory;
 import net.teamrush27.frc2019.util.trajectory.TrajectoryGenerator;
 
 public class LeftCargo extends AutoModeBase {
 
   @Override
   protected void routine() throws AutoModeEndedException {
-    Trajectory habToCargoSideClose =
+    PackedTrajectory habToCargoSideClose =
         TrajectoryGenerator.getInstance().getTrajectorySet().habToCargoSideClose.getLeft();
-    Trajectory cargoSideCloseToHP =
+    PackedTrajectory cargoSideCloseToHP =
         TrajectoryGenerator.getInstance().getTrajectorySet().cargoSideCloseToHP.getLeft();
-    Trajectory hpToCargoSideMid =
+    PackedTrajectory hpToCargoSideMid =
         TrajectoryGenerator.getInstance().getTrajectorySet().hpToCargoSideMid.getLeft();
 
-    Trajectory scootBack2 =
+    PackedTrajectory scootBack2 =
         TrajectoryGenerator.getInstance().getTrajectorySet().scootBack2.getLeft();
 
     List commands =
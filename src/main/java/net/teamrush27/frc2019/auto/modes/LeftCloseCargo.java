@@ -13,20 +13,20 @@ import net.teamrush27.frc2019.auto.actions.impl.SeriesAction;
 import net.teamrush27.frc2019.auto.actions.impl.WaitAction;
 import net.teamrush27.frc2019.managers.SuperstructureManager.WantedState;
 import net.teamrush27.frc2019.subsystems.impl.Gripper;
-import net.teamrush27.frc2019.util.trajectory.Trajectory;
+import net.teamrush27.frc2019.util.trajectory.PackedTrajectory;
 import net.teamrush27.frc2019.util.trajectory.TrajectoryGenerator;
 
 public class LeftCloseCargo extends AutoModeBase {
 
   @Override
   protected void routine() throws AutoModeEndedException {
-    Trajectory habToCargoFront =
+    PackedTrajectory habToCargoFront =
         TrajectoryGenerator.getInstance().getTrajectorySet().habToCargoFront.getLeft();
 
-    Trajectory cargoFrontToHP =
+    PackedTrajectory cargoFrontToHP =
         TrajectoryGenerator.getInstance().getTrajectorySet().cargoFrontToHP.getLeft();
 
-    Trajectory hpToCargoSideClose =
+    PackedTrajectory hpToCargoSideClose =
         TrajectoryGenerator.getInstance().getTrajectorySet().hpToCargoSideClose.getLeft();
 
     List commands =
@@ -14,21 +14,22 @@ import net.teamrush27.frc2019.auto.actions.impl.WaitAction;
 import net.teamrush27.frc2019.auto.actions.impl.WaitUntilCrossXBoundaryCommand;
 import net.teamrush27.frc2019.managers.SuperstructureManager.WantedState;
 import net.teamrush27.frc2019.subsystems.impl.Gripper;
-import net.teamrush27.frc2019.util.trajectory.Trajectory;
+import net.teamrush27.frc2019.util.trajectory.PackedTrajectory;
 import net.teamrush27.frc2019.util.trajectory.TrajectoryGenerator;
 
 public class LeftRocket extends AutoModeBase {
 
   @Override
   protected void routine() throws AutoModeEndedException {
-    Trajectory habToFarRocket =
+    PackedTrajectory habToFarRocket =
         TrajectoryGenerator.getInstance().getTrajectorySet().habToRocketRear.getLeft();
-    Trajectory altRocketRearToHP =
+    PackedTrajectory altRocketRearToHP =
         TrajectoryGenerator.getInstance().getTrajectorySet().altRocketRearToHP.getLeft();
-    Trajectory hpToRocketClose =
+    PackedTrajectory hpToRocketClose =
         TrajectoryGenerator.getInstance().getTrajectorySet().hpToRocketFront.getLeft();
 
-    Trajectory scootBack = TrajectoryGenerator.getInstance().getTrajectorySet().scootBack.getLeft();
+    PackedTrajectory scootBack =
+        TrajectoryGenerator.getInstance().getTrajectorySet().scootBack.getLeft();
 
     List commands =
         Arrays.asList(
@@ -13,7 +13,7 @@ import net.teamrush27.frc2019.auto.actions.impl.SeriesAction;
 import net.teamrush27.frc2019.auto.actions.impl.WaitAction;
 import net.teamrush27.frc2019.managers.SuperstructureManager.WantedState;
 import net.teamrush27.frc2019.subsystems.impl.Gripper;
-import net.teamrush27.frc2019.util.trajectory.Trajectory;
+import net.teamrush27.frc2019.util.trajectory.PackedTrajectory;
 import net.teamrush27.frc2019.util.trajectory.TrajectoryGenerator;
 
 public class RightCloseCargo extends AutoModeBase {
@@ -21,13 +21,13 @@ public class RightCloseCargo extends AutoModeBase {
   @Override
   protected void routine() throws AutoModeEndedException {
 
-    Trajectory habToCargoFront =
+    PackedTrajectory habToCargoFront =
         TrajectoryGenerator.getInstance().getTrajectorySet().habToCargoFront.getRight();
 
-    Trajectory cargoFrontToHP =
+    PackedTrajectory cargoFrontToHP =
         TrajectoryGenerator.getInstance().getTrajectorySet().cargoFrontToHP.getRight();
 
-    Trajectory hpToCargoSideClose =
+    PackedTrajectory hpToCargoSideClose =
         TrajectoryGenerator.getInstance().getTrajectorySet().hpToCargoSideClose.getRight();
 
     List commands =
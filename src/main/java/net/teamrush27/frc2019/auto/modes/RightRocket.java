@@ -14,21 +14,21 @@ import net.teamrush27.frc2019.auto.actions.impl.WaitAction;
 import net.teamrush27.frc2019.auto.actions.impl.WaitUntilCrossXBoundaryCommand;
 import net.teamrush27.frc2019.managers.SuperstructureManager.WantedState;
 import net.teamrush27.frc2019.subsystems.impl.Gripper;
-import net.teamrush27.frc2019.util.trajectory.Trajectory;
+import net.teamrush27.frc2019.util.trajectory.PackedTrajectory;
 import net.teamrush27.frc2019.util.trajectory.TrajectoryGenerator;
 
 public class RightRocket extends AutoModeBase {
 
   @Override
   protected void routine() throws AutoModeEndedException {
-    Trajectory habToFarRocket =
+    PackedTrajectory habToFarRocket =
         TrajectoryGenerator.getInstance().getTrajectorySet().habToRocketRear.getRight();
-    Trajectory altRocketRearToHP =
+    PackedTrajectory altRocketRearToHP =
         TrajectoryGenerator.getInstance().getTrajectorySet().altRocketRearToHP.getRight();
-    Trajectory hpToRocketClose =
+    PackedTrajectory hpToRocketClose =
         TrajectoryGenerator.getInstance().getTrajectorySet().hpToRocketFront.getRight();
 
-    Trajectory scootBack =
+    PackedTrajectory scootBack =
         TrajectoryGenerator.getInstance().getTrajectorySet().scootBack.getRight();
 
     List commands =
@@ -3,14 +3,14 @@ package net.teamrush27.frc2019.auto.modes;
 import net.teamrush27.frc2019.auto.AutoModeBase;
 import net.teamrush27.frc2019.auto.AutoModeEndedException;
 import net.teamrush27.frc2019.auto.actions.impl.DriveTrajectory;
-import net.teamrush27.frc2019.util.trajectory.Trajectory;
+import net.teamrush27.frc2019.util.trajectory.PackedTrajectory;
 import net.teamrush27.frc2019.util.trajectory.TrajectoryGenerator;
 
 public class TestMode extends AutoModeBase {
   @Override
   protected void routine() throws AutoModeEndedException {
     System.out.println("Test mode");
-    Trajectory cargoSideCloseToHP =
+    PackedTrajectory cargoSideCloseToHP =
         TrajectoryGenerator.getInstance().getTrajectorySet().justStraight.getRight();
 
     DriveTrajectory cargoSideCloseToHPAction = new DriveTrajectory(cargoSideCloseToHP, true);
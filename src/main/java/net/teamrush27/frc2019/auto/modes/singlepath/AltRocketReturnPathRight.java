@@ -4,14 +4,14 @@ import net.teamrush27.frc2019.auto.AutoModeBase;
 import net.teamrush27.frc2019.auto.AutoModeEndedException;
 import net.teamrush27.frc2019.auto.actions.impl.DriveTrajectory;
 import net.teamrush27.frc2019.auto.actions.impl.SeriesAction;
-import net.teamrush27.frc2019.util.trajectory.Trajectory;
+import net.teamrush27.frc2019.util.trajectory.PackedTrajectory;
 import net.teamrush27.frc2019.util.trajectory.TrajectoryGenerator;
 
 public class AltRocketReturnPathRight extends AutoModeBase {
 
   @Override
   protected void routine() throws AutoModeEndedException {
-    Trajectory altRocketRearToHP =
+    PackedTrajectory altRocketRearToHP =
         TrajectoryGenerator.getInstance().getTrajectorySet().altRocketRearToHP.getRight();
 
     runAction(new SeriesAction(new DriveTrajectory(altRocketRearToHP, true, true)));
@@ -1,11 +1,13 @@
 package net.teamrush27.frc2019.base;
 
-import edu.wpi.first.wpilibj.smartdashboard.SmartDashboard;
 import java.util.Arrays;
 import java.util.Map;
 import java.util.Optional;
 import net.teamrush27.frc2019.constants.TrackingConstants;
 import net.teamrush27.frc2019.subsystems.impl.Drivetrain;
+import net.teamrush27.frc2019.util.dashboard.DashboardEntry;
+import net.teamrush27.frc2019.util.dashboard.DashboardPublisher.Rate;
+import net.teamrush27.frc2019.util.dashboard.DashboardPublisher;
 import net.teamrush27.frc2019.util.interpolate.InterpolatingDouble;
 import net.teamrush27.frc2019.util.interpolate.InterpolatingTreeMap;
 import net.teamrush27.frc2019.util.math.KinematicsUtils;
@@ -17,21 +19,39 @@ import net.teamrush27.frc2019.util.math.Twist2d;
 
 public class RobotState {
 
-  private static RobotState instance_ = new RobotState();
+  private static RobotState instance_ = null;
 
-  public static RobotState getInstance() {
+  public static synchronized RobotState getInstance() {
+    if (instance_ == null) {
+      instance_ = new RobotState(true);
+    }
     return instance_;
   }
 
+  /**
+   * @return an estimator of its own that never touches the drivetrain, for replaying logs off the
+   *     robot
+   */
+  public static RobotState createDetached() {
+    return new RobotState(false);
+  }
+
   private static final int kObservationBufferSize = 100;
 
   // FPGATimestamp -> RigidTransform2d or Rotation2d
   private InterpolatingTreeMap<InterpolatingDouble, Pose2d> field_to_vehicle_;
+  // newest entry of field_to_vehicle_, kept so reading it needs no map entry
+  private double latest_timestamp_;
+  private Pose2d latest_field_to_vehicle_;
   private Twist2d vehicle_velocity_predicted_;
   private Twist2d vehicle_velocity_measured_;
   private double distance_driven_;
 
-  private RobotState() {
+  // only the robot's instance keeps the gyro in step with resets
+  private final boolean drives_gyro_;
+
+  private RobotState(boolean drives_gyro) {
+    drives_gyro_ = drives_gyro;
     reset(0, new Pose2d());
   }
 
@@ -39,7 +59,11 @@ public class RobotState {
   public synchronized void reset(double start_time, Pose2d initial_field_to_vehicle) {
     field_to_vehicle_ = new InterpolatingTreeMap<>(kObservationBufferSize);
     field_to_vehicle_.put(new InterpolatingDouble(start_time), initial_field_to_vehicle);
-    Drivetrain.getInstance().setHeading(initial_field_to_vehicle.getRotation());
+    latest_timestamp_ = start_time;
+    latest_field_to_vehicle_ = initial_field_to_vehicle;
+    if (drives_gyro_) {
+      Drivetrain.getInstance().setHeading(initial_field_to_vehicle.getRotation());
+    }
     vehicle_velocity_predicted_ = Twist2d.identity();
     vehicle_velocity_measured_ = Twist2d.identity();
     distance_driven_ = 0.0;
@@ -61,6 +85,11 @@ public class RobotState {
     return field_to_vehicle_.lastEntry();
   }
 
+  /** Same pose as {@link #getLatestFieldToVehicle()}, without allocating. */
+  public synchronized Pose2d getLatestFieldToVehiclePose() {
+    return latest_field_to_vehicle_;
+  }
+
   public synchronized Pose2d getPredictedFieldToVehicle(double lookahead_time) {
     return getLatestFieldToVehicle()
         .getValue()
@@ -69,6 +98,10 @@ public class RobotState {
 
   public synchronized void addFieldToVehicleObservation(double timestamp, Pose2d observation) {
     field_to_vehicle_.put(new InterpolatingDouble(timestamp), observation);
+    if (timestamp >= latest_timestamp_) {
+      latest_timestamp_ = timestamp;
+      latest_field_to_vehicle_ = observation;
+    }
   }
 
   public synchronized void addObservations(
@@ -108,12 +141,24 @@ public class RobotState {
     return vehicle_velocity_measured_;
   }
 
+  private DashboardEntry[] dashboard_entries_ = null;
+
   public void outputToSmartDashboard() {
+    if (dashboard_entries_ == null) {
+      DashboardPublisher dashboard = DashboardPublisher.getInstance();
+      dashboard_entries_ =
+          new DashboardEntry[] {
+            dashboard.number("Robot Pose X", Rate.FAST, 0.1),
+            dashboard.number("Robot Pose Y", Rate.FAST, 0.1),
+            dashboard.number("Robot Pose Theta", Rate.FAST, 0.1),
+            dashboard.number("Robot Linear Velocity", Rate.FAST, 0.1)
+          };
+    }
     Pose2d odometry = getLatestFieldToVehicle().getValue();
-    SmartDashboard.putNumber("Robot Pose X", odometry.getTranslation().x());
-    SmartDashboard.putNumber("Robot Pose Y", odometry.getTranslation().y());
-    SmartDashboard.putNumber("Robot Pose Theta", odometry.getRotation().getDegrees());
-    SmartDashboard.putNumber("Robot Linear Velocity", vehicle_velocity_measured_.deltaX);
+    dashboard_entries_[0].setNumber(odometry.getTranslation().x());
+    dashboard_entries_[1].setNumber(odometry.getTranslation().y());
+    dashboard_entries_[2].setNumber(odometry.getRotation().getDegrees());
+    dashboard_entries_[3].setNumber(vehicle_velocity_measured_.deltaX);
   }
 
   public enum Target {
@@ -23,6 +23,39 @@ public class RobotConstants {
 
   // Looping Parameters
   public static double LOOPER_DELTA_TIME = 0.005; // 200hz
+  public static double LOOPER_SUMMARY_PERIOD = 5.0; // seconds between timing summary log lines
+  public static double LOOPER_STOP_TIMEOUT = 0.1; // longest stop() waits for an in-flight tick
+  public static double LOOPER_TICK_BUDGET = 0.004; // past this, deferrable loops wait a tick
+  public static double LED_IO_PERIOD = 0.05; // 20hz arduino updates
+  public static double LIMELIGHT_LOOP_PERIOD = 0.02; // 50hz tracking state machine
+  public static boolean PARALLEL_SUBSYSTEM_READS = false; // overlap CAN reads on worker threads
+  public static int SUBSYSTEM_READ_THREADS = 2; // roborio is dual core
+  public static boolean PARALLEL_LOOP_BRANCHES = false; // run independent loops concurrently
+  public static int LOOP_BRANCH_THREADS = 1; // workers besides the looper thread
+
+  // Logging
+  public static boolean BINARY_LOGS = true; // mmapped .bin logs instead of text CSV
+  public static int CSV_WRITER_CAPACITY = 4096; // rows queued per CSV writer, power of two
+  public static double CSV_WRITER_FLUSH_PERIOD = 1.0; // seconds between CSV flushes
+  public static int CSV_WRITER_FLUSH_ROWS = 512; // rows between CSV flushes
+  public static int TELEMETRY_CHANNEL_CAPACITY = 16384; // samples per channel, ~80s at 200hz
+  public static String LOG_ROOT = "/media/sda1/logs"; // usb stick
+  public static String LOG_FALLBACK_ROOT = "/home/lvuser/logs"; // when the stick is missing
+  public static long LOG_SEGMENT_BYTES = 32L << 20; // roll a log file over past this size
+  public static double LOG_SEGMENT_PERIOD = 300.0; // or after this many seconds
+  public static long LOG_DISK_CAP = 512L << 20; // oldest sessions are deleted past this
+  public static long LOG_INTERNAL_DISK_CAP = 64L << 20; // cap in the fallback, shares rio flash
+  public static double FAULT_LOG_PERIOD = 1.0; // seconds between repeats of a persisting fault
+  public static int FLIGHT_RECORDER_CAPACITY = 1024; // snapshots kept, power of two, ~5s at 200hz
+
+  // Trajectories
+  public static String TRAJECTORY_CACHE_DIR = "/home/lvuser/trajectory-cache"; // generated paths
+  public static String TRAJECTORY_DEPLOY_DIR = "/home/lvuser/deploy/trajectories"; // built paths
+
+  // Dashboard
+  public static double DASHBOARD_NORMAL_PERIOD = 0.1; // mechanism and sensor readouts
+  public static double DASHBOARD_SLOW_PERIOD = 1.0; // loop timings and other diagnostics
+  public static double DASHBOARD_REPORT_PERIOD = 1.0; // seconds per bytes/entries rate sample
 
   // Talon Parameters
   public static int TALON_CONFIG_TIMEOUT = 100; // 100ms
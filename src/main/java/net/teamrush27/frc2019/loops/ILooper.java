@@ -1,5 +1,9 @@
 package net.teamrush27.frc2019.loops;
 
+/**
+ * Anything loops can be registered with. Implementations run each loop at its {@link
+ * Loop#getPeriod()} on their own base tick.
+ */
 public interface ILooper {
   void register(Loop loop);
 }
@@ -0,0 +1,82 @@
+package net.teamrush27.frc2019.loops;
+
+import java.util.Arrays;
+
+/**
+ * Fixed-memory histogram of durations (in seconds) with logarithmic buckets, four per power of two
+ * starting at 1us. Percentiles are reported as the upper edge of the bucket they fall in, so they
+ * are accurate to within ~19%.
+ *
+ * <p>Recording is meant to happen from a single thread; queries from other threads may see a
+ * slightly stale view, which is fine for telemetry.
+ */
+public class LatencyHistogram {
+
+  private static final double MIN_VALUE = 1e-6;
+  private static final int BUCKETS_PER_OCTAVE = 4;
+  // 1us * 2^(95 / 4) ~= 14s
+  private static final int BUCKET_COUNT = 96;
+  private static final double LOG_2 = Math.log(2);
+
+  private final long[] counts = new long[BUCKET_COUNT];
+  private long count = 0;
+  private double sum = 0;
+  private double max = 0;
+
+  public void record(double seconds) {
+    counts[bucketFor(seconds)]++;
+    count++;
+    sum += seconds;
+    if (seconds > max) {
+      max = seconds;
+    }
+  }
+
+  public void reset() {
+    Arrays.fill(counts, 0);
+    count = 0;
+    sum = 0;
+    max = 0;
+  }
+
+  public long getCount() {
+    return count;
+  }
+
+  public double getMax() {
+    return max;
+  }
+
+  public double getMean() {
+    return count == 0 ? 0 : sum / count;
+  }
+
+  /** @param percentile in the range [0, 1] */
+  public double getPercentile(double percentile) {
+    if (count == 0) {
+      return 0;
+    }
+
+    long target = Math.max(1, (long) Math.ceil(percentile * count));
+    long seen = 0;
+    for (int bucket = 0; bucket < BUCKET_COUNT; bucket++) {
+      seen += counts[bucket];
+      if (seen >= target) {
+        return Math.min(upperBound(bucket), max);
+      }
+    }
+    return max;
+  }
+
+  private static int bucketFor(double seconds) {
+    if (seconds <= MIN_VALUE) {
+      return 0;
+    }
+    int bucket = (int) (Math.log(seconds / MIN_VALUE) * BUCKETS_PER_OCTAVE / LOG_2) + 1;
+    return Math.min(bucket, BUCKET_COUNT - 1);
+  }
+
+  private static double upperBound(int bucket) {
+    return MIN_VALUE * Math.pow(2, (double) bucket / BUCKETS_PER_OCTAVE);
+  }
+}
@@ -13,4 +13,22 @@ public interface Loop {
   public void onStop(double timestamp);
 
   public String id();
+
+  /**
+   * Seconds between calls to {@link #onLoop(double)}. Rounded to a whole number of base ticks of
+   * whichever looper runs this loop; 0 runs it every tick.
+   */
+  default double getPeriod() {
+    return 0;
+  }
+
+  /** Whether this loop may be pushed back a tick when the tick budget runs out. */
+  default LoopPriority getPriority() {
+    return LoopPriority.CRITICAL;
+  }
+
+  /** Ids of loops that must finish their {@link #onLoop(double)} before this one starts. */
+  default String[] getDependencies() {
+    return new String[0];
+  }
 }
@@ -0,0 +1,184 @@
+package net.teamrush27.frc2019.loops;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+/**
+ * Execution order for a set of loops, built once from each loop's {@link Loop#getDependencies()}.
+ *
+ * <p>{@link #getOrder()} is a topological order. Among loops that are ready at the same time,
+ * critical ones come before deferrable ones, then registration order wins, so the order is stable
+ * from boot to boot. {@link #getLevels()} groups loops by their depth in the graph; loops in the
+ * same level have no path between them and can run concurrently.
+ */
+public class LoopGraph {
+
+  private static final Logger LOG = LogManager.getLogger(LoopGraph.class);
+
+  private final int[][] parents;
+  private final int[] order;
+  private final int[][] levels;
+  private final double[] finish;
+
+  /** @throws IllegalStateException if the dependencies form a cycle */
+  public LoopGraph(List<Loop> loops) {
+    int size = loops.size();
+
+    Map<String, List<Integer>> byId = new HashMap<>();
+    for (int i = 0; i < size; i++) {
+      byId.computeIfAbsent(loops.get(i).id(), id -> new ArrayList<>()).add(i);
+    }
+
+    parents = new int[size][];
+    for (int i = 0; i < size; i++) {
+      List<Integer> edges = new ArrayList<>();
+      for (String dependency : loops.get(i).getDependencies()) {
+        List<Integer> matches = byId.get(dependency);
+        if (matches == null) {
+          LOG.warn("{} depends on {}, which is not registered", loops.get(i).id(), dependency);
+          continue;
+        }
+        for (int match : matches) {
+          if (match != i && !edges.contains(match)) {
+            edges.add(match);
+          }
+        }
+      }
+      parents[i] = edges.stream().mapToInt(Integer::intValue).toArray();
+    }
+
+    order = sort(loops);
+
+    int[] depth = new int[size];
+    int maxDepth = -1;
+    for (int i : order) {
+      for (int parent : parents[i]) {
+        depth[i] = Math.max(depth[i], depth[parent] + 1);
+      }
+      maxDepth = Math.max(maxDepth, depth[i]);
+    }
+
+    levels = new int[maxDepth + 1][];
+    for (int level = 0; level <= maxDepth; level++) {
+      int count = 0;
+      for (int i : order) {
+        if (depth[i] == level) {
+          count++;
+        }
+      }
+      levels[level] = new int[count];
+      count = 0;
+      for (int i : order) {
+        if (depth[i] == level) {
+          levels[level][count++] = i;
+        }
+      }
+    }
+
+    finish = new double[size];
+  }
+
+  private int[] sort(List<Loop> loops) {
+    int size = loops.size();
+    int[] remaining = new int[size];
+    for (int i = 0; i < size; i++) {
+      remaining[i] = parents[i].length;
+    }
+
+    int[] sorted = new int[size];
+    boolean[] done = new boolean[size];
+    for (int n = 0; n < size; n++) {
+      int next = -1;
+      for (int i = 0; i < size; i++) {
+        if (done[i] || remaining[i] > 0) {
+          continue;
+        }
+        if (next < 0 || isDeferrable(loops.get(next)) && !isDeferrable(loops.get(i))) {
+          next = i;
+        }
+      }
+
+      if (next < 0) {
+        List<String> cycle = new ArrayList<>();
+        for (int i = 0; i < size; i++) {
+          if (!done[i]) {
+            cycle.add(loops.get(i).id());
+          }
+        }
+        throw new IllegalStateException("loop dependencies form a cycle among " + cycle);
+      }
+
+      sorted[n] = next;
+      done[next] = true;
+      for (int i = 0; i < size; i++) {
+        for (int parent : parents[i]) {
+          if (parent == next) {
+            remaining[i]--;
+          }
+        }
+      }
+    }
+    return sorted;
+  }
+
+  private static boolean isDeferrable(Loop loop) {
+    return loop.getPriority() == LoopPriority.DEFERRABLE;
+  }
+
+  public int size() {
+    return order.length;
+  }
+
+  /** @return loop indices in an order that runs every loop after its dependencies */
+  public int[] getOrder() {
+    return order;
+  }
+
+  /** @return loop indices grouped by depth; each level only depends on earlier levels */
+  public int[][] getLevels() {
+    return levels;
+  }
+
+  public int[] getParents(int index) {
+    return parents[index];
+  }
+
+  /**
+   * Longest chain of dependent work for one tick. Not thread safe; call from the thread that owns
+   * {@code durations}.
+   *
+   * @param durations seconds each loop took this tick, by loop index (0 for loops that did not run)
+   */
+  public double getCriticalPath(double[] durations) {
+    double longest = 0;
+    for (int i : order) {
+      double start = 0;
+      for (int parent : parents[i]) {
+        start = Math.max(start, finish[parent]);
+      }
+      finish[i] = start + durations[i];
+      longest = Math.max(longest, finish[i]);
+    }
+    return longest;
+  }
+
+  public String describe(List<Loop> loops) {
+    StringBuilder builder = new StringBuilder();
+    for (int level = 0; level < levels.length; level++) {
+      if (level > 0) {
+        builder.append(" -> ");
+      }
+      String[] ids = new String[levels[level].length];
+      for (int i = 0; i < ids.length; i++) {
+        ids[i] = loops.get(levels[level][i]).id();
+      }
+      builder.append(Arrays.toString(ids));
+    }
+    return builder.toString();
+  }
+}
@@ -0,0 +1,11 @@
+package net.teamrush27.frc2019.loops;
+
+/**
+ * How a loop (or a subsystem's periodic IO) is treated when a tick runs over its time budget.
+ * Critical work always runs, in registration order. Deferrable work runs after it, and is pushed
+ * to a later tick once the budget is used up.
+ */
+public enum LoopPriority {
+  CRITICAL,
+  DEFERRABLE
+}
@@ -0,0 +1,314 @@
+package net.teamrush27.frc2019.loops;
+
+import java.io.FileNotFoundException;
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+import net.teamrush27.frc2019.util.log.BinaryLogSchema;
+import net.teamrush27.frc2019.util.log.BinaryLogSchema.Type;
+import net.teamrush27.frc2019.util.log.BinaryLogWriter;
+import net.teamrush27.frc2019.util.log.LogSegments;
+import net.teamrush27.frc2019.util.time.Clock;
+import net.teamrush27.frc2019.util.time.TimeSource;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+/**
+ * Records (id, phase, start, duration) samples for loop and subsystem calls into preallocated
+ * primitive arrays. Ids are interned to ints when a loop or subsystem is registered so the control
+ * thread never touches a String or allocates while recording. When logging is off, {@link
+ * #record(int, Phase, double)} returns before reading the clock.
+ *
+ * <p>The ring is single-producer / single-consumer: the control thread records, and a background
+ * thread started by {@link #startLogging(String)} drains samples to a CSV file, or to a binary log
+ * (see {@link BinaryLogWriter}) when the file name ends in {@code .bin}. Given {@link LogSegments},
+ * the drain thread rolls the file over as segments come due.
+ */
+public class LoopProfiler {
+
+  private static final Logger LOG = LogManager.getLogger(LoopProfiler.class);
+
+  private static final int DEFAULT_CAPACITY = 8192;
+  private static final long DRAIN_PERIOD_MS = 50;
+
+  public enum Phase {
+    START,
+    LOOP,
+    STOP,
+    READ_INPUT,
+    WRITE_OUTPUT,
+    // deferrable work pushed back because the tick budget ran out, duration is always 0
+    SKIP
+  }
+
+  private static final Phase[] PHASES = Phase.values();
+
+  private final TimeSource time;
+  private final List<String> ids = new ArrayList<>();
+
+  private final int mask;
+  private final int[] sampleIds;
+  private final byte[] samplePhases;
+  private final double[] sampleStarts;
+  private final double[] sampleDurations;
+
+  // producer publishes writeIndex, consumer publishes readIndex
+  private final AtomicLong writeIndex = new AtomicLong();
+  private final AtomicLong readIndex = new AtomicLong();
+  // counted by the producer with lazySet, read by the publisher
+  private final AtomicLong dropped = new AtomicLong();
+
+  private volatile boolean enabled = false;
+  private Thread drainThread = null;
+  private PrintWriter output = null;
+  private BinaryLogWriter binaryOutput = null;
+  private long outputBytes = 0;
+  private LogSegments segments = null;
+
+  public LoopProfiler() {
+    this(Clock.getSource());
+  }
+
+  public LoopProfiler(TimeSource time) {
+    this(time, DEFAULT_CAPACITY);
+  }
+
+  /** @param capacity number of samples held before the producer starts dropping (power of two) */
+  public LoopProfiler(TimeSource time, int capacity) {
+    this.time = time;
+    if (Integer.bitCount(capacity) != 1) {
+      throw new IllegalArgumentException("capacity must be a power of two: " + capacity);
+    }
+    mask = capacity - 1;
+    sampleIds = new int[capacity];
+    samplePhases = new byte[capacity];
+    sampleStarts = new double[capacity];
+    sampleDurations = new double[capacity];
+  }
+
+  /** Interns an id, returning the handle to pass to {@link #record(int, Phase, double)}. */
+  public synchronized int register(String id) {
+    int handle = ids.indexOf(id);
+    if (handle < 0) {
+      ids.add(id);
+      handle = ids.size() - 1;
+    }
+    return handle;
+  }
+
+  public synchronized String getId(int handle) {
+    return ids.get(handle);
+  }
+
+  public boolean isEnabled() {
+    return enabled;
+  }
+
+  /** @return the current timestamp when logging, 0 otherwise (so disabled profiling is free) */
+  public double start() {
+    return enabled ? time.getRealTimestamp() : 0;
+  }
+
+  /** Records a sample that began at {@code start} and ends now. Control thread only. */
+  public void record(int handle, Phase phase, double start) {
+    if (!enabled) {
+      return;
+    }
+    record(handle, phase, start, time.getRealTimestamp() - start);
+  }
+
+  /** Records a sample with a known duration. Control thread only. */
+  public void record(int handle, Phase phase, double start, double duration) {
+    if (!enabled) {
+      return;
+    }
+
+    long head = writeIndex.get();
+    if (head - readIndex.get() > mask) {
+      dropped.lazySet(dropped.get() + 1);
+      return;
+    }
+
+    int slot = (int) (head & mask);
+    sampleIds[slot] = handle;
+    samplePhases[slot] = (byte) phase.ordinal();
+    sampleStarts[slot] = start;
+    sampleDurations[slot] = duration;
+    writeIndex.lazySet(head + 1);
+  }
+
+  /** @return samples dropped because the drain thread fell behind */
+  public long getDropped() {
+    return dropped.get();
+  }
+
+  public synchronized void startLogging(String fileName) {
+    startLogging(fileName, null);
+  }
+
+  public synchronized void startLogging(LogSegments segments) {
+    if (drainThread == null) {
+      startLogging(segments.next(), segments);
+    }
+  }
+
+  private void startLogging(String fileName, LogSegments segments) {
+    if (drainThread != null || !openOutput(fileName)) {
+      return;
+    }
+    this.segments = segments;
+
+    readIndex.set(writeIndex.get());
+    dropped.set(0);
+
+    drainThread = new Thread(this::drainLoop, "LoopProfiler");
+    drainThread.setDaemon(true);
+    drainThread.setPriority(Thread.MIN_PRIORITY);
+    enabled = true;
+    drainThread.start();
+  }
+
+  public synchronized void stopLogging() {
+    if (drainThread == null) {
+      return;
+    }
+
+    enabled = false;
+    drainThread.interrupt();
+    try {
+      drainThread.join();
+    } catch (InterruptedException e) {
+      Thread.currentThread().interrupt();
+    }
+    drainThread = null;
+
+    drain();
+    closeOutput();
+    if (segments != null) {
+      segments.finish();
+      segments = null;
+    }
+
+    LOG.info("profiler done logging, dropped {} samples", dropped.get());
+  }
+
+  private boolean openOutput(String fileName) {
+    outputBytes = 0;
+    if (fileName.endsWith(".bin")) {
+      try {
+        binaryOutput = new BinaryLogWriter(fileName, binarySchema());
+      } catch (IOException e) {
+        LOG.error("could not open profile log " + fileName, e);
+        return false;
+      }
+    } else {
+      try {
+        output = new PrintWriter(fileName);
+      } catch (FileNotFoundException e) {
+        LOG.error("could not open profile log " + fileName, e);
+        return false;
+      }
+      output.println("id, action, timestamp, duration");
+    }
+    return true;
+  }
+
+  private void closeOutput() {
+    if (binaryOutput != null) {
+      try {
+        binaryOutput.close();
+      } catch (IOException e) {
+        LOG.error("could not close profile log", e);
+      }
+      binaryOutput = null;
+    } else if (output != null) {
+      output.flush();
+      output.close();
+      output = null;
+    }
+  }
+
+  private void drainLoop() {
+    while (enabled) {
+      drain();
+      long bytes = binaryOutput != null ? binaryOutput.getSize() : outputBytes;
+      if (segments != null && segments.isDue(bytes)) {
+        closeOutput();
+        if (!openOutput(segments.next())) {
+          // nothing left to drain into; samples drop until logging restarts
+          return;
+        }
+      }
+      try {
+        Thread.sleep(DRAIN_PERIOD_MS);
+      } catch (InterruptedException e) {
+        return;
+      }
+    }
+  }
+
+  /** Ids registered by now are stored as labels, so the exporter prints names instead of handles. */
+  private synchronized BinaryLogSchema binarySchema() {
+    String[] phases = new String[PHASES.length];
+    for (int i = 0; i < PHASES.length; i++) {
+      phases[i] = PHASES[i].name();
+    }
+    return new BinaryLogSchema.Builder()
+        .add("id", Type.INT, ids.toArray(new String[0]))
+        .add("action", Type.BYTE, phases)
+        .add("timestamp", Type.DOUBLE)
+        .add("duration", Type.DOUBLE)
+        .build();
+  }
+
+  private final StringBuilder line = new StringBuilder();
+
+  private void drain() {
+    long tail = readIndex.get();
+    long head = writeIndex.get();
+
+    if (binaryOutput == null && output == null) {
+      readIndex.lazySet(head);
+      return;
+    }
+
+    if (binaryOutput != null) {
+      try {
+        for (; tail < head; tail++) {
+          int slot = (int) (tail & mask);
+          ByteBuffer out = binaryOutput.beginRecord();
+          out.putInt(sampleIds[slot]);
+          out.put(samplePhases[slot]);
+          out.putDouble(sampleStarts[slot]);
+          out.putDouble(sampleDurations[slot]);
+          binaryOutput.endRecord();
+        }
+      } catch (IOException e) {
+        LOG.error("could not write profile log, dropping samples", e);
+        tail = head;
+      }
+      readIndex.lazySet(tail);
+      return;
+    }
+
+    while (tail < head) {
+      int slot = (int) (tail & mask);
+      line.setLength(0);
+      line.append(getId(sampleIds[slot]))
+          .append(", ")
+          .append(PHASES[samplePhases[slot]])
+          .append(", ")
+          .append(sampleStarts[slot])
+          .append(", ")
+          .append(sampleDurations[slot]);
+      output.println(line);
+      outputBytes += line.length() + 1;
+      tail++;
+    }
+
+    readIndex.lazySet(tail);
+  }
+}
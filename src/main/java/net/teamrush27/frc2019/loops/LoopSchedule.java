@@ -0,0 +1,84 @@
+package net.teamrush27.frc2019.loops;
+
+import java.util.Arrays;
+
+/**
+ * Maps each registered loop onto a shared base tick. A loop asking for a period longer than the
+ * base period runs every {@code divisor} ticks, at a phase offset picked so slow loops land on
+ * different ticks where possible. Offsets only depend on registration order, so the schedule is the
+ * same every boot.
+ */
+public class LoopSchedule {
+
+  private final double basePeriod;
+
+  private int size = 0;
+  private int[] divisors = new int[16];
+  private int[] offsets = new int[16];
+
+  public LoopSchedule(double basePeriod) {
+    this.basePeriod = basePeriod;
+  }
+
+  /**
+   * @param period requested seconds between runs, 0 (or anything at or under the base period) to
+   *     run every tick
+   * @return the index to pass to {@link #isDue(int, long)}
+   */
+  public int add(double period) {
+    int divisor = Math.max(1, (int) Math.round(period / basePeriod));
+    int offset = divisor == 1 ? 0 : leastLoadedOffset(divisor);
+
+    if (size == divisors.length) {
+      divisors = Arrays.copyOf(divisors, size * 2);
+      offsets = Arrays.copyOf(offsets, size * 2);
+    }
+    divisors[size] = divisor;
+    offsets[size] = offset;
+    return size++;
+  }
+
+  private int leastLoadedOffset(int divisor) {
+    int bestOffset = 0;
+    int bestLoad = Integer.MAX_VALUE;
+    for (int offset = 0; offset < divisor; offset++) {
+      int load = 0;
+      for (int i = 0; i < size; i++) {
+        if (divisors[i] > 1 && Math.floorMod(offset - offsets[i], divisors[i]) == 0) {
+          load++;
+        }
+      }
+      if (load < bestLoad) {
+        bestLoad = load;
+        bestOffset = offset;
+      }
+    }
+    return bestOffset;
+  }
+
+  /** @return an independent copy, so a snapshot can be published while this one keeps growing */
+  public LoopSchedule copy() {
+    LoopSchedule copy = new LoopSchedule(basePeriod);
+    copy.size = size;
+    copy.divisors = Arrays.copyOf(divisors, divisors.length);
+    copy.offsets = Arrays.copyOf(offsets, offsets.length);
+    return copy;
+  }
+
+  public boolean isDue(int index, long tick) {
+    int divisor = divisors[index];
+    return divisor == 1 || tick % divisor == offsets[index];
+  }
+
+  public int getDivisor(int index) {
+    return divisors[index];
+  }
+
+  public int getOffset(int index) {
+    return offsets[index];
+  }
+
+  public int size() {
+    return size;
+  }
+}
@@ -1,94 +1,437 @@
 package net.teamrush27.frc2019.loops;
 
 import edu.wpi.first.wpilibj.Notifier;
-import edu.wpi.first.wpilibj.Timer;
-import edu.wpi.first.wpilibj.smartdashboard.SmartDashboard;
-import java.util.ArrayList;
-import java.util.List;
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.LockSupport;
 import net.teamrush27.frc2019.constants.RobotConstants;
 import net.teamrush27.frc2019.util.crash.CrashTrackingRunnable;
+import net.teamrush27.frc2019.util.dashboard.DashboardEntry;
+import net.teamrush27.frc2019.util.dashboard.DashboardPublisher;
+import net.teamrush27.frc2019.util.dashboard.DashboardPublisher.Rate;
+import net.teamrush27.frc2019.util.metrics.Counter;
+import net.teamrush27.frc2019.util.metrics.MetricsRegistry;
+import net.teamrush27.frc2019.util.metrics.Timer;
+import net.teamrush27.frc2019.util.time.Clock;
+import net.teamrush27.frc2019.util.time.TimeSource;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 
 /**
- * This code runs all of the robot's loops. Loop objects are stored in a List object. They are
- * started when the robot powers up and stopped after the match.
+ * This code runs all of the robot's loops. Loop objects are stored in an array that is replaced
+ * (never modified) on register. They are started when the robot powers up and stopped after the
+ * match.
+ *
+ * <p>Loops share one {@link Notifier} tick of {@link #kPeriod}; a loop with a longer {@link
+ * Loop#getPeriod()} is run on every n-th tick (see {@link LoopSchedule}).
+ *
+ * <p>Each tick also records how late it started (jitter against {@link #kPeriod}) and how long the
+ * loops took to run, so overruns can be tracked per enable session.
+ *
+ * <p>Time comes from a {@link TimeSource}. {@link #startManual()} and {@link #step()} run the same
+ * ticks without a Notifier, for driving the loops off the robot (see {@link ManualLoopDriver}).
+ *
+ * <p>No monitor is taken on the tick path. Start, tick and stop hand ownership of the loops to each
+ * other through atomic state transitions; if {@link #stop()} lands mid-tick, the ticking thread
+ * runs the stop as soon as its tick ends, and the caller waits at most {@link
+ * RobotConstants#LOOPER_STOP_TIMEOUT} for that. A start that arrives while such a stop is still
+ * outstanding is never dropped: the thread that finishes the stop runs it.
  */
 public class Looper {
 
   private static final Logger LOG = LogManager.getLogger(Looper.class);
 
+  private static final int STOPPED = 0;
+  private static final int STARTING = 1;
+  private static final int RUNNING = 2;
+  private static final int TICKING = 3;
+  private static final int STOP_REQUESTED = 4;
+  private static final int STOPPING = 5;
+
+  private static final long STOP_POLL_NANOS = 50_000;
+
+  private static final int NO_START = 0;
+  private static final int NOTIFIER_START = 1;
+  private static final int MANUAL_START = 2;
+
   public final double kPeriod = RobotConstants.LOOPER_DELTA_TIME;
 
-  private boolean running;
+  private final AtomicInteger state = new AtomicInteger(STOPPED);
+  // a start that found a deferred stop still running, for whoever finishes that stop
+  private final AtomicInteger pendingStart = new AtomicInteger(NO_START);
 
-  private final Notifier notifier;
-  private final List<Loop> loops;
-  private final Object taskRunningLock = new Object();
+  private final String name;
+  private final TimeSource time;
+  private volatile Notifier notifier = null;
+
+  private final Object registerLock = new Object();
+  private final LoopSchedule schedule;
+  private volatile Tasks tasks = new Tasks(new Loop[0], null);
+
+  // only touched by the thread that moved the state out of RUNNING/STOPPED
+  private long tick = 0;
   private double timestamp = 0;
   private double deltaTime = 0;
 
+  private final LatencyHistogram jitterHistogram = new LatencyHistogram();
+  private final LatencyHistogram executionHistogram = new LatencyHistogram();
+  private long overrunCount = 0;
+  private double worstPeriod = 0;
+  private double worstExecution = 0;
+  private double lastSummary = 0;
+
+  private volatile double stopRequestedAt = 0;
+  private volatile double lastStopLatency = 0;
+  private volatile double worstStopLatency = 0;
+
+  // changes under a tenth of a millisecond are not worth sending
+  private static final double TIMING_EPSILON = 1e-4;
+
+  private final DashboardEntry dtEntry;
+  private final DashboardEntry[] jitterEntries;
+  private final DashboardEntry[] executionEntries;
+  private final DashboardEntry overrunEntry;
+  private final DashboardEntry stopLatencyEntry;
+
+  private final Timer tickTimer;
+  private final Timer jitterTimer;
+  private final Counter overrunCounter;
+
+  /** Immutable snapshot of the registered loops and their schedule. */
+  private static class Tasks {
+    private final Loop[] loops;
+    private final LoopSchedule schedule;
+
+    private Tasks(Loop[] loops, LoopSchedule schedule) {
+      this.loops = loops;
+      this.schedule = schedule;
+    }
+  }
+
   private final CrashTrackingRunnable runnable =
       new CrashTrackingRunnable() {
         @Override
         public void runCrashTracked() {
-          synchronized (taskRunningLock) {
-            if (running) {
-              double now = Timer.getFPGATimestamp();
+          if (!state.compareAndSet(RUNNING, TICKING)) {
+            return;
+          }
+
+          try {
+            double now = time.getTimestamp();
+            double executionStart = time.getRealTimestamp();
 
-              for (Loop loop : loops) {
-                loop.onLoop(now);
+            Tasks current = tasks;
+            Loop[] loops = current.loops;
+            for (int i = 0; i < loops.length; i++) {
+              if (current.schedule.isDue(i, tick)) {
+                loops[i].onLoop(now);
               }
+            }
+            tick++;
 
-              deltaTime = now - timestamp;
-              timestamp = now;
+            deltaTime = now - timestamp;
+            timestamp = now;
+
+            recordTiming(now, time.getRealTimestamp() - executionStart);
+          } finally {
+            if (!state.compareAndSet(TICKING, RUNNING)) {
+              // stop() arrived mid-tick and left the stop to us
+              state.set(STOPPING);
+              stopLoops();
             }
           }
         }
       };
 
   public Looper() {
-    notifier = new Notifier(runnable);
-    running = false;
-    loops = new ArrayList<>();
+    this("looper");
+  }
+
+  public Looper(String name) {
+    this(name, Clock.getSource());
   }
 
-  public synchronized void register(Loop loop) {
-    synchronized (taskRunningLock) {
-      loops.add(loop);
+  public Looper(String name, TimeSource time) {
+    this.name = name;
+    this.time = time;
+    schedule = new LoopSchedule(kPeriod);
+
+    DashboardPublisher dashboard = DashboardPublisher.getInstance();
+    dtEntry = dashboard.number(name + ".dt", Rate.SLOW, TIMING_EPSILON);
+    jitterEntries = histogramEntries(dashboard, name + ".jitter");
+    executionEntries = histogramEntries(dashboard, name + ".execution");
+    overrunEntry = dashboard.number(name + ".overruns", Rate.SLOW);
+    stopLatencyEntry = dashboard.number(name + ".stopLatency.max", Rate.SLOW, TIMING_EPSILON);
+
+    MetricsRegistry metrics = MetricsRegistry.getInstance();
+    tickTimer = metrics.timer(name + ".tick");
+    jitterTimer = metrics.timer(name + ".jitter");
+    overrunCounter = metrics.counter(name + ".overruns");
+  }
+
+  public void register(Loop loop) {
+    synchronized (registerLock) {
+      int index = schedule.add(loop.getPeriod());
+      Loop[] loops = Arrays.copyOf(tasks.loops, index + 1);
+      loops[index] = loop;
+      tasks = new Tasks(loops, schedule.copy());
+
+      LOG.info(
+          "{} registered {} every {} ticks at offset {}",
+          name,
+          loop.id(),
+          schedule.getDivisor(index),
+          schedule.getOffset(index));
     }
   }
 
-  public synchronized void start() {
-    if (!running) {
-      LOG.info("Starting loops");
-      synchronized (taskRunningLock) {
-        timestamp = Timer.getFPGATimestamp();
-        for (Loop loop : loops) {
-          loop.onStart(timestamp);
+  public void start() {
+    if (startLoops(NOTIFIER_START)) {
+      Notifier current = notifier;
+      if (current == null) {
+        current = new Notifier(runnable);
+        notifier = current;
+      }
+      current.startPeriodic(kPeriod);
+    }
+  }
+
+  /** Starts the loops without the Notifier; ticks then only happen through {@link #step()}. */
+  public void startManual() {
+    startLoops(MANUAL_START);
+  }
+
+  /** Runs one tick on the calling thread at the time source's current time. */
+  public void step() {
+    runnable.run();
+  }
+
+  /** @return false if the looper was not stopped; the start may then be left pending */
+  private boolean startLoops(int kind) {
+    awaitStopped();
+    if (!state.compareAndSet(STOPPED, STARTING)) {
+      int s = state.get();
+      if (s == STOP_REQUESTED || s == STOPPING) {
+        LOG.error(
+            "{} still stopping after {}s, it will start once the stop completes",
+            name,
+            RobotConstants.LOOPER_STOP_TIMEOUT);
+        pendingStart.set(kind);
+        if (state.get() == STOPPED) {
+          // the stop finished before it could see the pending start
+          runPendingStart();
         }
-        running = true;
+      } else {
+        LOG.info("{} already running, start ignored", name);
       }
-      notifier.startPeriodic(kPeriod);
+      return false;
     }
+
+    LOG.info("Starting loops");
+    timestamp = time.getTimestamp();
+    tick = 0;
+    resetTiming(timestamp);
+    for (Loop loop : tasks.loops) {
+      loop.onStart(timestamp);
+    }
+    state.set(RUNNING);
+    return true;
   }
 
-  public synchronized void stop() {
-    if (running) {
-      LOG.info("Stopping loops");
-      notifier.stop();
-      synchronized (taskRunningLock) {
-        running = false;
-        timestamp = Timer.getFPGATimestamp();
-        for (Loop loop : loops) {
-          LOG.info("Stopping " + loop);
-          loop.onStop(timestamp);
+  /**
+   * Stops the loops. If a tick is in flight, the ticking thread finishes the stop and this waits up
+   * to {@link RobotConstants#LOOPER_STOP_TIMEOUT} for it.
+   */
+  public void stop() {
+    double requestedAt = time.getRealTimestamp();
+    pendingStart.set(NO_START);
+    Notifier current = notifier;
+    if (current != null) {
+      current.stop();
+    }
+
+    while (true) {
+      int s = state.get();
+      if (s == RUNNING) {
+        if (state.compareAndSet(RUNNING, STOPPING)) {
+          LOG.info("Stopping loops");
+          stopRequestedAt = requestedAt;
+          stopLoops();
+          return;
+        }
+      } else if (s == TICKING) {
+        // publish the request time before the tick thread can see the request
+        stopRequestedAt = requestedAt;
+        if (state.compareAndSet(TICKING, STOP_REQUESTED)) {
+          LOG.info("Stopping loops after the current tick");
+          if (!awaitStopped()) {
+            LOG.warn(
+                "{} tick still running after {}s, stop deferred",
+                name,
+                RobotConstants.LOOPER_STOP_TIMEOUT);
+          }
+          return;
         }
+      } else if (s == STARTING) {
+        Thread.onSpinWait();
+      } else {
+        // already stopped or stopping
+        return;
       }
     }
   }
 
+  /** Runs onStop for every loop; the caller must own the STOPPING state. */
+  private void stopLoops() {
+    timestamp = time.getTimestamp();
+    for (Loop loop : tasks.loops) {
+      LOG.info("Stopping " + loop);
+      loop.onStop(timestamp);
+    }
+    logSummary();
+
+    double latency = time.getRealTimestamp() - stopRequestedAt;
+    lastStopLatency = latency;
+    if (latency > worstStopLatency) {
+      worstStopLatency = latency;
+    }
+    LOG.info("{} stopped in {}s", name, latency);
+
+    state.set(STOPPED);
+    runPendingStart();
+  }
+
+  private void runPendingStart() {
+    int kind = pendingStart.getAndSet(NO_START);
+    if (kind == NOTIFIER_START) {
+      LOG.info("{} running the start deferred by its stop", name);
+      start();
+    } else if (kind == MANUAL_START) {
+      LOG.info("{} running the start deferred by its stop", name);
+      startManual();
+    }
+  }
+
+  /** @return true if the looper reached STOPPED (or RUNNING) within the stop timeout */
+  private boolean awaitStopped() {
+    long deadline = System.nanoTime() + (long) (RobotConstants.LOOPER_STOP_TIMEOUT * 1e9);
+    while (true) {
+      int s = state.get();
+      if (s == STOPPED || s == RUNNING || s == TICKING) {
+        return true;
+      }
+      if (System.nanoTime() - deadline > 0) {
+        return false;
+      }
+      LockSupport.parkNanos(STOP_POLL_NANOS);
+    }
+  }
+
+  private void resetTiming(double now) {
+    jitterHistogram.reset();
+    executionHistogram.reset();
+    overrunCount = 0;
+    worstPeriod = 0;
+    worstExecution = 0;
+    lastSummary = now;
+  }
+
+  private void recordTiming(double now, double execution) {
+    jitterHistogram.record(Math.abs(deltaTime - kPeriod));
+    executionHistogram.record(execution);
+    jitterTimer.record(Math.abs(deltaTime - kPeriod));
+    tickTimer.record(execution);
+
+    if (execution > kPeriod) {
+      overrunCount++;
+      overrunCounter.increment();
+    }
+    if (deltaTime > worstPeriod) {
+      worstPeriod = deltaTime;
+    }
+    if (execution > worstExecution) {
+      worstExecution = execution;
+    }
+
+    if (now - lastSummary >= RobotConstants.LOOPER_SUMMARY_PERIOD) {
+      lastSummary = now;
+      logSummary();
+    }
+  }
+
+  private void logSummary() {
+    LOG.info(
+        "{} ticks: {} overruns: {} jitter p50/p99/max: {}/{}/{} exec p50/p99/max: {}/{}/{} worst dt: {}",
+        name,
+        executionHistogram.getCount(),
+        overrunCount,
+        jitterHistogram.getPercentile(0.5),
+        jitterHistogram.getPercentile(0.99),
+        jitterHistogram.getMax(),
+        executionHistogram.getPercentile(0.5),
+        executionHistogram.getPercentile(0.99),
+        executionHistogram.getMax(),
+        worstPeriod);
+  }
+
+  /** @return |actual period - kPeriod| for every tick this enable session */
+  public LatencyHistogram getJitterHistogram() {
+    return jitterHistogram;
+  }
+
+  /** @return time spent running loops for every tick this enable session */
+  public LatencyHistogram getExecutionHistogram() {
+    return executionHistogram;
+  }
+
+  /** @return ticks this enable session whose loops ran longer than kPeriod */
+  public long getOverrunCount() {
+    return overrunCount;
+  }
+
+  /** @return the longest time between two ticks this enable session */
+  public double getWorstPeriod() {
+    return worstPeriod;
+  }
+
+  /** @return the longest tick execution time this enable session */
+  public double getWorstExecution() {
+    return worstExecution;
+  }
+
+  /** @return seconds from the last stop() request until every loop had stopped */
+  public double getLastStopLatency() {
+    return lastStopLatency;
+  }
+
+  /** @return the longest stop latency since boot */
+  public double getWorstStopLatency() {
+    return worstStopLatency;
+  }
+
+  public TimeSource getTimeSource() {
+    return time;
+  }
+
   public void outputToSmartDashboard() {
-    SmartDashboard.putNumber("looper_dt", deltaTime);
+    dtEntry.setNumber(deltaTime);
+    outputHistogram(jitterEntries, jitterHistogram);
+    outputHistogram(executionEntries, executionHistogram);
+    overrunEntry.setNumber(overrunCount);
+    stopLatencyEntry.setNumber(worstStopLatency);
+  }
+
+  private static DashboardEntry[] histogramEntries(DashboardPublisher dashboard, String base) {
+    return new DashboardEntry[] {
+      dashboard.number(base + ".p50", Rate.SLOW, TIMING_EPSILON),
+      dashboard.number(base + ".p99", Rate.SLOW, TIMING_EPSILON),
+      dashboard.number(base + ".max", Rate.SLOW, TIMING_EPSILON)
+    };
+  }
+
+  private void outputHistogram(DashboardEntry[] entries, LatencyHistogram histogram) {
+    entries[0].setNumber(histogram.getPercentile(0.5));
+    entries[1].setNumber(histogram.getPercentile(0.99));
+    entries[2].setNumber(histogram.getMax());
   }
 }
@@ -0,0 +1,113 @@
+package net.teamrush27.frc2019.loops;
+
+import net.teamrush27.frc2019.auto.AutoModeBase;
+import net.teamrush27.frc2019.util.time.ManualTimeSource;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+/**
+ * Steps one or more {@link Looper}s against a {@link ManualTimeSource} instead of a Notifier, so
+ * the control stack runs as fast as the CPU allows. Each step advances time by one looper period
+ * and runs one tick of every looper, in the order they were given.
+ *
+ * <p>While the driver is the time source's sleep handler, anything that sleeps through it (e.g.
+ * {@link AutoModeBase#runAction}) steps the loops forward instead of blocking, so a whole auto mode
+ * can be run single-threaded with {@link #runAutoMode(AutoModeBase)}.
+ */
+public class ManualLoopDriver implements ManualTimeSource.SleepHandler {
+
+  private static final Logger LOG = LogManager.getLogger(ManualLoopDriver.class);
+
+  private final ManualTimeSource time;
+  private final Looper[] loopers;
+  private final double period;
+  private long ticks = 0;
+
+  /** The loopers must have been built against {@code time} and share one period. */
+  public ManualLoopDriver(ManualTimeSource time, Looper... loopers) {
+    this.time = time;
+    this.loopers = loopers;
+    if (loopers.length == 0) {
+      throw new IllegalArgumentException("nothing to drive");
+    }
+
+    double period = loopers[0].kPeriod;
+    for (Looper looper : loopers) {
+      if (looper.getTimeSource() != time) {
+        throw new IllegalArgumentException("looper is not using this driver's time source");
+      }
+      if (looper.kPeriod != period) {
+        throw new IllegalArgumentException(
+            "loopers tick every " + period + "s and " + looper.kPeriod + "s, steps cannot do both");
+      }
+    }
+    this.period = period;
+  }
+
+  public void start() {
+    time.setSleepHandler(this);
+    for (Looper looper : loopers) {
+      looper.startManual();
+    }
+  }
+
+  public void stop() {
+    for (Looper looper : loopers) {
+      looper.stop();
+    }
+    time.setSleepHandler(null);
+  }
+
+  public void step() {
+    time.advance(period);
+    for (Looper looper : loopers) {
+      looper.step();
+    }
+    ticks++;
+  }
+
+  public void step(int count) {
+    for (int i = 0; i < count; i++) {
+      step();
+    }
+  }
+
+  /** Steps until the time source reaches {@code timestamp}. */
+  @Override
+  public void sleepUntil(double timestamp) {
+    while (time.getTimestamp() < timestamp) {
+      step();
+    }
+  }
+
+  /**
+   * Runs {@code autoMode} to completion on the calling thread, stepping the loops whenever it
+   * waits.
+   *
+   * @return simulated seconds the auto mode took
+   */
+  public double runAutoMode(AutoModeBase autoMode) {
+    double start = time.getTimestamp();
+    double realStart = time.getRealTimestamp();
+    long startTicks = ticks;
+
+    autoMode.run();
+
+    double elapsed = time.getTimestamp() - start;
+    LOG.info(
+        "ran {} in {} simulated seconds, {} ticks, {} real seconds",
+        autoMode.getClass().getSimpleName(),
+        elapsed,
+        ticks - startTicks,
+        time.getRealTimestamp() - realStart);
+    return elapsed;
+  }
+
+  public long getTicks() {
+    return ticks;
+  }
+
+  public double getTimestamp() {
+    return time.getTimestamp();
+  }
+}
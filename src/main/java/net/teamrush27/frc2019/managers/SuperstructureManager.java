@@ -1,6 +1,5 @@
 package net.teamrush27.frc2019.managers;
 
-import edu.wpi.first.wpilibj.smartdashboard.SmartDashboard;
 import java.util.LinkedList;
 import net.teamrush27.frc2019.Robot;
 import net.teamrush27.frc2019.loops.ILooper;
@@ -9,16 +8,23 @@ import net.teamrush27.frc2019.subsystems.Subsystem;
 import net.teamrush27.frc2019.subsystems.impl.Arm;
 import net.teamrush27.frc2019.subsystems.impl.Arm.ArmState;
 import net.teamrush27.frc2019.subsystems.impl.Gripper;
+import net.teamrush27.frc2019.subsystems.impl.Limelights;
 import net.teamrush27.frc2019.subsystems.impl.Wrist;
 import net.teamrush27.frc2019.subsystems.impl.dto.ArmInput;
 import net.teamrush27.frc2019.subsystems.impl.dto.SmartDashboardCollection;
+import net.teamrush27.frc2019.util.crash.StateJournal;
+import net.teamrush27.frc2019.util.crash.StateJournal.Cause;
+import net.teamrush27.frc2019.util.dashboard.DashboardEntry;
+import net.teamrush27.frc2019.util.dashboard.DashboardPublisher;
+import net.teamrush27.frc2019.util.dashboard.DashboardPublisher.Rate;
 import net.teamrush27.frc2019.util.math.MathUtils;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
+import org.apache.logging.log4j.util.Unbox;
 
 public class SuperstructureManager extends Subsystem {
 
-  private static final String TAG = "SSMAN";
+  public static final String TAG = "SSMAN";
   private static SuperstructureManager INSTANCE = null;
   private static final double ROTATION_EPSILON = 10d;
   private static final double EXTENSION_EPSILON = 4d;
@@ -100,6 +106,8 @@ public class SuperstructureManager extends Subsystem {
 
   private WantedState newWantedState = WantedState.STOW;
   private WantedState wantedState = WantedState.START;
+  private final StateJournal journal = StateJournal.getInstance();
+  private final int journalId = journal.register("Superstructure", wantedState);
   private Boolean newInvertedRotation = true;
   private Boolean invertedRotation = true;
   private Boolean newHasHatch = false;
@@ -111,6 +119,9 @@ public class SuperstructureManager extends Subsystem {
   private Double offset = 0d;
   private boolean positionLock;
 
+  private final DashboardEntry offsetEntry =
+      DashboardPublisher.getInstance().number("superstruture.offset", Rate.NORMAL);
+
   public synchronized void setWantedState(
       WantedState wantedState, Boolean invertedRotation, Boolean hasHatch) {
     this.newWantedState = wantedState;
@@ -133,7 +144,7 @@ public class SuperstructureManager extends Subsystem {
     // arm.getArmState().getExtensionInInches(), wrist.getEncoderAngle());
     // collection.setSuperstructureOffset(offset);
 
-    SmartDashboard.putNumber("superstruture.offset", offset);
+    offsetEntry.setNumber(offset);
   }
 
   @Override
@@ -142,14 +153,16 @@ public class SuperstructureManager extends Subsystem {
   }
 
   private void printCommands() {
+    if (!LOG.isInfoEnabled()) {
+      return;
+    }
     for (Command command : commands) {
       LOG.info(
-          String.format(
-              "COMMAND ROT: %s\tEXT: %s\tWRS: %s\tLIM: %s",
-              command.getArmInput().getRotationInput(),
-              command.getArmInput().getExtensionInput(),
-              command.getWristAngle(),
-              command.getLimitType()));
+          "COMMAND ROT: {}\tEXT: {}\tWRS: {}\tLIM: {}",
+          command.getArmInput().getRotationInput(),
+          command.getArmInput().getExtensionInput(),
+          Unbox.box(command.getWristAngle()),
+          command.getLimitType());
     }
   }
 
@@ -230,6 +243,12 @@ public class SuperstructureManager extends Subsystem {
           public String id() {
             return TAG;
           }
+
+          // reads gripper.hasCargo(), and the limelights read overBack() in their own loop
+          @Override
+          public String[] getDependencies() {
+            return new String[] {Gripper.TAG, Limelights.TAG};
+          }
         });
   }
 
@@ -241,15 +260,16 @@ public class SuperstructureManager extends Subsystem {
         || invertedRotation != newInvertedRotation
         || hasHatch != newHasHatch
         || forceRecompute) {
-      LOG.info(
-          String.format(
-              "%s : %s : %s - %s : %s : %s",
-              wantedState,
-              invertedRotation,
-              hasHatch,
-              newWantedState,
-              newInvertedRotation,
-              newHasHatch));
+      Cause cause = wantedState != newWantedState ? Cause.WANTED_STATE : Cause.RECOMPUTE;
+      journal.record(timestamp, journalId, wantedState, newWantedState, cause);
+      LOG.debug(
+          "{} : {} : {} - {} : {} : {}",
+          wantedState,
+          invertedRotation,
+          hasHatch,
+          newWantedState,
+          newInvertedRotation,
+          newHasHatch);
       wantedState = newWantedState;
       invertedRotation = newInvertedRotation;
       hasHatch = newHasHatch;
@@ -286,15 +306,16 @@ public class SuperstructureManager extends Subsystem {
     if (operationComplete(commands.peek())) {
       Command finished = commands.poll();
 
-      LOG.info(
-          String.format(
-              "Completed Command: ROT: %s\tEXT: %s\tWRS: %s - Current: ROT: %s\tEXT: %s\tWRS: %s",
-              finished.getArmInput().getRotationInput(),
-              finished.getArmInput().getExtensionInput(),
-              finished.getWristAngle(),
-              arm.getArmState().getRotationDemandInDegrees(),
-              arm.getArmState().getExtensionInInches(),
-              wrist.getEncoderAngle()));
+      if (LOG.isInfoEnabled()) {
+        LOG.info(
+            "Completed Command: ROT: {}\tEXT: {}\tWRS: {} - Current: ROT: {}\tEXT: {}\tWRS: {}",
+            finished.getArmInput().getRotationInput(),
+            finished.getArmInput().getExtensionInput(),
+            Unbox.box(finished.getWristAngle()),
+            Unbox.box(arm.getArmState().getRotationDemandInDegrees()),
+            arm.getArmState().getExtensionInInches(),
+            Unbox.box(wrist.getEncoderAngle()));
+      }
     }
   }
 
@@ -302,17 +323,23 @@ public class SuperstructureManager extends Subsystem {
     commands.clear();
     ArmState armState = arm.getArmState();
 
-    LOG.info(
-        String.format(
-            "Origin: Rot: %s\tExt: %s\tWrs: %s",
-            armState.getRotationInDegrees(), armState.getExtensionInInches(), wrist.getPWMAngle()));
+    if (LOG.isInfoEnabled()) {
+      LOG.info(
+          "Origin: Rot: {}\tExt: {}\tWrs: {}",
+          armState.getRotationInDegrees(),
+          armState.getExtensionInInches(),
+          Unbox.box(wrist.getPWMAngle()));
+    }
     /*LOG.info(
     String.format("Origin: Rot: %s\tExt: %s\tWrs: %s", origin.getArmInput().getRotationInput(),
         origin.getArmInput().getExtensionInput(), origin.getWristAngle()));*/
-    LOG.info(
-        String.format(
-            "Wanted: Rot: %s\tExt: %s\tWrs: %s",
-            getWantedRotation(), getWantedExtension(), getWantedWristAngle()));
+    if (LOG.isInfoEnabled()) {
+      LOG.info(
+          "Wanted: Rot: {}\tExt: {}\tWrs: {}",
+          Unbox.box(getWantedRotation()),
+          Unbox.box(getWantedExtension()),
+          Unbox.box(getWantedWristAngle()));
+    }
 
     commands.add(
         new Command(
@@ -542,6 +569,29 @@ public class SuperstructureManager extends Subsystem {
     return wantedState;
   }
 
+  /** @return commands left before the wanted state is reached */
+  public int getCommandCount() {
+    return commands.size();
+  }
+
+  /** @return rotation demand of the command being executed, NaN if there is none */
+  public double getNextRotationDemand() {
+    Command next = commands.peek();
+    return next == null ? Double.NaN : next.getArmInput().getRotationInput();
+  }
+
+  /** @return extension demand of the command being executed, NaN if there is none */
+  public double getNextExtensionDemand() {
+    Command next = commands.peek();
+    return next == null ? Double.NaN : next.getArmInput().getExtensionInput();
+  }
+
+  /** @return wrist angle of the command being executed, NaN if there is none */
+  public double getNextWristAngle() {
+    Command next = commands.peek();
+    return next == null ? Double.NaN : next.getWristAngle();
+  }
+
   public Boolean getHasHatch() {
     return hasHatch;
   }
@@ -0,0 +1,119 @@
+package net.teamrush27.frc2019.subsystems;
+
+import java.nio.ByteBuffer;
+import net.teamrush27.frc2019.base.RobotState;
+import net.teamrush27.frc2019.constants.RobotConstants;
+import net.teamrush27.frc2019.loops.Loop;
+import net.teamrush27.frc2019.managers.SuperstructureManager;
+import net.teamrush27.frc2019.subsystems.impl.Arm;
+import net.teamrush27.frc2019.subsystems.impl.Drivetrain;
+import net.teamrush27.frc2019.subsystems.impl.Wrist;
+import net.teamrush27.frc2019.subsystems.impl.enumerated.DriveMode;
+import net.teamrush27.frc2019.util.crash.CrashTracker;
+import net.teamrush27.frc2019.util.crash.FlightRecorder;
+import net.teamrush27.frc2019.util.log.BinaryLogSchema;
+import net.teamrush27.frc2019.util.log.BinaryLogSchema.Type;
+import net.teamrush27.frc2019.util.math.Pose2d;
+
+/**
+ * Writes one snapshot of the robot per enabled tick into a {@link FlightRecorder}: drive mode,
+ * pose, arm and wrist setpoints, the superstructure's command queue and the tick's timing. Register
+ * it on the enabled looper after the {@link SubsystemManager}, so each snapshot sees the tick's
+ * loops and writes already done. {@link CrashTracker} dumps the recorder on a crash, or on a
+ * disable after a fault.
+ */
+public class FlightSnapshotLoop implements Loop {
+
+  public static final String TAG = "FLIGHTSNAPSHOT";
+
+  private static final BinaryLogSchema SCHEMA =
+      new BinaryLogSchema.Builder()
+          .add("timestamp", Type.DOUBLE)
+          .add("dt", Type.FLOAT)
+          .add("drive_mode", Type.BYTE, names(DriveMode.values()))
+          .add("x", Type.FLOAT)
+          .add("y", Type.FLOAT)
+          .add("heading", Type.FLOAT)
+          .add("arm_rotation_demand", Type.FLOAT)
+          .add("arm_extension_demand", Type.FLOAT)
+          .add("wrist_demand", Type.FLOAT)
+          .add("wanted_state", Type.BYTE, names(SuperstructureManager.WantedState.values()))
+          .add("commands", Type.SHORT)
+          .add("next_rotation", Type.FLOAT)
+          .add("next_extension", Type.FLOAT)
+          .add("next_wrist", Type.FLOAT)
+          .add("read_time", Type.FLOAT)
+          .add("loop_sum", Type.FLOAT)
+          .add("critical_path", Type.FLOAT)
+          .build();
+
+  private final FlightRecorder recorder =
+      new FlightRecorder(SCHEMA, RobotConstants.FLIGHT_RECORDER_CAPACITY);
+
+  private final SubsystemManager subsystems;
+  private final RobotState robotState = RobotState.getInstance();
+  private final Drivetrain drivetrain = Drivetrain.getInstance();
+  private final Arm arm = Arm.getInstance();
+  private final Wrist wrist = Wrist.getInstance();
+  private final SuperstructureManager superman = SuperstructureManager.getInstance();
+
+  private double lastTimestamp = Double.NaN;
+
+  public FlightSnapshotLoop(SubsystemManager subsystems) {
+    this.subsystems = subsystems;
+    CrashTracker.setFlightRecorder(recorder);
+  }
+
+  public FlightRecorder getRecorder() {
+    return recorder;
+  }
+
+  @Override
+  public void onStart(double timestamp) {
+    lastTimestamp = Double.NaN;
+  }
+
+  @Override
+  public void onLoop(double timestamp) {
+    Pose2d pose = robotState.getLatestFieldToVehiclePose();
+    Arm.ArmState armState = arm.getArmState();
+
+    ByteBuffer out = recorder.beginRecord();
+    out.putDouble(timestamp);
+    out.putFloat((float) (timestamp - lastTimestamp));
+    out.put((byte) drivetrain.getDriveMode().ordinal());
+    out.putFloat((float) pose.getTranslation().x());
+    out.putFloat((float) pose.getTranslation().y());
+    out.putFloat((float) pose.getRotation().getDegrees());
+    out.putFloat((float) armState.getRotationDemandInDegrees());
+    out.putFloat((float) armState.getExtensionDemandInInches());
+    out.putFloat((float) wrist.getDemand());
+    out.put((byte) superman.getWantedState().ordinal());
+    out.putShort((short) Math.min(superman.getCommandCount(), Short.MAX_VALUE));
+    out.putFloat((float) superman.getNextRotationDemand());
+    out.putFloat((float) superman.getNextExtensionDemand());
+    out.putFloat((float) superman.getNextWristAngle());
+    out.putFloat((float) subsystems.getLastReadTime());
+    out.putFloat((float) subsystems.getLastLoopSum());
+    out.putFloat((float) subsystems.getLastCriticalPath());
+    recorder.endRecord();
+
+    lastTimestamp = timestamp;
+  }
+
+  @Override
+  public void onStop(double timestamp) {}
+
+  @Override
+  public String id() {
+    return TAG;
+  }
+
+  private static String[] names(Enum<?>[] values) {
+    String[] names = new String[values.length];
+    for (int i = 0; i < values.length; i++) {
+      names[i] = values[i].name();
+    }
+    return names;
+  }
+}
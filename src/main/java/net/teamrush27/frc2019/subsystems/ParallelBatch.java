@@ -0,0 +1,119 @@
+package net.teamrush27.frc2019.subsystems;
+
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * A small fixed pool of daemon workers that runs a batch of indexed tasks, part on the calling
+ * thread and the rest on the workers, and returns only once every one of them has finished. Used by
+ * {@link ParallelInputReader} and {@link ParallelLoopRunner}; one batch runs at a time.
+ */
+class ParallelBatch {
+
+  interface Task {
+    void run(int index);
+  }
+
+  private final Task task;
+  private final Fork[] forks;
+  private final ExecutorService workers;
+
+  private final AtomicInteger pending = new AtomicInteger();
+  private final Object joinLock = new Object();
+  private volatile Throwable failure = null;
+
+  /** @param size number of task indices */
+  ParallelBatch(String threadName, int workerCount, int size, Task task) {
+    this.task = task;
+    forks = new Fork[size];
+    for (int i = 0; i < size; i++) {
+      forks[i] = new Fork(i);
+    }
+
+    AtomicInteger threadCount = new AtomicInteger();
+    workers =
+        Executors.newFixedThreadPool(
+            workerCount,
+            r -> {
+              Thread thread = new Thread(r, threadName + "-" + threadCount.incrementAndGet());
+              thread.setDaemon(true);
+              return thread;
+            });
+  }
+
+  /**
+   * Runs {@code indices[0..localCount)} in order on the calling thread while the workers run
+   * {@code indices[localCount..count)}. Waits for the workers even when a task on the calling
+   * thread throws, so no task of this batch is still running when the next one starts. Rethrows a
+   * task's failure, the calling thread's ahead of any worker's.
+   */
+  void run(int[] indices, int count, int localCount) {
+    Throwable workerFailure;
+    pending.set(count - localCount);
+    try {
+      for (int i = localCount; i < count; i++) {
+        try {
+          workers.execute(forks[indices[i]]);
+        } catch (RejectedExecutionException e) {
+          // these will never count themselves down
+          pending.addAndGet(-(count - i));
+          throw e;
+        }
+      }
+      for (int i = 0; i < localCount; i++) {
+        task.run(indices[i]);
+      }
+    } finally {
+      synchronized (joinLock) {
+        while (pending.get() > 0) {
+          try {
+            joinLock.wait();
+          } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            break;
+          }
+        }
+      }
+      workerFailure = failure;
+      failure = null;
+    }
+
+    if (workerFailure instanceof RuntimeException) {
+      throw (RuntimeException) workerFailure;
+    } else if (workerFailure instanceof Error) {
+      throw (Error) workerFailure;
+    } else if (workerFailure != null) {
+      throw new RuntimeException(workerFailure);
+    }
+  }
+
+  void shutdown() {
+    workers.shutdown();
+  }
+
+  private class Fork implements Runnable {
+
+    private final int index;
+
+    Fork(int index) {
+      this.index = index;
+    }
+
+    @Override
+    public void run() {
+      try {
+        task.run(index);
+      } catch (Throwable t) {
+        failure = t;
+      } finally {
+        if (pending.decrementAndGet() == 0) {
+          synchronized (joinLock) {
+            joinLock.notifyAll();
+          }
+        }
+      }
+    }
+  }
+}
@@ -0,0 +1,83 @@
+package net.teamrush27.frc2019.subsystems;
+
+import net.teamrush27.frc2019.util.time.TimeSource;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+/**
+ * Runs {@link Subsystem#readPeriodicInputs()} for subsystems that opt in through {@link
+ * Subsystem#canReadInParallel()} on a small fixed worker pool, so blocking CAN round-trips overlap
+ * instead of queueing behind each other. The calling thread reads the remaining subsystems itself
+ * and then waits for the workers, so every read has finished before the loop phase starts.
+ *
+ * <p>Per-subsystem start times and durations are kept for the caller to report, since the profiler
+ * can only be written from the control thread.
+ */
+class ParallelInputReader {
+
+  private static final Logger LOG = LogManager.getLogger(ParallelInputReader.class);
+
+  private final Subsystem[] subsystems;
+  private final boolean[] parallel;
+  private final ParallelBatch batch;
+  private final TimeSource time;
+
+  private final double[] starts;
+  private final double[] durations;
+  // this tick's reads, the calling thread's first
+  private final int[] order;
+
+  ParallelInputReader(Subsystem[] subsystems, int workerCount, TimeSource time) {
+    this.subsystems = subsystems;
+    this.time = time;
+    this.starts = new double[subsystems.length];
+    this.durations = new double[subsystems.length];
+    this.order = new int[subsystems.length];
+
+    parallel = new boolean[subsystems.length];
+    for (int i = 0; i < subsystems.length; i++) {
+      parallel[i] = subsystems[i].canReadInParallel();
+    }
+    batch = new ParallelBatch("SubsystemReader", workerCount, subsystems.length, this::readTimed);
+  }
+
+  /**
+   * Reads every subsystem with {@code due[i]} set, returning once all of them are done, even when a
+   * read on the calling thread throws. Rethrows anything a worker threw.
+   */
+  void read(boolean[] due) {
+    int count = 0;
+    for (int i = 0; i < subsystems.length; i++) {
+      if (due[i] && !parallel[i]) {
+        order[count++] = i;
+      }
+    }
+    int local = count;
+    for (int i = 0; i < subsystems.length; i++) {
+      if (due[i] && parallel[i]) {
+        order[count++] = i;
+      }
+    }
+    batch.run(order, count, local);
+  }
+
+  double getStart(int index) {
+    return starts[index];
+  }
+
+  double getDuration(int index) {
+    return durations[index];
+  }
+
+  void shutdown() {
+    LOG.info("shutting down parallel subsystem reads");
+    batch.shutdown();
+  }
+
+  private void readTimed(int index) {
+    double start = time.getRealTimestamp();
+    subsystems[index].readPeriodicInputs();
+    starts[index] = start;
+    durations[index] = time.getRealTimestamp() - start;
+  }
+}
@@ -0,0 +1,64 @@
+package net.teamrush27.frc2019.subsystems;
+
+import java.util.List;
+import net.teamrush27.frc2019.loops.Loop;
+import net.teamrush27.frc2019.util.time.TimeSource;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+/**
+ * Runs one level of a {@link net.teamrush27.frc2019.loops.LoopGraph} at a time: the first loop of
+ * the batch on the calling thread, the rest on a small fixed worker pool, returning once all of
+ * them have finished. Start times and durations are kept per loop for the caller to record, since
+ * the profiler can only be written from the control thread.
+ */
+class ParallelLoopRunner {
+
+  private static final Logger LOG = LogManager.getLogger(ParallelLoopRunner.class);
+
+  private final Loop[] loops;
+  private final ParallelBatch batch;
+  private final TimeSource time;
+
+  private final double[] starts;
+  private final double[] durations;
+
+  ParallelLoopRunner(List<Loop> loops, int workerCount, TimeSource time) {
+    this.loops = loops.toArray(new Loop[0]);
+    this.time = time;
+    starts = new double[this.loops.length];
+    durations = new double[this.loops.length];
+    batch = new ParallelBatch("LoopRunner", workerCount, this.loops.length, this::runTimed);
+  }
+
+  /**
+   * Runs {@code indices[0..count)} concurrently and waits for them, even when one throws. Rethrows
+   * failures.
+   */
+  void run(int[] indices, int count) {
+    if (count == 0) {
+      return;
+    }
+    batch.run(indices, count, 1);
+  }
+
+  double getStart(int index) {
+    return starts[index];
+  }
+
+  double getDuration(int index) {
+    return durations[index];
+  }
+
+  void shutdown() {
+    LOG.info("shutting down parallel loop branches");
+    batch.shutdown();
+  }
+
+  private void runTimed(int index) {
+    double start = time.getRealTimestamp();
+    loops[index].onLoop(time.getTimestamp());
+    starts[index] = start;
+    durations[index] = time.getRealTimestamp() - start;
+  }
+}
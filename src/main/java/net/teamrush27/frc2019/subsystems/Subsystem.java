@@ -1,6 +1,7 @@
 package net.teamrush27.frc2019.subsystems;
 
 import net.teamrush27.frc2019.loops.ILooper;
+import net.teamrush27.frc2019.loops.LoopPriority;
 import net.teamrush27.frc2019.subsystems.impl.dto.SmartDashboardCollection;
 
 public abstract class Subsystem {
@@ -21,6 +22,23 @@ public abstract class Subsystem {
   // Optional design pattern for caching periodic writes to avoid hammering the HAL/CAN.
   public void writePeriodicOutputs() {}
 
+  // True if readPeriodicInputs only touches this subsystem's own hardware and state, so it can run
+  // on a worker thread alongside other subsystems' reads.
+  public boolean canReadInParallel() {
+    return false;
+  }
+
+  // Seconds between readPeriodicInputs/writePeriodicOutputs calls, 0 for every looper tick.
+  public double getIOPeriod() {
+    return 0;
+  }
+
+  // Whether readPeriodicInputs/writePeriodicOutputs may be pushed back a tick when the tick budget
+  // runs out.
+  public LoopPriority getPriority() {
+    return LoopPriority.CRITICAL;
+  }
+
   public String id() {
     return "IMPLEMENT ME";
   }
@@ -1,48 +1,254 @@
 package net.teamrush27.frc2019.subsystems;
 
-import edu.wpi.first.wpilibj.Timer;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collections;
-import java.util.HashSet;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Set;
-import java.util.stream.Collectors;
+import net.teamrush27.frc2019.constants.RobotConstants;
 import net.teamrush27.frc2019.loops.ILooper;
+import net.teamrush27.frc2019.loops.LatencyHistogram;
 import net.teamrush27.frc2019.loops.Loop;
+import net.teamrush27.frc2019.loops.LoopGraph;
+import net.teamrush27.frc2019.loops.LoopPriority;
+import net.teamrush27.frc2019.loops.LoopProfiler;
+import net.teamrush27.frc2019.loops.LoopProfiler.Phase;
+import net.teamrush27.frc2019.loops.LoopSchedule;
 import net.teamrush27.frc2019.loops.Looper;
 import net.teamrush27.frc2019.subsystems.impl.dto.SmartDashboardCollection;
-import net.teamrush27.frc2019.util.ReflectingCSVWriter;
-
-/** Used to reset, start, stop, and update all subsystems at once */
+import net.teamrush27.frc2019.util.dashboard.DashboardEntry;
+import net.teamrush27.frc2019.util.dashboard.DashboardPublisher;
+import net.teamrush27.frc2019.util.dashboard.DashboardPublisher.Rate;
+import net.teamrush27.frc2019.util.log.LogSegments;
+import net.teamrush27.frc2019.util.metrics.MetricsRegistry;
+import net.teamrush27.frc2019.util.metrics.Timer;
+import net.teamrush27.frc2019.util.time.Clock;
+import net.teamrush27.frc2019.util.time.TimeSource;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+/**
+ * Used to reset, start, stop, and update all subsystems at once. Registered loops and subsystem
+ * reads/writes run at their own periods on the manager's looper tick.
+ *
+ * <p>Loops run in the topological order of their declared {@link Loop#getDependencies()} (see
+ * {@link LoopGraph}). With parallel branches on, each level of the graph runs concurrently. The
+ * critical path (the longest chain of dependent loop time) is tracked per tick.
+ *
+ * <p>With parallel reads on, subsystems that report {@link Subsystem#canReadInParallel()} have
+ * their inputs read on worker threads while the rest are read on the looper thread; everything is
+ * joined before any loop runs.
+ *
+ * <p>Enabled ticks have a time budget. Critical loops and subsystem writes always run; deferrable
+ * ones ({@link LoopPriority#DEFERRABLE}) run after them, and once the budget is used up they are
+ * pushed to the next tick instead (recorded as {@link Phase#SKIP} in the profile). Dashboard output
+ * is skipped while the last enabled tick was over budget.
+ */
 public class SubsystemManager implements ILooper {
 
-  public static String TAG = "SUBSYSTEMMANAGER";
+  private static final Logger LOG = LogManager.getLogger(SubsystemManager.class);
 
-  private final Set<Subsystem> subsystems = new HashSet<Subsystem>();
-  private List<Loop> loops = new ArrayList<>();
+  public static String TAG = "SUBSYSTEMMANAGER";
 
-  private ReflectingCSVWriter CSVWriter;
+  private final Subsystem[] subsystems;
+  private final int[] subsystemIds;
+  private final List<Loop> loops = new ArrayList<>();
+  private int[] loopIds = new int[0];
+
+  private final LoopSchedule loopSchedule = new LoopSchedule(RobotConstants.LOOPER_DELTA_TIME);
+  private final LoopSchedule ioSchedule = new LoopSchedule(RobotConstants.LOOPER_DELTA_TIME);
+
+  private final TimeSource time = Clock.getSource();
+  private final LoopProfiler profiler = new LoopProfiler(time);
+  private final int handle = profiler.register(TAG);
+
+  private final boolean[] readDue;
+  private volatile ParallelInputReader parallelReader = null;
+  private double lastReadTime = 0;
+  private double lastReadSum = 0;
+
+  private final double tickBudget = RobotConstants.LOOPER_TICK_BUDGET;
+  private double tickStart = 0;
+  private volatile boolean overBudget = false;
+  private boolean[] loopDeferrable = new boolean[0];
+  private boolean[] loopDeferred = new boolean[0];
+  private final boolean[] ioDeferrable;
+  private final boolean[] ioDeferred;
+  private volatile long loopSkips = 0;
+  private volatile long ioSkips = 0;
+  private volatile long dashboardSkips = 0;
+
+  private LoopGraph loopGraph = null;
+  private double[] loopDurations = new double[0];
+  private int[] levelBatch = new int[0];
+  private boolean parallelLoops = false;
+  private volatile ParallelLoopRunner loopRunner = null;
+  private final LatencyHistogram criticalPathHistogram = new LatencyHistogram();
+  private double lastCriticalPath = 0;
+  private double lastLoopSum = 0;
+
+  private final DashboardPublisher dashboard = DashboardPublisher.getInstance();
+  private final DashboardEntry readTimeEntry =
+      dashboard.number("subsystems.read.time", Rate.SLOW, 1e-4);
+  private final DashboardEntry readSumEntry =
+      dashboard.number("subsystems.read.sum", Rate.SLOW, 1e-4);
+  private final DashboardEntry loopSkipsEntry =
+      dashboard.number("subsystems.skips.loop", Rate.SLOW);
+  private final DashboardEntry ioSkipsEntry = dashboard.number("subsystems.skips.io", Rate.SLOW);
+  private final DashboardEntry dashboardSkipsEntry =
+      dashboard.number("subsystems.skips.dashboard", Rate.SLOW);
+  private final DashboardEntry criticalPathEntry =
+      dashboard.number("subsystems.loops.criticalPath", Rate.SLOW, 1e-4);
+  private final DashboardEntry loopSumEntry =
+      dashboard.number("subsystems.loops.sum", Rate.SLOW, 1e-4);
+
+  private final MetricsRegistry metrics = MetricsRegistry.getInstance();
+  private final Timer readTimer = metrics.timer("subsystems.read");
+  private final Timer loopTimer = metrics.timer("subsystems.loop");
+  private final Timer writeTimer = metrics.timer("subsystems.write");
+  private final Timer criticalPathTimer = metrics.timer("subsystems.loop.criticalPath");
+  private final Timer dashboardTimer = metrics.timer("subsystems.dashboard");
 
   public SubsystemManager(Subsystem... subsystems) {
-    Collections.addAll(this.subsystems, subsystems);
+    Set<Subsystem> unique = new LinkedHashSet<>();
+    Collections.addAll(unique, subsystems);
+    this.subsystems = unique.toArray(new Subsystem[0]);
+
+    metrics.gauge("subsystems.skips.loop", () -> loopSkips);
+    metrics.gauge("subsystems.skips.io", () -> ioSkips);
+
+    subsystemIds = new int[this.subsystems.length];
+    for (int i = 0; i < this.subsystems.length; i++) {
+      subsystemIds[i] = profiler.register(this.subsystems[i].id());
+      ioSchedule.add(this.subsystems[i].getIOPeriod());
+    }
+    readDue = new boolean[this.subsystems.length];
+
+    ioDeferrable = new boolean[this.subsystems.length];
+    ioDeferred = new boolean[this.subsystems.length];
+    for (int i = 0; i < this.subsystems.length; i++) {
+      ioDeferrable[i] = this.subsystems[i].getPriority() == LoopPriority.DEFERRABLE;
+    }
+
+    setParallelReads(RobotConstants.PARALLEL_SUBSYSTEM_READS);
+    setParallelLoops(RobotConstants.PARALLEL_LOOP_BRANCHES);
+  }
+
+  public SubsystemManager(List<Subsystem> subsystems) {
+    this(subsystems.toArray(new Subsystem[0]));
   }
 
-  public SubsystemManager(List subsystems) {}
+  /** @return false if subsystem output was skipped because the looper is over its tick budget */
+  public boolean outputToSmartDashboard(SmartDashboardCollection collection) {
+    long start = System.nanoTime();
+    readTimeEntry.setNumber(lastReadTime);
+    readSumEntry.setNumber(lastReadSum);
+    loopSkipsEntry.setNumber(loopSkips);
+    ioSkipsEntry.setNumber(ioSkips);
+    dashboardSkipsEntry.setNumber(dashboardSkips);
+    criticalPathEntry.setNumber(lastCriticalPath);
+    loopSumEntry.setNumber(lastLoopSum);
+
+    if (overBudget) {
+      dashboardSkips++;
+      return false;
+    }
 
-  public void outputToSmartDashboard(SmartDashboardCollection collection) {
-    subsystems.forEach(s -> s.outputToSmartDashboard(collection));
+    for (Subsystem subsystem : subsystems) {
+      subsystem.outputToSmartDashboard(collection);
+    }
+    dashboardTimer.recordSince(start);
+    return true;
+  }
+
+  /** Starts or stops the worker pool used to read independent subsystems concurrently. */
+  public synchronized void setParallelReads(boolean enabled) {
+    if (enabled && parallelReader == null) {
+      LOG.info("reading subsystem inputs on {} threads", RobotConstants.SUBSYSTEM_READ_THREADS);
+      parallelReader =
+          new ParallelInputReader(subsystems, RobotConstants.SUBSYSTEM_READ_THREADS, time);
+    } else if (!enabled && parallelReader != null) {
+      parallelReader.shutdown();
+      parallelReader = null;
+    }
+  }
+
+  public boolean isParallelReads() {
+    return parallelReader != null;
+  }
+
+  /** Runs loops in the same level of the dependency graph concurrently. */
+  public synchronized void setParallelLoops(boolean enabled) {
+    parallelLoops = enabled;
+    if (!enabled && loopRunner != null) {
+      loopRunner.shutdown();
+      loopRunner = null;
+    } else if (enabled && loopRunner == null && loopGraph != null) {
+      LOG.info("running independent loops on {} extra threads", RobotConstants.LOOP_BRANCH_THREADS);
+      loopRunner = new ParallelLoopRunner(loops, RobotConstants.LOOP_BRANCH_THREADS, time);
+    }
+  }
+
+  /** @return seconds of the longest chain of dependent loops in the last enabled tick */
+  public double getLastCriticalPath() {
+    return lastCriticalPath;
+  }
+
+  /** @return seconds all loops took in the last enabled tick, summed */
+  public double getLastLoopSum() {
+    return lastLoopSum;
+  }
+
+  public LatencyHistogram getCriticalPathHistogram() {
+    return criticalPathHistogram;
+  }
+
+  /** @return wall-clock seconds the last input read took */
+  public double getLastReadTime() {
+    return lastReadTime;
+  }
+
+  /**
+   * @return summed per-subsystem seconds for the last input read; the difference from {@link
+   *     #getLastReadTime()} is what parallel reads saved
+   */
+  public double getLastReadSum() {
+    return lastReadSum;
+  }
+
+  /** @return deferrable loop runs pushed back a tick since boot */
+  public long getLoopSkips() {
+    return loopSkips;
+  }
+
+  /** @return deferrable subsystem writes pushed back a tick since boot */
+  public long getIOSkips() {
+    return ioSkips;
+  }
+
+  /** @return dashboard updates skipped while over budget since boot */
+  public long getDashboardSkips() {
+    return dashboardSkips;
   }
 
   public void stop() {
-    subsystems.forEach(s -> s.stop());
+    for (Subsystem subsystem : subsystems) {
+      subsystem.stop();
+    }
   }
 
   public void zeroSensors() {
-    subsystems.forEach(s -> s.zeroSensors());
+    for (Subsystem subsystem : subsystems) {
+      subsystem.zeroSensors();
+    }
   }
 
   public void registerEnabledLoops(Looper enabledLooper) {
-    subsystems.forEach(s -> s.registerEnabledLoops(this));
+    for (Subsystem subsystem : subsystems) {
+      subsystem.registerEnabledLoops(this);
+    }
+    buildLoopGraph();
     enabledLooper.register(new EnabledLoop());
   }
 
@@ -59,83 +265,160 @@ public class SubsystemManager implements ILooper {
   @Override
   public void register(Loop loop) {
     loops.add(loop);
+    loopIds = Arrays.copyOf(loopIds, loops.size());
+    loopIds[loops.size() - 1] = profiler.register(loop.id());
+    loopSchedule.add(loop.getPeriod());
+
+    loopDeferrable = Arrays.copyOf(loopDeferrable, loops.size());
+    loopDeferrable[loops.size() - 1] = loop.getPriority() == LoopPriority.DEFERRABLE;
+    loopDeferred = new boolean[loops.size()];
+    loopGraph = null;
+  }
+
+  private synchronized void buildLoopGraph() {
+    loopGraph = new LoopGraph(loops);
+    loopDurations = new double[loops.size()];
+    levelBatch = new int[loops.size()];
+    LOG.info("loop order: {}", loopGraph.describe(loops));
+
+    if (loopRunner != null) {
+      loopRunner.shutdown();
+      loopRunner = null;
+    }
+    setParallelLoops(parallelLoops);
+  }
+
+  private boolean isOverBudget() {
+    return time.getRealTimestamp() - tickStart > tickBudget;
   }
 
   private class EnabledLoop implements Loop {
 
+    private long tick = 0;
+
     @Override
     public void onStart(double timestamp) {
-      List profiles =
-          loops.stream()
-              .map(
-                  l -> {
-                    double start = Timer.getFPGATimestamp();
-                    l.onStart(start);
-                    double end = Timer.getFPGATimestamp();
-
-                    return new Profile(l.id(), "START", start, end - start);
-                  })
-              .collect(Collectors.toList());
-
-      double end = Timer.getFPGATimestamp();
-      profiles.add(new Profile(this.id(), "START", timestamp, end - timestamp));
-
-      if (CSVWriter != null) {
-        profiles.forEach(p -> CSVWriter.add(p));
+      tick = 0;
+      Arrays.fill(loopDeferred, false);
+      Arrays.fill(ioDeferred, false);
+      criticalPathHistogram.reset();
+      if (loopGraph == null) {
+        buildLoopGraph();
+      }
+      double managerStart = profiler.start();
+
+      for (int i = 0; i < loops.size(); i++) {
+        double start = profiler.start();
+        loops.get(i).onStart(time.getTimestamp());
+        profiler.record(loopIds[i], Phase.START, start);
       }
+
+      profiler.record(handle, Phase.START, managerStart);
     }
 
     @Override
     public void onLoop(double timestamp) {
-      List readProfiles = readSubsystemInputs(timestamp);
-
-      double loopStart = Timer.getFPGATimestamp();
-
-      List loopProfiles =
-          loops.stream()
-              .map(
-                  l -> {
-                    double start = Timer.getFPGATimestamp();
-                    l.onLoop(start);
-                    double end = Timer.getFPGATimestamp();
+      tickStart = time.getRealTimestamp();
+      readSubsystemInputs(tick, true);
+      double loopsStart = time.getRealTimestamp();
+      readTimer.record(loopsStart - tickStart);
+
+      double loopStart = profiler.start();
+
+      Arrays.fill(loopDurations, 0);
+      ParallelLoopRunner runner = loopRunner;
+      if (runner == null) {
+        for (int i : loopGraph.getOrder()) {
+          if (shouldRunLoop(i)) {
+            runLoop(i);
+          }
+        }
+      } else {
+        for (int[] level : loopGraph.getLevels()) {
+          int count = 0;
+          for (int i : level) {
+            if (shouldRunLoop(i)) {
+              levelBatch[count++] = i;
+            }
+          }
+          runner.run(levelBatch, count);
+
+          for (int n = 0; n < count; n++) {
+            int i = levelBatch[n];
+            loopDurations[i] = runner.getDuration(i);
+            profiler.record(loopIds[i], Phase.LOOP, runner.getStart(i), loopDurations[i]);
+          }
+        }
+      }
 
-                    return new Profile(l.id(), "LOOP", start, end - start);
-                  })
-              .collect(Collectors.toList());
+      lastCriticalPath = loopGraph.getCriticalPath(loopDurations);
+      criticalPathHistogram.record(lastCriticalPath);
+      criticalPathTimer.record(lastCriticalPath);
+      double sum = 0;
+      for (double duration : loopDurations) {
+        sum += duration;
+      }
+      lastLoopSum = sum;
 
-      double end = Timer.getFPGATimestamp();
-      loopProfiles.add(new Profile(this.id(), "LOOP", loopStart, end - loopStart));
+      profiler.record(handle, Phase.LOOP, loopStart);
+      double writeStart = time.getRealTimestamp();
+      loopTimer.record(writeStart - loopsStart);
 
-      List writeProfiles = writeSubsystemOutputs(Timer.getFPGATimestamp());
+      writeSubsystemOutputs(tick, true);
+      writeTimer.record(time.getRealTimestamp() - writeStart);
+      overBudget = isOverBudget();
+      tick++;
+    }
 
-      if (CSVWriter != null) {
-        readProfiles.forEach(p -> CSVWriter.add(p));
-        loopProfiles.forEach(p -> CSVWriter.add(p));
-        writeProfiles.forEach(p -> CSVWriter.add(p));
+    /** Applies the schedule and, for deferrable loops, the tick budget. */
+    private boolean shouldRunLoop(int index) {
+      boolean due = loopSchedule.isDue(index, tick);
+      if (!loopDeferrable[index]) {
+        return due;
       }
+      if (!due && !loopDeferred[index]) {
+        return false;
+      }
+      if (isOverBudget()) {
+        loopDeferred[index] = true;
+        loopSkips++;
+        profiler.record(loopIds[index], Phase.SKIP, profiler.start(), 0);
+        return false;
+      }
+      loopDeferred[index] = false;
+      return true;
+    }
+
+    private void runLoop(int index) {
+      double start = time.getRealTimestamp();
+      loops.get(index).onLoop(time.getTimestamp());
+      loopDurations[index] = time.getRealTimestamp() - start;
+      profiler.record(loopIds[index], Phase.LOOP, start, loopDurations[index]);
     }
 
     @Override
     public void onStop(double timestamp) {
+      double managerStart = profiler.start();
 
-      List profiles =
-          loops.stream()
-              .map(
-                  l -> {
-                    double start = Timer.getFPGATimestamp();
-                    l.onStop(start);
-                    double end = Timer.getFPGATimestamp();
-
-                    return new Profile(l.id(), "STOP", start, end - start);
-                  })
-              .collect(Collectors.toList());
-
-      double end = Timer.getFPGATimestamp();
-      profiles.add(new Profile(this.id(), "STOP", timestamp, end - timestamp));
-
-      if (CSVWriter != null) {
-        profiles.forEach(p -> CSVWriter.add(p));
+      for (int i = 0; i < loops.size(); i++) {
+        double start = profiler.start();
+        loops.get(i).onStop(time.getTimestamp());
+        profiler.record(loopIds[i], Phase.STOP, start);
       }
+
+      profiler.record(handle, Phase.STOP, managerStart);
+      overBudget = false;
+
+      LOG.info(
+          "skipped {} deferrable loops, {} deferrable writes, {} dashboard updates",
+          loopSkips,
+          ioSkips,
+          dashboardSkips);
+      LOG.info(
+          "loop critical path p50/p99/max: {}/{}/{}",
+          criticalPathHistogram.getPercentile(0.5),
+          criticalPathHistogram.getPercentile(0.99),
+          criticalPathHistogram.getMax());
     }
 
     @Override
@@ -146,13 +429,18 @@ public class SubsystemManager implements ILooper {
 
   private class DisabledLoop implements Loop {
 
+    private long tick = 0;
+
     @Override
-    public void onStart(double timestamp) {}
+    public void onStart(double timestamp) {
+      tick = 0;
+    }
 
     @Override
     public void onLoop(double timestamp) {
-      readSubsystemInputs(timestamp);
-      writeSubsystemOutputs(Timer.getFPGATimestamp());
+      readSubsystemInputs(tick, false);
+      writeSubsystemOutputs(tick, false);
+      tick++;
     }
 
     @Override
@@ -164,78 +452,104 @@ public class SubsystemManager implements ILooper {
     }
   }
 
-  public List readSubsystemInputs(double timestamp) {
-    List profiles =
-        subsystems.stream()
-            .map(
-                s -> {
-                  double start = Timer.getFPGATimestamp();
-                  s.readPeriodicInputs();
-                  double end = Timer.getFPGATimestamp();
-
-                  return new Profile(s.id(), "READ_INPUT", start, end - start);
-                })
-            .collect(Collectors.toList());
+  private void readSubsystemInputs(long tick, boolean profile) {
+    double readStart = profile ? profiler.start() : 0;
+    ParallelInputReader reader = parallelReader;
+    if (reader == null) {
+      readSubsystemInputsSerial(tick, profile);
+    } else {
+      for (int i = 0; i < subsystems.length; i++) {
+        readDue[i] = ioSchedule.isDue(i, tick);
+      }
+      double start = time.getRealTimestamp();
+      reader.read(readDue);
+      lastReadTime = time.getRealTimestamp() - start;
+
+      // the profiler is single-producer, so worker timings are recorded here after the join
+      lastReadSum = 0;
+      for (int i = 0; i < subsystems.length; i++) {
+        if (readDue[i]) {
+          lastReadSum += reader.getDuration(i);
+          if (profile) {
+            profiler.record(
+                subsystemIds[i], Phase.READ_INPUT, reader.getStart(i), reader.getDuration(i));
+          }
+        }
+      }
+    }
 
-    double end = Timer.getFPGATimestamp();
-    profiles.add(new Profile(this.id(), "READ_INPUT", timestamp, end - timestamp));
+    if (profile) {
+      profiler.record(handle, Phase.READ_INPUT, readStart);
+    }
+  }
 
-    return profiles;
+  private void readSubsystemInputsSerial(long tick, boolean profile) {
+    double readStart = time.getRealTimestamp();
+    for (int i = 0; i < subsystems.length; i++) {
+      if (!ioSchedule.isDue(i, tick)) {
+        continue;
+      }
+      double start = profile ? profiler.start() : 0;
+      subsystems[i].readPeriodicInputs();
+      if (profile) {
+        profiler.record(subsystemIds[i], Phase.READ_INPUT, start);
+      }
+    }
+    lastReadTime = time.getRealTimestamp() - readStart;
+    lastReadSum = lastReadTime;
   }
 
-  public List writeSubsystemOutputs(double timestamp) {
-    List profiles =
-        subsystems.stream()
-            .map(
-                s -> {
-                  double start = Timer.getFPGATimestamp();
-                  s.writePeriodicOutputs();
-                  double end = Timer.getFPGATimestamp();
+  /** @param enabled profile and enforce the tick budget (disabled ticks do neither) */
+  private void writeSubsystemOutputs(long tick, boolean enabled) {
+    double writeStart = enabled ? profiler.start() : 0;
+    for (int i = 0; i < subsystems.length; i++) {
+      if (!ioDeferrable[i] && ioSchedule.isDue(i, tick)) {
+        writeSubsystemOutputs(i, enabled);
+      }
+    }
 
-                  return new Profile(s.id(), "WRITE_OUTPUT", start, end - start);
-                })
-            .collect(Collectors.toList());
+    for (int i = 0; i < subsystems.length; i++) {
+      if (!ioDeferrable[i] || !(ioSchedule.isDue(i, tick) || ioDeferred[i])) {
+        continue;
+      }
+      if (enabled && isOverBudget()) {
+        ioDeferred[i] = true;
+        ioSkips++;
+        profiler.record(subsystemIds[i], Phase.SKIP, profiler.start(), 0);
+        continue;
+      }
+      ioDeferred[i] = false;
+      writeSubsystemOutputs(i, enabled);
+    }
 
-    double end = Timer.getFPGATimestamp();
-    profiles.add(new Profile(this.id(), "WRITE_OUTPUT", timestamp, end - timestamp));
+    if (enabled) {
+      profiler.record(handle, Phase.WRITE_OUTPUT, writeStart);
+    }
+  }
 
-    return profiles;
+  private void writeSubsystemOutputs(int index, boolean profile) {
+    double start = profile ? profiler.start() : 0;
+    subsystems[index].writePeriodicOutputs();
+    if (profile) {
+      profiler.record(subsystemIds[index], Phase.WRITE_OUTPUT, start);
+    }
   }
 
   public void startLogging() {
-    if (CSVWriter == null) {
-      CSVWriter = new ReflectingCSVWriter<>("/home/lvuser/PROFILE-LOGS.csv", Profile.class);
-    }
+    profiler.startLogging(
+        new LogSegments("PROFILE-LOGS", RobotConstants.BINARY_LOGS ? ".bin" : ".csv"));
   }
 
   public void stopLogging() {
-    if (CSVWriter != null) {
-      CSVWriter.flush();
-      CSVWriter = null;
-    }
+    profiler.stopLogging();
+  }
+
+  public LoopProfiler getProfiler() {
+    return profiler;
   }
 
   public String id() {
     return TAG;
   }
 
-  public static class Profile {
-
-    public String id;
-    public String action;
-    public double timestamp;
-    public double duration;
-
-    public Profile(String id, String action, double timestamp, double duration) {
-      this.id = id;
-      this.action = action;
-      this.timestamp = timestamp;
-      this.duration = duration;
-    }
-
-    @Override
-    public String toString() {
-      return id + ", " + action + ", " + timestamp + ", " + duration;
-    }
-  }
 }
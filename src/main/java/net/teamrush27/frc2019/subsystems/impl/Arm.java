@@ -13,9 +13,15 @@ import net.teamrush27.frc2019.Robot;
 import net.teamrush27.frc2019.base.RobotMap;
 import net.teamrush27.frc2019.loops.ILooper;
 import net.teamrush27.frc2019.loops.Loop;
+import net.teamrush27.frc2019.managers.SuperstructureManager;
 import net.teamrush27.frc2019.subsystems.Subsystem;
 import net.teamrush27.frc2019.subsystems.impl.dto.ArmInput;
 import net.teamrush27.frc2019.subsystems.impl.dto.SmartDashboardCollection;
+import net.teamrush27.frc2019.util.crash.StateJournal;
+import net.teamrush27.frc2019.util.crash.StateJournal.Cause;
+import net.teamrush27.frc2019.util.dashboard.DashboardEntry;
+import net.teamrush27.frc2019.util.dashboard.DashboardPublisher;
+import net.teamrush27.frc2019.util.dashboard.DashboardPublisher.Rate;
 import net.teamrush27.frc2019.util.math.CircularBuffer;
 import net.teamrush27.frc2019.util.math.MathUtils;
 import net.teamrush27.frc2019.wrappers.InvertableDigitalInput;
@@ -60,9 +66,21 @@ public class Arm extends Subsystem {
   private WantedState wantedState = WantedState.OFF;
   private SystemState systemState = SystemState.OFF;
 
+  private final StateJournal journal = StateJournal.getInstance();
+  private final int journalId = journal.register("Arm", systemState);
+
   private boolean stateChanged = false;
   private double currentStateStartTime = 0d;
 
+  private final DashboardPublisher dashboard = DashboardPublisher.getInstance();
+  private final DashboardEntry rotationEntry = dashboard.number("arm.rotation", Rate.NORMAL, 0.1);
+  private final DashboardEntry rotationResetEntry =
+      dashboard.bool("arm.rotation.reset", Rate.NORMAL);
+  private final DashboardEntry extensionEntry =
+      dashboard.number("arm.extension", Rate.NORMAL, 0.05);
+  private final DashboardEntry extensionResetEntry =
+      dashboard.bool("arm.extension.reset", Rate.NORMAL);
+
   private Loop loop =
       new Loop() {
 
@@ -87,7 +105,8 @@ public class Arm extends Subsystem {
               break;
           }
           if (newState != systemState) {
-            LOG.info("Arm state {} to {}", systemState, newState);
+            journal.record(timestamp, journalId, systemState, newState, Cause.LOOP);
+            LOG.debug("Arm state {} to {}", systemState, newState);
             systemState = newState;
             currentStateStartTime = timestamp;
             stateChanged = true;
@@ -105,6 +124,12 @@ public class Arm extends Subsystem {
         public String id() {
           return TAG;
         }
+
+        // demands are set by the superstructure manager earlier in the same tick
+        @Override
+        public String[] getDependencies() {
+          return new String[] {SuperstructureManager.TAG};
+        }
       };
 
   private final CANSparkMax rotationMotorMaster;
@@ -221,10 +246,10 @@ public class Arm extends Subsystem {
     // collection.setArmExtensionSpeed(maxExtOutputBuffer.getMax());
     // collection.setArmExtensionCurrent(currentBuffer.getMax());
 
-    SmartDashboard.putNumber("arm.rotation", armState.getRotationInDegrees());
-    SmartDashboard.putBoolean("arm.rotation.reset", armState.isRotationAtHome());
-    SmartDashboard.putNumber("arm.extension", armState.getExtensionInInches());
-    SmartDashboard.putBoolean("arm.extension.reset", armState.isExtensionAtHome());
+    rotationEntry.setNumber(armState.getRotationInDegrees());
+    rotationResetEntry.setBoolean(armState.isRotationAtHome());
+    extensionEntry.setNumber(armState.getExtensionInInches());
+    extensionResetEntry.setBoolean(armState.isExtensionAtHome());
     // SmartDashboard.putNumber("arm.rotation.output", rotationMotorMaster.getAppliedOutput());
     // SmartDashboard.putNumber("arm.extension.output", extensionMotor.getAppliedOutput());
     // SmartDashboard.putNumber("arm.extension.speed", maxExtOutputBuffer.getMax());
@@ -266,6 +291,8 @@ public class Arm extends Subsystem {
   }
 
   boolean lastHomed = false;
+  // set by a read that may run on a worker thread, passed on to the LED by the next write
+  private boolean reportExtensionHomed = false;
 
   @Override
   public void readPeriodicInputs() {
@@ -285,7 +312,7 @@ public class Arm extends Subsystem {
       if (CANError.kOK.equals(extensionMotor.setEncPosition(0))) {
         LOG.info("extension homed");
         extensionHomed = true;
-        LED.getInstance().setExtensionHomed(true);
+        reportExtensionHomed = true;
         lastHomed = true;
       }
     } else if (!armState.isExtensionAtHome()) {
@@ -299,6 +326,10 @@ public class Arm extends Subsystem {
 
   @Override
   public void writePeriodicOutputs() {
+    if (reportExtensionHomed) {
+      reportExtensionHomed = false;
+      LED.getInstance().setExtensionHomed(true);
+    }
     if (stateChanged) {
       return;
     }
@@ -425,6 +456,11 @@ public class Arm extends Subsystem {
     fixOnHold = true;
   }
 
+  @Override
+  public boolean canReadInParallel() {
+    return true;
+  }
+
   @Override
   public String id() {
     return TAG;
@@ -20,7 +20,6 @@ import edu.wpi.first.wpilibj.AnalogInput;
 import edu.wpi.first.wpilibj.DriverStation;
 import edu.wpi.first.wpilibj.SPI;
 import edu.wpi.first.wpilibj.Servo;
-import edu.wpi.first.wpilibj.Timer;
 import edu.wpi.first.wpilibj.smartdashboard.SmartDashboard;
 import java.util.Objects;
 import net.teamrush27.frc2019.Robot;
@@ -37,13 +36,24 @@ import net.teamrush27.frc2019.subsystems.impl.dto.DriveCommand;
 import net.teamrush27.frc2019.subsystems.impl.dto.SmartDashboardCollection;
 import net.teamrush27.frc2019.subsystems.impl.enumerated.DriveMode;
 import net.teamrush27.frc2019.subsystems.impl.util.DriveUtils;
+import net.teamrush27.frc2019.util.FrameWriter;
 import net.teamrush27.frc2019.util.ReflectingCSVWriter;
+import net.teamrush27.frc2019.util.crash.CrashTracker;
+import net.teamrush27.frc2019.util.crash.StateJournal;
+import net.teamrush27.frc2019.util.crash.StateJournal.Cause;
+import net.teamrush27.frc2019.util.dashboard.DashboardEntry;
+import net.teamrush27.frc2019.util.dashboard.DashboardPublisher;
+import net.teamrush27.frc2019.util.dashboard.DashboardPublisher.Rate;
+import net.teamrush27.frc2019.util.log.BinaryFrameWriter;
+import net.teamrush27.frc2019.util.log.LogSegments;
 import net.teamrush27.frc2019.util.math.KinematicsUtils;
 import net.teamrush27.frc2019.util.math.Pose2d;
 import net.teamrush27.frc2019.util.math.Pose2dWithCurvature;
 import net.teamrush27.frc2019.util.math.Rotation2d;
 import net.teamrush27.frc2019.util.math.Twist2d;
 import net.teamrush27.frc2019.util.motion.DriveMotionPlanner;
+import net.teamrush27.frc2019.util.time.Clock;
+import net.teamrush27.frc2019.util.trajectory.PackedTrajectory;
 import net.teamrush27.frc2019.util.trajectory.Trajectory;
 import net.teamrush27.frc2019.util.trajectory.TrajectoryIterator;
 import net.teamrush27.frc2019.util.trajectory.timing.TimedState;
@@ -95,6 +105,8 @@ public class Drivetrain extends Subsystem {
   private final Limelights limelights;
 
   private DriveMode driveMode = DriveMode.OPEN_LOOP;
+  private final StateJournal journal = StateJournal.getInstance();
+  private final int journalId = journal.register("Drivetrain", driveMode);
   private Boolean inHighGear = false;
   private RobotState robotState = RobotState.getInstance();
   private Trajectory trajectory = null;
@@ -104,6 +116,8 @@ public class Drivetrain extends Subsystem {
   private Rotation2d gyroOffset = Rotation2d.identity();
 
   private PeriodicIO periodicIO;
+  // inputs from the last read phase, replaced whole so getters never need the monitor
+  private volatile Inputs inputs = new Inputs(new PeriodicIO());
 
   private boolean brakeMode = true;
 
@@ -113,13 +127,26 @@ public class Drivetrain extends Subsystem {
   private Rotation2d targetHeading = null;
   private boolean isOnTarget = false;
 
-  private ReflectingCSVWriter<PeriodicIO> CSVWriter = null;
+  private FrameWriter<PeriodicIO> logWriter = null;
 
   private AnalogInput distanceSensorFront;
   private AnalogInput distanceSensorRear;
 
   private NetworkTableInstance networkTableInstance = NetworkTableInstance.getDefault();
 
+  private final DashboardPublisher dashboard = DashboardPublisher.getInstance();
+  private final DashboardEntry armAbsoluteRotationEntry =
+      dashboard.number("arm.absolute_rotation", Rate.NORMAL);
+  private final DashboardEntry leftPositionEntry =
+      dashboard.number("drivetrain.left.position", Rate.NORMAL);
+  private final DashboardEntry rightPositionEntry =
+      dashboard.number("drivetrain.right.position", Rate.NORMAL);
+  // raw analog counts, which jitter by a count or two at rest
+  private final DashboardEntry frontDistanceEntry =
+      dashboard.number("drivetrain.front.distance", Rate.NORMAL, 2);
+  private final DashboardEntry rearDistanceEntry =
+      dashboard.number("drivetrain.rear.distance", Rate.NORMAL, 2);
+
   private final Loop loop = new Loop() {
     private DriveMode lastMode = DriveMode.OPEN_LOOP;
 
@@ -137,7 +164,8 @@ public class Drivetrain extends Subsystem {
     public void onLoop(double timestamp) {
       synchronized (Drivetrain.this) {
         if (driveMode != lastMode) {
-          LOG.info("DriveMode changed from {} to {}", lastMode, driveMode);
+          journal.record(timestamp, journalId, lastMode, driveMode, Cause.REQUEST);
+          LOG.debug("DriveMode changed from {} to {}", lastMode, driveMode);
           timeSinceModeSwitch = timestamp;
           lastMode = driveMode;
           modeChanged = true;
@@ -160,7 +188,7 @@ public class Drivetrain extends Subsystem {
           updateLimelightSteering(timestamp);
           break;
         default:
-          LOG.warn("Unexpected drive mode: " + driveMode);
+          LOG.warn("Unexpected drive mode: {}", driveMode);
           break;
         }
       }
@@ -177,6 +205,12 @@ public class Drivetrain extends Subsystem {
     public String id() {
       return TAG;
     }
+
+    // path following uses the pose the estimator publishes this tick
+    @Override
+    public String[] getDependencies() {
+      return new String[] {RobotStateEstimator.TAG};
+    }
   };
 
   /** @author team254 */
@@ -312,6 +346,7 @@ public class Drivetrain extends Subsystem {
       periodicIO.right_turn = rightInches;
     } else {
       LOG.warn("Hit a bad position control state");
+      CrashTracker.markFault("bad drive position control state");
       setOpenLoop(DriveCommand.defaultCommand());
     }
   }
@@ -440,11 +475,12 @@ public class Drivetrain extends Subsystem {
     // collection.setDrivetrainLeftPosition(leftMaster.getSelectedSensorPosition());
     // collection.setDrivetrainRightPosition(rightMaster.getSelectedSensorPosition());
 
-    SmartDashboard.putNumber("arm.absolute_rotation", periodicIO.armPosition);
-    SmartDashboard.putNumber("drivetrain.left.position", periodicIO.left_position_ticks);
-    SmartDashboard.putNumber("drivetrain.right.position", periodicIO.right_position_ticks);
-    SmartDashboard.putNumber("drivetrain.front.distance", periodicIO.frontDistance);
-    SmartDashboard.putNumber("drivetrain.rear.distance", periodicIO.rearDistance);
+    Inputs inputs = this.inputs;
+    armAbsoluteRotationEntry.setNumber(inputs.armPosition);
+    leftPositionEntry.setNumber(inputs.leftPositionTicks);
+    rightPositionEntry.setNumber(inputs.rightPositionTicks);
+    frontDistanceEntry.setNumber(inputs.frontDistance);
+    rearDistanceEntry.setNumber(inputs.rearDistance);
 
     // SmartDashboard.putBoolean("climb", DriveMode.CLIMB.equals(driveMode));
     // double currentleftMax = Math.max(leftMaster.getOutputCurrent(),leftMax);
@@ -456,8 +492,8 @@ public class Drivetrain extends Subsystem {
     // leftMax = currentleftMax;
     // rightMax = currentRightMax;
     // }
-    // if (CSVWriter != null) {
-    // CSVWriter.write();
+    // if (logWriter != null) {
+    // logWriter.write();
     // }
 
   }
@@ -516,6 +552,19 @@ public class Drivetrain extends Subsystem {
     }
   }
 
+  public synchronized void setTrajectory(PackedTrajectory trajectory) {
+    if (motionPlanner != null) {
+      overrideTrajectory = false;
+      motionPlanner.reset();
+      motionPlanner.setTrajectory(trajectory);
+      driveMode = DriveMode.CHEZY_PATH_FOLLOWING;
+    }
+  }
+
+  public DriveMode getDriveMode() {
+    return driveMode;
+  }
+
   public Boolean isLimelightSteering() {
     return DriveMode.LIMELIGHT_STEERING.equals(driveMode);
   }
@@ -527,8 +576,8 @@ public class Drivetrain extends Subsystem {
     return motionPlanner.isDone() || overrideTrajectory;
   }
 
-  public synchronized Rotation2d getHeading() {
-    return periodicIO.gyro_heading;
+  public Rotation2d getHeading() {
+    return inputs.gyroHeading;
   }
 
   public synchronized void setHeading(Rotation2d heading) {
@@ -540,6 +589,7 @@ public class Drivetrain extends Subsystem {
     LOG.info("Gyro offset: {}", gyroOffset.getDegrees());
 
     periodicIO.gyro_heading = heading;
+    inputs = new Inputs(periodicIO);
   }
 
   @Override
@@ -577,11 +627,11 @@ public class Drivetrain extends Subsystem {
   }
 
   public double getLeftEncoderRotations() {
-    return periodicIO.left_position_ticks / DRIVE_ENCODER_PPR;
+    return inputs.leftPositionTicks / DRIVE_ENCODER_PPR;
   }
 
   public double getRightEncoderRotations() {
-    return periodicIO.right_position_ticks / DRIVE_ENCODER_PPR;
+    return inputs.rightPositionTicks / DRIVE_ENCODER_PPR;
   }
 
   public double getLeftEncoderDistance() {
@@ -593,27 +643,35 @@ public class Drivetrain extends Subsystem {
   }
 
   public double getRightVelocityNativeUnits() {
-    return periodicIO.right_velocity_ticks_per_100ms;
+    return inputs.rightVelocityTicksPer100ms;
   }
 
   public double getRightLinearVelocity() {
-    return DriveUtils.rotationsToInches(getRightVelocityNativeUnits() * 10.0 / DRIVE_ENCODER_PPR);
+    return toLinearVelocity(getRightVelocityNativeUnits());
   }
 
   public double getLeftVelocityNativeUnits() {
-    return periodicIO.left_velocity_ticks_per_100ms;
+    return inputs.leftVelocityTicksPer100ms;
   }
 
   public double getLeftLinearVelocity() {
-    return DriveUtils.rotationsToInches(getLeftVelocityNativeUnits() * 10.0 / DRIVE_ENCODER_PPR);
+    return toLinearVelocity(getLeftVelocityNativeUnits());
   }
 
   public double getLinearVelocity() {
-    return (getLeftLinearVelocity() + getRightLinearVelocity()) / 2.0;
+    Inputs inputs = this.inputs;
+    return (toLinearVelocity(inputs.leftVelocityTicksPer100ms)
+        + toLinearVelocity(inputs.rightVelocityTicksPer100ms)) / 2.0;
   }
 
   public double getAngularVelocity() {
-    return (getRightLinearVelocity() - getLeftLinearVelocity()) / ChezyConstants.kDriveWheelTrackWidthInches;
+    Inputs inputs = this.inputs;
+    return (toLinearVelocity(inputs.rightVelocityTicksPer100ms)
+        - toLinearVelocity(inputs.leftVelocityTicksPer100ms)) / ChezyConstants.kDriveWheelTrackWidthInches;
+  }
+
+  private static double toLinearVelocity(double ticksPer100ms) {
+    return DriveUtils.rotationsToInches(ticksPer100ms * 10.0 / DRIVE_ENCODER_PPR);
   }
 
   public synchronized void resetEncoders() {
@@ -695,25 +753,26 @@ public class Drivetrain extends Subsystem {
 
     } else {
       LOG.warn("Hit a bad velocity control state {} {}", driveMode.getRequestedControlMode(), driveMode);
+      CrashTracker.markFault("bad drive velocity control state");
       periodicIO.left_demand = 0;
       periodicIO.right_demand = 0;
     }
   }
 
   public double getLeftVelocityInchesPerSec() {
-    return DriveUtils.encoderCountToInches(periodicIO.left_velocity_ticks_per_100ms) * 10;
+    return DriveUtils.encoderCountToInches(inputs.leftVelocityTicksPer100ms) * 10;
   }
 
   public double getRightVelocityInchesPerSec() {
-    return DriveUtils.encoderCountToInches(periodicIO.right_velocity_ticks_per_100ms) * 10;
+    return DriveUtils.encoderCountToInches(inputs.rightVelocityTicksPer100ms) * 10;
   }
 
   public double getLeftDistanceInches() {
-    return DriveUtils.encoderCountToInches(periodicIO.left_position_ticks);
+    return DriveUtils.encoderCountToInches(inputs.leftPositionTicks);
   }
 
   public double getRightDistanceInches() {
-    return DriveUtils.encoderCountToInches(periodicIO.right_position_ticks);
+    return DriveUtils.encoderCountToInches(inputs.rightPositionTicks);
   }
 
   @Override
@@ -723,7 +782,7 @@ public class Drivetrain extends Subsystem {
 
   private void updateChezyPathFollower(double timestamp) {
     if (driveMode == DriveMode.CHEZY_PATH_FOLLOWING) {
-      double now = Timer.getFPGATimestamp();
+      double now = Clock.getTimestamp();
 
       // periodicIO.field_to_vehicle =
       // RobotState.getInstance().getPredictedFieldToVehicle(now);
@@ -839,16 +898,23 @@ public class Drivetrain extends Subsystem {
   }
 
   public synchronized void startLogging() {
-    if (CSVWriter == null) {
-      CSVWriter = new ReflectingCSVWriter<>("/media/sda1/logs/DRIVE-LOGS.csv", PeriodicIO.class);
+    if (logWriter == null) {
+      if (RobotConstants.BINARY_LOGS) {
+        logWriter =
+            new BinaryFrameWriter<>(
+                new LogSegments("DRIVE-LOGS", ".bin"), PeriodicIO.class, periodicIO);
+      } else {
+        logWriter =
+            new ReflectingCSVWriter<>(new LogSegments("DRIVE-LOGS", ".csv"), PeriodicIO.class);
+      }
     }
   }
 
   public synchronized void stopLogging() {
-    if (CSVWriter != null) {
-      CSVWriter.flush();
+    if (logWriter != null) {
+      logWriter.close();
       LOG.info("Drivetrain DONE logging");
-      CSVWriter = null;
+      logWriter = null;
     }
   }
 
@@ -860,8 +926,9 @@ public class Drivetrain extends Subsystem {
     double prevRightVelocity = periodicIO.right_velocity_ticks_per_100ms;
     double prevTimestamp = periodicIO.timestamp;
 
+    double readStart = Clock.getRealTimestamp();
     periodicIO.armPosition = armEncoderTalon.getSelectedSensorPosition();
-    periodicIO.timestamp = Timer.getFPGATimestamp();
+    periodicIO.timestamp = Clock.getTimestamp();
     periodicIO.left_position_ticks = leftMaster.getEncoder().getPosition();
     periodicIO.right_position_ticks = rightMaster.getEncoder().getPosition();
     periodicIO.left_velocity_ticks_per_100ms = leftMaster.getEncoder().getVelocity();
@@ -873,7 +940,7 @@ public class Drivetrain extends Subsystem {
         / (periodicIO.timestamp - prevTimestamp);
 
     periodicIO.gyro_heading = Rotation2d.fromDegrees(navX.getFusedHeading()).rotateBy(gyroOffset);
-    periodicIO.can_read_delta = Timer.getFPGATimestamp() - periodicIO.timestamp;
+    periodicIO.can_read_delta = Clock.getRealTimestamp() - readStart;
 
     double deltaLeftTicks = ((periodicIO.left_position_ticks - prevLeftTicks) / 4096.0) * Math.PI;
     if (deltaLeftTicks > 0.0) {
@@ -892,8 +959,10 @@ public class Drivetrain extends Subsystem {
     periodicIO.frontDistance = distanceSensorFront.getValue();
     periodicIO.rearDistance = distanceSensorRear.getValue();
 
-    if (CSVWriter != null) {
-      CSVWriter.add(periodicIO);
+    inputs = new Inputs(periodicIO);
+
+    if (logWriter != null) {
+      logWriter.add(periodicIO);
       periodicIO = new PeriodicIO(periodicIO);
     }
   }
@@ -967,20 +1036,50 @@ public class Drivetrain extends Subsystem {
       rightMaster.set(right_signal);
     } else {
       LOG.warn("Hit a bad control state {} {}", driveMode.getRequestedControlMode(), driveMode);
+      CrashTracker.markFault("bad drive control state");
     }
   }
 
+  @Override
+  public boolean canReadInParallel() {
+    return true;
+  }
+
   @Override
   public String id() {
     return TAG;
   }
 
   public int getFrontDistance() {
-    return periodicIO.frontDistance;
+    return inputs.frontDistance;
   }
 
   public int getRearDistance() {
-    return periodicIO.rearDistance;
+    return inputs.rearDistance;
+  }
+
+  /** Immutable copy of the sensor half of {@link PeriodicIO}, published once per read phase. */
+  private static final class Inputs {
+
+    private final int armPosition;
+    private final double leftPositionTicks;
+    private final double rightPositionTicks;
+    private final double leftVelocityTicksPer100ms;
+    private final double rightVelocityTicksPer100ms;
+    private final Rotation2d gyroHeading;
+    private final int frontDistance;
+    private final int rearDistance;
+
+    private Inputs(PeriodicIO io) {
+      armPosition = io.armPosition;
+      leftPositionTicks = io.left_position_ticks;
+      rightPositionTicks = io.right_position_ticks;
+      leftVelocityTicksPer100ms = io.left_velocity_ticks_per_100ms;
+      rightVelocityTicksPer100ms = io.right_velocity_ticks_per_100ms;
+      gyroHeading = io.gyro_heading;
+      frontDistance = io.frontDistance;
+      rearDistance = io.rearDistance;
+    }
   }
 
   public static class PeriodicIO {
@@ -5,8 +5,6 @@ import com.ctre.phoenix.motorcontrol.FeedbackDevice;
 import com.ctre.phoenix.motorcontrol.NeutralMode;
 import com.ctre.phoenix.motorcontrol.can.TalonSRX;
 import edu.wpi.first.wpilibj.DigitalInput;
-import edu.wpi.first.wpilibj.Timer;
-import edu.wpi.first.wpilibj.smartdashboard.SmartDashboard;
 import net.teamrush27.frc2019.Robot;
 import net.teamrush27.frc2019.base.RobotMap;
 import net.teamrush27.frc2019.constants.RobotConstants;
@@ -14,14 +12,20 @@ import net.teamrush27.frc2019.loops.ILooper;
 import net.teamrush27.frc2019.loops.Loop;
 import net.teamrush27.frc2019.subsystems.Subsystem;
 import net.teamrush27.frc2019.subsystems.impl.dto.SmartDashboardCollection;
+import net.teamrush27.frc2019.util.crash.StateJournal;
+import net.teamrush27.frc2019.util.crash.StateJournal.Cause;
+import net.teamrush27.frc2019.util.dashboard.DashboardEntry;
+import net.teamrush27.frc2019.util.dashboard.DashboardPublisher;
+import net.teamrush27.frc2019.util.dashboard.DashboardPublisher.Rate;
 import net.teamrush27.frc2019.util.math.CircularBuffer;
+import net.teamrush27.frc2019.util.time.Clock;
 import net.teamrush27.frc2019.wrappers.InvertableDigitalInput;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 
 public class Gripper extends Subsystem {
 
-  private static final String TAG = "GRIPPER";
+  public static final String TAG = "GRIPPER";
   private static final Logger LOG = LogManager.getLogger(Gripper.class);
   private static Gripper INSTANCE = null;
 
@@ -53,10 +57,18 @@ public class Gripper extends Subsystem {
   private WantedState wantedState = WantedState.INTAKE_HATCH;
   private SystemState systemState = SystemState.HOLD_HATCH;
 
+  private final StateJournal journal = StateJournal.getInstance();
+  private final int journalId = journal.register("Gripper", systemState);
+
   private boolean hasGamepiece = false;
   private boolean stateChanged = false;
   private double currentStateStartTime;
 
+  private final DashboardPublisher dashboard = DashboardPublisher.getInstance();
+  private final DashboardEntry stateEntry = dashboard.text("gripper.state", Rate.FAST);
+  private final DashboardEntry jawPositionEntry =
+      dashboard.number("gripper.jaw_position", Rate.NORMAL);
+
   private Loop loop =
       new Loop() {
 
@@ -93,7 +105,8 @@ public class Gripper extends Subsystem {
               break;
           }
           if (newState != systemState) {
-            LOG.info("Gripper state {} to {}", systemState, newState);
+            journal.record(timestamp, journalId, systemState, newState, Cause.LOOP);
+            LOG.debug("Gripper state {} to {}", systemState, newState);
             systemState = newState;
             currentStateStartTime = timestamp;
             stateChanged = true;
@@ -114,7 +127,10 @@ public class Gripper extends Subsystem {
       };
 
   public synchronized void unjam() {
-    currentStateStartTime = Timer.getFPGATimestamp();
+    if (systemState != SystemState.UNJAM_HATCH) {
+      journal.record(journalId, systemState, SystemState.UNJAM_HATCH, Cause.REQUEST);
+    }
+    currentStateStartTime = Clock.getTimestamp();
     systemState = SystemState.UNJAM_HATCH;
   }
 
@@ -268,9 +284,9 @@ public class Gripper extends Subsystem {
         && circularBuffer.isFull()
         && timestamp - currentStateStartTime > .1) {
       if (firstFoundBall == 0) {
-        firstFoundBall = Timer.getFPGATimestamp();
+        firstFoundBall = Clock.getTimestamp();
       }
-      if (Timer.getFPGATimestamp() - firstFoundBall > .25) {
+      if (Clock.getTimestamp() - firstFoundBall > .25) {
         return SystemState.HOLD_CARGO;
       }
     }
@@ -336,8 +352,8 @@ public class Gripper extends Subsystem {
       LED.getInstance().setExhausting(false);
     }
 
-    SmartDashboard.putString("gripper.state", systemState.toString());
-    SmartDashboard.putNumber("gripper.jaw_position", jawMotor.getSelectedSensorPosition());
+    stateEntry.setText(systemState.toString());
+    jawPositionEntry.setNumber(jawMotor.getSelectedSensorPosition());
   }
 
   @Override
@@ -409,6 +425,11 @@ public class Gripper extends Subsystem {
     return SystemState.HOLD_CARGO.equals(systemState);
   }
 
+  @Override
+  public boolean canReadInParallel() {
+    return true;
+  }
+
   @Override
   public String id() {
     return TAG;
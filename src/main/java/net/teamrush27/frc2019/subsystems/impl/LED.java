@@ -2,8 +2,10 @@ package net.teamrush27.frc2019.subsystems.impl;
 
 import edu.wpi.first.wpilibj.I2C;
 import edu.wpi.first.wpilibj.I2C.Port;
+import net.teamrush27.frc2019.constants.RobotConstants;
 import net.teamrush27.frc2019.loops.ILooper;
 import net.teamrush27.frc2019.loops.Loop;
+import net.teamrush27.frc2019.loops.LoopPriority;
 import net.teamrush27.frc2019.subsystems.Subsystem;
 import net.teamrush27.frc2019.subsystems.impl.dto.SmartDashboardCollection;
 import org.apache.logging.log4j.LogManager;
@@ -77,6 +79,17 @@ public class LED extends Subsystem {
         public String id() {
           return TAG;
         }
+
+        @Override
+        public LoopPriority getPriority() {
+          return LoopPriority.DEFERRABLE;
+        }
+
+        // the gripper and spider legs set the LED's flags; keep them off the LED's tick
+        @Override
+        public String[] getDependencies() {
+          return new String[] {Gripper.TAG, SpiderLegs.TAG};
+        }
       };
 
   private final I2C arduino;
@@ -124,6 +137,16 @@ public class LED extends Subsystem {
     systemState = handleState();
   }
 
+  @Override
+  public double getIOPeriod() {
+    return RobotConstants.LED_IO_PERIOD;
+  }
+
+  @Override
+  public LoopPriority getPriority() {
+    return LoopPriority.DEFERRABLE;
+  }
+
   @Override
   public void stop() {
     wantedState = WantedState.DISABLED;
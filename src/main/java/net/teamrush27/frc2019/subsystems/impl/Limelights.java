@@ -1,11 +1,17 @@
 package net.teamrush27.frc2019.subsystems.impl;
 
-import edu.wpi.first.wpilibj.smartdashboard.SmartDashboard;
+import net.teamrush27.frc2019.constants.RobotConstants;
 import net.teamrush27.frc2019.loops.ILooper;
 import net.teamrush27.frc2019.loops.Loop;
+import net.teamrush27.frc2019.loops.LoopPriority;
 import net.teamrush27.frc2019.managers.SuperstructureManager;
 import net.teamrush27.frc2019.subsystems.Subsystem;
 import net.teamrush27.frc2019.subsystems.impl.dto.SmartDashboardCollection;
+import net.teamrush27.frc2019.util.crash.StateJournal;
+import net.teamrush27.frc2019.util.crash.StateJournal.Cause;
+import net.teamrush27.frc2019.util.dashboard.DashboardEntry;
+import net.teamrush27.frc2019.util.dashboard.DashboardPublisher;
+import net.teamrush27.frc2019.util.dashboard.DashboardPublisher.Rate;
 import net.teamrush27.frc2019.wrappers.Limelight;
 import net.teamrush27.frc2019.wrappers.Limelight.CamMode;
 import net.teamrush27.frc2019.wrappers.Limelight.LEDMode;
@@ -15,7 +21,7 @@ import org.apache.logging.log4j.Logger;
 public class Limelights extends Subsystem {
 
   private static final Logger LOG = LogManager.getLogger(Limelights.class);
-  private static final String TAG = "LIMELIGHTS";
+  public static final String TAG = "LIMELIGHTS";
 
   private static Limelights INSTANCE = null;
 
@@ -44,6 +50,12 @@ public class Limelights extends Subsystem {
   private SystemState systemState = SystemState.DRIVE;
   private boolean stateChanged = false;
 
+  private final StateJournal journal = StateJournal.getInstance();
+  private final int journalId = journal.register("Limelights", systemState);
+
+  private final DashboardEntry modeEntry =
+      DashboardPublisher.getInstance().text("LIMELIGHT_MODE", Rate.FAST);
+
   private final Loop loop =
       new Loop() {
         private SystemState lastState = null;
@@ -53,9 +65,13 @@ public class Limelights extends Subsystem {
 
         @Override
         public void onLoop(double timestamp) {
+          SystemState requested = systemState;
           systemState = defaultStateTransfer(superman.overBack());
           if (lastState != systemState) {
-            LOG.info("LIMELIGHT state " + lastState + " to " + systemState);
+            // unchanged by the transfer means a setter moved it since the last loop
+            Cause cause = requested == systemState ? Cause.REQUEST : Cause.LOOP;
+            journal.record(timestamp, journalId, lastState, systemState, cause);
+            LOG.debug("LIMELIGHT state {} to {}", lastState, systemState);
             lastState = systemState;
             stateChanged = true;
           }
@@ -70,6 +86,16 @@ public class Limelights extends Subsystem {
         public String id() {
           return TAG;
         }
+
+        @Override
+        public double getPeriod() {
+          return RobotConstants.LIMELIGHT_LOOP_PERIOD;
+        }
+
+        @Override
+        public LoopPriority getPriority() {
+          return LoopPriority.DEFERRABLE;
+        }
       };
 
   private SystemState defaultStateTransfer(boolean rear) {
@@ -217,7 +243,7 @@ public class Limelights extends Subsystem {
   @Override
   public void outputToSmartDashboard(SmartDashboardCollection collection) {
     // collection.setLimelightMode(systemState.toString());
-    SmartDashboard.putString("LIMELIGHT_MODE", systemState.toString());
+    modeEntry.setText(systemState.toString());
   }
 
   @Override
@@ -234,6 +260,11 @@ public class Limelights extends Subsystem {
   @Override
   public void test() {}
 
+  @Override
+  public LoopPriority getPriority() {
+    return LoopPriority.DEFERRABLE;
+  }
+
   @Override
   public String id() {
     return TAG;
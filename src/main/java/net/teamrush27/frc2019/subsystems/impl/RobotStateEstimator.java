@@ -1,25 +1,29 @@
 package net.teamrush27.frc2019.subsystems.impl;
 
 import net.teamrush27.frc2019.base.RobotState;
+import net.teamrush27.frc2019.constants.RobotConstants;
 import net.teamrush27.frc2019.loops.ILooper;
 import net.teamrush27.frc2019.loops.Loop;
 import net.teamrush27.frc2019.subsystems.Subsystem;
 import net.teamrush27.frc2019.subsystems.impl.dto.SmartDashboardCollection;
+import net.teamrush27.frc2019.util.FrameWriter;
 import net.teamrush27.frc2019.util.ReflectingCSVWriter;
+import net.teamrush27.frc2019.util.log.BinaryFrameWriter;
+import net.teamrush27.frc2019.util.log.LogSegments;
 import net.teamrush27.frc2019.util.math.KinematicsUtils;
 import net.teamrush27.frc2019.util.math.Rotation2d;
 import net.teamrush27.frc2019.util.math.Twist2d;
 
 public class RobotStateEstimator extends Subsystem {
 
-  private static String TAG = "ROBOTSTATEESTIMATOR";
+  public static final String TAG = "ROBOTSTATEESTIMATOR";
 
   static RobotStateEstimator instance_ = new RobotStateEstimator();
   private RobotState robot_state_ = RobotState.getInstance();
   private Drivetrain drivetrain = Drivetrain.getInstance();
   private double left_encoder_prev_distance_ = 0.0;
   private double right_encoder_prev_distance_ = 0.0;
-  private ReflectingCSVWriter CSVWriter;
+  private volatile FrameWriter<StateFrame> logWriter;
 
   private StateFrame stateFrame = new StateFrame();
 
@@ -77,8 +81,9 @@ public class RobotStateEstimator extends Subsystem {
           left_encoder_prev_distance_ = stateFrame.left_distance;
           right_encoder_prev_distance_ = stateFrame.right_distance;
 
-          if (CSVWriter != null) {
-            CSVWriter.add(stateFrame);
+          FrameWriter<StateFrame> writer = logWriter;
+          if (writer != null) {
+            writer.add(stateFrame);
             stateFrame = new StateFrame();
           }
 
@@ -103,19 +108,26 @@ public class RobotStateEstimator extends Subsystem {
   }
 
   public synchronized void startLogging() {
-    if (CSVWriter == null) {
-      CSVWriter = new ReflectingCSVWriter<>("/home/lvuser/STATE-LOGS.csv", StateFrame.class);
+    if (logWriter == null) {
+      if (RobotConstants.BINARY_LOGS) {
+        logWriter =
+            new BinaryFrameWriter<>(
+                new LogSegments("STATE-LOGS", ".bin"), StateFrame.class, new StateFrame());
+      } else {
+        logWriter =
+            new ReflectingCSVWriter<>(new LogSegments("STATE-LOGS", ".csv"), StateFrame.class);
+      }
     }
   }
 
   public synchronized void stopLogging() {
-    if (CSVWriter != null) {
-      CSVWriter.flush();
-      CSVWriter = null;
+    if (logWriter != null) {
+      logWriter.close();
+      logWriter = null;
     }
   }
 
-  public class StateFrame {
+  public static class StateFrame {
 
     public double timestamp;
 
@@ -123,8 +135,8 @@ public class RobotStateEstimator extends Subsystem {
     public double right_distance;
     public double delta_left;
     public double delta_right;
-    public Rotation2d gyro_angle;
-    public Twist2d odometry_velocity;
-    public Twist2d predicted_velocity;
+    public Rotation2d gyro_angle = Rotation2d.identity();
+    public Twist2d odometry_velocity = Twist2d.identity();
+    public Twist2d predicted_velocity = Twist2d.identity();
   }
 }
@@ -6,7 +6,6 @@ import com.ctre.phoenix.motorcontrol.NeutralMode;
 import com.ctre.phoenix.motorcontrol.can.TalonSRX;
 import edu.wpi.first.wpilibj.AnalogInput;
 import edu.wpi.first.wpilibj.DigitalInput;
-import edu.wpi.first.wpilibj.Timer;
 import edu.wpi.first.wpilibj.smartdashboard.SmartDashboard;
 import net.teamrush27.frc2019.base.RobotMap;
 import net.teamrush27.frc2019.constants.RobotConstants;
@@ -14,6 +13,12 @@ import net.teamrush27.frc2019.loops.ILooper;
 import net.teamrush27.frc2019.loops.Loop;
 import net.teamrush27.frc2019.subsystems.Subsystem;
 import net.teamrush27.frc2019.subsystems.impl.dto.SmartDashboardCollection;
+import net.teamrush27.frc2019.util.crash.StateJournal;
+import net.teamrush27.frc2019.util.crash.StateJournal.Cause;
+import net.teamrush27.frc2019.util.dashboard.DashboardEntry;
+import net.teamrush27.frc2019.util.dashboard.DashboardPublisher;
+import net.teamrush27.frc2019.util.dashboard.DashboardPublisher.Rate;
+import net.teamrush27.frc2019.util.time.Clock;
 import net.teamrush27.frc2019.wrappers.InvertableDigitalInput;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
@@ -21,7 +26,7 @@ import org.apache.logging.log4j.Logger;
 public class SpiderLegs extends Subsystem {
 
   private static Logger LOG = LogManager.getLogger(SpiderLegs.class);
-  private static String TAG = "SPIDERLEGS";
+  public static final String TAG = "SPIDERLEGS";
   private static SpiderLegs INSTANCE = null;
 
   private static final int REAR_HOME = 0;
@@ -68,9 +73,22 @@ public class SpiderLegs extends Subsystem {
   private WantedState wantedState = WantedState.OFF;
   private SystemState systemState = SystemState.OFF;
 
+  private final StateJournal journal = StateJournal.getInstance();
+  private final int journalId = journal.register("SpiderLegs", systemState);
+
   private boolean stateChanged = false;
   private double currentStateStartTime;
 
+  private final DashboardPublisher dashboard = DashboardPublisher.getInstance();
+  private final DashboardEntry frontPositionEntry =
+      dashboard.number("spiderlegs.front.position", Rate.NORMAL);
+  private final DashboardEntry rearPositionEntry =
+      dashboard.number("spiderlegs.rear.position", Rate.NORMAL);
+  private final DashboardEntry frontDetectiveEntry =
+      dashboard.number("spiderlegs.front_detective", Rate.NORMAL, 0.01);
+  private final DashboardEntry rearDetectiveEntry =
+      dashboard.number("spiderlegs.rear_detective", Rate.NORMAL, 0.01);
+
   private Loop loop =
       new Loop() {
 
@@ -104,7 +122,8 @@ public class SpiderLegs extends Subsystem {
               break;
           }
           if (newState != systemState) {
-            LOG.info("SpiderLegs state {} to {}", systemState, newState);
+            journal.record(timestamp, journalId, systemState, newState, Cause.LOOP);
+            LOG.debug("SpiderLegs state {} to {}", systemState, newState);
             systemState = newState;
             currentStateStartTime = timestamp;
             stateChanged = true;
@@ -244,15 +263,15 @@ public class SpiderLegs extends Subsystem {
       setVoltageCompensation(true);
       frontOnGround = false;
       rearOnGround = false;
-      firstHeld = Timer.getFPGATimestamp();
+      firstHeld = Clock.getTimestamp();
     }
 
-    if (frontOnGround && Timer.getFPGATimestamp() - firstHeld > 1) {
+    if (frontOnGround && Clock.getTimestamp() - firstHeld > 1) {
       frontLegMotor.set(ControlMode.Disabled, FRONT_HOME);
     } else {
       frontLegMotor.set(ControlMode.MotionMagic, FRONT_L2_HOLD);
     }
-    if (rearOnGround && Timer.getFPGATimestamp() - firstHeld > 1) {
+    if (rearOnGround && Clock.getTimestamp() - firstHeld > 1) {
       rearLegMotorMaster.set(ControlMode.MotionMagic, REAR_RETURN);
     } else {
       rearLegMotorMaster.set(ControlMode.MotionMagic, REAR_HOLD_L2);
@@ -365,15 +384,13 @@ public class SpiderLegs extends Subsystem {
     // collection.setSpiderlegsFrontHome(frontLegHome.get());
     // collection.setSpiderlegsRearHome(rearLegHome.get());
 
-    SmartDashboard.putNumber(
-        "spiderlegs.front.position", frontLegMotor.getSelectedSensorPosition());
-    SmartDashboard.putNumber(
-        "spiderlegs.rear.position", rearLegMotorMaster.getSelectedSensorPosition());
+    frontPositionEntry.setNumber(frontLegMotor.getSelectedSensorPosition());
+    rearPositionEntry.setNumber(rearLegMotorMaster.getSelectedSensorPosition());
     /* SmartDashboard.putBoolean("spiderlegs.front.home", frontLegHome.get());
         SmartDashboard.putBoolean("spiderlegs.rear.home", rearLegHome.get());
     */
-    SmartDashboard.putNumber("spiderlegs.front_detective", underFrontWheel.getAverageVoltage());
-    SmartDashboard.putNumber("spiderlegs.rear_detective", underRearMiddleWheel.getAverageVoltage());
+    frontDetectiveEntry.setNumber(underFrontWheel.getAverageVoltage());
+    rearDetectiveEntry.setNumber(underRearMiddleWheel.getAverageVoltage());
   }
 
   @Override
@@ -413,7 +430,7 @@ public class SpiderLegs extends Subsystem {
     return (SystemState.CLIMBING_HOLD.equals(systemState)
             || SystemState.CLIMBING_L2_HOLD.equals(systemState))
         && rearOnGround
-        && Timer.getFPGATimestamp() - firstHeld > 1;
+        && Clock.getTimestamp() - firstHeld > 1;
   }
 
   @Override
@@ -9,16 +9,25 @@ import com.ctre.phoenix.motorcontrol.NeutralMode;
 import com.ctre.phoenix.motorcontrol.RemoteSensorSource;
 import com.ctre.phoenix.motorcontrol.StickyFaults;
 import com.ctre.phoenix.motorcontrol.can.TalonSRX;
-import edu.wpi.first.wpilibj.smartdashboard.SmartDashboard;
 import net.teamrush27.frc2019.Robot;
 import net.teamrush27.frc2019.base.RobotMap;
 import net.teamrush27.frc2019.constants.RobotConstants;
 import net.teamrush27.frc2019.loops.ILooper;
 import net.teamrush27.frc2019.loops.Loop;
+import net.teamrush27.frc2019.managers.SuperstructureManager;
 import net.teamrush27.frc2019.subsystems.Subsystem;
 import net.teamrush27.frc2019.subsystems.impl.dto.SmartDashboardCollection;
+import net.teamrush27.frc2019.util.crash.CrashTracker;
+import net.teamrush27.frc2019.util.crash.StateJournal;
+import net.teamrush27.frc2019.util.crash.StateJournal.Cause;
+import net.teamrush27.frc2019.util.dashboard.DashboardEntry;
+import net.teamrush27.frc2019.util.dashboard.DashboardPublisher;
+import net.teamrush27.frc2019.util.dashboard.DashboardPublisher.Rate;
+import net.teamrush27.frc2019.util.log.LogThrottle;
+import net.teamrush27.frc2019.util.time.Clock;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
+import org.apache.logging.log4j.util.Unbox;
 
 public class Wrist extends Subsystem {
 
@@ -53,12 +62,26 @@ public class Wrist extends Subsystem {
 
   private WantedState wantedState = WantedState.OFF;
   private SystemState systemState = SystemState.OFF;
+
+  private final StateJournal journal = StateJournal.getInstance();
+  private final int journalId = journal.register("Wrist", systemState);
+
   private WristState wristState;
 
   private boolean zeroed = false;
   private boolean stateChanged = false;
   private double currentStateStartTime;
 
+  private final DashboardPublisher dashboard = DashboardPublisher.getInstance();
+  private final DashboardEntry encoderTicksEntry =
+      dashboard.number("wrist.encoder_ticks", Rate.NORMAL);
+  private final DashboardEntry encoderDegreesEntry =
+      dashboard.number("wrist.encoder_degrees", Rate.NORMAL, 0.1);
+  private final DashboardEntry pwmValueEntry =
+      dashboard.number("wrist.pwm_value", Rate.NORMAL, 1e-3);
+  private final DashboardEntry pwmDegreesEntry =
+      dashboard.number("wrist.pwm_degrees", Rate.NORMAL, 0.1);
+
   private Loop loop =
       new Loop() {
 
@@ -86,7 +109,8 @@ public class Wrist extends Subsystem {
               break;
           }
           if (newState != systemState) {
-            LOG.info("Wrist state {} to {}", systemState, newState);
+            journal.record(timestamp, journalId, systemState, newState, Cause.LOOP);
+            LOG.debug("Wrist state {} to {}", systemState, newState);
             systemState = newState;
             currentStateStartTime = timestamp;
             stateChanged = true;
@@ -104,6 +128,12 @@ public class Wrist extends Subsystem {
         public String id() {
           return TAG;
         }
+
+        // demands are set by the superstructure manager earlier in the same tick
+        @Override
+        public String[] getDependencies() {
+          return new String[] {SuperstructureManager.TAG};
+        }
       };
 
   private final TalonSRX wristMotor;
@@ -200,33 +230,46 @@ public class Wrist extends Subsystem {
     enabledLooper.register(loop);
   }
 
+  private final Faults talonFaults = new Faults();
+  private final StickyFaults stickyFaults = new StickyFaults();
+  private final LogThrottle faultThrottle = new LogThrottle(RobotConstants.FAULT_LOG_PERIOD);
+  private int lastFaultBits = 0;
+  // set by a read that may run on a worker thread, reported to the CrashTracker by the next write
+  private boolean motorReset = false;
+  private boolean canifierReset = false;
+  private final double[] pwmInput = new double[2];
+
   @Override
   public void readPeriodicInputs() {
-    Faults talonFaults = new Faults();
-
     wristMotor.getFaults(talonFaults);
 
-    if (talonFaults.hasAnyFault()) {
-      System.out.println(talonFaults.toString());
+    // a persisting fault is reported once a period, a new or changed one right away
+    int faultBits = talonFaults.toBitfield();
+    if (faultBits != lastFaultBits) {
+      lastFaultBits = faultBits;
+      faultThrottle.reset();
     }
-
-    if (talonFaults.RemoteLossOfSignal) {
-      LOG.info("LOST CANIFIER SIGNAL");
+    if (faultBits != 0 && faultThrottle.shouldLog(Clock.getTimestamp())) {
+      LOG.warn("{} ({} repeats suppressed)", talonFaults, Unbox.box(faultThrottle.getSuppressed()));
+      if (talonFaults.RemoteLossOfSignal) {
+        LOG.warn("LOST CANIFIER SIGNAL");
+      }
     }
 
-    StickyFaults stickyFaults = new StickyFaults();
     wristMotor.getStickyFaults(stickyFaults);
     if (stickyFaults.hasAnyFault()) {
-      System.out.println(stickyFaults.toString());
+      LOG.warn(stickyFaults);
       wristMotor.clearStickyFaults();
     }
 
     if (wristMotor.hasResetOccurred()) {
-      System.out.println("WRIST MOTOR RESET HAS OCCURED");
+      LOG.warn("WRIST MOTOR RESET HAS OCCURED");
+      motorReset = true;
     }
 
     if (wristSensor.hasResetOccurred()) {
-      System.out.println("CANIFIER RESET HAS OCCURED");
+      LOG.warn("CANIFIER RESET HAS OCCURED");
+      canifierReset = true;
     }
 
     readInputs();
@@ -242,10 +285,8 @@ public class Wrist extends Subsystem {
   }
 
   private void readInputs() {
-    double[] array = new double[2];
-
-    wristSensor.getPWMInput(PWMChannel.PWMChannel0, array);
-    wristState.wristPWMValue = array[0];
+    wristSensor.getPWMInput(PWMChannel.PWMChannel0, pwmInput);
+    wristState.wristPWMValue = pwmInput[0];
     wristState.wristPWMDegrees =
         (-wristState.wristPWMValue + Robot.ROBOT_CONFIGURATION.getWristHomePosition())
             * DEGREES_PER_TICK;
@@ -256,6 +297,18 @@ public class Wrist extends Subsystem {
 
   @Override
   public void writePeriodicOutputs() {
+    if (lastFaultBits != 0) {
+      CrashTracker.markFault("wrist talon faults");
+    }
+    if (motorReset) {
+      motorReset = false;
+      CrashTracker.markFault("wrist motor reset");
+    }
+    if (canifierReset) {
+      canifierReset = false;
+      CrashTracker.markFault("canifier reset");
+    }
+
     switch (systemState) {
       case OPEN_LOOP:
         wristMotor.set(ControlMode.PercentOutput, wristState.demand);
@@ -283,11 +336,11 @@ public class Wrist extends Subsystem {
     // collection.setWristPWMValue(wristState.wristPWMValue);
     // collection.setWristPWMDegrees(wristState.wristPWMDegrees);
 
-    SmartDashboard.putNumber("wrist.encoder_ticks", wristState.wristEncoderTicks);
-    SmartDashboard.putNumber("wrist.encoder_degrees", wristState.wristEncoderDegrees);
+    encoderTicksEntry.setNumber(wristState.wristEncoderTicks);
+    encoderDegreesEntry.setNumber(wristState.wristEncoderDegrees);
 
-    SmartDashboard.putNumber("wrist.pwm_value", wristState.wristPWMValue);
-    SmartDashboard.putNumber("wrist.pwm_degrees", wristState.wristPWMDegrees);
+    pwmValueEntry.setNumber(wristState.wristPWMValue);
+    pwmDegreesEntry.setNumber(wristState.wristPWMDegrees);
   }
 
   @Override
@@ -327,6 +380,11 @@ public class Wrist extends Subsystem {
     return wristState.wristPWMValue;
   }
 
+  /** @return the open loop output or closed loop angle last asked for */
+  public double getDemand() {
+    return wristState.demand;
+  }
+
   @Override
   public void test() {}
 
@@ -350,6 +408,11 @@ public class Wrist extends Subsystem {
     }
   }
 
+  @Override
+  public boolean canReadInParallel() {
+    return true;
+  }
+
   @Override
   public String id() {
     return TAG;
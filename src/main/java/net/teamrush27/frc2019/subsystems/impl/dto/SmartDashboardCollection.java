@@ -1,5 +1,10 @@
 package net.teamrush27.frc2019.subsystems.impl.dto;
 
+/**
+ * Values subsystems report each robotPeriodic, published as one {@code robot.state} JSON object.
+ * Robot reuses a single instance, {@link #clear()}ing it each tick, and encodes it with {@link
+ * #appendJSON(StringBuilder)}, which writes what Gson would without reflection.
+ */
 public class SmartDashboardCollection {
 
   // ARM
@@ -226,4 +231,126 @@ public class SmartDashboardCollection {
   public void setWristPWMDegrees(Double wristPWMDegrees) {
     WristPWMDegrees = wristPWMDegrees;
   }
+
+  /** Unsets every value, as if newly made. */
+  public void clear() {
+    ArmRotation = null;
+    ArmRotationReset = null;
+    ArmExtension = null;
+    ArmExtensionReset = null;
+    ArmRotationOutput = null;
+    ArmExtensionOutput = null;
+    ArmExtensionSpeed = null;
+    ArmExtensionCurrent = null;
+    ArmAbsoluteRotation = null;
+    DrivetrainLeftPosition = null;
+    DrivetrainRightPosition = null;
+    DetectiveVoltage = null;
+    GripperState = null;
+    LimelightMode = null;
+    SpiderlegsFrontPosition = null;
+    SpiderlegsRearPosition = null;
+    SpiderlegsFrontHome = null;
+    SpiderlegsRearHome = null;
+    SuperstructureOffset = null;
+    WristEncoderTicks = null;
+    WristEncoderDegrees = null;
+    WristPWMValue = null;
+    WristPWMDegrees = null;
+  }
+
+  /** Appends the non-null values as a JSON object, in declaration order like Gson. */
+  public void appendJSON(StringBuilder out) {
+    out.append('{');
+    int length = out.length();
+    appendValue(out, length, "ArmRotation", ArmRotation);
+    appendValue(out, length, "ArmRotationReset", ArmRotationReset);
+    appendValue(out, length, "ArmExtension", ArmExtension);
+    appendValue(out, length, "ArmExtensionReset", ArmExtensionReset);
+    appendValue(out, length, "ArmRotationOutput", ArmRotationOutput);
+    appendValue(out, length, "ArmExtensionOutput", ArmExtensionOutput);
+    appendValue(out, length, "ArmExtensionSpeed", ArmExtensionSpeed);
+    appendValue(out, length, "ArmExtensionCurrent", ArmExtensionCurrent);
+    appendValue(out, length, "ArmAbsoluteRotation", ArmAbsoluteRotation);
+    appendValue(out, length, "DrivetrainLeftPosition", DrivetrainLeftPosition);
+    appendValue(out, length, "DrivetrainRightPosition", DrivetrainRightPosition);
+    appendValue(out, length, "DetectiveVoltage", DetectiveVoltage);
+    appendString(out, length, "GripperState", GripperState);
+    appendString(out, length, "LimelightMode", LimelightMode);
+    appendValue(out, length, "SpiderlegsFrontPosition", SpiderlegsFrontPosition);
+    appendValue(out, length, "SpiderlegsRearPosition", SpiderlegsRearPosition);
+    appendValue(out, length, "SpiderlegsFrontHome", SpiderlegsFrontHome);
+    appendValue(out, length, "SpiderlegsRearHome", SpiderlegsRearHome);
+    appendValue(out, length, "SuperstructureOffset", SuperstructureOffset);
+    appendValue(out, length, "WristEncoderTicks", WristEncoderTicks);
+    appendValue(out, length, "WristEncoderDegrees", WristEncoderDegrees);
+    appendValue(out, length, "WristPWMValue", WristPWMValue);
+    appendValue(out, length, "WristPWMDegrees", WristPWMDegrees);
+    out.append('}');
+  }
+
+  private static void appendName(StringBuilder out, int length, String name) {
+    if (out.length() > length) {
+      out.append(',');
+    }
+    out.append('"').append(name).append("\":");
+  }
+
+  private static void appendValue(StringBuilder out, int length, String name, Double value) {
+    if (value != null) {
+      appendName(out, length, name);
+      out.append(value.doubleValue());
+    }
+  }
+
+  private static void appendValue(StringBuilder out, int length, String name, Integer value) {
+    if (value != null) {
+      appendName(out, length, name);
+      out.append(value.intValue());
+    }
+  }
+
+  private static void appendValue(StringBuilder out, int length, String name, Boolean value) {
+    if (value != null) {
+      appendName(out, length, name);
+      out.append(value.booleanValue());
+    }
+  }
+
+  private static void appendString(StringBuilder out, int length, String name, String value) {
+    if (value == null) {
+      return;
+    }
+    appendName(out, length, name);
+    out.append('"');
+    for (int i = 0; i < value.length(); i++) {
+      char c = value.charAt(i);
+      if (c == '"' || c == '\\') {
+        out.append('\\').append(c);
+      } else if (c == '\n') {
+        out.append("\\n");
+      } else if (c == '\r') {
+        out.append("\\r");
+      } else if (c == '\t') {
+        out.append("\\t");
+      } else if (c == '\b') {
+        out.append("\\b");
+      } else if (c == '\f') {
+        out.append("\\f");
+      } else if (c < 0x20
+          || c == '<'
+          || c == '>'
+          || c == '&'
+          || c == '='
+          || c == '\''
+          || c == '\u2028'
+          || c == '\u2029') {
+        // Gson escapes these by default too
+        out.append(String.format("\\u%04x", (int) c));
+      } else {
+        out.append(c);
+      }
+    }
+    out.append('"');
+  }
 }
@@ -0,0 +1,50 @@
+package net.teamrush27.frc2019.util;
+
+import java.text.DecimalFormat;
+
+/**
+ * Appends doubles exactly as {@code new DecimalFormat("#0.000")} formats them, without allocating
+ * for ordinary values. Values within rounding noise of a tie at the third decimal are handed to a
+ * real DecimalFormat, since its tie-breaking depends on how the double was converted.
+ */
+public class CSVNumberFormat {
+
+  // past this, value * 1000 no longer fits a long exactly
+  private static final double FAST_LIMIT = 1e12;
+  private static final double TIE_TOLERANCE = 1e-6;
+
+  private static final ThreadLocal<DecimalFormat> FALLBACK =
+      ThreadLocal.withInitial(() -> new DecimalFormat("#0.000"));
+
+  private CSVNumberFormat() {}
+
+  public static void appendFixed3(StringBuilder out, double value) {
+    if (Double.isNaN(value) || Double.isInfinite(value) || Math.abs(value) >= FAST_LIMIT) {
+      out.append(FALLBACK.get().format(value));
+      return;
+    }
+
+    double scaled = Math.abs(value) * 1000.0;
+    double fraction = scaled - Math.floor(scaled);
+    if (Math.abs(fraction - 0.5) < TIE_TOLERANCE) {
+      out.append(FALLBACK.get().format(value));
+      return;
+    }
+
+    boolean negative = value < 0 || (value == 0 && Double.doubleToRawLongBits(value) != 0);
+    long thousandths = (long) Math.rint(scaled);
+
+    if (negative) {
+      out.append('-');
+    }
+    out.append(thousandths / 1000).append('.');
+    long decimals = thousandths % 1000;
+    if (decimals < 100) {
+      out.append('0');
+    }
+    if (decimals < 10) {
+      out.append('0');
+    }
+    out.append(decimals);
+  }
+}
@@ -0,0 +1,133 @@
+package net.teamrush27.frc2019.util;
+
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Field;
+
+/**
+ * Appends the public fields of a class to a {@link StringBuilder} as one CSV row. The column
+ * accessors are built once per class from {@link MethodHandle}s typed to each field's primitive
+ * type, so encoding a row does no reflection, no boxing and no per-cell type checks.
+ *
+ * <p>Output matches what {@link ReflectingCSVWriter} has always written: cells separated by ", ",
+ * {@link CSVWritable} fields through {@link CSVWritable#appendCSV(StringBuilder)}, everything else through {@code
+ * toString()}.
+ */
+public class CSVRowEncoder<T> {
+
+  private static final ClassValue<CSVRowEncoder<?>> ENCODERS =
+      new ClassValue<CSVRowEncoder<?>>() {
+        @Override
+        protected CSVRowEncoder<?> computeValue(Class<?> type) {
+          return new CSVRowEncoder<>(type);
+        }
+      };
+
+  private interface Column {
+    void append(Object row, StringBuilder out) throws Throwable;
+  }
+
+  private final Field[] fields;
+  private final Column[] columns;
+
+  @SuppressWarnings("unchecked")
+  public static <T> CSVRowEncoder<T> forClass(Class<T> type) {
+    return (CSVRowEncoder<T>) ENCODERS.get(type);
+  }
+
+  private CSVRowEncoder(Class<T> type) {
+    fields = type.getFields();
+    columns = new Column[fields.length];
+    for (int i = 0; i < fields.length; i++) {
+      columns[i] = column(fields[i]);
+    }
+  }
+
+  private static Column column(Field field) {
+    MethodHandle getter;
+    try {
+      getter = MethodHandles.publicLookup().unreflectGetter(field);
+    } catch (IllegalAccessException e) {
+      // public field of a non-public class
+      field.setAccessible(true);
+      try {
+        getter = MethodHandles.lookup().unreflectGetter(field);
+      } catch (IllegalAccessException unreachable) {
+        throw new IllegalStateException("cannot read " + field, unreachable);
+      }
+    }
+
+    Class<?> type = field.getType();
+    MethodHandle handle =
+        getter.asType(
+            MethodType.methodType(type.isPrimitive() ? type : Object.class, Object.class));
+
+    if (type == double.class) {
+      return (row, out) -> out.append((double) handle.invokeExact(row));
+    } else if (type == int.class) {
+      return (row, out) -> out.append((int) handle.invokeExact(row));
+    } else if (type == long.class) {
+      return (row, out) -> out.append((long) handle.invokeExact(row));
+    } else if (type == float.class) {
+      return (row, out) -> out.append((float) handle.invokeExact(row));
+    } else if (type == boolean.class) {
+      return (row, out) -> out.append((boolean) handle.invokeExact(row));
+    } else if (type == char.class) {
+      return (row, out) -> out.append((char) handle.invokeExact(row));
+    } else if (type == short.class) {
+      return (row, out) -> out.append((short) handle.invokeExact(row));
+    } else if (type == byte.class) {
+      return (row, out) -> out.append((byte) handle.invokeExact(row));
+    } else if (CSVWritable.class.isAssignableFrom(type)) {
+      return (row, out) -> {
+        CSVWritable value = (CSVWritable) (Object) handle.invokeExact(row);
+        if (value == null) {
+          out.append("null");
+        } else {
+          value.appendCSV(out);
+        }
+      };
+    } else {
+      return (row, out) -> out.append((Object) handle.invokeExact(row));
+    }
+  }
+
+  /** Appends the column names; {@link CSVWritable} fields name their own sub-columns. */
+  public void appendHeader(T value, StringBuilder out) {
+    for (int i = 0; i < fields.length; i++) {
+      if (i > 0) {
+        out.append(", ");
+      }
+      Field field = fields[i];
+      if (CSVWritable.class.isAssignableFrom(field.getType())) {
+        try {
+          out.append(((CSVWritable) field.get(value)).header(field.getName()));
+        } catch (IllegalAccessException e) {
+          throw new IllegalStateException("cannot read " + field, e);
+        }
+      } else {
+        out.append(field.getName());
+      }
+    }
+  }
+
+  public void appendRow(T value, StringBuilder out) {
+    try {
+      for (int i = 0; i < columns.length; i++) {
+        if (i > 0) {
+          out.append(", ");
+        }
+        columns[i].append(value, out);
+      }
+    } catch (RuntimeException | Error e) {
+      throw e;
+    } catch (Throwable t) {
+      throw new IllegalStateException(t);
+    }
+  }
+
+  public int getColumnCount() {
+    return columns.length;
+  }
+}
@@ -1,8 +1,25 @@
 package net.teamrush27.frc2019.util;
 
+import java.nio.ByteBuffer;
+
 public interface CSVWritable {
 
   String toCSV();
 
+  /** Appends {@link #toCSV()} to {@code out}; hot types override this to skip the String. */
+  default void appendCSV(StringBuilder out) {
+    out.append(toCSV());
+  }
+
+  /**
+   * Puts the values of {@link #toCSV()} as doubles, one per {@link #header(String)} column, for
+   * binary logs. The default parses the CSV; hot types override it.
+   */
+  default void putDoubles(ByteBuffer out) {
+    for (String value : toCSV().split(",")) {
+      out.putDouble(Double.parseDouble(value.trim()));
+    }
+  }
+
   String header(String base);
 }
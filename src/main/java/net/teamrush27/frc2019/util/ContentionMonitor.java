@@ -0,0 +1,59 @@
+package net.teamrush27.frc2019.util;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadInfo;
+import java.lang.management.ThreadMXBean;
+import java.util.HashMap;
+import java.util.Map;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+/**
+ * Logs how often, and for how long, each thread blocked waiting for a monitor since the last call
+ * to {@link #logContention()}. Uses the JVM's thread contention monitoring, so it covers every
+ * {@code synchronized} block without instrumenting them.
+ */
+public class ContentionMonitor {
+
+  private static final Logger LOG = LogManager.getLogger(ContentionMonitor.class);
+
+  private final ThreadMXBean threads = ManagementFactory.getThreadMXBean();
+  private final boolean supported;
+  private final Map<Long, long[]> last = new HashMap<>();
+
+  public ContentionMonitor() {
+    supported = threads.isThreadContentionMonitoringSupported();
+    if (supported) {
+      threads.setThreadContentionMonitoringEnabled(true);
+    } else {
+      LOG.warn("thread contention monitoring is not supported on this JVM");
+    }
+  }
+
+  /** Logs blocked count and milliseconds per thread since the previous call. */
+  public synchronized void logContention() {
+    if (!supported) {
+      return;
+    }
+
+    long totalCount = 0;
+    long totalTime = 0;
+    for (ThreadInfo info : threads.getThreadInfo(threads.getAllThreadIds())) {
+      if (info == null) {
+        continue;
+      }
+
+      long[] previous = last.getOrDefault(info.getThreadId(), new long[2]);
+      long count = info.getBlockedCount() - previous[0];
+      long time = info.getBlockedTime() - previous[1];
+      last.put(info.getThreadId(), new long[] {info.getBlockedCount(), info.getBlockedTime()});
+
+      if (count > 0) {
+        LOG.info("{} blocked {} times for {}ms", info.getThreadName(), count, time);
+        totalCount += count;
+        totalTime += time;
+      }
+    }
+    LOG.info("monitor contention: {} blocks, {}ms total", totalCount, totalTime);
+  }
+}
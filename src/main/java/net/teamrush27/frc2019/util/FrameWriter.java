@@ -0,0 +1,13 @@
+package net.teamrush27.frc2019.util;
+
+/** Something frames of {@code T} can be logged to, one row per {@link #add(Object)}. */
+public interface FrameWriter<T> {
+
+  void add(T value);
+
+  /** Pushes anything buffered out to the file. */
+  void flush();
+
+  /** Flushes and releases the file; later adds are dropped. */
+  void close();
+}
@@ -2,97 +2,330 @@ package net.teamrush27.frc2019.util;
 
 import java.io.FileNotFoundException;
 import java.io.PrintWriter;
-import java.lang.reflect.Field;
-import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+import java.util.concurrent.locks.LockSupport;
+import net.teamrush27.frc2019.constants.RobotConstants;
+import net.teamrush27.frc2019.util.log.LogSegments;
+import net.teamrush27.frc2019.util.metrics.MetricsRegistry;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
 
-/** Writes data to a CSV file */
-public class ReflectingCSVWriter<T> {
-  ConcurrentLinkedDeque<T> mObjectsToWrite = new ConcurrentLinkedDeque<>();
+/**
+ * Writes data to a CSV file. Rows are encoded by a {@link CSVRowEncoder} built once for the class,
+ * into a reused buffer.
+ *
+ * <p>{@link #add(Object)} hands rows to a bounded ring drained by the writer's own daemon thread, so
+ * the caller never formats or touches the disk and memory stays fixed however long logging runs.
+ * When the ring is full the {@link OverflowPolicy} decides what gives. The file is flushed every
+ * {@code flushRows} rows or {@code flushPeriod} seconds, whichever comes first. Given {@link
+ * LogSegments}, the writer thread also rolls the file over as segments come due.
+ *
+ * <p>Rows are not copied: the caller must not change an object after adding it.
+ */
+public class ReflectingCSVWriter<T> implements FrameWriter<T> {
+
+  private static final Logger LOG = LogManager.getLogger(ReflectingCSVWriter.class);
+
+  private static final long IDLE_PARK_NANOS = 10_000_000;
+  private static final long BLOCK_PARK_NANOS = 100_000;
+
+  public enum OverflowPolicy {
+    // discard the oldest queued row to make room, keeps the log current
+    DROP_OLDEST,
+    // discard the row being added, keeps the start of a burst
+    DROP_NEWEST,
+    // wait for the writer thread; never loses rows but can stall the caller
+    BLOCK
+  }
 
-  ConcurrentLinkedDeque<String> mLinesToWrite = new ConcurrentLinkedDeque<>();
   PrintWriter mOutput = null;
-  Field[] mFields;
+  final CSVRowEncoder<T> mEncoder;
   boolean wrote_header = false;
 
+  private String mFileName;
+  private final LogSegments mSegments;
+  private long mSegmentBytes = 0;
+  private final OverflowPolicy mPolicy;
+  private final long mFlushPeriodNanos;
+  private final int mFlushRows;
+
+  // single producer publishes mWriteIndex; consumers (and DROP_OLDEST) advance mReadIndex by CAS
+  private final AtomicReferenceArray<T> mRing;
+  private final int mMask;
+  private final AtomicLong mWriteIndex = new AtomicLong();
+  private final AtomicLong mReadIndex = new AtomicLong();
+
+  private final AtomicLong mDropped = new AtomicLong();
+  private volatile long mWritten = 0;
+  private int mRowsSinceFlush = 0;
+  private long mLastFlush = System.nanoTime();
+
+  private volatile boolean mRunning = false;
+  private volatile Thread mThread = null;
+
+  private final StringBuilder mLine = new StringBuilder();
+  private char[] mLineChars = new char[256];
+
   public ReflectingCSVWriter(String fileName, Class<T> typeClass) {
-    mFields = typeClass.getFields();
+    this(
+        fileName,
+        null,
+        typeClass,
+        RobotConstants.CSV_WRITER_CAPACITY,
+        OverflowPolicy.DROP_OLDEST,
+        RobotConstants.CSV_WRITER_FLUSH_PERIOD,
+        RobotConstants.CSV_WRITER_FLUSH_ROWS);
+  }
+
+  public ReflectingCSVWriter(LogSegments segments, Class<T> typeClass) {
+    this(
+        segments.next(),
+        segments,
+        typeClass,
+        RobotConstants.CSV_WRITER_CAPACITY,
+        OverflowPolicy.DROP_OLDEST,
+        RobotConstants.CSV_WRITER_FLUSH_PERIOD,
+        RobotConstants.CSV_WRITER_FLUSH_ROWS);
+  }
+
+  /**
+   * @param capacity rows the ring holds before the policy applies (power of two)
+   * @param flushPeriod longest seconds between flushes while rows are arriving
+   * @param flushRows rows written between flushes
+   */
+  public ReflectingCSVWriter(
+      String fileName,
+      Class<T> typeClass,
+      int capacity,
+      OverflowPolicy policy,
+      double flushPeriod,
+      int flushRows) {
+    this(fileName, null, typeClass, capacity, policy, flushPeriod, flushRows);
+  }
+
+  private ReflectingCSVWriter(
+      String fileName,
+      LogSegments segments,
+      Class<T> typeClass,
+      int capacity,
+      OverflowPolicy policy,
+      double flushPeriod,
+      int flushRows) {
+    if (Integer.bitCount(capacity) != 1) {
+      throw new IllegalArgumentException("capacity must be a power of two: " + capacity);
+    }
+    mFileName = fileName;
+    mSegments = segments;
+    mEncoder = CSVRowEncoder.forClass(typeClass);
+    mPolicy = policy;
+    mFlushPeriodNanos = (long) (flushPeriod * 1e9);
+    mFlushRows = flushRows;
+    mRing = new AtomicReferenceArray<>(capacity);
+    mMask = capacity - 1;
+
+    MetricsRegistry metrics = MetricsRegistry.getInstance();
+    // frame classes are mostly nested PeriodicIOs, so qualify them by their owner
+    Class<?> owner = typeClass.getEnclosingClass();
+    String typeName =
+        owner == null
+            ? typeClass.getSimpleName()
+            : owner.getSimpleName() + "." + typeClass.getSimpleName();
+    String metric = "csv." + typeName;
+    metrics.gauge(metric + ".queue", this::getQueueDepth);
+    metrics.gauge(metric + ".dropped", this::getDroppedCount);
+
     try {
       mOutput = new PrintWriter(fileName);
     } catch (FileNotFoundException e) {
       e.printStackTrace();
+      return;
     }
+
+    mRunning = true;
+    mThread = new Thread(this::run, "CSVWriter-" + typeName);
+    mThread.setDaemon(true);
+    mThread.setPriority(Thread.MIN_PRIORITY);
+    mThread.start();
   }
 
   private void writeHeader(T value) {
     // Write field names.
-    StringBuffer line = new StringBuffer();
-    for (Field field : mFields) {
+    mLine.setLength(0);
+    mEncoder.appendHeader(value, mLine);
+    writeLine(mLine);
+  }
 
-      if (line.length() != 0) {
-        line.append(", ");
-      }
-      if (CSVWritable.class.isAssignableFrom(field.getType())) {
-        try {
-          line.append(((CSVWritable) field.get(value)).header(field.getName()));
-        } catch (IllegalAccessException e) {
-          e.printStackTrace();
+  /** Queues a row for the writer thread. Call from one thread only. */
+  @Override
+  public void add(T value) {
+    if (!mRunning) {
+      mDropped.incrementAndGet();
+      return;
+    }
+
+    long head = mWriteIndex.get();
+    while (head - mReadIndex.get() > mMask) {
+      if (mPolicy == OverflowPolicy.DROP_NEWEST) {
+        mDropped.incrementAndGet();
+        return;
+      } else if (mPolicy == OverflowPolicy.DROP_OLDEST) {
+        long tail = mReadIndex.get();
+        if (head - tail > mMask && mReadIndex.compareAndSet(tail, tail + 1)) {
+          mDropped.incrementAndGet();
         }
       } else {
-        line.append(field.getName());
+        Thread writer = mThread;
+        if (writer == null) {
+          mDropped.incrementAndGet();
+          return;
+        }
+        LockSupport.unpark(writer);
+        LockSupport.parkNanos(BLOCK_PARK_NANOS);
       }
     }
-    mLinesToWrite.add(line.toString());
-  }
 
-  public void add(T value) {
-    mObjectsToWrite.add(value);
+    mRing.lazySet((int) (head & mMask), value);
+    mWriteIndex.lazySet(head + 1);
   }
 
-  protected synchronized void writeLine(String line) {
+  protected synchronized void writeLine(StringBuilder line) {
     if (mOutput != null) {
-      mOutput.println(line);
+      int length = line.length();
+      if (mLineChars.length < length) {
+        mLineChars = new char[Math.max(length, mLineChars.length * 2)];
+      }
+      line.getChars(0, length, mLineChars, 0);
+      mOutput.write(mLineChars, 0, length);
+      mOutput.println();
+      mSegmentBytes += length + 1;
     }
   }
 
-  // Call this periodically from any thread to write to disk.
-  public void write() {
+  /**
+   * Writes every queued row. The writer thread calls this on its own; calling it from elsewhere is
+   * safe but not needed.
+   */
+  public synchronized void write() {
     T value;
-
-    while ((value = mObjectsToWrite.pollFirst()) != null) {
+    while ((value = poll()) != null) {
       if (!wrote_header) {
         writeHeader(value);
         wrote_header = true;
       }
 
-      StringBuffer line = new StringBuffer();
-      for (Field field : mFields) {
-        if (line.length() != 0) {
-          line.append(", ");
-        }
-        try {
-          if (CSVWritable.class.isAssignableFrom(field.getType())) {
-            line.append(((CSVWritable) field.get(value)).toCSV());
-          } else {
-            line.append(field.get(value).toString());
-          }
-        } catch (IllegalAccessException e) {
-          e.printStackTrace();
-        }
-      }
-
-      mLinesToWrite.add(line.toString());
+      mLine.setLength(0);
+      mEncoder.appendRow(value, mLine);
+      writeLine(mLine);
+      mWritten++;
+      mRowsSinceFlush++;
     }
+  }
 
-    String val;
-    while ((val = mLinesToWrite.pollFirst()) != null) {
-      writeLine(val);
+  private T poll() {
+    while (true) {
+      long tail = mReadIndex.get();
+      if (tail >= mWriteIndex.get()) {
+        return null;
+      }
+      T value = mRing.get((int) (tail & mMask));
+      // losing the CAS means DROP_OLDEST discarded this row (and the slot may hold a newer one)
+      if (mReadIndex.compareAndSet(tail, tail + 1)) {
+        return value;
+      }
     }
   }
 
+  @Override
   public synchronized void flush() {
     if (mOutput != null) {
       write();
       mOutput.flush();
+      mRowsSinceFlush = 0;
+      mLastFlush = System.nanoTime();
+    }
+  }
+
+  /** Stops the writer thread once everything queued is written, then closes the file. */
+  @Override
+  public void close() {
+    Thread thread;
+    synchronized (this) {
+      mRunning = false;
+      thread = mThread;
+      mThread = null;
+    }
+    if (thread != null) {
+      LockSupport.unpark(thread);
+      try {
+        thread.join();
+      } catch (InterruptedException e) {
+        Thread.currentThread().interrupt();
+      }
+    }
+
+    synchronized (this) {
+      if (mOutput != null) {
+        flush();
+        mOutput.close();
+        mOutput = null;
+        LOG.info("{}: wrote {} rows, dropped {}", mFileName, mWritten, mDropped.get());
+      }
+      if (mSegments != null) {
+        mSegments.finish();
+      }
+    }
+  }
+
+  /** @return rows lost to the overflow policy (or added after close) */
+  public long getDroppedCount() {
+    return mDropped.get();
+  }
+
+  /** @return rows queued but not yet written */
+  public long getQueueDepth() {
+    return mWriteIndex.get() - mReadIndex.get();
+  }
+
+  /** @return rows written to the file so far */
+  public long getWrittenCount() {
+    return mWritten;
+  }
+
+  private void rotate() {
+    if (mOutput != null) {
+      flush();
+      mOutput.close();
+    }
+    mFileName = mSegments.next();
+    mSegmentBytes = 0;
+    wrote_header = false;
+    try {
+      mOutput = new PrintWriter(mFileName);
+    } catch (FileNotFoundException e) {
+      e.printStackTrace();
+      mOutput = null;
+    }
+  }
+
+  private void run() {
+    while (mRunning) {
+      long written;
+      synchronized (this) {
+        written = mWritten;
+        write();
+        if (mRowsSinceFlush >= mFlushRows
+            || (mRowsSinceFlush > 0 && System.nanoTime() - mLastFlush >= mFlushPeriodNanos)) {
+          flush();
+        }
+        if (mSegments != null && mSegments.isDue(mSegmentBytes)) {
+          rotate();
+        }
+        written = mWritten - written;
+      }
+      if (written == 0) {
+        LockSupport.parkNanos(IDLE_PARK_NANOS);
+      }
     }
   }
 }
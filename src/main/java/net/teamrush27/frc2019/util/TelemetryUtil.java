@@ -4,19 +4,26 @@ import com.opencsv.CSVWriter;
 import java.io.File;
 import java.io.FileWriter;
 import java.io.IOException;
-import java.util.ArrayList;
-import java.util.Collections;
-import java.util.HashSet;
-import java.util.List;
-import java.util.Objects;
-import java.util.Optional;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.LinkedHashMap;
+import java.util.Map;
 import java.util.Queue;
-import java.util.Set;
 import java.util.concurrent.ConcurrentLinkedQueue;
-import java.util.stream.Collectors;
+import java.util.concurrent.atomic.AtomicLong;
+import net.teamrush27.frc2019.constants.RobotConstants;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
 
+/**
+ * Collects timestamped samples and dumps them as one CSV row per timestamp.
+ *
+ * <p>Hot paths should register a channel once with {@link #registerChannel(String)} and record
+ * through {@link #addDouble(double, int, double)} and friends: samples go into that channel's
+ * preallocated primitive ring without allocating, and are only formatted by {@link
+ * #writeToFile(String)}. Each channel is single-producer; a full ring drops new samples, like the
+ * loop profiler. {@link #addEntry(double, String, String)} still takes preformatted strings.
+ */
 public class TelemetryUtil {
 
   private static TelemetryUtil INSTANCE = null;
@@ -33,67 +40,250 @@ public class TelemetryUtil {
 
   private static final Logger LOG = LogManager.getLogger(TelemetryUtil.class);
 
+  private static final byte KIND_DOUBLE = 0;
+  private static final byte KIND_LONG = 1;
+  private static final byte KIND_BOOLEAN = 2;
+
   private Queue<TelemetryEntry> entries = new ConcurrentLinkedQueue<>();
 
+  // replaced (never modified) on register so recording never takes a lock
+  private volatile Channel[] channels = new Channel[0];
+
+  private static class Channel {
+    private final String name;
+    private final int mask;
+    private final double[] timestamps;
+    private final long[] values;
+    private final byte[] kinds;
+
+    // producer publishes writeIndex, writeToFile publishes readIndex
+    private final AtomicLong writeIndex = new AtomicLong();
+    private final AtomicLong readIndex = new AtomicLong();
+    // the producer counts samples a full ring turned away, writeToFile takes and clears the count
+    private final AtomicLong dropped = new AtomicLong();
+
+    private Channel(String name, int capacity) {
+      this.name = name;
+      mask = capacity - 1;
+      timestamps = new double[capacity];
+      values = new long[capacity];
+      kinds = new byte[capacity];
+    }
+  }
+
   public void addEntry(double timestamp, String entryName, String value) {
     entries.offer(new TelemetryEntry(timestamp, entryName, value));
   }
 
+  /** Interns a channel name, returning the handle to record samples with. */
+  public synchronized int registerChannel(String name) {
+    Channel[] current = channels;
+    for (int i = 0; i < current.length; i++) {
+      if (current[i].name.equals(name)) {
+        return i;
+      }
+    }
+
+    int capacity = RobotConstants.TELEMETRY_CHANNEL_CAPACITY;
+    if (Integer.bitCount(capacity) != 1) {
+      throw new IllegalArgumentException("capacity must be a power of two: " + capacity);
+    }
+    Channel[] updated = Arrays.copyOf(current, current.length + 1);
+    updated[current.length] = new Channel(name, capacity);
+    channels = updated;
+    return current.length;
+  }
+
+  public void addDouble(double timestamp, int channel, double value) {
+    record(timestamp, channel, Double.doubleToRawLongBits(value), KIND_DOUBLE);
+  }
+
+  public void addLong(double timestamp, int channel, long value) {
+    record(timestamp, channel, value, KIND_LONG);
+  }
+
+  public void addBoolean(double timestamp, int channel, boolean value) {
+    record(timestamp, channel, value ? 1 : 0, KIND_BOOLEAN);
+  }
+
+  private void record(double timestamp, int handle, long value, byte kind) {
+    Channel channel = channels[handle];
+    long head = channel.writeIndex.get();
+    if (head - channel.readIndex.get() > channel.mask) {
+      channel.dropped.incrementAndGet();
+      return;
+    }
+
+    int slot = (int) (head & channel.mask);
+    channel.timestamps[slot] = timestamp;
+    channel.values[slot] = value;
+    channel.kinds[slot] = kind;
+    channel.writeIndex.lazySet(head + 1);
+  }
+
+  /**
+   * Writes everything recorded so far as one row per timestamp and one column per channel or entry
+   * name: channels in registration order, then entry names in the order they first appeared. Each
+   * source is sorted by timestamp and the sources are merged in a single pass, so rows come out in
+   * timestamp order and each timestamp gets exactly one row, however late a sample was recorded.
+   * Samples added while this runs stay queued for the next call.
+   */
   public void writeToFile(String filePath) throws IOException {
-    List<TelemetryEntry> entries = new ArrayList<>();
-    entries.addAll(this.entries);
-    Collections.sort(entries);
+    Channel[] channels = this.channels;
 
-    Set<String> headers = new HashSet<>();
-    entries.parallelStream().map(TelemetryEntry::getEntryName).forEach(headers::add);
+    Map<String, Integer> columns = new LinkedHashMap<>();
+    for (Channel channel : channels) {
+      columns.putIfAbsent(channel.name, columns.size());
+    }
 
-    Set<Double> timestampSet = new HashSet<>();
-    entries.parallelStream().map(TelemetryEntry::getTimestamp).forEach(timestampSet::add);
+    // take only what is queued now; later entries are left for the next call
+    int entryCount = entries.size();
+    TelemetryEntry[] drained = new TelemetryEntry[entryCount];
+    for (int i = 0; i < entryCount; i++) {
+      drained[i] = entries.poll();
+      columns.putIfAbsent(drained[i].getEntryName(), columns.size());
+    }
+    // stable, so entries with the same timestamp keep their queue order
+    Arrays.sort(drained, Comparator.comparingDouble(TelemetryEntry::getTimestamp));
 
-    List<Double> timestamps = new ArrayList<>();
-    timestamps.addAll(timestampSet);
-    Collections.sort(timestamps);
+    long[] heads = new long[channels.length];
+    int[][] slots = new int[channels.length][];
+    int[] cursors = new int[channels.length];
+    int[] channelColumns = new int[channels.length];
+    long dropped = 0;
+    for (int i = 0; i < channels.length; i++) {
+      heads[i] = channels[i].writeIndex.get();
+      slots[i] = slotsByTime(channels[i], channels[i].readIndex.get(), heads[i]);
+      channelColumns[i] = columns.get(channels[i].name) + 1;
+      dropped += channels[i].dropped.getAndSet(0);
+    }
 
-    this.entries.clear();
     final File file = new File(filePath);
     if (!file.exists()) {
       file.createNewFile();
     }
 
-    // write headers
-    List<String> row = new ArrayList<>();
-    row.add("timestamp");
-    row.addAll(headers);
-
     CSVWriter csvWriter = new CSVWriter(new FileWriter(file));
-    csvWriter.writeNext(row.toArray(new String[0]));
-
-    timestamps.forEach(
-        ts -> {
-          row.clear();
-          row.add(ts.toString());
-          List<TelemetryEntry> filteredEntries =
-              entries
-                  .parallelStream()
-                  .filter(te -> Objects.equals(te.getTimestamp(), ts))
-                  .collect(Collectors.toList());
-
-          headers.forEach(
-              h -> {
-                Optional<TelemetryEntry> ote =
-                    filteredEntries
-                        .parallelStream()
-                        .filter(te -> Objects.equals(te.getEntryName(), h))
-                        .findFirst();
-                ote.ifPresentOrElse(te -> row.add(te.getValue()), () -> row.add(""));
-              });
-
-          csvWriter.writeNext(row.toArray(new String[0]));
-        });
+
+    String[] header = new String[columns.size() + 1];
+    header[0] = "timestamp";
+    for (Map.Entry<String, Integer> column : columns.entrySet()) {
+      header[column.getValue() + 1] = column.getKey();
+    }
+    csvWriter.writeNext(header);
+
+    String[] row = null;
+    double rowTimestamp = Double.NaN;
+    long samples = 0;
+    long rows = 0;
+    int nextEntry = 0;
+
+    while (true) {
+      // merge: take whichever source has the oldest next sample
+      int source = -1;
+      double timestamp = Double.POSITIVE_INFINITY;
+      for (int i = 0; i < channels.length; i++) {
+        if (cursors[i] < slots[i].length) {
+          double next = channels[i].timestamps[slots[i][cursors[i]]];
+          if (next < timestamp) {
+            timestamp = next;
+            source = i;
+          }
+        }
+      }
+      if (nextEntry < entryCount && drained[nextEntry].getTimestamp() < timestamp) {
+        timestamp = drained[nextEntry].getTimestamp();
+        source = channels.length;
+      }
+      if (source < 0) {
+        break;
+      }
+
+      // timestamps only ever grow from here, so a new one means the last row is complete
+      if (row == null || timestamp != rowTimestamp) {
+        if (row != null) {
+          writeRow(csvWriter, rowTimestamp, row);
+          rows++;
+        }
+        row = new String[header.length];
+        rowTimestamp = timestamp;
+      }
+
+      if (source < channels.length) {
+        Channel channel = channels[source];
+        int slot = slots[source][cursors[source]++];
+        int column = channelColumns[source];
+        if (row[column] == null) {
+          row[column] = format(channel.kinds[slot], channel.values[slot]);
+        }
+      } else {
+        TelemetryEntry entry = drained[nextEntry++];
+        int column = columns.get(entry.getEntryName()) + 1;
+        if (row[column] == null) {
+          row[column] = entry.getValue();
+        }
+      }
+      samples++;
+    }
+
+    if (row != null) {
+      writeRow(csvWriter, rowTimestamp, row);
+      rows++;
+    }
+
+    for (int i = 0; i < channels.length; i++) {
+      channels[i].readIndex.lazySet(heads[i]);
+    }
 
     csvWriter.flushQuietly();
     csvWriter.close();
 
-    LOG.info("done writing telemetry");
+    if (dropped > 0) {
+      LOG.warn("{} telemetry samples dropped on full channels", dropped);
+    }
+    LOG.info("done writing telemetry, {} samples in {} rows", samples, rows);
+  }
+
+  /** @return the ring slots from {@code tail} up to {@code head}, in timestamp order */
+  private static int[] slotsByTime(Channel channel, long tail, long head) {
+    int[] slots = new int[(int) (head - tail)];
+    boolean sorted = true;
+    for (int i = 0; i < slots.length; i++) {
+      slots[i] = (int) ((tail + i) & channel.mask);
+      sorted &= i == 0 || channel.timestamps[slots[i - 1]] <= channel.timestamps[slots[i]];
+    }
+    if (sorted) {
+      return slots;
+    }
+
+    // a producer's clock is normally monotonic, so this is rare; stable, as for the entries
+    Integer[] boxed = new Integer[slots.length];
+    for (int i = 0; i < slots.length; i++) {
+      boxed[i] = slots[i];
+    }
+    Arrays.sort(boxed, Comparator.comparingDouble(slot -> channel.timestamps[slot]));
+    for (int i = 0; i < slots.length; i++) {
+      slots[i] = boxed[i];
+    }
+    return slots;
+  }
+
+  private static String format(byte kind, long value) {
+    if (kind == KIND_DOUBLE) {
+      return Double.toString(Double.longBitsToDouble(value));
+    } else if (kind == KIND_BOOLEAN) {
+      return Boolean.toString(value != 0);
+    }
+    return Long.toString(value);
+  }
+
+  private static void writeRow(CSVWriter csvWriter, double timestamp, String[] row) {
+    row[0] = Double.toString(timestamp);
+    for (int i = 1; i < row.length; i++) {
+      if (row[i] == null) {
+        row[i] = "";
+      }
+    }
+    csvWriter.writeNext(row);
   }
 }
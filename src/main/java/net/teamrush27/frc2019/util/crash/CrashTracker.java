@@ -5,12 +5,38 @@ import java.io.IOException;
 import java.io.PrintWriter;
 import java.util.Date;
 import java.util.UUID;
+import net.teamrush27.frc2019.util.log.LogFileManager;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
 
-/** Tracks start-up and caught crash events, logging them to a file which dosn't roll over */
+/**
+ * Tracks start-up and caught crash events, logging them to a file which dosn't roll over. A crash,
+ * or a disable after a fault was marked, also dumps the {@link FlightRecorder} if one is set.
+ */
 public class CrashTracker {
 
+  private static final Logger LOG = LogManager.getLogger(CrashTracker.class);
+
   private static final UUID RUN_INSTANCE_UUID = UUID.randomUUID();
 
+  private static volatile FlightRecorder flightRecorder = null;
+  // the first fault marked since the flight recorder was last dumped
+  private static volatile String pendingFault = null;
+
+  public static void setFlightRecorder(FlightRecorder recorder) {
+    flightRecorder = recorder;
+  }
+
+  /**
+   * Notes that a subsystem saw a fault, so the next disable dumps the flight recorder. Cheap enough
+   * to call on every tick the fault persists.
+   */
+  public static void markFault(String reason) {
+    if (pendingFault == null) {
+      pendingFault = reason;
+    }
+  }
+
   public static void logRobotStartup() {
     logMarker("robot startup");
   }
@@ -32,18 +58,43 @@ public class CrashTracker {
   }
 
   public static void logDisabledInit() {
-    logMarker("disabled init");
+    String fault = pendingFault;
+    if (fault == null) {
+      logMarker("disabled init");
+      return;
+    }
+    pendingFault = null;
+    logMarker("disabled init after fault: " + fault);
+    dumpFlightRecorder("FLIGHT-fault");
   }
 
+  /** Also writes the state machine history from the {@link StateJournal}. */
   public static void logThrowableCrash(Throwable throwable) {
-    logMarker("Exception", throwable);
+    logMarker("Exception", throwable, StateJournal.getInstance());
+    pendingFault = null;
+    dumpFlightRecorder("FLIGHT-crash");
+  }
+
+  private static void dumpFlightRecorder(String name) {
+    FlightRecorder recorder = flightRecorder;
+    if (recorder == null) {
+      return;
+    }
+    try {
+      String path = LogFileManager.getInstance().nextPath(name, ".bin");
+      int records = recorder.dump(path);
+      LOG.warn("wrote the last {} flight recorder snapshots to {}", records, path);
+    } catch (IOException | RuntimeException e) {
+      LOG.error("could not dump the flight recorder", e);
+    }
   }
 
   private static void logMarker(String mark) {
-    logMarker(mark, null);
+    logMarker(mark, null, null);
   }
 
-  private static void logMarker(String mark, Throwable nullableException) {
+  private static void logMarker(
+      String mark, Throwable nullableException, StateJournal nullableJournal) {
 
     try (PrintWriter writer =
         new PrintWriter(new FileWriter("/home/lvuser/crash_tracking.txt", true))) {
@@ -58,6 +109,10 @@ public class CrashTracker {
         nullableException.printStackTrace(writer);
       }
 
+      if (nullableJournal != null) {
+        nullableJournal.dump(writer);
+      }
+
       writer.println();
     } catch (IOException e) {
       e.printStackTrace();
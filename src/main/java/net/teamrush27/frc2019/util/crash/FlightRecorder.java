@@ -0,0 +1,93 @@
+package net.teamrush27.frc2019.util.crash;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import net.teamrush27.frc2019.util.log.BinaryLogSchema;
+import net.teamrush27.frc2019.util.log.BinaryLogWriter;
+
+/**
+ * The last few seconds of fixed-width records, kept in a ring preallocated on the heap and written
+ * out as a binary log only when something goes wrong. Recording is a handful of puts into the ring
+ * and a volatile store; nothing is allocated or written to disk until {@link #dump(String)}.
+ *
+ * <p>One thread records. {@link #dump(String)} may run on any thread while records are still
+ * coming in; it copies the ring and drops whichever records were being overwritten during the copy.
+ */
+public class FlightRecorder {
+
+  private final BinaryLogSchema schema;
+  private final int recordSize;
+  private final int mask;
+  private final ByteBuffer ring;
+
+  private int recordStart;
+  // records started so far; published after each record is complete
+  private volatile long count = 0;
+
+  /** @param capacity number of records kept (power of two) */
+  public FlightRecorder(BinaryLogSchema schema, int capacity) {
+    if (Integer.bitCount(capacity) != 1) {
+      throw new IllegalArgumentException("capacity must be a power of two, was " + capacity);
+    }
+    this.schema = schema;
+    recordSize = schema.getRecordSize();
+    mask = capacity - 1;
+    ring = ByteBuffer.allocate(recordSize * capacity).order(ByteOrder.LITTLE_ENDIAN);
+  }
+
+  public BinaryLogSchema getSchema() {
+    return schema;
+  }
+
+  public int getCapacity() {
+    return mask + 1;
+  }
+
+  /** @return records made since construction, including the ones overwritten since */
+  public long getRecordCount() {
+    return count;
+  }
+
+  /**
+   * Starts a record, overwriting the oldest once the ring is full. The caller puts exactly {@link
+   * BinaryLogSchema#getRecordSize()} bytes, in column order, then calls {@link #endRecord()}.
+   */
+  public ByteBuffer beginRecord() {
+    recordStart = (int) (count & mask) * recordSize;
+    ring.position(recordStart);
+    return ring;
+  }
+
+  public void endRecord() {
+    int written = ring.position() - recordStart;
+    if (written != recordSize) {
+      throw new IllegalStateException(
+          "record was " + written + " bytes, schema needs " + recordSize);
+    }
+    count++;
+  }
+
+  /**
+   * Writes the retained records, oldest first, to a new binary log.
+   *
+   * @return records written
+   */
+  public int dump(String fileName) throws IOException {
+    byte[] copy = new byte[ring.capacity()];
+    long end = count;
+    System.arraycopy(ring.array(), 0, copy, 0, copy.length);
+    // anything the recording thread reached during the copy may be torn, so skip those slots too
+    long start = Math.max(0, count + 1 - getCapacity());
+
+    int written = 0;
+    try (BinaryLogWriter writer = new BinaryLogWriter(fileName, schema)) {
+      for (long i = start; i < end; i++) {
+        writer.beginRecord().put(copy, (int) (i & mask) * recordSize, recordSize);
+        writer.endRecord();
+        written++;
+      }
+    }
+    return written;
+  }
+}
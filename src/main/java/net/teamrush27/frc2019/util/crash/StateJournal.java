@@ -0,0 +1,243 @@
+package net.teamrush27.frc2019.util.crash;
+
+import java.io.PrintWriter;
+import java.util.ArrayList;
+import java.util.List;
+import net.teamrush27.frc2019.util.time.Clock;
+import net.teamrush27.frc2019.util.time.TimeSource;
+
+/**
+ * Shared history of state machine transitions. Each state machine registers once and gets an int
+ * id; every transition is then written as (timestamp, id, from ordinal, to ordinal, cause) into
+ * preallocated primitive arrays, so recording never allocates or formats a string. The oldest
+ * records are overwritten once the ring is full.
+ *
+ * <p>Loops on different threads record into the same ring, so writes and queries take the
+ * journal's lock; it is held only for a few array stores. {@link CrashTracker} dumps the journal
+ * when it logs a crash.
+ */
+public class StateJournal {
+
+  private static final int DEFAULT_CAPACITY = 1024;
+  private static final int UNKNOWN = -1;
+
+  public enum Cause {
+    // the subsystem's own loop moved on, because a handler finished or the wanted state changed
+    LOOP,
+    // a caller set the state directly, outside the loop
+    REQUEST,
+    // the superstructure was given a new wanted state
+    WANTED_STATE,
+    // the superstructure replanned for the same wanted state (side, game piece or forced)
+    RECOMPUTE
+  }
+
+  private static final Cause[] CAUSES = Cause.values();
+
+  private static StateJournal INSTANCE = null;
+
+  public static synchronized StateJournal getInstance() {
+    if (INSTANCE == null) {
+      INSTANCE = new StateJournal(Clock.getSource(), DEFAULT_CAPACITY);
+    }
+    return INSTANCE;
+  }
+
+  private final TimeSource time;
+  private final List<Machine> machines = new ArrayList<>();
+
+  private final int mask;
+  private final double[] timestamps;
+  private final int[] ids;
+  private final short[] froms;
+  private final short[] tos;
+  private final byte[] causes;
+  private long count = 0;
+
+  /** @param capacity number of transitions kept (power of two) */
+  public StateJournal(TimeSource time, int capacity) {
+    if (Integer.bitCount(capacity) != 1) {
+      throw new IllegalArgumentException("capacity must be a power of two, was " + capacity);
+    }
+    this.time = time;
+    mask = capacity - 1;
+    timestamps = new double[capacity];
+    ids = new int[capacity];
+    froms = new short[capacity];
+    tos = new short[capacity];
+    causes = new byte[capacity];
+  }
+
+  /**
+   * @param name shown in queries and dumps
+   * @param initial the state the machine starts in
+   * @return the id to record this machine's transitions under
+   */
+  public synchronized <E extends Enum<E>> int register(String name, E initial) {
+    Enum<?>[] states = initial.getDeclaringClass().getEnumConstants();
+    machines.add(new Machine(name, states, initial.ordinal(), time.getTimestamp()));
+    return machines.size() - 1;
+  }
+
+  /** Records a transition at the current time, for callers outside a loop. */
+  public void record(int id, Enum<?> from, Enum<?> to, Cause cause) {
+    record(time.getTimestamp(), id, from, to, cause);
+  }
+
+  /** @param from null if the machine had no state yet */
+  public synchronized void record(
+      double timestamp, int id, Enum<?> from, Enum<?> to, Cause cause) {
+    int slot = (int) (count++ & mask);
+    timestamps[slot] = timestamp;
+    ids[slot] = id;
+    froms[slot] = (short) (from == null ? UNKNOWN : from.ordinal());
+    tos[slot] = (short) to.ordinal();
+    causes[slot] = (byte) cause.ordinal();
+
+    Machine machine = machines.get(id);
+    machine.state = to.ordinal();
+    machine.enteredAt = timestamp;
+    machine.transitions++;
+  }
+
+  /** @return up to {@code n} of the most recent transitions, oldest first */
+  public synchronized List<Transition> lastTransitions(int n) {
+    long first = Math.max(oldest(), count - n);
+    List<Transition> transitions = new ArrayList<>((int) (count - first));
+    for (long i = first; i < count; i++) {
+      transitions.add(transition((int) (i & mask)));
+    }
+    return transitions;
+  }
+
+  /** @return the state the machine is in now */
+  public synchronized String getState(int id) {
+    Machine machine = machines.get(id);
+    return machine.states[machine.state].name();
+  }
+
+  /** @return seconds since the machine entered its current state */
+  public double timeInState(int id) {
+    return timeInState(id, time.getTimestamp());
+  }
+
+  public synchronized double timeInState(int id, double now) {
+    return now - machines.get(id).enteredAt;
+  }
+
+  /** @return transitions of every machine per second over the last {@code window} seconds */
+  public double transitionsPerSecond(double window) {
+    return transitionsPerSecond(UNKNOWN, window, time.getTimestamp());
+  }
+
+  /** @return transitions of one machine per second over the last {@code window} seconds */
+  public double transitionsPerSecond(int id, double window) {
+    return transitionsPerSecond(id, window, time.getTimestamp());
+  }
+
+  /** @param id a machine, or -1 to count every machine */
+  public synchronized double transitionsPerSecond(int id, double window, double now) {
+    int transitions = 0;
+    for (long i = count - 1; i >= oldest(); i--) {
+      int slot = (int) (i & mask);
+      if (timestamps[slot] < now - window) {
+        break;
+      }
+      if (id == UNKNOWN || ids[slot] == id) {
+        transitions++;
+      }
+    }
+    return transitions / window;
+  }
+
+  /** Writes every machine's current state and the retained transitions, oldest first. */
+  public synchronized void dump(PrintWriter writer) {
+    double now = time.getTimestamp();
+    writer.println("state machines at " + now + ":");
+    for (Machine machine : machines) {
+      writer.println(
+          String.format(
+              "  %s %s for %.3fs, %d transitions",
+              machine.name,
+              machine.states[machine.state],
+              now - machine.enteredAt,
+              machine.transitions));
+    }
+
+    writer.println("last " + (count - oldest()) + " of " + count + " transitions:");
+    for (long i = oldest(); i < count; i++) {
+      writer.println("  " + transition((int) (i & mask)));
+    }
+  }
+
+  private long oldest() {
+    return Math.max(0, count - timestamps.length);
+  }
+
+  private Transition transition(int slot) {
+    Machine machine = machines.get(ids[slot]);
+    return new Transition(
+        timestamps[slot],
+        machine.name,
+        froms[slot] == UNKNOWN ? null : machine.states[froms[slot]].name(),
+        machine.states[tos[slot]].name(),
+        CAUSES[causes[slot]]);
+  }
+
+  private static class Machine {
+    private final String name;
+    private final Enum<?>[] states;
+    private int state;
+    private double enteredAt;
+    private long transitions = 0;
+
+    private Machine(String name, Enum<?>[] states, int state, double enteredAt) {
+      this.name = name;
+      this.states = states;
+      this.state = state;
+      this.enteredAt = enteredAt;
+    }
+  }
+
+  public static class Transition {
+    private final double timestamp;
+    private final String machine;
+    private final String from;
+    private final String to;
+    private final Cause cause;
+
+    Transition(double timestamp, String machine, String from, String to, Cause cause) {
+      this.timestamp = timestamp;
+      this.machine = machine;
+      this.from = from;
+      this.to = to;
+      this.cause = cause;
+    }
+
+    public double getTimestamp() {
+      return timestamp;
+    }
+
+    public String getMachine() {
+      return machine;
+    }
+
+    /** @return null if the machine had no state yet */
+    public String getFrom() {
+      return from;
+    }
+
+    public String getTo() {
+      return to;
+    }
+
+    public Cause getCause() {
+      return cause;
+    }
+
+    @Override
+    public String toString() {
+      return String.format("%.3f %s %s to %s (%s)", timestamp, machine, from, to, cause);
+    }
+  }
+}
@@ -0,0 +1,140 @@
+package net.teamrush27.frc2019.util.dashboard;
+
+import edu.wpi.first.networktables.NetworkTableEntry;
+import edu.wpi.first.wpilibj.smartdashboard.SmartDashboard;
+import net.teamrush27.frc2019.util.dashboard.DashboardPublisher.Rate;
+
+/**
+ * One dashboard key, made by {@link DashboardPublisher}. Set it as often as is convenient; setting
+ * only records the value, and {@link DashboardPublisher#publish()} decides whether it is sent.
+ */
+public class DashboardEntry {
+
+  enum Kind {
+    NUMBER,
+    BOOLEAN,
+    TEXT
+  }
+
+  // NT3 entry update: message type, id, sequence number, value type
+  private static final int UPDATE_BYTES = 6;
+  // NT3 entry assignment: message type, value type, id, sequence number, flags, name length
+  private static final int ASSIGNMENT_BYTES = 8;
+
+  private final String name;
+  private final Kind kind;
+  private final Rate rate;
+  private final double epsilon;
+
+  // looked up on first publish, so handles can be made where there are no network tables
+  private NetworkTableEntry entry = null;
+  private boolean dirty = false;
+
+  private double number;
+  private double sentNumber;
+  private boolean bool;
+  private boolean sentBool;
+  private final StringBuilder text = new StringBuilder();
+  private String sentText = null;
+
+  DashboardEntry(String name, Kind kind, Rate rate, double epsilon) {
+    this.name = name;
+    this.kind = kind;
+    this.rate = rate;
+    this.epsilon = epsilon;
+  }
+
+  public String getName() {
+    return name;
+  }
+
+  Kind getKind() {
+    return kind;
+  }
+
+  Rate getRate() {
+    return rate;
+  }
+
+  public void setNumber(double value) {
+    number = value;
+    dirty = true;
+  }
+
+  public void setBoolean(boolean value) {
+    bool = value;
+    dirty = true;
+  }
+
+  /** Copies the text, so a reused builder can be passed in. */
+  public void setText(CharSequence value) {
+    text.setLength(0);
+    text.append(value);
+    dirty = true;
+  }
+
+  /**
+   * Sends the value if it changed since it was last sent (by more than the epsilon, for numbers).
+   *
+   * @return estimated bytes put on the wire, 0 if nothing was sent
+   */
+  int publish() {
+    if (!dirty) {
+      return 0;
+    }
+    dirty = false;
+
+    boolean assigned = entry != null;
+    int valueBytes;
+    switch (kind) {
+      case NUMBER:
+        if (assigned
+            && (Double.compare(number, sentNumber) == 0
+                || Math.abs(number - sentNumber) <= epsilon)) {
+          return 0;
+        }
+        entry().setDouble(number);
+        sentNumber = number;
+        valueBytes = Double.BYTES;
+        break;
+      case BOOLEAN:
+        if (assigned && bool == sentBool) {
+          return 0;
+        }
+        entry().setBoolean(bool);
+        sentBool = bool;
+        valueBytes = 1;
+        break;
+      default:
+        if (assigned && sentText.contentEquals(text)) {
+          return 0;
+        }
+        sentText = text.toString();
+        entry().setString(sentText);
+        valueBytes = lengthBytes(sentText.length()) + sentText.length();
+        break;
+    }
+
+    if (!assigned) {
+      return ASSIGNMENT_BYTES + name.length() + valueBytes;
+    }
+    return UPDATE_BYTES + valueBytes;
+  }
+
+  private NetworkTableEntry entry() {
+    if (entry == null) {
+      entry = SmartDashboard.getEntry(name);
+    }
+    return entry;
+  }
+
+  // strings are prefixed with their length as an unsigned LEB128
+  private static int lengthBytes(int length) {
+    int bytes = 1;
+    while (length >= 0x80) {
+      length >>>= 7;
+      bytes++;
+    }
+    return bytes;
+  }
+}
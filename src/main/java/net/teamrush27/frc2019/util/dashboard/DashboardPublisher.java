@@ -0,0 +1,164 @@
+package net.teamrush27.frc2019.util.dashboard;
+
+import java.util.HashMap;
+import java.util.Map;
+import net.teamrush27.frc2019.constants.RobotConstants;
+import net.teamrush27.frc2019.util.dashboard.DashboardEntry.Kind;
+import net.teamrush27.frc2019.util.time.Clock;
+import net.teamrush27.frc2019.util.time.TimeSource;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+/**
+ * Sends dashboard values through network table entries looked up once per key, instead of by
+ * string on every put. Callers hold {@link DashboardEntry} handles and set them whenever they like;
+ * {@link #publish()}, called once per robotPeriodic, sends only the entries whose {@link Rate} is
+ * due and whose value changed by more than that entry's epsilon since it was last sent.
+ *
+ * <p>Entries published per second and the estimated bytes they took are reported under {@code
+ * dashboard.*}. Main robot thread only, apart from making entries.
+ */
+public class DashboardPublisher {
+
+  private static final Logger LOG = LogManager.getLogger(DashboardPublisher.class);
+
+  public enum Rate {
+    // driver-facing state, checked every robotPeriodic
+    FAST(0.0),
+    // mechanism positions and sensor readouts
+    NORMAL(RobotConstants.DASHBOARD_NORMAL_PERIOD),
+    // loop timings and other diagnostics
+    SLOW(RobotConstants.DASHBOARD_SLOW_PERIOD);
+
+    private final double period;
+
+    Rate(double period) {
+      this.period = period;
+    }
+
+    public double getPeriod() {
+      return period;
+    }
+  }
+
+  private static final Rate[] RATES = Rate.values();
+
+  private static DashboardPublisher INSTANCE = null;
+
+  public static synchronized DashboardPublisher getInstance() {
+    if (INSTANCE == null) {
+      INSTANCE = new DashboardPublisher(Clock.getSource());
+    }
+    return INSTANCE;
+  }
+
+  private final TimeSource time;
+
+  // replaced (never modified) when an entry is added, so publish() never takes a lock
+  private volatile DashboardEntry[] entries = new DashboardEntry[0];
+  private final Map<String, DashboardEntry> byName = new HashMap<>();
+
+  private final double[] lastPublished = new double[RATES.length];
+  private final boolean[] due = new boolean[RATES.length];
+
+  private double windowStart = Double.NaN;
+  private long windowEntries = 0;
+  private long windowBytes = 0;
+  private double entriesPerSecond = 0;
+  private double bytesPerSecond = 0;
+
+  private final DashboardEntry entriesRate;
+  private final DashboardEntry bytesRate;
+
+  public DashboardPublisher(TimeSource time) {
+    this.time = time;
+    for (int i = 0; i < RATES.length; i++) {
+      lastPublished[i] = Double.NEGATIVE_INFINITY;
+    }
+    entriesRate = number("dashboard.entries_per_sec", Rate.SLOW, 0.5);
+    bytesRate = number("dashboard.bytes_per_sec", Rate.SLOW, 0.5);
+  }
+
+  /** @param epsilon changes this size or smaller are not sent */
+  public DashboardEntry number(String name, Rate rate, double epsilon) {
+    return entry(name, Kind.NUMBER, rate, epsilon);
+  }
+
+  public DashboardEntry number(String name, Rate rate) {
+    return entry(name, Kind.NUMBER, rate, 0.0);
+  }
+
+  public DashboardEntry bool(String name, Rate rate) {
+    return entry(name, Kind.BOOLEAN, rate, 0.0);
+  }
+
+  public DashboardEntry text(String name, Rate rate) {
+    return entry(name, Kind.TEXT, rate, 0.0);
+  }
+
+  /** Every caller asking for the same key shares one entry; the first caller's rate wins. */
+  private synchronized DashboardEntry entry(String name, Kind kind, Rate rate, double epsilon) {
+    DashboardEntry entry = byName.get(name);
+    if (entry != null) {
+      if (entry.getKind() != kind) {
+        throw new IllegalArgumentException(name + " is already a " + entry.getKind() + " entry");
+      }
+      return entry;
+    }
+
+    entry = new DashboardEntry(name, kind, rate, epsilon);
+    byName.put(name, entry);
+    DashboardEntry[] current = entries;
+    DashboardEntry[] updated = new DashboardEntry[current.length + 1];
+    System.arraycopy(current, 0, updated, 0, current.length);
+    updated[current.length] = entry;
+    entries = updated;
+    return entry;
+  }
+
+  /** Sends what changed among the entries whose rate is due. */
+  public void publish() {
+    double now = time.getTimestamp();
+    for (int i = 0; i < RATES.length; i++) {
+      due[i] = now - lastPublished[i] >= RATES[i].getPeriod();
+      if (due[i]) {
+        lastPublished[i] = now;
+      }
+    }
+
+    for (DashboardEntry entry : entries) {
+      if (due[entry.getRate().ordinal()]) {
+        int bytes = entry.publish();
+        if (bytes > 0) {
+          windowEntries++;
+          windowBytes += bytes;
+        }
+      }
+    }
+
+    if (Double.isNaN(windowStart)) {
+      windowStart = now;
+    } else if (now - windowStart >= RobotConstants.DASHBOARD_REPORT_PERIOD) {
+      entriesPerSecond = windowEntries / (now - windowStart);
+      bytesPerSecond = windowBytes / (now - windowStart);
+      windowStart = now;
+      windowEntries = 0;
+      windowBytes = 0;
+      entriesRate.setNumber(entriesPerSecond);
+      bytesRate.setNumber(bytesPerSecond);
+      if (LOG.isTraceEnabled()) {
+        LOG.trace("dashboard: {} entries/s, {} bytes/s", entriesPerSecond, bytesPerSecond);
+      }
+    }
+  }
+
+  /** @return entries sent per second over the last report period */
+  public double getEntriesPerSecond() {
+    return entriesPerSecond;
+  }
+
+  /** @return estimated network table bytes sent per second over the last report period */
+  public double getBytesPerSecond() {
+    return bytesPerSecond;
+  }
+}
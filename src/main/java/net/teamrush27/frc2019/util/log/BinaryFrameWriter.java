@@ -0,0 +1,312 @@
+package net.teamrush27.frc2019.util.log;
+
+import java.io.File;
+import java.io.IOException;
+import java.lang.invoke.MethodHandle;
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.MethodType;
+import java.lang.reflect.Field;
+import java.nio.ByteBuffer;
+import net.teamrush27.frc2019.util.CSVWritable;
+import net.teamrush27.frc2019.util.FrameWriter;
+import net.teamrush27.frc2019.util.log.BinaryLogSchema.Type;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+/**
+ * Binary counterpart of {@link net.teamrush27.frc2019.util.ReflectingCSVWriter}: the public fields
+ * of each frame become columns of a {@link BinaryLogWriter}. Primitive fields keep their type;
+ * {@link CSVWritable} fields become one double per column of their CSV header, holding what {@link
+ * CSVWritable#putDoubles(ByteBuffer)} puts.
+ *
+ * <p>Frames are encoded as they are added, so the caller may reuse the object afterwards. The
+ * schema is taken from a prototype frame given to the constructor, since CSVWritable fields name
+ * their columns from a value.
+ *
+ * <p>{@link #add(Object)} never touches the file system. Files are opened, closed and rolled over
+ * on the {@link LogFileManager}'s background thread: frames added before the first file is open
+ * are dropped and counted, and given {@link LogSegments} the next segment is opened ahead of time,
+ * so rolling over is swapping one writer for another.
+ */
+public class BinaryFrameWriter<T> implements FrameWriter<T> {
+
+  private static final Logger LOG = LogManager.getLogger(BinaryFrameWriter.class);
+
+  private interface Column {
+    void put(Object frame, ByteBuffer out) throws Throwable;
+  }
+
+  private final LogFileManager files;
+  private final LogSegments segments;
+  private final BinaryLogSchema schema;
+  private final Column[] columns;
+
+  private String fileName;
+  private BinaryLogWriter writer = null;
+  private String preparedName = null;
+  private BinaryLogWriter prepared = null;
+  private long dropped = 0;
+  private boolean closed = false;
+
+  public BinaryFrameWriter(String fileName, Class<T> typeClass, T prototype) {
+    this(LogFileManager.getInstance(), null, typeClass, prototype);
+    files.execute(() -> open(fileName));
+  }
+
+  public BinaryFrameWriter(LogSegments segments, Class<T> typeClass, T prototype) {
+    this(segments.getManager(), segments, typeClass, prototype);
+    files.execute(() -> open(segments.reserve()));
+  }
+
+  private BinaryFrameWriter(
+      LogFileManager files, LogSegments segments, Class<T> typeClass, T prototype) {
+    this.files = files;
+    this.segments = segments;
+
+    Field[] fields = typeClass.getFields();
+    schema = schemaFor(fields, prototype);
+    columns = new Column[fields.length];
+    try {
+      for (int i = 0; i < fields.length; i++) {
+        columns[i] = column(fields[i], prototype);
+      }
+    } catch (IllegalAccessException e) {
+      throw new IllegalArgumentException("cannot log " + typeClass, e);
+    }
+  }
+
+  /** @return the schema frames are written with */
+  public BinaryLogSchema getSchema() {
+    return schema;
+  }
+
+  /** @return frames dropped because no file was open yet */
+  public synchronized long getDroppedFrames() {
+    return dropped;
+  }
+
+  @Override
+  public synchronized void add(T value) {
+    if (closed) {
+      return;
+    }
+    if (writer == null) {
+      dropped++;
+      return;
+    }
+
+    try {
+      ByteBuffer out = writer.beginRecord();
+      for (Column column : columns) {
+        column.put(value, out);
+      }
+      writer.endRecord();
+
+      // if the next segment is not open yet, keep writing this one until it is
+      if (prepared != null && segments.isDue(writer.getSize())) {
+        BinaryLogWriter finished = writer;
+        String finishedName = fileName;
+        writer = prepared;
+        fileName = preparedName;
+        prepared = null;
+        preparedName = null;
+        segments.advance(fileName);
+        files.execute(
+            () -> {
+              prepare();
+              closeWriter(finished, finishedName);
+              segments.finish(finishedName);
+            });
+      }
+    } catch (Throwable t) {
+      LOG.error("could not log to " + fileName + ", logging stopped", t);
+      close();
+    }
+  }
+
+  @Override
+  public synchronized void flush() {
+    // records are in the page cache as soon as they are added; forcing them onto flash every call
+    // would stall the caller, so only close() does that
+  }
+
+  /** Stops logging; the files are closed on the background thread. */
+  @Override
+  public synchronized void close() {
+    if (closed) {
+      return;
+    }
+    closed = true;
+
+    BinaryLogWriter last = writer;
+    String lastName = fileName;
+    BinaryLogWriter spare = prepared;
+    String spareName = preparedName;
+    writer = null;
+    prepared = null;
+    files.execute(
+        () -> {
+          if (last != null) {
+            closeWriter(last, lastName);
+            if (segments != null) {
+              segments.finish(lastName);
+            }
+          }
+          if (spare != null) {
+            discard(spare, spareName);
+          }
+        });
+  }
+
+  /** Opens the first file, on the background thread. */
+  private void open(String name) {
+    BinaryLogWriter opened;
+    try {
+      opened = new BinaryLogWriter(name, schema);
+    } catch (IOException e) {
+      LOG.error("could not open " + name + ", logging stopped", e);
+      synchronized (this) {
+        closed = true;
+      }
+      return;
+    }
+
+    synchronized (this) {
+      if (!closed) {
+        writer = opened;
+        fileName = name;
+        if (segments != null) {
+          segments.advance(name);
+        }
+        if (dropped > 0) {
+          LOG.info("dropped {} frames while {} was opening", dropped, name);
+        }
+        opened = null;
+      }
+    }
+    if (opened != null) {
+      discard(opened, name);
+    } else if (segments != null) {
+      prepare();
+    }
+  }
+
+  /**
+   * Opens the segment after the current one, on the background thread. If it cannot be opened the
+   * current segment just keeps growing.
+   */
+  private void prepare() {
+    String name = segments.reserve();
+    BinaryLogWriter opened;
+    try {
+      opened = new BinaryLogWriter(name, schema);
+    } catch (IOException e) {
+      LOG.error("could not open " + name + ", the current segment keeps growing", e);
+      return;
+    }
+
+    synchronized (this) {
+      if (!closed) {
+        prepared = opened;
+        preparedName = name;
+        return;
+      }
+    }
+    discard(opened, name);
+  }
+
+  private static void closeWriter(BinaryLogWriter writer, String name) {
+    try {
+      writer.close();
+      LOG.info("wrote {} records to {}", writer.getRecordCount(), name);
+    } catch (IOException e) {
+      LOG.error("could not close " + name, e);
+    }
+  }
+
+  /** Closes and deletes a file that was opened but never written. */
+  private static void discard(BinaryLogWriter writer, String name) {
+    try {
+      writer.close();
+    } catch (IOException e) {
+      LOG.error("could not close " + name, e);
+    }
+    new File(name).delete();
+  }
+
+  private static BinaryLogSchema schemaFor(Field[] fields, Object prototype) {
+    BinaryLogSchema.Builder builder = new BinaryLogSchema.Builder();
+    for (Field field : fields) {
+      Type type = Type.forClass(field.getType());
+      if (type != null) {
+        builder.add(field.getName(), type);
+      } else if (CSVWritable.class.isAssignableFrom(field.getType())) {
+        for (String name : subColumns(field, prototype)) {
+          builder.add(name, Type.DOUBLE);
+        }
+      } else {
+        throw new IllegalArgumentException("cannot log " + field + " in a fixed-width record");
+      }
+    }
+    return builder.build();
+  }
+
+  private static String[] subColumns(Field field, Object value) {
+    try {
+      CSVWritable writable = (CSVWritable) field.get(value);
+      String[] names = writable.header(field.getName()).split(",");
+      for (int i = 0; i < names.length; i++) {
+        names[i] = names[i].trim();
+      }
+      return names;
+    } catch (IllegalAccessException e) {
+      throw new IllegalStateException("cannot read " + field, e);
+    }
+  }
+
+  private static Column column(Field field, Object value) throws IllegalAccessException {
+    MethodHandle getter;
+    try {
+      getter = MethodHandles.publicLookup().unreflectGetter(field);
+    } catch (IllegalAccessException e) {
+      // public field of a non-public class
+      field.setAccessible(true);
+      getter = MethodHandles.lookup().unreflectGetter(field);
+    }
+
+    Class<?> type = field.getType();
+    MethodHandle handle =
+        getter.asType(
+            MethodType.methodType(type.isPrimitive() ? type : Object.class, Object.class));
+
+    if (type == double.class) {
+      return (frame, out) -> out.putDouble((double) handle.invokeExact(frame));
+    } else if (type == int.class) {
+      return (frame, out) -> out.putInt((int) handle.invokeExact(frame));
+    } else if (type == long.class) {
+      return (frame, out) -> out.putLong((long) handle.invokeExact(frame));
+    } else if (type == float.class) {
+      return (frame, out) -> out.putFloat((float) handle.invokeExact(frame));
+    } else if (type == boolean.class) {
+      return (frame, out) -> out.put((boolean) handle.invokeExact(frame) ? (byte) 1 : (byte) 0);
+    } else if (type == char.class) {
+      return (frame, out) -> out.putChar((char) handle.invokeExact(frame));
+    } else if (type == short.class) {
+      return (frame, out) -> out.putShort((short) handle.invokeExact(frame));
+    } else if (type == byte.class) {
+      return (frame, out) -> out.put((byte) handle.invokeExact(frame));
+    }
+
+    int width = subColumns(field, value).length;
+    return (frame, out) -> {
+      CSVWritable writable = (CSVWritable) (Object) handle.invokeExact(frame);
+      if (writable == null) {
+        for (int i = 0; i < width; i++) {
+          out.putDouble(Double.NaN);
+        }
+      } else {
+        writable.putDoubles(out);
+      }
+    };
+  }
+}
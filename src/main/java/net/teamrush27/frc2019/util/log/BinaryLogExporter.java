@@ -0,0 +1,58 @@
+package net.teamrush27.frc2019.util.log;
+
+import java.io.IOException;
+import java.io.PrintWriter;
+
+/**
+ * Converts a binary log back to the CSV the text writers produce (columns separated by ", ", one
+ * header line). Meant to be run on a laptop against logs pulled off the robot; segments the {@link
+ * LogFileManager} already gzipped are read as is:
+ *
+ * <pre>java -cp build/libs/... net.teamrush27.frc2019.util.log.BinaryLogExporter DRIVE-LOGS.bin
+ * [DRIVE-LOGS.csv]</pre>
+ */
+public class BinaryLogExporter {
+
+  public static void main(String... args) throws IOException {
+    if (args.length < 1) {
+      System.err.println("usage: BinaryLogExporter <log.bin> [out.csv]");
+      System.exit(1);
+    }
+
+    String input = args[0];
+    String output =
+        args.length > 1 ? args[1] : input.replaceFirst("(\\.bin)?(\\.gz)?$", ".csv");
+    long records = export(input, output);
+    System.out.println("exported " + records + " records to " + output);
+  }
+
+  /** @return the number of records written */
+  public static long export(String input, String output) throws IOException {
+    try (BinaryLogReader reader = BinaryLogReader.open(input);
+        PrintWriter writer = new PrintWriter(output)) {
+      BinaryLogSchema schema = reader.getSchema();
+      int columns = schema.getColumnCount();
+
+      StringBuilder line = new StringBuilder();
+      for (int column = 0; column < columns; column++) {
+        if (column > 0) {
+          line.append(", ");
+        }
+        line.append(schema.getName(column));
+      }
+      writer.println(line);
+
+      for (long record = 0; record < reader.getRecordCount(); record++) {
+        line.setLength(0);
+        for (int column = 0; column < columns; column++) {
+          if (column > 0) {
+            line.append(", ");
+          }
+          reader.appendValue(record, column, line);
+        }
+        writer.println(line);
+      }
+      return reader.getRecordCount();
+    }
+  }
+}
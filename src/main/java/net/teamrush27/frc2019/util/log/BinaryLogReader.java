@@ -0,0 +1,155 @@
+package net.teamrush27.frc2019.util.log;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileChannel.MapMode;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.zip.GZIPInputStream;
+import net.teamrush27.frc2019.util.log.BinaryLogSchema.Type;
+
+/** Random access to the records of a binary log written by {@link BinaryLogWriter}. */
+public class BinaryLogReader implements Closeable {
+
+  private final FileChannel channel;
+  private final MappedByteBuffer buffer;
+  private final BinaryLogSchema schema;
+  private final int headerSize;
+  private final int recordSize;
+  private final long recordCount;
+  private final File expanded;
+
+  /**
+   * Opens a log, first expanding it to a temporary file (deleted on close) if the {@link
+   * LogFileManager} already gzipped it.
+   */
+  public static BinaryLogReader open(String fileName) throws IOException {
+    if (!fileName.endsWith(".gz")) {
+      return new BinaryLogReader(fileName);
+    }
+
+    File expanded = File.createTempFile("binary-log", ".bin");
+    try (InputStream in = new GZIPInputStream(new FileInputStream(fileName))) {
+      Files.copy(in, expanded.toPath(), StandardCopyOption.REPLACE_EXISTING);
+      return new BinaryLogReader(expanded.getPath(), expanded);
+    } catch (IOException e) {
+      expanded.delete();
+      throw e;
+    }
+  }
+
+  public BinaryLogReader(String fileName) throws IOException {
+    this(fileName, null);
+  }
+
+  private BinaryLogReader(String fileName, File expanded) throws IOException {
+    this.expanded = expanded;
+    channel = FileChannel.open(Paths.get(fileName), StandardOpenOption.READ);
+    buffer = channel.map(MapMode.READ_ONLY, 0, channel.size());
+    buffer.order(ByteOrder.LITTLE_ENDIAN);
+
+    schema = BinaryLogSchema.readHeader(buffer);
+    headerSize = BinaryLogSchema.readHeaderSize(buffer);
+    recordSize = schema.getRecordSize();
+
+    // an unclosed log is still padded out to the end of its last mapped chunk
+    long complete = recordSize == 0 ? 0 : (channel.size() - headerSize) / recordSize;
+    recordCount = Math.min(BinaryLogSchema.readRecordCount(buffer), complete);
+  }
+
+  public BinaryLogSchema getSchema() {
+    return schema;
+  }
+
+  public long getRecordCount() {
+    return recordCount;
+  }
+
+  /** @return the value widened to a double; booleans read as 0 or 1 */
+  public double getDouble(long record, int column) {
+    int index = index(record, column);
+    switch (schema.getType(column)) {
+      case BOOLEAN:
+      case BYTE:
+        return buffer.get(index);
+      case SHORT:
+        return buffer.getShort(index);
+      case CHAR:
+        return buffer.getChar(index);
+      case INT:
+        return buffer.getInt(index);
+      case FLOAT:
+        return buffer.getFloat(index);
+      case LONG:
+        return buffer.getLong(index);
+      default:
+        return buffer.getDouble(index);
+    }
+  }
+
+  /** @return the value of an integer column; floating point columns are truncated */
+  public long getLong(long record, int column) {
+    Type type = schema.getType(column);
+    if (type == Type.LONG) {
+      return buffer.getLong(index(record, column));
+    }
+    return (long) getDouble(record, column);
+  }
+
+  /** Appends the value as the CSV writers would print it, or its label if the column has them. */
+  public void appendValue(long record, int column, StringBuilder out) {
+    Type type = schema.getType(column);
+    String[] labels = schema.getLabels(column);
+    if (labels != null) {
+      long value = getLong(record, column);
+      if (value >= 0 && value < labels.length) {
+        out.append(labels[(int) value]);
+      } else {
+        out.append(value);
+      }
+      return;
+    }
+
+    int index = index(record, column);
+    switch (type) {
+      case BOOLEAN:
+        out.append(buffer.get(index) != 0);
+        break;
+      case CHAR:
+        out.append(buffer.getChar(index));
+        break;
+      case FLOAT:
+        out.append(buffer.getFloat(index));
+        break;
+      case DOUBLE:
+        out.append(buffer.getDouble(index));
+        break;
+      default:
+        out.append(getLong(record, column));
+    }
+  }
+
+  @Override
+  public void close() throws IOException {
+    channel.close();
+    // the mapping can outlive the channel on some platforms, so fall back to deleting on exit
+    if (expanded != null && !expanded.delete()) {
+      expanded.deleteOnExit();
+    }
+  }
+
+  private int index(long record, int column) {
+    if (record < 0 || record >= recordCount) {
+      throw new IndexOutOfBoundsException("record " + record + " of " + recordCount);
+    }
+    return (int) (headerSize + record * recordSize) + schema.getOffset(column);
+  }
+}
@@ -0,0 +1,239 @@
+package net.teamrush27.frc2019.util.log;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Column layout of a binary log: a name and a fixed-width type per column, plus optional labels
+ * for integer columns that stand for names (loop ids, enum values). Every record is the columns'
+ * values back to back, little-endian, so record {@code n} of a file lives at {@code headerSize + n
+ * * recordSize}.
+ *
+ * <p>File layout: magic, version, record count (kept current by the writer so a log cut short by a
+ * brownout is still readable), header size, then the column table.
+ */
+public class BinaryLogSchema {
+
+  public static final int MAGIC = 0x52323742; // "R27B"
+  public static final short VERSION = 1;
+
+  static final int RECORD_COUNT_OFFSET = 8;
+
+  public enum Type {
+    BOOLEAN(1),
+    BYTE(1),
+    SHORT(2),
+    CHAR(2),
+    INT(4),
+    FLOAT(4),
+    LONG(8),
+    DOUBLE(8);
+
+    private final int width;
+
+    Type(int width) {
+      this.width = width;
+    }
+
+    public int getWidth() {
+      return width;
+    }
+
+    public static Type forClass(Class<?> type) {
+      if (type == boolean.class) {
+        return BOOLEAN;
+      } else if (type == byte.class) {
+        return BYTE;
+      } else if (type == short.class) {
+        return SHORT;
+      } else if (type == char.class) {
+        return CHAR;
+      } else if (type == int.class) {
+        return INT;
+      } else if (type == float.class) {
+        return FLOAT;
+      } else if (type == long.class) {
+        return LONG;
+      } else if (type == double.class) {
+        return DOUBLE;
+      }
+      return null;
+    }
+  }
+
+  private static final Type[] TYPES = Type.values();
+
+  private final String[] names;
+  private final Type[] types;
+  private final String[][] labels;
+  private final int[] offsets;
+  private final int recordSize;
+
+  private BinaryLogSchema(List<String> names, List<Type> types, List<String[]> labels) {
+    this.names = names.toArray(new String[0]);
+    this.types = types.toArray(new Type[0]);
+    this.labels = labels.toArray(new String[0][]);
+
+    offsets = new int[this.types.length];
+    int offset = 0;
+    for (int i = 0; i < this.types.length; i++) {
+      offsets[i] = offset;
+      offset += this.types[i].getWidth();
+    }
+    recordSize = offset;
+  }
+
+  public static class Builder {
+    private final List<String> names = new ArrayList<>();
+    private final List<Type> types = new ArrayList<>();
+    private final List<String[]> labels = new ArrayList<>();
+
+    public Builder add(String name, Type type) {
+      return add(name, type, (String[]) null);
+    }
+
+    /** @param labels printed in place of the value by the exporter, indexed by the value */
+    public Builder add(String name, Type type, String... labels) {
+      names.add(name);
+      types.add(type);
+      this.labels.add(labels);
+      return this;
+    }
+
+    public BinaryLogSchema build() {
+      return new BinaryLogSchema(names, types, labels);
+    }
+  }
+
+  public int getColumnCount() {
+    return names.length;
+  }
+
+  public String getName(int column) {
+    return names[column];
+  }
+
+  public Type getType(int column) {
+    return types[column];
+  }
+
+  /** @return the labels for the column, or null if its values are plain numbers */
+  public String[] getLabels(int column) {
+    return labels[column];
+  }
+
+  /** @return byte offset of the column within a record */
+  public int getOffset(int column) {
+    return offsets[column];
+  }
+
+  public int getRecordSize() {
+    return recordSize;
+  }
+
+  /** @return the first column with the given name, or -1 */
+  public int indexOf(String name) {
+    for (int i = 0; i < names.length; i++) {
+      if (names[i].equals(name)) {
+        return i;
+      }
+    }
+    return -1;
+  }
+
+  /** @return bytes {@link #writeHeader(ByteBuffer, long)} will put, which is where records start */
+  public int getHeaderSize() {
+    int size = 4 + 2 + 2 + 8 + 4 + 4;
+    for (int i = 0; i < names.length; i++) {
+      size += 1 + encodedSize(names[i]) + 2;
+      if (labels[i] != null) {
+        for (String label : labels[i]) {
+          size += encodedSize(label);
+        }
+      }
+    }
+    return size;
+  }
+
+  /** Puts the file header at the buffer's position; the buffer must be little-endian. */
+  public void writeHeader(ByteBuffer out, long recordCount) {
+    out.putInt(MAGIC);
+    out.putShort(VERSION);
+    out.putShort((short) 0);
+    out.putLong(recordCount);
+    out.putInt(getHeaderSize());
+    out.putInt(names.length);
+    for (int i = 0; i < names.length; i++) {
+      out.put((byte) types[i].ordinal());
+      putString(out, names[i]);
+      if (labels[i] == null) {
+        out.putShort((short) 0);
+      } else {
+        out.putShort((short) labels[i].length);
+        for (String label : labels[i]) {
+          putString(out, label);
+        }
+      }
+    }
+  }
+
+  /**
+   * Reads a file header from the start of the buffer.
+   *
+   * @throws IllegalArgumentException if the buffer does not hold a binary log this code can read
+   */
+  public static BinaryLogSchema readHeader(ByteBuffer in) {
+    if (in.getInt(0) != MAGIC) {
+      throw new IllegalArgumentException("not a binary log");
+    }
+    if (in.getShort(4) != VERSION) {
+      throw new IllegalArgumentException("unsupported binary log version " + in.getShort(4));
+    }
+
+    ByteBuffer header = in.duplicate().order(in.order());
+    header.position(RECORD_COUNT_OFFSET + 8 + 4);
+    int columnCount = header.getInt();
+
+    Builder builder = new Builder();
+    for (int i = 0; i < columnCount; i++) {
+      Type type = TYPES[header.get()];
+      String name = getString(header);
+      int labelCount = header.getShort() & 0xffff;
+      String[] labels = null;
+      if (labelCount > 0) {
+        labels = new String[labelCount];
+        for (int j = 0; j < labelCount; j++) {
+          labels[j] = getString(header);
+        }
+      }
+      builder.add(name, type, labels);
+    }
+    return builder.build();
+  }
+
+  public static long readRecordCount(ByteBuffer in) {
+    return in.getLong(RECORD_COUNT_OFFSET);
+  }
+
+  public static int readHeaderSize(ByteBuffer in) {
+    return in.getInt(RECORD_COUNT_OFFSET + 8);
+  }
+
+  private static int encodedSize(String value) {
+    return 2 + value.getBytes(StandardCharsets.UTF_8).length;
+  }
+
+  private static void putString(ByteBuffer out, String value) {
+    byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+    out.putShort((short) bytes.length);
+    out.put(bytes);
+  }
+
+  private static String getString(ByteBuffer in) {
+    byte[] bytes = new byte[in.getShort() & 0xffff];
+    in.get(bytes);
+    return new String(bytes, StandardCharsets.UTF_8);
+  }
+}
@@ -0,0 +1,116 @@
+package net.teamrush27.frc2019.util.log;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileChannel.MapMode;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Appends fixed-width records to a binary log through a {@link MappedByteBuffer}, so logging a
+ * record is a handful of stores into the page cache: no formatting and no write syscall. The file is
+ * grown a chunk at a time and trimmed back to the last record on {@link #close()}.
+ *
+ * <p>The record count in the header is updated after every record, so a log that is never closed
+ * (brownout, crash) still reads back up to its last complete record.
+ *
+ * <p>Not thread safe; callers serialize access.
+ */
+public class BinaryLogWriter implements Closeable {
+
+  private static final int CHUNK_SIZE = 1 << 20;
+
+  private final FileChannel channel;
+  private final BinaryLogSchema schema;
+  private final int headerSize;
+  private final int recordSize;
+  private final long chunkSize;
+
+  private final MappedByteBuffer header;
+  private MappedByteBuffer chunk;
+  private long chunkStart;
+  private int recordStart;
+  private long recordCount = 0;
+
+  public BinaryLogWriter(String fileName, BinaryLogSchema schema) throws IOException {
+    this.schema = schema;
+    headerSize = schema.getHeaderSize();
+    recordSize = schema.getRecordSize();
+    // whole records per chunk, so a record never straddles two mappings
+    chunkSize = (long) recordSize * Math.max(1, CHUNK_SIZE / recordSize);
+
+    channel =
+        FileChannel.open(
+            Paths.get(fileName),
+            StandardOpenOption.CREATE,
+            StandardOpenOption.TRUNCATE_EXISTING,
+            StandardOpenOption.READ,
+            StandardOpenOption.WRITE);
+
+    header = channel.map(MapMode.READ_WRITE, 0, headerSize);
+    header.order(ByteOrder.LITTLE_ENDIAN);
+    schema.writeHeader(header, 0);
+
+    chunkStart = headerSize;
+    mapChunk();
+  }
+
+  public BinaryLogSchema getSchema() {
+    return schema;
+  }
+
+  public long getRecordCount() {
+    return recordCount;
+  }
+
+  /** @return bytes the file will hold once closed */
+  public long getSize() {
+    return headerSize + recordCount * recordSize;
+  }
+
+  /**
+   * Starts a record. The caller puts exactly {@link BinaryLogSchema#getRecordSize()} bytes, in
+   * column order, then calls {@link #endRecord()}.
+   */
+  public ByteBuffer beginRecord() throws IOException {
+    if (chunk.remaining() < recordSize) {
+      chunkStart += chunk.position();
+      mapChunk();
+    }
+    recordStart = chunk.position();
+    return chunk;
+  }
+
+  public void endRecord() {
+    int written = chunk.position() - recordStart;
+    if (written != recordSize) {
+      chunk.position(recordStart);
+      throw new IllegalStateException(
+          "record was " + written + " bytes, schema needs " + recordSize);
+    }
+    recordCount++;
+    header.putLong(BinaryLogSchema.RECORD_COUNT_OFFSET, recordCount);
+  }
+
+  /** Writes dirty pages through to the device. Slow on flash; not for the control loop. */
+  public void force() {
+    chunk.force();
+    header.force();
+  }
+
+  @Override
+  public void close() throws IOException {
+    force();
+    channel.truncate(headerSize + recordCount * recordSize);
+    channel.close();
+  }
+
+  private void mapChunk() throws IOException {
+    chunk = channel.map(MapMode.READ_WRITE, chunkStart, chunkSize);
+    chunk.order(ByteOrder.LITTLE_ENDIAN);
+  }
+}
@@ -0,0 +1,246 @@
+package net.teamrush27.frc2019.util.log;
+
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.io.OutputStream;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+import java.util.zip.Deflater;
+import java.util.zip.GZIPOutputStream;
+import net.teamrush27.frc2019.constants.RobotConstants;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+/**
+ * Owns where log files go. Every boot gets its own numbered session directory under {@link
+ * RobotConstants#LOG_ROOT} (or {@link RobotConstants#LOG_FALLBACK_ROOT} when the USB stick is not
+ * mounted), and every segment a {@link LogSegments} opens gets a fresh name inside it, so nothing
+ * from an earlier enable or match is overwritten.
+ *
+ * <p>Finished segments are gzipped by a single minimum-priority background thread, which then
+ * deletes the oldest sessions until the logs fit in {@link RobotConstants#LOG_DISK_CAP}, or the
+ * much smaller {@link RobotConstants#LOG_INTERNAL_DISK_CAP} in the fallback, since the roboRIO's
+ * flash also holds the robot program. The current session is never evicted.
+ */
+public class LogFileManager {
+
+  private static final Logger LOG = LogManager.getLogger(LogFileManager.class);
+
+  private static final Pattern SESSION_NAME = Pattern.compile("session-(\\d+)");
+  private static final String COMPRESSED = ".gz";
+  private static final String PARTIAL = ".part";
+
+  private static LogFileManager INSTANCE = null;
+
+  public static synchronized LogFileManager getInstance() {
+    if (INSTANCE == null) {
+      INSTANCE = new LogFileManager();
+    }
+    return INSTANCE;
+  }
+
+  private final ExecutorService compressor =
+      Executors.newSingleThreadExecutor(
+          r -> {
+            Thread thread = new Thread(r, "LogCompressor");
+            thread.setDaemon(true);
+            thread.setPriority(Thread.MIN_PRIORITY);
+            return thread;
+          });
+
+  private final Map<String, Integer> segmentCounts = new HashMap<>();
+  private File root = null;
+  private long cap = 0;
+  private File session = null;
+
+  // package-private so tests can start fresh sessions
+  LogFileManager() {}
+
+  /** @return this boot's session directory, created on first use */
+  public synchronized File getSessionDirectory() {
+    if (session == null) {
+      root = new File(RobotConstants.LOG_ROOT);
+      cap = RobotConstants.LOG_DISK_CAP;
+      if (!root.isDirectory()) {
+        cap = RobotConstants.LOG_INTERNAL_DISK_CAP;
+        LOG.warn(
+            "{} is not mounted, logging to {} capped at {} bytes",
+            root,
+            RobotConstants.LOG_FALLBACK_ROOT,
+            cap);
+        root = new File(RobotConstants.LOG_FALLBACK_ROOT);
+      }
+
+      int number = 0;
+      for (File old : sessions(root)) {
+        number = Math.max(number, sessionNumber(old) + 1);
+      }
+      session = new File(root, String.format("session-%04d", number));
+      if (!session.mkdirs()) {
+        LOG.error("could not create log session {}", session);
+      }
+      LOG.info("logging to {}", session);
+
+      // segments a crash or brownout left uncompressed
+      for (File old : sessions(root)) {
+        if (!old.equals(session)) {
+          File[] files = old.listFiles();
+          for (File file : files == null ? new File[0] : files) {
+            if (file.getName().endsWith(PARTIAL)) {
+              file.delete();
+            } else if (!file.getName().endsWith(COMPRESSED)) {
+              compress(file);
+            }
+          }
+        }
+      }
+      compressor.execute(this::enforceCap);
+    }
+    return session;
+  }
+
+  /** @return a path for the next segment of {@code name}, unique within this session */
+  public synchronized String nextPath(String name, String extension) {
+    File directory = getSessionDirectory();
+    int segment = segmentCounts.merge(name + extension, 1, Integer::sum) - 1;
+    return new File(directory, String.format("%s-%03d%s", name, segment, extension)).getPath();
+  }
+
+  /**
+   * Runs slow log file work, such as opening or closing a mapped file, on the background thread
+   * that compresses finished files, in the order it is queued.
+   */
+  public void execute(Runnable task) {
+    compressor.execute(task);
+  }
+
+  /** Queues a finished file to be gzipped (and then deleted) off the calling thread. */
+  public void compress(String path) {
+    compress(new File(path));
+  }
+
+  private void compress(File file) {
+    compressor.execute(
+        () -> {
+          compressNow(file);
+          enforceCap();
+        });
+  }
+
+  private static void compressNow(File file) {
+    if (!file.isFile()) {
+      return;
+    }
+
+    File partial = new File(file.getPath() + COMPRESSED + PARTIAL);
+    File compressed = new File(file.getPath() + COMPRESSED);
+    byte[] buffer = new byte[64 * 1024];
+    try (InputStream in = new FileInputStream(file);
+        OutputStream out = new FastGZIPOutputStream(new FileOutputStream(partial), buffer.length)) {
+      int read;
+      while ((read = in.read(buffer)) > 0) {
+        out.write(buffer, 0, read);
+      }
+    } catch (IOException e) {
+      LOG.error("could not compress " + file, e);
+      partial.delete();
+      return;
+    }
+
+    if (partial.renameTo(compressed)) {
+      LOG.info("compressed {} from {} to {} bytes", file, file.length(), compressed.length());
+      file.delete();
+    } else {
+      LOG.error("could not rename {}", partial);
+    }
+  }
+
+  /** Deletes the oldest sessions, never the current one, until the logs fit under the cap. */
+  private void enforceCap() {
+    File current;
+    File logRoot;
+    long logCap;
+    synchronized (this) {
+      current = session;
+      logRoot = root;
+      logCap = cap;
+    }
+    if (logRoot == null) {
+      return;
+    }
+
+    List<File> sessions = sessions(logRoot);
+    long total = 0;
+    long[] sizes = new long[sessions.size()];
+    for (int i = 0; i < sessions.size(); i++) {
+      sizes[i] = sizeOf(sessions.get(i));
+      total += sizes[i];
+    }
+
+    for (int i = 0; i < sessions.size() && total > logCap; i++) {
+      File oldest = sessions.get(i);
+      if (oldest.equals(current)) {
+        continue;
+      }
+      LOG.info("evicting log session {} ({} bytes)", oldest, sizes[i]);
+      delete(oldest);
+      total -= sizes[i];
+    }
+
+    if (total > logCap) {
+      LOG.warn("current log session alone is over the {} byte cap", logCap);
+    }
+  }
+
+  /** @return session directories under the root, oldest first */
+  private static List<File> sessions(File root) {
+    List<File> sessions = new ArrayList<>();
+    File[] files = root.listFiles();
+    if (files != null) {
+      for (File file : files) {
+        if (file.isDirectory() && sessionNumber(file) >= 0) {
+          sessions.add(file);
+        }
+      }
+    }
+    sessions.sort(Comparator.comparingInt(LogFileManager::sessionNumber));
+    return sessions;
+  }
+
+  private static int sessionNumber(File directory) {
+    Matcher matcher = SESSION_NAME.matcher(directory.getName());
+    return matcher.matches() ? Integer.parseInt(matcher.group(1)) : -1;
+  }
+
+  private static long sizeOf(File directory) {
+    File[] files = directory.listFiles();
+    return files == null ? 0 : Arrays.stream(files).mapToLong(File::length).sum();
+  }
+
+  private static void delete(File directory) {
+    File[] files = directory.listFiles();
+    for (File file : files == null ? new File[0] : files) {
+      file.delete();
+    }
+    directory.delete();
+  }
+
+  /** Trades ratio for CPU, since this shares the roboRIO with the control loop. */
+  private static class FastGZIPOutputStream extends GZIPOutputStream {
+    FastGZIPOutputStream(OutputStream out, int size) throws IOException {
+      super(out, size);
+      def.setLevel(Deflater.BEST_SPEED);
+    }
+  }
+}
@@ -0,0 +1,421 @@
+package net.teamrush27.frc2019.util.log;
+
+import java.io.IOException;
+import java.io.PrintWriter;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import net.teamrush27.frc2019.base.RobotState;
+import net.teamrush27.frc2019.constants.CompBot;
+import net.teamrush27.frc2019.constants.PracticeBot;
+import net.teamrush27.frc2019.constants.RobotConfiguration;
+import net.teamrush27.frc2019.subsystems.impl.util.DriveUtils;
+import net.teamrush27.frc2019.util.math.MathUtils;
+import net.teamrush27.frc2019.util.math.Pose2d;
+import net.teamrush27.frc2019.util.math.Pose2dWithCurvature;
+import net.teamrush27.frc2019.util.math.Rotation2d;
+import net.teamrush27.frc2019.util.math.Translation2d;
+import net.teamrush27.frc2019.util.math.Twist2d;
+import net.teamrush27.frc2019.util.motion.DriveMotionPlanner;
+import net.teamrush27.frc2019.util.motion.DriveMotionPlanner.FollowerType;
+import net.teamrush27.frc2019.util.trajectory.Trajectory;
+import net.teamrush27.frc2019.util.trajectory.TrajectoryIterator;
+import net.teamrush27.frc2019.util.trajectory.TrajectorySamplePoint;
+import net.teamrush27.frc2019.util.trajectory.timing.TimedState;
+import net.teamrush27.frc2019.util.trajectory.timing.TimedView;
+
+/**
+ * Feeds a recorded binary log back through the pose estimator or the path follower as fast as the
+ * machine allows, and writes what they compute now next to what the robot logged:
+ *
+ * <ul>
+ *   <li>a {@code STATE-LOGS} log drives a detached {@link RobotState} with each frame's encoder
+ *       deltas, gyro angle and predicted velocity. The odometry twist is diffed, and the integrated
+ *       pose (relative to where the log starts) is written alongside.
+ *   <li>a {@code DRIVE-LOGS} log is split into the paths the robot followed, i.e. the runs of
+ *       frames whose setpoint time keeps advancing. Each path's trajectory is rebuilt from its
+ *       logged setpoints, and a fresh {@link DriveMotionPlanner} is stepped along it from the
+ *       logged poses. Demands, feedforwards, accelerations and error are diffed.
+ * </ul>
+ *
+ * <p>Unchanged code reproduces the log to rounding, so the summary (max and RMS difference per
+ * output) shows exactly what an estimator or follower change would have done on the field:
+ *
+ * <pre>java -cp build/libs/... net.teamrush27.frc2019.util.log.LogReplay DRIVE-LOGS-000.bin.gz
+ * [out.csv] [--practice] [--follower=PURE_PURSUIT]</pre>
+ */
+public class LogReplay {
+
+  private static final String[] TWIST = {"_x", "_y", "_theta"};
+  private static final String[] POSE = {"_x", "_y", "_deg"};
+  private static final String[] SETPOINT = {
+    "_x", "_y", "_deg", "_curv", "_dcurv", "_t", "_v", "_a"
+  };
+
+  private final RobotConfiguration configuration;
+  private final FollowerType followerType;
+
+  public static void main(String... args) throws IOException {
+    String input = null;
+    String output = null;
+    RobotConfiguration configuration = new CompBot();
+    FollowerType followerType = null;
+    for (String arg : args) {
+      if (arg.equals("--practice")) {
+        configuration = new PracticeBot();
+      } else if (arg.startsWith("--follower=")) {
+        followerType = FollowerType.valueOf(arg.substring("--follower=".length()));
+      } else if (input == null) {
+        input = arg;
+      } else {
+        output = arg;
+      }
+    }
+
+    if (input == null) {
+      System.err.println(
+          "usage: LogReplay <STATE-LOGS.bin|DRIVE-LOGS.bin> [out.csv] [--practice]"
+              + " [--follower=" + Arrays.toString(FollowerType.values()) + "]");
+      System.exit(1);
+    }
+    if (output == null) {
+      output = input.replaceFirst("(\\.bin)?(\\.gz)?$", "-replay.csv");
+    }
+
+    long start = System.nanoTime();
+    List<Diff> diffs = new LogReplay(configuration, followerType).replay(input, output);
+    System.out.println(
+        String.format(
+            "replayed %s to %s in %.2fs", input, output, (System.nanoTime() - start) / 1e9));
+    for (Diff diff : diffs) {
+      System.out.println(diff);
+    }
+  }
+
+  /**
+   * @param configuration the robot whose drive characterization the planner uses
+   * @param followerType follower to replay with, or null for the planner's default
+   */
+  public LogReplay(RobotConfiguration configuration, FollowerType followerType) {
+    this.configuration = configuration;
+    this.followerType = followerType;
+  }
+
+  /**
+   * Replays a state or drive log (gzipped or not) and writes the logged and replayed outputs side
+   * by side to a CSV.
+   *
+   * @return the difference in each output over the whole log
+   */
+  public List<Diff> replay(String input, String output) throws IOException {
+    try (BinaryLogReader log = BinaryLogReader.open(input);
+        PrintWriter out = new PrintWriter(output)) {
+      BinaryLogSchema schema = log.getSchema();
+      if (schema.indexOf("delta_left") >= 0) {
+        return replayState(log, out);
+      } else if (schema.indexOf("path_setpoint_t") >= 0) {
+        return replayDrive(log, out);
+      }
+      throw new IllegalArgumentException(input + " is neither a state log nor a drive log");
+    }
+  }
+
+  private List<Diff> replayState(BinaryLogReader log, PrintWriter out) {
+    BinaryLogSchema schema = log.getSchema();
+    int timestamp = column(schema, "timestamp");
+    int deltaLeft = column(schema, "delta_left");
+    int deltaRight = column(schema, "delta_right");
+    int gyroAngle = column(schema, "gyro_angle_deg");
+    int[] odometry = columns(schema, "odometry_velocity", TWIST);
+    int[] predicted = columns(schema, "predicted_velocity", TWIST);
+
+    Diff[] diffs = {
+      new Diff("odometry_velocity_x", false),
+      new Diff("odometry_velocity_y", false),
+      // logged twists carry their rotation in degrees, like their CSV
+      new Diff("odometry_velocity_theta", true)
+    };
+    StringBuilder line = header(diffs, "timestamp");
+    line.append(", field_to_vehicle_x, field_to_vehicle_y, field_to_vehicle_deg");
+    out.println(line);
+
+    RobotState state = RobotState.createDetached();
+    double[] logged = new double[diffs.length];
+    double[] replayed = new double[diffs.length];
+    for (long record = 0; record < log.getRecordCount(); record++) {
+      double now = log.getDouble(record, timestamp);
+      Rotation2d gyro = Rotation2d.fromDegrees(log.getDouble(record, gyroAngle));
+      for (int i = 0; i < odometry.length; i++) {
+        logged[i] = log.getDouble(record, odometry[i]);
+      }
+
+      if (record == 0) {
+        // start from the heading the robot's estimator held just before this frame
+        Rotation2d heading = gyro.rotateBy(Rotation2d.fromDegrees(-logged[2]));
+        state.reset(now, new Pose2d(Translation2d.identity(), heading));
+      }
+
+      Twist2d measured =
+          state.generateOdometryFromSensors(
+              log.getDouble(record, deltaLeft), log.getDouble(record, deltaRight), gyro);
+      state.addObservations(
+          now,
+          measured,
+          new Twist2d(
+              log.getDouble(record, predicted[0]),
+              log.getDouble(record, predicted[1]),
+              Math.toRadians(log.getDouble(record, predicted[2]))));
+
+      replayed[0] = measured.deltaX;
+      replayed[1] = measured.deltaY;
+      replayed[2] = Math.toDegrees(measured.deltaTheta);
+
+      Pose2d pose = state.getLatestFieldToVehicle().getValue();
+      line.setLength(0);
+      line.append(now);
+      appendDiffs(line, diffs, now, logged, replayed);
+      line.append(", ")
+          .append(pose.getTranslation().x())
+          .append(", ")
+          .append(pose.getTranslation().y())
+          .append(", ")
+          .append(pose.getRotation().getDegrees());
+      out.println(line);
+    }
+    return Arrays.asList(diffs);
+  }
+
+  private List<Diff> replayDrive(BinaryLogReader log, PrintWriter out) {
+    BinaryLogSchema schema = log.getSchema();
+    int timestamp = column(schema, "timestamp");
+    int[] setpoint = columns(schema, "path_setpoint", SETPOINT);
+    int[] pose = columns(schema, "field_to_vehicle", POSE);
+    int[] outputs = {
+      column(schema, "left_demand"),
+      column(schema, "right_demand"),
+      column(schema, "left_feedforward"),
+      column(schema, "right_feedforward"),
+      column(schema, "left_accel"),
+      column(schema, "right_accel"),
+      column(schema, "error_x"),
+      column(schema, "error_y"),
+      column(schema, "error_deg")
+    };
+
+    Diff[] diffs = new Diff[outputs.length];
+    for (int i = 0; i < outputs.length; i++) {
+      String name = schema.getName(outputs[i]);
+      diffs[i] = new Diff(name, name.endsWith("_deg"));
+    }
+    out.println(header(diffs, "timestamp, path"));
+
+    int setpointTime = setpoint[5];
+    long records = log.getRecordCount();
+    int path = 0;
+    long start = 0;
+    while (start < records) {
+      long end = start;
+      while (end + 1 < records
+          && log.getDouble(end + 1, setpointTime) > log.getDouble(end, setpointTime)) {
+        end++;
+      }
+      if (end > start) {
+        replayPath(log, start, end, path++, timestamp, setpoint, pose, outputs, diffs, out);
+      }
+      start = end + 1;
+    }
+    return Arrays.asList(diffs);
+  }
+
+  /**
+   * Replays the frames {@code [start, end)} of one path. The rebuilt trajectory ends at the
+   * setpoint of {@code end}, where the replayed planner is done while the robot's may not have
+   * been, so that frame is not compared.
+   */
+  private void replayPath(
+      BinaryLogReader log,
+      long start,
+      long end,
+      int path,
+      int timestamp,
+      int[] setpoint,
+      int[] pose,
+      int[] outputs,
+      Diff[] diffs,
+      PrintWriter out) {
+    List<TimedState<Pose2dWithCurvature>> states = new ArrayList<>();
+    for (long record = start; record <= end; record++) {
+      states.add(
+          new TimedState<>(
+              new Pose2dWithCurvature(
+                  new Pose2d(
+                      log.getDouble(record, setpoint[0]),
+                      log.getDouble(record, setpoint[1]),
+                      Rotation2d.fromDegrees(log.getDouble(record, setpoint[2]))),
+                  log.getDouble(record, setpoint[3]),
+                  log.getDouble(record, setpoint[4])),
+              log.getDouble(record, setpoint[5]),
+              log.getDouble(record, setpoint[6]),
+              log.getDouble(record, setpoint[7])));
+    }
+
+    DriveMotionPlanner planner = new DriveMotionPlanner(configuration);
+    if (followerType != null) {
+      planner.setFollowerType(followerType);
+    }
+    planner.reset();
+    planner.setTrajectory(new TrajectoryIterator<>(new LoggedPathView(new Trajectory<>(states))));
+
+    // the planner only uses time for its step size, so stepping it by the logged setpoint times
+    // lands each step on the robot's setpoint
+
+    StringBuilder line = new StringBuilder();
+    double[] logged = new double[outputs.length];
+    double[] replayed = new double[outputs.length];
+    for (long record = start; record < end; record++) {
+      DriveMotionPlanner.Output output =
+          planner.update(
+              states.get((int) (record - start)).t(),
+              new Pose2d(
+                  log.getDouble(record, pose[0]),
+                  log.getDouble(record, pose[1]),
+                  Rotation2d.fromDegrees(log.getDouble(record, pose[2]))));
+      Pose2d error = planner.error();
+
+      for (int i = 0; i < outputs.length; i++) {
+        logged[i] = log.getDouble(record, outputs[i]);
+      }
+      replayed[0] = DriveUtils.radiansPerSecondToEncoderCountPer100ms(output.left_velocity);
+      replayed[1] = DriveUtils.radiansPerSecondToEncoderCountPer100ms(output.right_velocity);
+      replayed[2] = output.left_feedforward_voltage / 12.0;
+      replayed[3] = output.right_feedforward_voltage / 12.0;
+      replayed[4] = DriveUtils.radiansPerSecondToEncoderCountPer100ms(output.left_accel) / 1000.0;
+      replayed[5] = DriveUtils.radiansPerSecondToEncoderCountPer100ms(output.right_accel) / 1000.0;
+      replayed[6] = error.getTranslation().x();
+      replayed[7] = error.getTranslation().y();
+      replayed[8] = error.getRotation().getDegrees();
+
+      double loggedTime = log.getDouble(record, timestamp);
+      line.setLength(0);
+      line.append(loggedTime).append(", ").append(path);
+      appendDiffs(line, diffs, loggedTime, logged, replayed);
+      out.println(line);
+    }
+  }
+
+  private static StringBuilder header(Diff[] diffs, String leading) {
+    StringBuilder line = new StringBuilder(leading);
+    for (Diff diff : diffs) {
+      line.append(", logged_").append(diff.name).append(", replayed_").append(diff.name);
+    }
+    return line;
+  }
+
+  private static void appendDiffs(
+      StringBuilder line, Diff[] diffs, double timestamp, double[] logged, double[] replayed) {
+    for (int i = 0; i < diffs.length; i++) {
+      diffs[i].add(timestamp, logged[i], replayed[i]);
+      line.append(", ").append(logged[i]).append(", ").append(replayed[i]);
+    }
+  }
+
+  private static int column(BinaryLogSchema schema, String name) {
+    int column = schema.indexOf(name);
+    if (column < 0) {
+      throw new IllegalArgumentException("log has no " + name + " column");
+    }
+    return column;
+  }
+
+  private static int[] columns(BinaryLogSchema schema, String base, String[] suffixes) {
+    int[] columns = new int[suffixes.length];
+    for (int i = 0; i < suffixes.length; i++) {
+      columns[i] = column(schema, base + suffixes[i]);
+    }
+    return columns;
+  }
+
+  /**
+   * A path rebuilt from logged setpoints. Sampling at a logged setpoint's time returns that
+   * setpoint as is; interpolating up to it would carry the previous setpoint's acceleration.
+   */
+  private static class LoggedPathView extends TimedView<Pose2dWithCurvature> {
+    private static final double EPSILON = 1e-9;
+
+    LoggedPathView(Trajectory<TimedState<Pose2dWithCurvature>> trajectory) {
+      super(trajectory);
+    }
+
+    @Override
+    public TrajectorySamplePoint<TimedState<Pose2dWithCurvature>> sample(double t) {
+      int low = 0;
+      int high = trajectory_.length() - 1;
+      while (low < high) {
+        int middle = (low + high) >>> 1;
+        if (trajectory_.getState(middle).t() < t) {
+          low = middle + 1;
+        } else {
+          high = middle;
+        }
+      }
+      for (int i = Math.max(low - 1, 0); i <= low; i++) {
+        if (MathUtils.epsilonEquals(trajectory_.getState(i).t(), t, EPSILON)) {
+          return new TrajectorySamplePoint<>(trajectory_.getPoint(i));
+        }
+      }
+      return super.sample(t);
+    }
+  }
+
+  /** How far one replayed output strayed from the logged one. */
+  public static class Diff {
+    private final String name;
+    private final boolean degrees;
+    private long count = 0;
+    private double max = 0;
+    private double maxTimestamp = Double.NaN;
+    private double sumOfSquares = 0;
+
+    Diff(String name, boolean degrees) {
+      this.name = name;
+      this.degrees = degrees;
+    }
+
+    void add(double timestamp, double logged, double replayed) {
+      double difference = replayed - logged;
+      if (degrees) {
+        difference = Math.IEEEremainder(difference, 360.0);
+      }
+      difference = Math.abs(difference);
+      if (difference > max) {
+        max = difference;
+        maxTimestamp = timestamp;
+      }
+      sumOfSquares += difference * difference;
+      count++;
+    }
+
+    public String getName() {
+      return name;
+    }
+
+    public long getCount() {
+      return count;
+    }
+
+    public double getMax() {
+      return max;
+    }
+
+    public double getRms() {
+      return count == 0 ? 0 : Math.sqrt(sumOfSquares / count);
+    }
+
+    @Override
+    public String toString() {
+      return String.format(
+          "%-26s max %.6f (at %.3f) rms %.6f over %d frames",
+          name, max, maxTimestamp, getRms(), count);
+    }
+  }
+}
@@ -0,0 +1,90 @@
+package net.teamrush27.frc2019.util.log;
+
+import net.teamrush27.frc2019.constants.RobotConstants;
+
+/**
+ * The run of files one log writer produces in the current session. The writer asks {@link
+ * #isDue(long)} as it goes and calls {@link #next()} to roll over once a segment reaches {@link
+ * RobotConstants#LOG_SEGMENT_BYTES} or has been open {@link RobotConstants#LOG_SEGMENT_PERIOD}
+ * seconds, or, to open the next segment ahead of time, {@link #reserve()} and {@link
+ * #advance(String)}. Each finished segment is handed to the {@link LogFileManager} for compression.
+ */
+public class LogSegments {
+
+  private final LogFileManager manager;
+  private final String name;
+  private final String extension;
+
+  private String current = null;
+  private long openedAt = 0;
+
+  /**
+   * @param name file name stem, e.g. {@code DRIVE-LOGS}
+   * @param extension including the dot, e.g. {@code .bin}
+   */
+  public LogSegments(String name, String extension) {
+    this(LogFileManager.getInstance(), name, extension);
+  }
+
+  public LogSegments(LogFileManager manager, String name, String extension) {
+    this.manager = manager;
+    this.name = name;
+    this.extension = extension;
+  }
+
+  public LogFileManager getManager() {
+    return manager;
+  }
+
+  public String getExtension() {
+    return extension;
+  }
+
+  /**
+   * @return the path of a segment to open ahead of time; it becomes the current segment once
+   *     passed to {@link #advance(String)}
+   */
+  public String reserve() {
+    return manager.nextPath(name, extension);
+  }
+
+  /**
+   * Makes a path from {@link #reserve()} the current segment. The caller closes the segment it
+   * replaces, then passes that to {@link #finish(String)}.
+   */
+  public synchronized void advance(String path) {
+    current = path;
+    openedAt = System.nanoTime();
+  }
+
+  /**
+   * Finishes the current segment, if any, and returns the path to write the next one to. Call after
+   * the writer has closed the current segment.
+   */
+  public synchronized String next() {
+    finish();
+    current = manager.nextPath(name, extension);
+    openedAt = System.nanoTime();
+    return current;
+  }
+
+  /** @return true once the current segment should be closed and the next one started */
+  public synchronized boolean isDue(long bytesWritten) {
+    return current != null
+        && (bytesWritten >= RobotConstants.LOG_SEGMENT_BYTES
+            || System.nanoTime() - openedAt >= (long) (RobotConstants.LOG_SEGMENT_PERIOD * 1e9));
+  }
+
+  /** Queues a segment replaced by {@link #advance(String)} for compression, once closed. */
+  public void finish(String path) {
+    manager.compress(path);
+  }
+
+  /** Queues the current segment for compression. Call after the writer has closed it. */
+  public synchronized void finish() {
+    if (current != null) {
+      manager.compress(current);
+      current = null;
+    }
+  }
+}
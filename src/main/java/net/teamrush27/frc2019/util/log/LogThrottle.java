@@ -0,0 +1,40 @@
+package net.teamrush27.frc2019.util.log;
+
+/**
+ * Lets a repeating message through at most once per period and counts the repeats it held back, so
+ * a fault that persists for seconds is a few log lines rather than one per tick. Not thread safe.
+ */
+public class LogThrottle {
+
+  private final double period;
+  private double lastLogged = Double.NEGATIVE_INFINITY;
+  private int suppressed = 0;
+  private int lastSuppressed = 0;
+
+  /** @param period seconds between messages */
+  public LogThrottle(double period) {
+    this.period = period;
+  }
+
+  /** @return true if the message should be logged at {@code now} */
+  public boolean shouldLog(double now) {
+    if (now - lastLogged < period) {
+      suppressed++;
+      return false;
+    }
+    lastLogged = now;
+    lastSuppressed = suppressed;
+    suppressed = 0;
+    return true;
+  }
+
+  /** @return repeats held back before the message last let through */
+  public int getSuppressed() {
+    return lastSuppressed;
+  }
+
+  /** Lets the next message straight through, e.g. when the fault it reports has changed. */
+  public void reset() {
+    lastLogged = Double.NEGATIVE_INFINITY;
+  }
+}
@@ -1,5 +1,7 @@
 package net.teamrush27.frc2019.util.math;
 
+import java.nio.ByteBuffer;
+
 /**
  * Represents a 2d pose (rigid transform) containing translational and rotational elements.
  *
@@ -184,7 +186,22 @@ public class Pose2d implements IPose2d<Pose2d> {
 
   @Override
   public String toCSV() {
-    return translation_.toCSV() + "," + rotation_.toCSV();
+    StringBuilder out = new StringBuilder();
+    appendCSV(out);
+    return out.toString();
+  }
+
+  @Override
+  public void appendCSV(StringBuilder out) {
+    translation_.appendCSV(out);
+    out.append(',');
+    rotation_.appendCSV(out);
+  }
+
+  @Override
+  public void putDoubles(ByteBuffer out) {
+    translation_.putDoubles(out);
+    rotation_.putDoubles(out);
   }
 
   @Override
@@ -1,6 +1,8 @@
 package net.teamrush27.frc2019.util.math;
 
+import java.nio.ByteBuffer;
 import java.text.DecimalFormat;
+import net.teamrush27.frc2019.util.CSVNumberFormat;
 
 public class Pose2dWithCurvature
     implements IPose2d<Pose2dWithCurvature>, ICurvature<Pose2dWithCurvature> {
@@ -120,12 +122,25 @@ public class Pose2dWithCurvature
 
   @Override
   public String toCSV() {
-    final DecimalFormat fmt = new DecimalFormat("#0.000");
-    return getPose().toCSV()
-        + ","
-        + fmt.format(getCurvature())
-        + ","
-        + fmt.format(getDCurvatureDs());
+    StringBuilder out = new StringBuilder();
+    appendCSV(out);
+    return out.toString();
+  }
+
+  @Override
+  public void appendCSV(StringBuilder out) {
+    getPose().appendCSV(out);
+    out.append(',');
+    CSVNumberFormat.appendFixed3(out, getCurvature());
+    out.append(',');
+    CSVNumberFormat.appendFixed3(out, getDCurvatureDs());
+  }
+
+  @Override
+  public void putDoubles(ByteBuffer out) {
+    getPose().putDoubles(out);
+    out.putDouble(getCurvature());
+    out.putDouble(getDCurvatureDs());
   }
 
   @Override
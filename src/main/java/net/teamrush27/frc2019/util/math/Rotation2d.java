@@ -1,6 +1,8 @@
 package net.teamrush27.frc2019.util.math;
 
+import java.nio.ByteBuffer;
 import java.text.DecimalFormat;
+import net.teamrush27.frc2019.util.CSVNumberFormat;
 
 /**
  * A rotation in a 2d coordinate frame represented a point on the unit circle (cosine and sine).
@@ -137,8 +139,19 @@ public class Rotation2d implements IRotation2d<Rotation2d> {
 
   @Override
   public String toCSV() {
-    final DecimalFormat fmt = new DecimalFormat("#0.000");
-    return fmt.format(getDegrees());
+    StringBuilder out = new StringBuilder();
+    appendCSV(out);
+    return out.toString();
+  }
+
+  @Override
+  public void appendCSV(StringBuilder out) {
+    CSVNumberFormat.appendFixed3(out, getDegrees());
+  }
+
+  @Override
+  public void putDoubles(ByteBuffer out) {
+    out.putDouble(getDegrees());
   }
 
   @Override
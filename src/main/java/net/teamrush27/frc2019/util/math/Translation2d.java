@@ -1,6 +1,8 @@
 package net.teamrush27.frc2019.util.math;
 
+import java.nio.ByteBuffer;
 import java.text.DecimalFormat;
+import net.teamrush27.frc2019.util.CSVNumberFormat;
 
 /** A translation in a 2d coordinate frame. Translations are simply shifts in an (x, y) plane. */
 public class Translation2d implements ITranslation2d<Translation2d> {
@@ -129,8 +131,22 @@ public class Translation2d implements ITranslation2d<Translation2d> {
 
   @Override
   public String toCSV() {
-    final DecimalFormat fmt = new DecimalFormat("#0.000");
-    return fmt.format(x_) + "," + fmt.format(y_);
+    StringBuilder out = new StringBuilder();
+    appendCSV(out);
+    return out.toString();
+  }
+
+  @Override
+  public void appendCSV(StringBuilder out) {
+    CSVNumberFormat.appendFixed3(out, x_);
+    out.append(',');
+    CSVNumberFormat.appendFixed3(out, y_);
+  }
+
+  @Override
+  public void putDoubles(ByteBuffer out) {
+    out.putDouble(x_);
+    out.putDouble(y_);
   }
 
   @Override
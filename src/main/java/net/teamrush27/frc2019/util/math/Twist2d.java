@@ -1,6 +1,8 @@
 package net.teamrush27.frc2019.util.math;
 
+import java.nio.ByteBuffer;
 import java.text.DecimalFormat;
+import net.teamrush27.frc2019.util.CSVNumberFormat;
 import net.teamrush27.frc2019.util.CSVWritable;
 
 /**
@@ -57,12 +59,25 @@ public class Twist2d implements CSVWritable {
 
   @Override
   public String toCSV() {
-    final DecimalFormat fmt = new DecimalFormat("#0.000");
-    return fmt.format(deltaX)
-        + ", "
-        + fmt.format(deltaY)
-        + ", "
-        + fmt.format(Math.toDegrees(deltaTheta));
+    StringBuilder out = new StringBuilder();
+    appendCSV(out);
+    return out.toString();
+  }
+
+  @Override
+  public void appendCSV(StringBuilder out) {
+    CSVNumberFormat.appendFixed3(out, deltaX);
+    out.append(", ");
+    CSVNumberFormat.appendFixed3(out, deltaY);
+    out.append(", ");
+    CSVNumberFormat.appendFixed3(out, Math.toDegrees(deltaTheta));
+  }
+
+  @Override
+  public void putDoubles(ByteBuffer out) {
+    out.putDouble(deltaX);
+    out.putDouble(deltaY);
+    out.putDouble(Math.toDegrees(deltaTheta));
   }
 
   @Override
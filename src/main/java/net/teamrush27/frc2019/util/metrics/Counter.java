@@ -0,0 +1,29 @@
+package net.teamrush27.frc2019.util.metrics;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/** A running count, made by {@link MetricsRegistry#counter(String)}. Safe from any thread. */
+public class Counter implements CounterMBean {
+
+  private final AtomicLong count = new AtomicLong();
+
+  Counter() {}
+
+  public void increment() {
+    count.incrementAndGet();
+  }
+
+  public void add(long amount) {
+    count.addAndGet(amount);
+  }
+
+  @Override
+  public long getCount() {
+    return count.get();
+  }
+
+  @Override
+  public void reset() {
+    count.set(0);
+  }
+}
@@ -0,0 +1,9 @@
+package net.teamrush27.frc2019.util.metrics;
+
+/** What JMX shows of a {@link Counter}. */
+public interface CounterMBean {
+
+  long getCount();
+
+  void reset();
+}
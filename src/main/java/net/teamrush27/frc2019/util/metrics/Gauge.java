@@ -0,0 +1,26 @@
+package net.teamrush27.frc2019.util.metrics;
+
+import java.util.function.DoubleSupplier;
+
+/**
+ * A value read only when JMX asks for it, made by {@link MetricsRegistry#gauge(String,
+ * DoubleSupplier)}. The supplier runs on the JMX thread, so it should only read volatile or atomic
+ * state.
+ */
+public class Gauge implements GaugeMBean {
+
+  private volatile DoubleSupplier supplier;
+
+  Gauge(DoubleSupplier supplier) {
+    this.supplier = supplier;
+  }
+
+  void setSupplier(DoubleSupplier supplier) {
+    this.supplier = supplier;
+  }
+
+  @Override
+  public double getValue() {
+    return supplier.getAsDouble();
+  }
+}
@@ -0,0 +1,7 @@
+package net.teamrush27.frc2019.util.metrics;
+
+/** What JMX shows of a {@link Gauge}. */
+public interface GaugeMBean {
+
+  double getValue();
+}
@@ -0,0 +1,113 @@
+package net.teamrush27.frc2019.util.metrics;
+
+import java.lang.management.ManagementFactory;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.function.DoubleSupplier;
+import javax.management.JMException;
+import javax.management.MBeanServer;
+import javax.management.ObjectName;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+/**
+ * Counters, gauges and timers exported as MBeans, so they can be watched from JConsole or
+ * VisualVM through the JMX port the robot JVM is started with. Metrics are made once, usually into
+ * a field, and recorded into without any lookup; asking for an existing name returns the same
+ * metric.
+ *
+ * <p>Each metric shows up as {@code net.teamrush27.frc2019:type=<Counter|Gauge|Timer>,name=<name>}.
+ */
+public class MetricsRegistry {
+
+  private static final Logger LOG = LogManager.getLogger(MetricsRegistry.class);
+
+  private static final String DOMAIN = "net.teamrush27.frc2019";
+
+  private static MetricsRegistry INSTANCE = null;
+
+  public static synchronized MetricsRegistry getInstance() {
+    if (INSTANCE == null) {
+      INSTANCE = new MetricsRegistry(ManagementFactory.getPlatformMBeanServer());
+    }
+    return INSTANCE;
+  }
+
+  private final MBeanServer server;
+  private final Map<String, Object> metrics = new HashMap<>();
+
+  /** @param server where metrics are exported, or null to keep them in process only */
+  public MetricsRegistry(MBeanServer server) {
+    this.server = server;
+  }
+
+  public synchronized Counter counter(String name) {
+    Counter counter = get(name, Counter.class);
+    if (counter == null) {
+      counter = new Counter();
+      add(name, counter);
+    }
+    return counter;
+  }
+
+  public synchronized Timer timer(String name) {
+    Timer timer = get(name, Timer.class);
+    if (timer == null) {
+      timer = new Timer();
+      add(name, timer);
+    }
+    return timer;
+  }
+
+  /**
+   * Asking again for an existing gauge points it at the new supplier, so something that is rebuilt
+   * (such as a log writer) keeps reporting under the same name.
+   */
+  public synchronized Gauge gauge(String name, DoubleSupplier supplier) {
+    Gauge gauge = get(name, Gauge.class);
+    if (gauge == null) {
+      gauge = new Gauge(supplier);
+      add(name, gauge);
+    } else {
+      gauge.setSupplier(supplier);
+    }
+    return gauge;
+  }
+
+  private <M> M get(String name, Class<M> type) {
+    Object metric = metrics.get(name);
+    if (metric != null && !type.isInstance(metric)) {
+      throw new IllegalArgumentException(
+          name + " is already a " + metric.getClass().getSimpleName());
+    }
+    return type.cast(metric);
+  }
+
+  private void add(String name, Object metric) {
+    metrics.put(name, metric);
+    if (server == null) {
+      return;
+    }
+
+    try {
+      ObjectName objectName =
+          new ObjectName(
+              DOMAIN + ":type=" + metric.getClass().getSimpleName() + ",name=" + quote(name));
+      if (server.isRegistered(objectName)) {
+        server.unregisterMBean(objectName);
+      }
+      server.registerMBean(metric, objectName);
+    } catch (JMException e) {
+      LOG.warn("could not export metric " + name, e);
+    }
+  }
+
+  private static String quote(String name) {
+    for (char c : name.toCharArray()) {
+      if (c == ',' || c == '=' || c == ':' || c == '"' || c == '*' || c == '?') {
+        return ObjectName.quote(name);
+      }
+    }
+    return name;
+  }
+}
@@ -0,0 +1,173 @@
+package net.teamrush27.frc2019.util.metrics;
+
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+
+/**
+ * Durations in a fixed set of buckets, four per power of two nanoseconds, so percentiles are within
+ * 25% and memory never grows. Made by {@link MetricsRegistry#timer(String)}.
+ *
+ * <p>Recording is a handful of atomic increments and never locks or allocates, so it is safe from
+ * any thread, including the control loop. A reset racing with recording may lose those samples.
+ */
+public class Timer implements TimerMBean {
+
+  private static final double NANOS_PER_MILLI = 1e6;
+  // 4 * 2^36ns ~= 275s
+  private static final int BUCKET_COUNT = 37 * 4;
+
+  private final AtomicLongArray buckets = new AtomicLongArray(BUCKET_COUNT);
+  private final AtomicLong count = new AtomicLong();
+  private final AtomicLong totalNanos = new AtomicLong();
+  private final AtomicLong maxNanos = new AtomicLong();
+
+  Timer() {}
+
+  public void record(double seconds) {
+    recordNanos((long) (seconds * 1e9));
+  }
+
+  /** Records the time since {@code startNanos}, a {@link System#nanoTime()} reading. */
+  public void recordSince(long startNanos) {
+    recordNanos(System.nanoTime() - startNanos);
+  }
+
+  public void recordNanos(long nanos) {
+    if (nanos < 0) {
+      nanos = 0;
+    }
+    buckets.incrementAndGet(bucketFor(nanos));
+    count.incrementAndGet();
+    totalNanos.addAndGet(nanos);
+
+    long max = maxNanos.get();
+    while (nanos > max && !maxNanos.compareAndSet(max, nanos)) {
+      max = maxNanos.get();
+    }
+  }
+
+  @Override
+  public long getCount() {
+    return count.get();
+  }
+
+  @Override
+  public double getMeanMillis() {
+    long samples = count.get();
+    return samples == 0 ? 0 : totalNanos.get() / NANOS_PER_MILLI / samples;
+  }
+
+  @Override
+  public double getMaxMillis() {
+    return maxNanos.get() / NANOS_PER_MILLI;
+  }
+
+  @Override
+  public double getP50Millis() {
+    return getPercentileMillis(0.5);
+  }
+
+  @Override
+  public double getP90Millis() {
+    return getPercentileMillis(0.9);
+  }
+
+  @Override
+  public double getP99Millis() {
+    return getPercentileMillis(0.99);
+  }
+
+  /** @param percentile in the range [0, 1] */
+  public double getPercentileMillis(double percentile) {
+    long[] counts = snapshot();
+    long samples = 0;
+    for (long bucketCount : counts) {
+      samples += bucketCount;
+    }
+    if (samples == 0) {
+      return 0;
+    }
+
+    long target = Math.max(1, (long) Math.ceil(percentile * samples));
+    long seen = 0;
+    long max = maxNanos.get();
+    for (int bucket = 0; bucket < BUCKET_COUNT; bucket++) {
+      seen += counts[bucket];
+      if (seen >= target) {
+        return Math.min(upperNanos(bucket), max) / NANOS_PER_MILLI;
+      }
+    }
+    return max / NANOS_PER_MILLI;
+  }
+
+  @Override
+  public double[] getBucketUpperMillis() {
+    long[] counts = snapshot();
+    double[] upper = new double[used(counts)];
+    for (int bucket = 0, i = 0; bucket < BUCKET_COUNT; bucket++) {
+      if (counts[bucket] > 0) {
+        upper[i++] = upperNanos(bucket) / NANOS_PER_MILLI;
+      }
+    }
+    return upper;
+  }
+
+  @Override
+  public long[] getBucketCounts() {
+    long[] counts = snapshot();
+    long[] used = new long[used(counts)];
+    for (int bucket = 0, i = 0; bucket < BUCKET_COUNT; bucket++) {
+      if (counts[bucket] > 0) {
+        used[i++] = counts[bucket];
+      }
+    }
+    return used;
+  }
+
+  @Override
+  public void reset() {
+    for (int bucket = 0; bucket < BUCKET_COUNT; bucket++) {
+      buckets.set(bucket, 0);
+    }
+    count.set(0);
+    totalNanos.set(0);
+    maxNanos.set(0);
+  }
+
+  private long[] snapshot() {
+    long[] counts = new long[BUCKET_COUNT];
+    for (int bucket = 0; bucket < BUCKET_COUNT; bucket++) {
+      counts[bucket] = buckets.get(bucket);
+    }
+    return counts;
+  }
+
+  private static int used(long[] counts) {
+    int used = 0;
+    for (long bucketCount : counts) {
+      if (bucketCount > 0) {
+        used++;
+      }
+    }
+    return used;
+  }
+
+  // the top bit picks the power of two and the next two bits the quarter within it
+  private static int bucketFor(long nanos) {
+    if (nanos < 4) {
+      return (int) nanos;
+    }
+    int exponent = 63 - Long.numberOfLeadingZeros(nanos);
+    int quarter = (int) (nanos >>> (exponent - 2)) & 3;
+    return Math.min(exponent * 4 + quarter, BUCKET_COUNT - 1);
+  }
+
+  private static long upperNanos(int bucket) {
+    if (bucket < 4) {
+      return bucket;
+    }
+    int exponent = bucket / 4;
+    int quarter = bucket % 4;
+    return ((4L + quarter + 1) << (exponent - 2)) - 1;
+  }
+}
@@ -0,0 +1,25 @@
+package net.teamrush27.frc2019.util.metrics;
+
+/** What JMX shows of a {@link Timer}. Durations are in milliseconds. */
+public interface TimerMBean {
+
+  long getCount();
+
+  double getMeanMillis();
+
+  double getMaxMillis();
+
+  double getP50Millis();
+
+  double getP90Millis();
+
+  double getP99Millis();
+
+  /** @return upper edge of every bucket that has samples */
+  double[] getBucketUpperMillis();
+
+  /** @return samples in each bucket that has any, in {@link #getBucketUpperMillis} order */
+  long[] getBucketCounts();
+
+  void reset();
+}
@@ -5,6 +5,7 @@ import java.util.ArrayList;
 import java.util.List;
 import net.teamrush27.frc2019.Robot;
 import net.teamrush27.frc2019.constants.ChezyConstants;
+import net.teamrush27.frc2019.constants.RobotConfiguration;
 import net.teamrush27.frc2019.util.CSVWritable;
 import net.teamrush27.frc2019.util.math.MathUtils;
 import net.teamrush27.frc2019.util.math.Pose2d;
@@ -12,13 +13,17 @@ import net.teamrush27.frc2019.util.math.Pose2dWithCurvature;
 import net.teamrush27.frc2019.util.math.Rotation2d;
 import net.teamrush27.frc2019.util.math.Translation2d;
 import net.teamrush27.frc2019.util.math.Units;
+import net.teamrush27.frc2019.util.metrics.MetricsRegistry;
+import net.teamrush27.frc2019.util.metrics.Timer;
 import net.teamrush27.frc2019.util.physics.DCMotorTransmission;
 import net.teamrush27.frc2019.util.physics.DifferentialDrive;
 import net.teamrush27.frc2019.util.physics.IDrivetrainModel.ChassisState;
 import net.teamrush27.frc2019.util.physics.IDrivetrainModel.DriveDynamics;
 import net.teamrush27.frc2019.util.physics.IDrivetrainModel.WheelState;
 import net.teamrush27.frc2019.util.trajectory.DistanceView;
+import net.teamrush27.frc2019.util.trajectory.PackedTrajectory;
 import net.teamrush27.frc2019.util.trajectory.Trajectory;
+import net.teamrush27.frc2019.util.trajectory.TrajectoryCache;
 import net.teamrush27.frc2019.util.trajectory.TrajectoryIterator;
 import net.teamrush27.frc2019.util.trajectory.TrajectorySamplePoint;
 import net.teamrush27.frc2019.util.trajectory.TrajectoryUtil;
@@ -63,15 +68,22 @@ public class DriveMotionPlanner implements CSVWritable {
   ChassisState prev_velocity_ = new ChassisState();
   double mDt = 0.0;
 
+  private final Timer mUpdateTimer = MetricsRegistry.getInstance().timer("planner.update");
+
   public DriveMotionPlanner() {
+    this(Robot.ROBOT_CONFIGURATION);
+  }
+
+  /** Plans with the drive characterization of the given robot, e.g. when replaying its logs. */
+  public DriveMotionPlanner(RobotConfiguration configuration) {
     final DCMotorTransmission transmission =
         new DCMotorTransmission(
-            1.0 / Robot.ROBOT_CONFIGURATION.getDriveKv(),
+            1.0 / configuration.getDriveKv(),
             Units.inches_to_meters(ChezyConstants.kDriveWheelRadiusInches)
                 * Units.inches_to_meters(ChezyConstants.kDriveWheelRadiusInches)
                 * ChezyConstants.kRobotLinearInertia
-                / (2.0 * Robot.ROBOT_CONFIGURATION.getDriveKa()),
-            Robot.ROBOT_CONFIGURATION.getDriveVIntercept());
+                / (2.0 * configuration.getDriveKa()),
+            configuration.getDriveVIntercept());
     mModel =
         new DifferentialDrive(
             ChezyConstants.kRobotLinearInertia,
@@ -81,11 +93,30 @@ public class DriveMotionPlanner implements CSVWritable {
             Units.inches_to_meters(
                 ChezyConstants.kDriveWheelTrackWidthInches
                     / 2.0
-                    * Robot.ROBOT_CONFIGURATION.getScrubFactor()),
+                    * configuration.getScrubFactor()),
             transmission,
             transmission);
   }
 
+  /**
+   * Adds everything besides the per-call arguments that changes what {@link #generateTrajectory}
+   * returns: the spline sampling limits and the drive model.
+   */
+  public void addGenerationInputs(TrajectoryCache.Key key) {
+    key.add(kMaxDx).add(kMaxDy).add(kMaxDTheta);
+    key.add(mModel.mass())
+        .add(mModel.moi())
+        .add(mModel.angular_drag())
+        .add(mModel.wheel_radius())
+        .add(mModel.effective_wheelbase_radius());
+    for (DCMotorTransmission transmission :
+        new DCMotorTransmission[] {mModel.left_transmission(), mModel.right_transmission()}) {
+      key.add(transmission.speed_per_volt())
+          .add(transmission.torque_per_volt())
+          .add(transmission.friction_voltage());
+    }
+  }
+
   public void setTrajectory(final TrajectoryIterator<TimedState<Pose2dWithCurvature>> trajectory) {
     mCurrentTrajectory = trajectory;
     mSetpoint = trajectory.getState();
@@ -100,6 +131,21 @@ public class DriveMotionPlanner implements CSVWritable {
     }
   }
 
+  /** Follows a packed trajectory, sampling it straight from its arrays. */
+  public void setTrajectory(final PackedTrajectory trajectory) {
+    mCurrentTrajectory = new TrajectoryIterator<>(trajectory.getTimeView());
+    mSetpoint = mCurrentTrajectory.getState();
+    for (int i = 0; i < trajectory.length(); ++i) {
+      if (trajectory.velocity(i) > MathUtils.DEFAULT_MAX_ERROR) {
+        mIsReversed = false;
+        break;
+      } else if (trajectory.velocity(i) < -MathUtils.DEFAULT_MAX_ERROR) {
+        mIsReversed = true;
+        break;
+      }
+    }
+  }
+
   public void reset() {
     mError = Pose2d.identity();
     mOutput = new Output();
@@ -432,6 +478,7 @@ public class DriveMotionPlanner implements CSVWritable {
       return new Output();
     }
 
+    long start = System.nanoTime();
     if (mCurrentTrajectory.getProgress() == 0.0 && !Double.isFinite(mLastTime)) {
       mLastTime = timestamp;
     }
@@ -477,6 +524,7 @@ public class DriveMotionPlanner implements CSVWritable {
       // TODO Possibly switch to a pose stabilizing controller?
       mOutput = new Output();
     }
+    mUpdateTimer.recordSince(start);
     return mOutput;
   }
 
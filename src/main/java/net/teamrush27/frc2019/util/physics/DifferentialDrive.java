@@ -67,6 +67,10 @@ public class DifferentialDrive implements IDrivetrainModel {
     return moi_;
   }
 
+  public double angular_drag() {
+    return angular_drag_;
+  }
+
   public double wheel_radius() {
     return wheel_radius_;
   }
@@ -0,0 +1,33 @@
+package net.teamrush27.frc2019.util.time;
+
+/**
+ * Process-wide {@link TimeSource} for code that has no constructor to inject one through
+ * (singleton subsystems, auto actions). Defaults to the FPGA clock; swap it with {@link
+ * #setSource(TimeSource)} before anything is constructed to run off the robot.
+ */
+public class Clock {
+
+  private static volatile TimeSource source = new FPGATimeSource();
+
+  private Clock() {}
+
+  public static TimeSource getSource() {
+    return source;
+  }
+
+  public static void setSource(TimeSource source) {
+    Clock.source = source;
+  }
+
+  public static double getTimestamp() {
+    return source.getTimestamp();
+  }
+
+  public static double getRealTimestamp() {
+    return source.getRealTimestamp();
+  }
+
+  public static void sleep(double seconds) throws InterruptedException {
+    source.sleep(seconds);
+  }
+}
@@ -0,0 +1,22 @@
+package net.teamrush27.frc2019.util.time;
+
+import edu.wpi.first.wpilibj.Timer;
+
+/** Real time from the roboRIO FPGA. */
+public class FPGATimeSource implements TimeSource {
+
+  @Override
+  public double getTimestamp() {
+    return Timer.getFPGATimestamp();
+  }
+
+  @Override
+  public double getRealTimestamp() {
+    return Timer.getFPGATimestamp();
+  }
+
+  @Override
+  public void sleep(double seconds) throws InterruptedException {
+    Thread.sleep((long) (seconds * 1000.0));
+  }
+}
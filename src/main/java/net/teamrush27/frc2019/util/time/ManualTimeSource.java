@@ -0,0 +1,70 @@
+package net.teamrush27.frc2019.util.time;
+
+/**
+ * Simulated time that only moves when {@link #advance(double)} or {@link #setTimestamp(double)} is
+ * called. Real elapsed time still comes from {@link System#nanoTime()} so code can be profiled
+ * while stepping.
+ *
+ * <p>{@link #sleep(double)} hands the wait to the sleep handler (normally a {@link
+ * net.teamrush27.frc2019.loops.ManualLoopDriver} stepping its loopers up to the wake-up time), so an
+ * auto mode can run on the same thread as the loops with no real sleeping at all.
+ */
+public class ManualTimeSource implements TimeSource {
+
+  /** Called when a thread sleeps; must move time up to at least {@code wakeTimestamp}. */
+  public interface SleepHandler {
+    void sleepUntil(double wakeTimestamp);
+  }
+
+  private volatile double timestamp;
+  private SleepHandler sleepHandler = null;
+
+  public ManualTimeSource() {
+    this(0);
+  }
+
+  public ManualTimeSource(double startTimestamp) {
+    timestamp = startTimestamp;
+  }
+
+  @Override
+  public double getTimestamp() {
+    return timestamp;
+  }
+
+  @Override
+  public double getRealTimestamp() {
+    return System.nanoTime() * 1e-9;
+  }
+
+  public synchronized void setTimestamp(double timestamp) {
+    this.timestamp = timestamp;
+  }
+
+  public synchronized void advance(double seconds) {
+    timestamp += seconds;
+  }
+
+  public synchronized void setSleepHandler(SleepHandler sleepHandler) {
+    this.sleepHandler = sleepHandler;
+  }
+
+  /** Without a sleep handler this just jumps time forward. */
+  @Override
+  public void sleep(double seconds) {
+    double wakeTimestamp = timestamp + seconds;
+    SleepHandler handler;
+    synchronized (this) {
+      handler = sleepHandler;
+    }
+
+    if (handler != null) {
+      handler.sleepUntil(wakeTimestamp);
+    }
+    synchronized (this) {
+      if (timestamp < wakeTimestamp) {
+        timestamp = wakeTimestamp;
+      }
+    }
+  }
+}
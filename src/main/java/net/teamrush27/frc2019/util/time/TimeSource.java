@@ -0,0 +1,20 @@
+package net.teamrush27.frc2019.util.time;
+
+/**
+ * Where the control code gets the time from. On the robot this is the FPGA clock; off the robot a
+ * {@link ManualTimeSource} lets the loops be stepped as fast as the CPU allows.
+ */
+public interface TimeSource {
+
+  /** @return seconds, used for control decisions (timeouts, dt, trajectory sampling) */
+  double getTimestamp();
+
+  /**
+   * @return seconds of real elapsed time, used only to measure how long code took to run. Matches
+   *     {@link #getTimestamp()} on the robot.
+   */
+  double getRealTimestamp();
+
+  /** Blocks the calling thread for {@code seconds} of this source's time. */
+  void sleep(double seconds) throws InterruptedException;
+}
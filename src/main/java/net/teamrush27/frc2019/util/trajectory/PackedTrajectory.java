@@ -0,0 +1,354 @@
+package net.teamrush27.frc2019.util.trajectory;
+
+import java.util.ArrayList;
+import java.util.List;
+import net.teamrush27.frc2019.util.math.MathUtils;
+import net.teamrush27.frc2019.util.math.Pose2d;
+import net.teamrush27.frc2019.util.math.Pose2dWithCurvature;
+import net.teamrush27.frc2019.util.math.Rotation2d;
+import net.teamrush27.frc2019.util.math.Translation2d;
+import net.teamrush27.frc2019.util.trajectory.timing.TimedState;
+import net.teamrush27.frc2019.util.trajectory.timing.TimedView;
+
+/**
+ * A timed trajectory held as one array per field (pose, curvature, distance, time, velocity and
+ * acceleration) rather than as a list of points that each wrap a {@link TimedState}, a {@link
+ * Pose2dWithCurvature}, a {@link Pose2d}, a {@link Translation2d} and a {@link Rotation2d}.
+ *
+ * <p>{@link TimeView} finds a sample's segment by binary search and interpolates it from the arrays
+ * with the same arithmetic as {@link TimedState#interpolate}, so it returns exactly the states a
+ * {@link TimedView} over {@link #toTrajectory()} does, building only the one state it returns.
+ *
+ * <p>The arrays are never written after construction; {@link #mirror()} shares every one the
+ * mirror leaves unchanged.
+ */
+public class PackedTrajectory {
+
+  private static final double kEpsilon = 1E-9; // as Pose2d's exp and log
+
+  private final double[] x;
+  private final double[] y;
+  private final double[] cos;
+  private final double[] sin;
+  private final double[] curvature;
+  private final double[] dcurvature;
+  private final double[] s; // distance travelled to reach each state, always increasing
+  private final double[] t;
+  private final double[] v;
+  private final double[] a;
+
+  private final TimeView time_view_ = new TimeView();
+
+  private PackedTrajectory(
+      double[] x,
+      double[] y,
+      double[] cos,
+      double[] sin,
+      double[] curvature,
+      double[] dcurvature,
+      double[] s,
+      double[] t,
+      double[] v,
+      double[] a) {
+    this.x = x;
+    this.y = y;
+    this.cos = cos;
+    this.sin = sin;
+    this.curvature = curvature;
+    this.dcurvature = dcurvature;
+    this.s = s;
+    this.t = t;
+    this.v = v;
+    this.a = a;
+  }
+
+  public static PackedTrajectory fromTrajectory(
+      final Trajectory<TimedState<Pose2dWithCurvature>> trajectory) {
+    final int length = trajectory.length();
+    PackedTrajectory packed =
+        new PackedTrajectory(
+            new double[length],
+            new double[length],
+            new double[length],
+            new double[length],
+            new double[length],
+            new double[length],
+            new double[length],
+            new double[length],
+            new double[length],
+            new double[length]);
+    for (int i = 0; i < length; ++i) {
+      final TimedState<Pose2dWithCurvature> state = trajectory.getState(i);
+      final Pose2d pose = state.state().getPose();
+      packed.x[i] = pose.getTranslation().x();
+      packed.y[i] = pose.getTranslation().y();
+      packed.cos[i] = pose.getRotation().cos();
+      packed.sin[i] = pose.getRotation().sin();
+      packed.curvature[i] = state.state().getCurvature();
+      packed.dcurvature[i] = state.state().getDCurvatureDs();
+      packed.s[i] = i == 0 ? 0.0 : packed.s[i - 1] + trajectory.getState(i - 1).distance(state);
+      packed.t[i] = state.t();
+      packed.v[i] = state.velocity();
+      packed.a[i] = state.acceleration();
+    }
+    return packed;
+  }
+
+  public Trajectory<TimedState<Pose2dWithCurvature>> toTrajectory() {
+    List<TimedState<Pose2dWithCurvature>> states = new ArrayList<>(length());
+    for (int i = 0; i < length(); ++i) {
+      states.add(getState(i));
+    }
+    return new Trajectory<>(states);
+  }
+
+  /** Mirrors about the x axis, as {@link TrajectoryUtil#mirrorTimed(Trajectory)} does. */
+  public PackedTrajectory mirror() {
+    return new PackedTrajectory(
+        x, negate(y), cos, negate(sin), negate(curvature), negate(dcurvature), s, t, v, a);
+  }
+
+  private static double[] negate(double[] values) {
+    double[] negated = new double[values.length];
+    for (int i = 0; i < values.length; ++i) {
+      negated[i] = -values[i];
+    }
+    return negated;
+  }
+
+  public boolean isEmpty() {
+    return t.length == 0;
+  }
+
+  public int length() {
+    return t.length;
+  }
+
+  public double x(int index) {
+    return x[index];
+  }
+
+  public double y(int index) {
+    return y[index];
+  }
+
+  public double cos(int index) {
+    return cos[index];
+  }
+
+  public double sin(int index) {
+    return sin[index];
+  }
+
+  public double curvature(int index) {
+    return curvature[index];
+  }
+
+  public double dcurvature(int index) {
+    return dcurvature[index];
+  }
+
+  public double distance(int index) {
+    return s[index];
+  }
+
+  public double t(int index) {
+    return t[index];
+  }
+
+  public double velocity(int index) {
+    return v[index];
+  }
+
+  public double acceleration(int index) {
+    return a[index];
+  }
+
+  public Pose2d getPose(int index) {
+    return new Pose2d(
+        new Translation2d(x[index], y[index]), new Rotation2d(cos[index], sin[index], false));
+  }
+
+  public TimedState<Pose2dWithCurvature> getState(int index) {
+    return new TimedState<>(
+        new Pose2dWithCurvature(getPose(index), curvature[index], dcurvature[index]),
+        t[index],
+        v[index],
+        a[index]);
+  }
+
+  public TimedState<Pose2dWithCurvature> getFirstState() {
+    return getState(0);
+  }
+
+  public TimedState<Pose2dWithCurvature> getLastState() {
+    return getState(length() - 1);
+  }
+
+  /** @return seconds from the first state to the last */
+  public double getDuration() {
+    return t[length() - 1] - t[0];
+  }
+
+  public TimeView getTimeView() {
+    return time_view_;
+  }
+
+  /** Samples by time, as {@link TimedView#sample(double)}. */
+  public TrajectorySamplePoint<TimedState<Pose2dWithCurvature>> sample(double time) {
+    final int last = length() - 1;
+    if (time >= t[last]) {
+      return new TrajectorySamplePoint<>(getState(last), last, last);
+    }
+    if (time <= t[0]) {
+      return new TrajectorySamplePoint<>(getState(0), 0, 0);
+    }
+
+    // first state at or after the time; t[0] is before it and t[last] after
+    int low = 1;
+    int high = last;
+    while (low < high) {
+      final int middle = (low + high) >>> 1;
+      if (t[middle] < time) {
+        low = middle + 1;
+      } else {
+        high = middle;
+      }
+    }
+
+    if (MathUtils.epsilonEquals(t[low], t[low - 1])) {
+      return new TrajectorySamplePoint<>(getState(low), low, low);
+    }
+    return new TrajectorySamplePoint<>(
+        interpolate(low - 1, low, (time - t[low - 1]) / (t[low] - t[low - 1])), low - 1, low);
+  }
+
+  /**
+   * {@link TimedState#interpolate} on the arrays. Each step below is the one {@link Pose2d}'s
+   * inverse, transformBy, log, exp and interpolate would take, in the same order, so the result is
+   * identical; the twist between the two poses is worked out once for both the distance and the
+   * interpolation.
+   */
+  private TimedState<Pose2dWithCurvature> interpolate(int from, int to, double fraction) {
+    final double new_t = MathUtils.interpolate(t[from], t[to], fraction);
+    final double delta_t = new_t - t[from];
+    if (delta_t < 0.0) {
+      return interpolate(to, from, 1.0 - fraction);
+    }
+    final boolean reversing =
+        v[from] < 0.0 || (MathUtils.epsilonEquals(v[from], 0.0) && a[from] < 0.0);
+    final double new_v = v[from] + a[from] * delta_t;
+    final double new_s =
+        (reversing ? -1.0 : 1.0) * (v[from] * delta_t + .5 * a[from] * delta_t * delta_t);
+
+    // from.inverse()
+    final double inverse_cos = cos[from];
+    final double inverse_sin = -sin[from];
+    final double inverse_x0 = -x[from];
+    final double inverse_y0 = -y[from];
+    final double inverse_x = inverse_x0 * inverse_cos - inverse_y0 * inverse_sin;
+    final double inverse_y = inverse_x0 * inverse_sin + inverse_y0 * inverse_cos;
+
+    // .transformBy(to)
+    final double relative_x = inverse_x + (x[to] * inverse_cos - y[to] * inverse_sin);
+    final double relative_y = inverse_y + (x[to] * inverse_sin + y[to] * inverse_cos);
+    double relative_cos = inverse_cos * cos[to] - inverse_sin * sin[to];
+    double relative_sin = inverse_cos * sin[to] + inverse_sin * cos[to];
+    final double magnitude = Math.hypot(relative_cos, relative_sin);
+    if (magnitude > MathUtils.DEFAULT_MAX_ERROR) {
+      relative_sin = relative_sin / magnitude;
+      relative_cos = relative_cos / magnitude;
+    } else {
+      relative_sin = 0;
+      relative_cos = 1;
+    }
+
+    // Pose2d.log
+    final double delta_theta = Math.atan2(relative_sin, relative_cos);
+    final double half_delta_theta = 0.5 * delta_theta;
+    final double cos_minus_one = relative_cos - 1.0;
+    final double halftheta_by_tan_of_halfdeltatheta;
+    if (Math.abs(cos_minus_one) < kEpsilon) {
+      halftheta_by_tan_of_halfdeltatheta = 1.0 - 1.0 / 12.0 * delta_theta * delta_theta;
+    } else {
+      halftheta_by_tan_of_halfdeltatheta = -(half_delta_theta * relative_sin) / cos_minus_one;
+    }
+    final double twist_cos = halftheta_by_tan_of_halfdeltatheta;
+    final double twist_sin = -half_delta_theta;
+    final double twist_dx = relative_x * twist_cos - relative_y * twist_sin;
+    final double twist_dy = relative_x * twist_sin + relative_y * twist_cos;
+
+    // Twist2d.norm
+    final double distance =
+        twist_dy == 0.0 ? Math.abs(twist_dx) : Math.hypot(twist_dx, twist_dy);
+    final double x_fraction = new_s / distance;
+
+    final Pose2d pose;
+    if (x_fraction <= 0) {
+      pose = getPose(from);
+    } else if (x_fraction >= 1) {
+      pose = getPose(to);
+    } else {
+      // Pose2d.exp(twist.scaled(x_fraction))
+      final double scaled_dx = twist_dx * x_fraction;
+      final double scaled_dy = twist_dy * x_fraction;
+      final double scaled_theta = delta_theta * x_fraction;
+      final double sin_theta = Math.sin(scaled_theta);
+      final double cos_theta = Math.cos(scaled_theta);
+      final double exp_s;
+      final double exp_c;
+      if (Math.abs(scaled_theta) < kEpsilon) {
+        exp_s = 1.0 - 1.0 / 6.0 * scaled_theta * scaled_theta;
+        exp_c = .5 * scaled_theta;
+      } else {
+        exp_s = sin_theta / scaled_theta;
+        exp_c = (1.0 - cos_theta) / scaled_theta;
+      }
+      final double step_x = scaled_dx * exp_s - scaled_dy * exp_c;
+      final double step_y = scaled_dx * exp_c + scaled_dy * exp_s;
+
+      // from.transformBy(step)
+      pose =
+          new Pose2d(
+              new Translation2d(
+                  x[from] + (step_x * cos[from] - step_y * sin[from]),
+                  y[from] + (step_x * sin[from] + step_y * cos[from])),
+              new Rotation2d(
+                  cos[from] * cos_theta - sin[from] * sin_theta,
+                  cos[from] * sin_theta + sin[from] * cos_theta,
+                  true));
+    }
+
+    return new TimedState<>(
+        new Pose2dWithCurvature(
+            pose,
+            MathUtils.interpolate(curvature[from], curvature[to], x_fraction),
+            MathUtils.interpolate(dcurvature[from], dcurvature[to], x_fraction)),
+        new_t,
+        new_v,
+        a[from]);
+  }
+
+  /** Samples by time; its {@link #trajectory()} converts the whole trajectory on every call. */
+  public class TimeView implements TrajectoryView<TimedState<Pose2dWithCurvature>> {
+    @Override
+    public TrajectorySamplePoint<TimedState<Pose2dWithCurvature>> sample(double time) {
+      return PackedTrajectory.this.sample(time);
+    }
+
+    @Override
+    public double first_interpolant() {
+      return t[0];
+    }
+
+    @Override
+    public double last_interpolant() {
+      return t[length() - 1];
+    }
+
+    @Override
+    public Trajectory<TimedState<Pose2dWithCurvature>> trajectory() {
+      return toTrajectory();
+    }
+  }
+}
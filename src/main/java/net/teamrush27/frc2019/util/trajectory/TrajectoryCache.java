@@ -0,0 +1,496 @@
+package net.teamrush27.frc2019.util.trajectory;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.lang.reflect.Field;
+import java.lang.reflect.Modifier;
+import java.net.URISyntaxException;
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileChannel.MapMode;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.security.CodeSource;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.jar.JarEntry;
+import java.util.jar.JarFile;
+import java.util.stream.Stream;
+import net.teamrush27.frc2019.util.math.Pose2d;
+import net.teamrush27.frc2019.util.math.Pose2dWithCurvature;
+import net.teamrush27.frc2019.util.math.Rotation2d;
+import net.teamrush27.frc2019.util.math.Translation2d;
+import net.teamrush27.frc2019.util.trajectory.timing.TimedState;
+import net.teamrush27.frc2019.util.trajectory.timing.TimingConstraint;
+import org.apache.logging.log4j.LogManager;
+import org.apache.logging.log4j.Logger;
+
+/**
+ * Timed trajectories saved to disk under a hash of everything that went into generating them
+ * ({@link Key}), so a boot with the same waypoints, constraints, limits and drive model loads them
+ * instead of generating them again. Changing any input changes the key, which misses and
+ * regenerates; files no key asked for are removed by {@link #prune()}.
+ *
+ * <p>Directories added with {@link #addPrecomputed(File)}, such as the trajectories built into the
+ * deploy directory by {@link TrajectoryPrecompute}, are looked in first and never written. Since
+ * the file name is the key, a precomputed file built from other inputs is simply never asked for.
+ *
+ * <p>Every key also covers a hash of the class files of the generation code (the math, spline,
+ * physics, motion and trajectory packages), so a build that changes what the spline or timing code
+ * generates misses instead of loading what the old code made.
+ *
+ * <p>Each file is a small header and then every state as doubles, read back through a memory
+ * mapping. The states are stored bit for bit, so a loaded trajectory equals the generated one.
+ * Bump {@link #VERSION} when the file layout changes.
+ *
+ * <p>Safe to use from several generator threads at once.
+ */
+public class TrajectoryCache {
+
+  private static final Logger LOG = LogManager.getLogger(TrajectoryCache.class);
+
+  public static final int MAGIC = 0x52323754; // "R27T"
+  public static final short VERSION = 1;
+  public static final String EXTENSION = ".traj";
+
+  // class files hashed into every key
+  private static final String[] GENERATOR_PACKAGES = {
+    "net/teamrush27/frc2019/util/math/",
+    "net/teamrush27/frc2019/util/motion/",
+    "net/teamrush27/frc2019/util/physics/",
+    "net/teamrush27/frc2019/util/spline/",
+    "net/teamrush27/frc2019/util/trajectory/"
+  };
+
+  private static byte[] generatorFingerprint = null;
+
+  static final int KEY_BYTES = 32;
+  // magic, version, reserved, key, state count
+  static final int HEADER_BYTES = 4 + 2 + 2 + KEY_BYTES + 4;
+  // x, y, cos, sin, curvature, dcurvature_ds, t, velocity, acceleration
+  static final int STATE_BYTES = 9 * Double.BYTES;
+
+  private final File directory;
+  private final boolean writable;
+  private final List<File> precomputed = new CopyOnWriteArrayList<>();
+  private final Set<String> used = ConcurrentHashMap.newKeySet();
+
+  private final AtomicInteger precomputedHits = new AtomicInteger();
+  private final AtomicInteger hits = new AtomicInteger();
+  private final AtomicInteger misses = new AtomicInteger();
+  private final AtomicInteger writes = new AtomicInteger();
+
+  /** @param writable false to only read, e.g. from files shipped with the code */
+  public TrajectoryCache(File directory, boolean writable) {
+    this.directory = directory;
+    this.writable = writable;
+  }
+
+  public File getDirectory() {
+    return directory;
+  }
+
+  /** Also loads from {@code directory}, ahead of this cache's own, without ever writing there. */
+  public void addPrecomputed(File directory) {
+    precomputed.add(directory);
+  }
+
+  public boolean hasPrecomputed() {
+    return !precomputed.isEmpty();
+  }
+
+  /** @return the cached trajectory, or null if there is none (or it could not be read) */
+  public Trajectory<TimedState<Pose2dWithCurvature>> load(Key key) {
+    String name = key.toString();
+    used.add(name);
+    for (File shipped : precomputed) {
+      File file = new File(shipped, name + EXTENSION);
+      if (file.isFile()) {
+        try {
+          Trajectory<TimedState<Pose2dWithCurvature>> trajectory = read(file, key);
+          precomputedHits.incrementAndGet();
+          return trajectory;
+        } catch (IOException | RuntimeException e) {
+          LOG.warn("could not read precomputed trajectory {}", file, e);
+        }
+      }
+    }
+
+    File file = new File(directory, name + EXTENSION);
+    if (!file.isFile()) {
+      misses.incrementAndGet();
+      return null;
+    }
+
+    try {
+      Trajectory<TimedState<Pose2dWithCurvature>> trajectory = read(file, key);
+      hits.incrementAndGet();
+      return trajectory;
+    } catch (IOException | RuntimeException e) {
+      LOG.warn("could not read cached trajectory {}, regenerating", file, e);
+      misses.incrementAndGet();
+      return null;
+    }
+  }
+
+  /** Writes the trajectory under its key; failures are logged, since the cache is optional. */
+  public void store(Key key, Trajectory<TimedState<Pose2dWithCurvature>> trajectory) {
+    if (!writable) {
+      return;
+    }
+    String name = key.toString();
+    used.add(name);
+    try {
+      write(new File(directory, name + EXTENSION), key, trajectory);
+      writes.incrementAndGet();
+    } catch (IOException | RuntimeException e) {
+      LOG.warn("could not cache trajectory {}", name, e);
+    }
+  }
+
+  /** Deletes every trajectory file in this cache's own directory. */
+  public void clear() {
+    if (!writable) {
+      return;
+    }
+    File[] files = directory.listFiles((dir, name) -> name.endsWith(EXTENSION));
+    if (files == null) {
+      return;
+    }
+    for (File file : files) {
+      if (!file.delete()) {
+        LOG.warn("could not delete {}", file);
+      }
+    }
+  }
+
+  /** Deletes files no key was loaded or stored under since this cache was made. */
+  public void prune() {
+    if (!writable) {
+      return;
+    }
+    File[] files = directory.listFiles((dir, name) -> name.endsWith(EXTENSION));
+    if (files == null) {
+      return;
+    }
+    for (File file : files) {
+      String name = file.getName();
+      if (!used.contains(name.substring(0, name.length() - EXTENSION.length()))) {
+        LOG.info("removing stale cached trajectory {}", name);
+        if (!file.delete()) {
+          LOG.warn("could not delete {}", file);
+        }
+      }
+    }
+  }
+
+  /** @return trajectories loaded from a precomputed directory */
+  public int getPrecomputedHits() {
+    return precomputedHits.get();
+  }
+
+  /** @return trajectories loaded from this cache's own directory */
+  public int getHits() {
+    return hits.get();
+  }
+
+  public int getMisses() {
+    return misses.get();
+  }
+
+  public int getWrites() {
+    return writes.get();
+  }
+
+  static Trajectory<TimedState<Pose2dWithCurvature>> read(File file, Key key) throws IOException {
+    try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ)) {
+      long size = channel.size();
+      if (size < HEADER_BYTES) {
+        throw new IOException("truncated header");
+      }
+      MappedByteBuffer in = channel.map(MapMode.READ_ONLY, 0, size);
+      in.order(ByteOrder.LITTLE_ENDIAN);
+
+      if (in.getInt() != MAGIC) {
+        throw new IOException("not a trajectory file");
+      }
+      short version = in.getShort();
+      if (version != VERSION) {
+        throw new IOException("version " + version + ", expected " + VERSION);
+      }
+      in.getShort();
+      byte[] stored = new byte[KEY_BYTES];
+      in.get(stored);
+      if (!Arrays.equals(stored, key.bytes())) {
+        throw new IOException("key does not match file name");
+      }
+      int count = in.getInt();
+      if (count < 0 || size != HEADER_BYTES + (long) count * STATE_BYTES) {
+        throw new IOException(count + " states do not fit " + size + " bytes");
+      }
+
+      List<TimedState<Pose2dWithCurvature>> states = new ArrayList<>(count);
+      for (int i = 0; i < count; i++) {
+        Pose2d pose =
+            new Pose2d(
+                new Translation2d(in.getDouble(), in.getDouble()),
+                new Rotation2d(in.getDouble(), in.getDouble(), false));
+        Pose2dWithCurvature state = new Pose2dWithCurvature(pose, in.getDouble(), in.getDouble());
+        states.add(new TimedState<>(state, in.getDouble(), in.getDouble(), in.getDouble()));
+      }
+      return new Trajectory<>(states);
+    }
+  }
+
+  static void write(File file, Key key, Trajectory<TimedState<Pose2dWithCurvature>> trajectory)
+      throws IOException {
+    ByteBuffer out =
+        ByteBuffer.allocate(HEADER_BYTES + trajectory.length() * STATE_BYTES)
+            .order(ByteOrder.LITTLE_ENDIAN);
+    out.putInt(MAGIC);
+    out.putShort(VERSION);
+    out.putShort((short) 0);
+    out.put(key.bytes());
+    out.putInt(trajectory.length());
+    for (int i = 0; i < trajectory.length(); i++) {
+      TimedState<Pose2dWithCurvature> timed = trajectory.getState(i);
+      Pose2dWithCurvature state = timed.state();
+      out.putDouble(state.getTranslation().x());
+      out.putDouble(state.getTranslation().y());
+      out.putDouble(state.getRotation().cos());
+      out.putDouble(state.getRotation().sin());
+      out.putDouble(state.getCurvature());
+      out.putDouble(state.getDCurvatureDs());
+      out.putDouble(timed.t());
+      out.putDouble(timed.velocity());
+      out.putDouble(timed.acceleration());
+    }
+    out.flip();
+
+    // written aside and moved into place, so a reader never sees half a file
+    File partial = new File(file.getPath() + ".part");
+    try (FileChannel channel =
+        FileChannel.open(
+            partial.toPath(),
+            StandardOpenOption.CREATE,
+            StandardOpenOption.TRUNCATE_EXISTING,
+            StandardOpenOption.WRITE)) {
+      while (out.hasRemaining()) {
+        channel.write(out);
+      }
+    }
+    Files.move(
+        partial.toPath(),
+        file.toPath(),
+        StandardCopyOption.REPLACE_EXISTING,
+        StandardCopyOption.ATOMIC_MOVE);
+  }
+
+  /**
+   * @return SHA-256 over the name and bytes of every class file in {@link #GENERATOR_PACKAGES}, in
+   *     name order, read from the jar or directory this class was loaded from. If they cannot be
+   *     read, a fingerprint unique to this boot, so nothing cached by other code is loaded.
+   */
+  static synchronized byte[] generatorFingerprint() {
+    if (generatorFingerprint == null) {
+      try {
+        generatorFingerprint = hashGeneratorClasses();
+      } catch (IOException | RuntimeException e) {
+        LOG.warn("could not fingerprint the generator, not reusing cached trajectories", e);
+        generatorFingerprint = UUID.randomUUID().toString().getBytes(StandardCharsets.US_ASCII);
+      }
+    }
+    return generatorFingerprint;
+  }
+
+  private static byte[] hashGeneratorClasses() throws IOException {
+    CodeSource source = TrajectoryCache.class.getProtectionDomain().getCodeSource();
+    if (source == null) {
+      throw new IOException("no code source");
+    }
+    Path location;
+    try {
+      location = Paths.get(source.getLocation().toURI());
+    } catch (URISyntaxException e) {
+      throw new IOException(e);
+    }
+
+    TreeMap<String, byte[]> classes = new TreeMap<>();
+    if (Files.isDirectory(location)) {
+      try (Stream<Path> files = Files.walk(location)) {
+        for (Path file : (Iterable<Path>) files::iterator) {
+          String name = location.relativize(file).toString().replace(File.separatorChar, '/');
+          if (isGeneratorClass(name)) {
+            classes.put(name, Files.readAllBytes(file));
+          }
+        }
+      }
+    } else {
+      try (JarFile jar = new JarFile(location.toFile())) {
+        for (JarEntry entry : Collections.list(jar.entries())) {
+          if (isGeneratorClass(entry.getName())) {
+            try (InputStream in = jar.getInputStream(entry)) {
+              classes.put(entry.getName(), in.readAllBytes());
+            }
+          }
+        }
+      }
+    }
+    if (classes.isEmpty()) {
+      throw new IOException("no generator classes in " + location);
+    }
+
+    Key fingerprint = new Key(false);
+    for (Map.Entry<String, byte[]> entry : classes.entrySet()) {
+      fingerprint.add(entry.getKey()).add(entry.getValue().length);
+      fingerprint.digest.update(entry.getValue());
+    }
+    return fingerprint.bytes();
+  }
+
+  private static boolean isGeneratorClass(String name) {
+    if (!name.endsWith(".class")) {
+      return false;
+    }
+    for (String prefix : GENERATOR_PACKAGES) {
+      if (name.startsWith(prefix)) {
+        return true;
+      }
+    }
+    return false;
+  }
+
+  /**
+   * SHA-256 of the inputs to one trajectory's generation. Everything is added as exact bits, so
+   * any change, however small, gives a different key.
+   */
+  public static class Key {
+
+    private final MessageDigest digest;
+    private byte[] bytes = null;
+
+    public Key() {
+      this(true);
+    }
+
+    private Key(boolean withGenerator) {
+      try {
+        digest = MessageDigest.getInstance("SHA-256");
+      } catch (NoSuchAlgorithmException e) {
+        throw new IllegalStateException("SHA-256 is missing", e);
+      }
+      add(VERSION);
+      if (withGenerator) {
+        digest.update(generatorFingerprint());
+      }
+    }
+
+    public Key add(double value) {
+      return add(Double.doubleToLongBits(value));
+    }
+
+    public Key add(long value) {
+      for (int shift = 0; shift < Long.SIZE; shift += Byte.SIZE) {
+        digest.update((byte) (value >>> shift));
+      }
+      return this;
+    }
+
+    public Key add(boolean value) {
+      digest.update((byte) (value ? 1 : 0));
+      return this;
+    }
+
+    public Key add(String value) {
+      byte[] utf8 = value.getBytes(StandardCharsets.UTF_8);
+      add(utf8.length);
+      digest.update(utf8);
+      return this;
+    }
+
+    public Key add(Pose2d pose) {
+      return add(pose.getTranslation().x())
+          .add(pose.getTranslation().y())
+          .add(pose.getRotation().cos())
+          .add(pose.getRotation().sin());
+    }
+
+    /**
+     * Adds the constraint's class and its primitive and string fields.
+     *
+     * @throws IllegalArgumentException if the constraint holds any other kind of field, since its
+     *     effect on the trajectory could not be keyed
+     */
+    public Key add(TimingConstraint<?> constraint) {
+      add(constraint.getClass().getName());
+      Class<?> type = constraint.getClass();
+      for (; type != Object.class; type = type.getSuperclass()) {
+        Field[] fields = type.getDeclaredFields();
+        Arrays.sort(fields, (a, b) -> a.getName().compareTo(b.getName()));
+        for (Field field : fields) {
+          if (Modifier.isStatic(field.getModifiers())) {
+            continue;
+          }
+          add(field.getName());
+          add(fieldValue(constraint, field));
+        }
+      }
+      return this;
+    }
+
+    private static String fieldValue(Object owner, Field field) {
+      Class<?> type = field.getType();
+      if (!type.isPrimitive() && type != String.class) {
+        throw new IllegalArgumentException(
+            owner.getClass().getSimpleName() + "." + field.getName() + " cannot be keyed");
+      }
+      try {
+        field.setAccessible(true);
+        Object value = field.get(owner);
+        if (value instanceof Double) {
+          // toString would fold different NaNs and is not exact for every value
+          return Long.toHexString(Double.doubleToLongBits((Double) value));
+        }
+        return String.valueOf(value);
+      } catch (ReflectiveOperationException | RuntimeException e) {
+        throw new IllegalArgumentException("cannot read " + field, e);
+      }
+    }
+
+    byte[] bytes() {
+      if (bytes == null) {
+        bytes = digest.digest();
+      }
+      return bytes;
+    }
+
+    /** @return the key as lower case hex, which is also the cache file's name */
+    @Override
+    public String toString() {
+      StringBuilder hex = new StringBuilder(KEY_BYTES * 2);
+      for (byte b : bytes()) {
+        hex.append(Character.forDigit((b >> 4) & 0xF, 16));
+        hex.append(Character.forDigit(b & 0xF, 16));
+      }
+      return hex.toString();
+    }
+  }
+}
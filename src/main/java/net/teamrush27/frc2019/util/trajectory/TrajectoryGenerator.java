@@ -1,17 +1,26 @@
 package net.teamrush27.frc2019.util.trajectory;
 
+import java.io.File;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.function.Supplier;
+import net.teamrush27.frc2019.constants.RobotConfiguration;
+import net.teamrush27.frc2019.constants.RobotConstants;
 import net.teamrush27.frc2019.util.math.Pose2d;
 import net.teamrush27.frc2019.util.math.Pose2dWithCurvature;
 import net.teamrush27.frc2019.util.math.Rotation2d;
+import net.teamrush27.frc2019.util.metrics.MetricsRegistry;
+import net.teamrush27.frc2019.util.metrics.Timer;
 import net.teamrush27.frc2019.util.motion.DriveMotionPlanner;
 import net.teamrush27.frc2019.util.trajectory.timing.CentripetalAccelerationConstraint;
 import net.teamrush27.frc2019.util.trajectory.timing.TimedState;
 import net.teamrush27.frc2019.util.trajectory.timing.TimingConstraint;
 import org.apache.logging.log4j.LogManager;
 import org.apache.logging.log4j.Logger;
+import org.apache.logging.log4j.util.Unbox;
 
 public class TrajectoryGenerator {
 
@@ -30,23 +39,99 @@ public class TrajectoryGenerator {
   private static final double kSimpleSwitchMaxCentripetalAccel = 80.0;
   private static final double kSimpleSwitchMaxVelocity = 120.0;
 
-  private static TrajectoryGenerator INSTANCE = new TrajectoryGenerator();
+  private static TrajectoryGenerator INSTANCE = null;
   private final DriveMotionPlanner mMotionPlanner;
   private TrajectorySet mTrajectorySet = null;
+  private volatile TrajectoryCache mCache;
 
-  public static TrajectoryGenerator getInstance() {
+  private final Timer mBuildTimer = MetricsRegistry.getInstance().timer("trajectory.build");
+  private final Timer mSetTimer = MetricsRegistry.getInstance().timer("trajectory.set");
+
+  public static synchronized TrajectoryGenerator getInstance() {
+    if (INSTANCE == null) {
+      INSTANCE = new TrajectoryGenerator(new DriveMotionPlanner(), robotCache());
+    }
     return INSTANCE;
   }
 
-  private TrajectoryGenerator() {
-    mMotionPlanner = new DriveMotionPlanner();
+  /**
+   * Generates for the given robot's drive characterization instead of this robot's, e.g. to
+   * precompute its trajectories off the robot (see {@link TrajectoryPrecompute}).
+   *
+   * @param cache null to always generate
+   */
+  public TrajectoryGenerator(RobotConfiguration configuration, TrajectoryCache cache) {
+    this(new DriveMotionPlanner(configuration), cache);
+  }
+
+  private TrajectoryGenerator(DriveMotionPlanner motionPlanner, TrajectoryCache cache) {
+    mMotionPlanner = motionPlanner;
+    mCache = cache;
+  }
+
+  /**
+   * @return a cache under /home/lvuser that also loads the trajectories deployed with the code, or
+   *     null off the robot
+   */
+  private static TrajectoryCache robotCache() {
+    File directory = new File(RobotConstants.TRAJECTORY_CACHE_DIR);
+    if (!directory.getParentFile().isDirectory()
+        || !(directory.isDirectory() || directory.mkdir())) {
+      LOG.info("{} is unavailable, trajectories will not be cached", directory);
+      return null;
+    }
+
+    TrajectoryCache cache = new TrajectoryCache(directory, true);
+    File deployed = new File(RobotConstants.TRAJECTORY_DEPLOY_DIR);
+    if (deployed.isDirectory()) {
+      cache.addPrecomputed(deployed);
+    } else {
+      LOG.warn("no precomputed trajectories in {}, generating them on the robot", deployed);
+    }
+    return cache;
   }
 
+  /** @param cache where generated trajectories are looked up and saved, null to always generate */
+  public void setCache(TrajectoryCache cache) {
+    mCache = cache;
+  }
+
+  /**
+   * Generates the trajectory set on a pool with a worker per core, blocking until it is done.
+   * Trajectories found in the cache are loaded instead of generated.
+   */
   public void generateTrajectories() {
     if (mTrajectorySet == null) {
-      LOG.info("Generating trajectories...");
-      mTrajectorySet = new TrajectorySet();
-      LOG.info("Finished trajectory generation");
+      int threads = Runtime.getRuntime().availableProcessors();
+      LOG.info("Generating trajectories on {} threads...", threads);
+      long start = System.nanoTime();
+      ForkJoinPool pool = new ForkJoinPool(threads);
+      try {
+        mTrajectorySet = new TrajectorySet(pool);
+      } finally {
+        pool.shutdown();
+      }
+      mSetTimer.recordSince(start);
+      LOG.info("Finished trajectory generation in {}ms", (System.nanoTime() - start) / 1e6);
+
+      TrajectoryCache cache = mCache;
+      if (cache != null) {
+        cache.prune();
+        LOG.info(
+            "trajectory cache {}: {} precomputed, {} hits, {} misses, {} written",
+            cache.getDirectory(),
+            cache.getPrecomputedHits(),
+            cache.getHits(),
+            cache.getMisses(),
+            cache.getWrites());
+        int stale = cache.getHits() + cache.getMisses();
+        if (cache.hasPrecomputed() && stale > 0) {
+          LOG.warn(
+              "{} trajectories were not precomputed for these inputs, run the"
+                  + " precomputeTrajectories task and redeploy",
+              stale);
+        }
+      }
     }
   }
 
@@ -61,8 +146,8 @@ public class TrajectoryGenerator {
       double max_vel, // inches/s
       double max_accel, // inches/s^2
       double max_voltage) {
-    return mMotionPlanner.generateTrajectory(
-        reversed, waypoints, constraints, max_vel, max_accel, max_voltage);
+    return generateTrajectory(
+        reversed, waypoints, constraints, 0.0, 0.0, max_vel, max_accel, max_voltage);
   }
 
   public Trajectory<TimedState<Pose2dWithCurvature>> generateTrajectory(
@@ -74,8 +159,43 @@ public class TrajectoryGenerator {
       double max_vel, // inches/s
       double max_accel, // inches/s^2
       double max_voltage) {
-    return mMotionPlanner.generateTrajectory(
-        reversed, waypoints, constraints, start_vel, end_vel, max_vel, max_accel, max_voltage);
+    TrajectoryCache cache = mCache;
+    TrajectoryCache.Key key = null;
+    if (cache != null) {
+      try {
+        key = new TrajectoryCache.Key().add(reversed);
+        key.add(waypoints.size());
+        for (Pose2d waypoint : waypoints) {
+          key.add(waypoint);
+        }
+        key.add(constraints == null ? 0 : constraints.size());
+        if (constraints != null) {
+          for (TimingConstraint<Pose2dWithCurvature> constraint : constraints) {
+            key.add(constraint);
+          }
+        }
+        key.add(start_vel).add(end_vel).add(max_vel).add(max_accel).add(max_voltage);
+        mMotionPlanner.addGenerationInputs(key);
+
+        Trajectory<TimedState<Pose2dWithCurvature>> cached = cache.load(key);
+        if (cached != null) {
+          return cached;
+        }
+      } catch (IllegalArgumentException e) {
+        LOG.warn("trajectory will not be cached: {}", e.getMessage());
+        key = null;
+      }
+    }
+
+    long start = System.nanoTime();
+    Trajectory<TimedState<Pose2dWithCurvature>> trajectory =
+        mMotionPlanner.generateTrajectory(
+            reversed, waypoints, constraints, start_vel, end_vel, max_vel, max_accel, max_voltage);
+    mBuildTimer.recordSince(start);
+    if (key != null) {
+      cache.store(key, trajectory);
+    }
+    return trajectory;
   }
 
   private static final Pose2d trackingOffset = new Pose2d(-18, 0, Rotation2d.identity());
@@ -170,24 +290,24 @@ public class TrajectoryGenerator {
     public class MirroredTrajectory {
 
       public MirroredTrajectory(Trajectory<TimedState<Pose2dWithCurvature>> left) {
-        this.left = left;
-        this.right = TrajectoryUtil.mirrorTimed(left);
+        this.left = PackedTrajectory.fromTrajectory(left);
+        this.right = TrajectoryUtil.mirrorTimed(this.left);
       }
 
-      public Trajectory<TimedState<Pose2dWithCurvature>> get(boolean left) {
+      public PackedTrajectory get(boolean left) {
         return left ? this.left : this.right;
       }
 
-      public Trajectory<TimedState<Pose2dWithCurvature>> getLeft() {
+      public PackedTrajectory getLeft() {
         return this.left;
       }
 
-      public Trajectory<TimedState<Pose2dWithCurvature>> getRight() {
+      public PackedTrajectory getRight() {
         return this.right;
       }
 
-      public final Trajectory<TimedState<Pose2dWithCurvature>> left;
-      public final Trajectory<TimedState<Pose2dWithCurvature>> right;
+      public final PackedTrajectory left;
+      public final PackedTrajectory right;
     }
 
     // For Trajectories that can run from either side, use MirroredTrajectory
@@ -222,65 +342,97 @@ public class TrajectoryGenerator {
     public final MirroredTrajectory habToCargoFront;
     public final MirroredTrajectory cargoFrontToHP;
 
-    private TrajectorySet() {
+    /**
+     * Generates every trajectory, and its mirror, as its own task on {@code pool}. Each task only
+     * reads the poses and constraints it is given, so the set comes out the same as when the
+     * trajectories were generated one after another.
+     */
+    private TrajectorySet(ForkJoinPool pool) {
       // For Non-Mirrored Trajectories, just call the helper fn
       // For Mirrored Trajectories, wrap in `new MirroredTrajectory`
 
-      LOG.info("justStraight");
-      justStraight = new MirroredTrajectory(getJustStraight());
-      LOG.info("justStraightBack");
-      justStraightBack = new MirroredTrajectory(getJustStraightBack());
-      LOG.info("turnRightBack");
-      turnRightBack = new MirroredTrajectory(getTurnRightBack());
-
-      LOG.info("turnRight");
-      turnRight = new MirroredTrajectory(getTurnRight());
-      LOG.info("humanPlayerToCloseSideCargo");
-      humanPlayerToCloseSideCargo = new MirroredTrajectory(getHumanPlayerToCloseSideCargo());
-      LOG.info("habToFrontShip");
-      habToFrontShip = new MirroredTrajectory(getHabToFrontShip());
-
-      LOG.info("hpToRocketHatchFront");
-      hpToRocketFront = new MirroredTrajectory(getHPToRocketFront());
-      LOG.info("hpToCargoSideClose");
-      hpToCargoSideClose = new MirroredTrajectory(getHPToCargoSideClose());
-      LOG.info("hpToCargoSideMid");
-      hpToCargoSideMid = new MirroredTrajectory(getHPToCargoSideMid());
-      LOG.info("hpToCargoSideFar");
-      hpToCargoSideFar = new MirroredTrajectory(getHPToCargoSideFar());
-
-      LOG.info("habToRocketRear");
-      habToRocketRear = new MirroredTrajectory(getHABToRocketRear());
-      LOG.info("habToCargoSideClose");
-      habToCargoSideClose = new MirroredTrajectory(getHABToCargoSideClose());
-
-      LOG.info("rocketRearToMidline");
-      rocketRearToMidline = new MirroredTrajectory(getRocketRearToMidline());
-      LOG.info("midlineToHP");
-      midlineToHP = new MirroredTrajectory(getMidlineToHP());
-
-      LOG.info("cargoSideCloseToHP");
-      cargoSideCloseToHP = new MirroredTrajectory(getCargoSideCloseToHP());
-
-      LOG.info("scootBack");
-      scootBack = new MirroredTrajectory(getScootBack());
-
-      LOG.info("scootBack2");
-      scootBack2 = new MirroredTrajectory(getScootBack2());
-
-      LOG.info("altRocketRearToHP");
-      altRocketRearToHP = new MirroredTrajectory(getAltRocketRearToHP());
-
-      LOG.info("habToCargoFront");
-      habToCargoFront = new MirroredTrajectory(getHabToCargoFront());
-
-      LOG.info("cargoFrontToHP");
-      cargoFrontToHP = new MirroredTrajectory(getCargoFrontToHP());
+      ForkJoinTask<MirroredTrajectory> justStraight =
+          submit(pool, "justStraight", this::getJustStraight);
+      ForkJoinTask<MirroredTrajectory> justStraightBack =
+          submit(pool, "justStraightBack", this::getJustStraightBack);
+      ForkJoinTask<MirroredTrajectory> turnRightBack =
+          submit(pool, "turnRightBack", this::getTurnRightBack);
+      ForkJoinTask<MirroredTrajectory> turnRight = submit(pool, "turnRight", this::getTurnRight);
+      ForkJoinTask<MirroredTrajectory> humanPlayerToCloseSideCargo =
+          submit(pool, "humanPlayerToCloseSideCargo", this::getHumanPlayerToCloseSideCargo);
+      ForkJoinTask<MirroredTrajectory> habToFrontShip =
+          submit(pool, "habToFrontShip", this::getHabToFrontShip);
+      ForkJoinTask<MirroredTrajectory> hpToRocketFront =
+          submit(pool, "hpToRocketFront", this::getHPToRocketFront);
+      ForkJoinTask<MirroredTrajectory> hpToCargoSideClose =
+          submit(pool, "hpToCargoSideClose", this::getHPToCargoSideClose);
+      ForkJoinTask<MirroredTrajectory> hpToCargoSideMid =
+          submit(pool, "hpToCargoSideMid", this::getHPToCargoSideMid);
+      ForkJoinTask<MirroredTrajectory> hpToCargoSideFar =
+          submit(pool, "hpToCargoSideFar", this::getHPToCargoSideFar);
+      ForkJoinTask<MirroredTrajectory> habToRocketRear =
+          submit(pool, "habToRocketRear", this::getHABToRocketRear);
+      ForkJoinTask<MirroredTrajectory> habToCargoSideClose =
+          submit(pool, "habToCargoSideClose", this::getHABToCargoSideClose);
+      ForkJoinTask<MirroredTrajectory> rocketRearToMidline =
+          submit(pool, "rocketRearToMidline", this::getRocketRearToMidline);
+      ForkJoinTask<MirroredTrajectory> midlineToHP =
+          submit(pool, "midlineToHP", this::getMidlineToHP);
+      ForkJoinTask<MirroredTrajectory> cargoSideCloseToHP =
+          submit(pool, "cargoSideCloseToHP", this::getCargoSideCloseToHP);
+      ForkJoinTask<MirroredTrajectory> scootBack = submit(pool, "scootBack", this::getScootBack);
+      ForkJoinTask<MirroredTrajectory> scootBack2 = submit(pool, "scootBack2", this::getScootBack2);
+      ForkJoinTask<MirroredTrajectory> altRocketRearToHP =
+          submit(pool, "altRocketRearToHP", this::getAltRocketRearToHP);
+      ForkJoinTask<MirroredTrajectory> habToCargoFront =
+          submit(pool, "habToCargoFront", this::getHabToCargoFront);
+      ForkJoinTask<MirroredTrajectory> cargoFrontToHP =
+          submit(pool, "cargoFrontToHP", this::getCargoFrontToHP);
+
+      this.justStraight = justStraight.join();
+      this.justStraightBack = justStraightBack.join();
+      this.turnRightBack = turnRightBack.join();
+      this.turnRight = turnRight.join();
+      this.humanPlayerToCloseSideCargo = humanPlayerToCloseSideCargo.join();
+      this.habToFrontShip = habToFrontShip.join();
+      this.hpToRocketFront = hpToRocketFront.join();
+      this.hpToCargoSideClose = hpToCargoSideClose.join();
+      this.hpToCargoSideMid = hpToCargoSideMid.join();
+      this.hpToCargoSideFar = hpToCargoSideFar.join();
+      this.habToRocketRear = habToRocketRear.join();
+      this.habToCargoSideClose = habToCargoSideClose.join();
+      this.rocketRearToMidline = rocketRearToMidline.join();
+      this.midlineToHP = midlineToHP.join();
+      this.cargoSideCloseToHP = cargoSideCloseToHP.join();
+      this.scootBack = scootBack.join();
+      this.scootBack2 = scootBack2.join();
+      this.altRocketRearToHP = altRocketRearToHP.join();
+      this.habToCargoFront = habToCargoFront.join();
+      this.cargoFrontToHP = cargoFrontToHP.join();
+    }
+
+    private ForkJoinTask<MirroredTrajectory> submit(
+        ForkJoinPool pool,
+        String name,
+        Supplier<Trajectory<TimedState<Pose2dWithCurvature>>> generator) {
+      return pool.submit(
+          () -> {
+            long start = System.nanoTime();
+            MirroredTrajectory trajectory = new MirroredTrajectory(generator.get());
+            if (LOG.isInfoEnabled()) {
+              LOG.info(
+                  "{}: {} states in {}ms",
+                  name,
+                  Unbox.box(trajectory.getLeft().length()),
+                  Unbox.box((System.nanoTime() - start) / 1e6));
+            }
+            return trajectory;
+          });
     }
 
     public void saveTrajectories() {
-      hpToRocketFront.getRight().save("HP_TO_ROCKET_FRONT");
-      hpToCargoSideClose.getRight().save("HP_TO_CARGO_SIDE_CLOSE");
+      hpToRocketFront.getRight().toTrajectory().save("HP_TO_ROCKET_FRONT");
+      hpToCargoSideClose.getRight().toTrajectory().save("HP_TO_CARGO_SIDE_CLOSE");
     }
 
     private Trajectory<TimedState<Pose2dWithCurvature>> getJustStraight() {
@@ -0,0 +1,47 @@
+package net.teamrush27.frc2019.util.trajectory;
+
+import java.io.File;
+import java.io.IOException;
+import net.teamrush27.frc2019.constants.CompBot;
+import net.teamrush27.frc2019.constants.PracticeBot;
+import net.teamrush27.frc2019.constants.RobotConfiguration;
+import org.apache.logging.log4j.LogManager;
+
+/**
+ * Generates the trajectory set for both robots' drive characterizations on the development
+ * machine, into a directory the robot loads precomputed trajectories from (see {@link
+ * TrajectoryCache#addPrecomputed(File)}). The {@code precomputeTrajectories} Gradle task runs it
+ * into {@code build/trajectories} whenever the code has changed, and deploy ships that directory:
+ *
+ * <pre>java -cp build/libs/... net.teamrush27.frc2019.util.trajectory.TrajectoryPrecompute
+ * [output directory]</pre>
+ *
+ * <p>Everything in the directory is regenerated each run, so a change to the generation code
+ * itself is picked up even when no trajectory's inputs changed.
+ */
+public class TrajectoryPrecompute {
+
+  public static void main(String... args) throws IOException {
+    File directory = new File(args.length > 0 ? args[0] : "build/trajectories");
+    if (!directory.isDirectory() && !directory.mkdirs()) {
+      throw new IOException("could not create " + directory);
+    }
+
+    TrajectoryCache cache = new TrajectoryCache(directory, true);
+    cache.clear();
+    for (RobotConfiguration configuration :
+        new RobotConfiguration[] {new CompBot(), new PracticeBot()}) {
+      long start = System.nanoTime();
+      int before = cache.getWrites() + cache.getHits();
+      new TrajectoryGenerator(configuration, cache).generateTrajectories();
+      System.out.println(
+          String.format(
+              "%s: %d trajectories in %.2fs",
+              configuration.getClass().getSimpleName(),
+              cache.getWrites() + cache.getHits() - before,
+              (System.nanoTime() - start) / 1e9));
+    }
+    System.out.println(cache.getWrites() + " precomputed trajectories written to " + directory);
+    LogManager.shutdown();
+  }
+}
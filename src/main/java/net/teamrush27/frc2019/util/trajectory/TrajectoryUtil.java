@@ -38,6 +38,10 @@ public class TrajectoryUtil {
     return new Trajectory<>(waypoints);
   }
 
+  public static PackedTrajectory mirrorTimed(final PackedTrajectory trajectory) {
+    return trajectory.mirror();
+  }
+
   public static <S extends IPose2d<S>> Trajectory<S> transform(
       final Trajectory<S> trajectory, Pose2d transform) {
     List<S> waypoints = new ArrayList<>(trajectory.length());
@@ -1,6 +1,8 @@
 package net.teamrush27.frc2019.util.trajectory.timing;
 
+import java.nio.ByteBuffer;
 import java.text.DecimalFormat;
+import net.teamrush27.frc2019.util.CSVNumberFormat;
 import net.teamrush27.frc2019.util.math.MathUtils;
 import net.teamrush27.frc2019.util.math.State;
 
@@ -63,14 +65,28 @@ public class TimedState<S extends State<S>> implements State<TimedState<S>> {
 
   @Override
   public String toCSV() {
-    final DecimalFormat fmt = new DecimalFormat("#0.000");
-    return state().toCSV()
-        + ","
-        + fmt.format(t())
-        + ","
-        + fmt.format(velocity())
-        + ","
-        + fmt.format(acceleration());
+    StringBuilder out = new StringBuilder();
+    appendCSV(out);
+    return out.toString();
+  }
+
+  @Override
+  public void appendCSV(StringBuilder out) {
+    state().appendCSV(out);
+    out.append(',');
+    CSVNumberFormat.appendFixed3(out, t());
+    out.append(',');
+    CSVNumberFormat.appendFixed3(out, velocity());
+    out.append(',');
+    CSVNumberFormat.appendFixed3(out, acceleration());
+  }
+
+  @Override
+  public void putDoubles(ByteBuffer out) {
+    state().putDoubles(out);
+    out.putDouble(t());
+    out.putDouble(velocity());
+    out.putDouble(acceleration());
   }
 
   @Override
@@ -0,0 +1,103 @@
+package net.teamrush27.frc2019.loops;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+import java.util.Arrays;
+import java.util.List;
+import org.junit.Test;
+
+public class LoopGraphTest {
+
+  private static Loop loop(String id, LoopPriority priority, String... dependencies) {
+    return new Loop() {
+      @Override
+      public void onStart(double timestamp) {}
+
+      @Override
+      public void onLoop(double timestamp) {}
+
+      @Override
+      public void onStop(double timestamp) {}
+
+      @Override
+      public String id() {
+        return id;
+      }
+
+      @Override
+      public LoopPriority getPriority() {
+        return priority;
+      }
+
+      @Override
+      public String[] getDependencies() {
+        return dependencies;
+      }
+    };
+  }
+
+  private static Loop loop(String id, String... dependencies) {
+    return loop(id, LoopPriority.CRITICAL, dependencies);
+  }
+
+  private static String[] ids(List<Loop> loops, int[] indices) {
+    String[] ids = new String[indices.length];
+    for (int i = 0; i < indices.length; i++) {
+      ids[i] = loops.get(indices[i]).id();
+    }
+    return ids;
+  }
+
+  @Test
+  public void keepsRegistrationOrderWithoutDependencies() {
+    List<Loop> loops = Arrays.asList(loop("A"), loop("B"), loop("C"));
+    LoopGraph graph = new LoopGraph(loops);
+
+    assertArrayEquals(new String[] {"A", "B", "C"}, ids(loops, graph.getOrder()));
+    assertEquals(1, graph.getLevels().length);
+  }
+
+  @Test
+  public void runsDependenciesFirst() {
+    List<Loop> loops =
+        Arrays.asList(loop("DRIVE", "STATE"), loop("ARM", "SSMAN"), loop("SSMAN"), loop("STATE"));
+    LoopGraph graph = new LoopGraph(loops);
+
+    assertArrayEquals(
+        new String[] {"SSMAN", "ARM", "STATE", "DRIVE"}, ids(loops, graph.getOrder()));
+    assertArrayEquals(new String[] {"SSMAN", "STATE"}, ids(loops, graph.getLevels()[0]));
+    assertArrayEquals(new String[] {"ARM", "DRIVE"}, ids(loops, graph.getLevels()[1]));
+  }
+
+  @Test
+  public void runsCriticalLoopsBeforeDeferrableOnes() {
+    List<Loop> loops =
+        Arrays.asList(loop("LED", LoopPriority.DEFERRABLE), loop("GRIPPER"), loop("WRIST"));
+    LoopGraph graph = new LoopGraph(loops);
+
+    assertArrayEquals(new String[] {"GRIPPER", "WRIST", "LED"}, ids(loops, graph.getOrder()));
+  }
+
+  @Test
+  public void ignoresUnregisteredDependencies() {
+    List<Loop> loops = Arrays.asList(loop("A", "MISSING"), loop("B"));
+    LoopGraph graph = new LoopGraph(loops);
+
+    assertArrayEquals(new String[] {"A", "B"}, ids(loops, graph.getOrder()));
+  }
+
+  @Test(expected = IllegalStateException.class)
+  public void rejectsCycles() {
+    new LoopGraph(Arrays.asList(loop("A", "C"), loop("B", "A"), loop("C", "B"), loop("D")));
+  }
+
+  @Test
+  public void criticalPathFollowsTheLongestChain() {
+    List<Loop> loops = Arrays.asList(loop("A"), loop("B", "A"), loop("C"), loop("D", "B", "C"));
+    LoopGraph graph = new LoopGraph(loops);
+
+    // A -> B -> D takes 3 + 4 + 1, C -> D only 5 + 1
+    assertEquals(8.0, graph.getCriticalPath(new double[] {3, 4, 5, 1}), 1e-9);
+  }
+}
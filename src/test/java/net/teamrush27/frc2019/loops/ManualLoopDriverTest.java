@@ -0,0 +1,130 @@
+package net.teamrush27.frc2019.loops;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.ArrayList;
+import java.util.List;
+import net.teamrush27.frc2019.constants.RobotConstants;
+import net.teamrush27.frc2019.util.time.ManualTimeSource;
+import org.junit.Test;
+
+public class ManualLoopDriverTest {
+
+  private static class RecordingLoop implements Loop {
+    private final String id;
+    private final double period;
+    private final List<Double> loops = new ArrayList<>();
+    private double startedAt = Double.NaN;
+    private double stoppedAt = Double.NaN;
+
+    RecordingLoop(String id, double period) {
+      this.id = id;
+      this.period = period;
+    }
+
+    @Override
+    public void onStart(double timestamp) {
+      startedAt = timestamp;
+    }
+
+    @Override
+    public void onLoop(double timestamp) {
+      loops.add(timestamp);
+    }
+
+    @Override
+    public void onStop(double timestamp) {
+      stoppedAt = timestamp;
+    }
+
+    @Override
+    public String id() {
+      return id;
+    }
+
+    @Override
+    public double getPeriod() {
+      return period;
+    }
+  }
+
+  @Test
+  public void stepsEveryLooperOncePerPeriod() {
+    ManualTimeSource time = new ManualTimeSource(10.0);
+    Looper first = new Looper("manual-first", time);
+    Looper second = new Looper("manual-second", time);
+    RecordingLoop fast = new RecordingLoop("FAST", 0);
+    RecordingLoop other = new RecordingLoop("OTHER", 0);
+    first.register(fast);
+    second.register(other);
+
+    ManualLoopDriver driver = new ManualLoopDriver(time, first, second);
+    driver.start();
+    driver.step(50);
+    driver.stop();
+
+    double period = first.kPeriod;
+    assertEquals(10.0, fast.startedAt, 0);
+    assertEquals(50, fast.loops.size());
+    assertEquals(50, other.loops.size());
+    for (int i = 0; i < 50; i++) {
+      assertEquals(10.0 + (i + 1) * period, fast.loops.get(i), 1e-9);
+      assertEquals(fast.loops.get(i), other.loops.get(i), 0);
+    }
+    assertEquals(50, driver.getTicks());
+    assertEquals(10.0 + 50 * period, driver.getTimestamp(), 1e-9);
+    assertEquals(driver.getTimestamp(), fast.stoppedAt, 0);
+  }
+
+  @Test
+  public void runsSlowLoopsAtTheirOwnPeriod() {
+    ManualTimeSource time = new ManualTimeSource();
+    Looper looper = new Looper("manual-slow", time);
+    RecordingLoop slow = new RecordingLoop("SLOW", looper.kPeriod * 4);
+    looper.register(slow);
+
+    ManualLoopDriver driver = new ManualLoopDriver(time, looper);
+    driver.start();
+    driver.step(40);
+    driver.stop();
+
+    assertEquals(10, slow.loops.size());
+  }
+
+  @Test
+  public void sleepingStepsTheLoops() {
+    ManualTimeSource time = new ManualTimeSource();
+    Looper looper = new Looper("manual-sleep", time);
+    RecordingLoop loop = new RecordingLoop("SLEEP", 0);
+    looper.register(loop);
+
+    ManualLoopDriver driver = new ManualLoopDriver(time, looper);
+    driver.start();
+    time.sleep(looper.kPeriod * 20);
+    driver.stop();
+
+    assertEquals(20, loop.loops.size());
+    assertEquals(20, driver.getTicks());
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void rejectsLoopersOnAnotherTimeSource() {
+    ManualTimeSource time = new ManualTimeSource();
+    new ManualLoopDriver(time, new Looper("manual-own", time), new Looper("manual-other"));
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void rejectsLoopersWithDifferentPeriods() {
+    ManualTimeSource time = new ManualTimeSource();
+    Looper first = new Looper("manual-period-first", time);
+    double period = RobotConstants.LOOPER_DELTA_TIME;
+    Looper second;
+    try {
+      RobotConstants.LOOPER_DELTA_TIME = period * 2;
+      second = new Looper("manual-period-second", time);
+    } finally {
+      RobotConstants.LOOPER_DELTA_TIME = period;
+    }
+    new ManualLoopDriver(time, first, second);
+  }
+}
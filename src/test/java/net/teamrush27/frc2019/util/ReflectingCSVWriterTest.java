@@ -0,0 +1,104 @@
+package net.teamrush27.frc2019.util;
+
+import static org.junit.Assert.assertEquals;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.List;
+import net.teamrush27.frc2019.util.ReflectingCSVWriter.OverflowPolicy;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class ReflectingCSVWriterTest {
+
+  public static class Frame {
+    public double timestamp;
+    public int count;
+    public boolean enabled;
+
+    Frame(double timestamp, int count, boolean enabled) {
+      this.timestamp = timestamp;
+      this.count = count;
+      this.enabled = enabled;
+    }
+  }
+
+  @Rule public TemporaryFolder folder = new TemporaryFolder();
+
+  private static String cell(List<String> header, String[] row, String column) {
+    return row[header.indexOf(column)];
+  }
+
+  @Test
+  public void writesHeaderThenRowsInOrder() throws IOException {
+    File file = folder.newFile("frames.csv");
+    ReflectingCSVWriter<Frame> writer =
+        new ReflectingCSVWriter<>(file.getPath(), Frame.class, 64, OverflowPolicy.BLOCK, 1.0, 8);
+    for (int i = 0; i < 20; i++) {
+      writer.add(new Frame(i * 0.5, i, i % 2 == 0));
+    }
+    writer.close();
+
+    List<String> lines = Files.readAllLines(file.toPath());
+    assertEquals(21, lines.size());
+    List<String> header = Arrays.asList(lines.get(0).split(", "));
+    assertEquals(3, header.size());
+    for (int i = 0; i < 20; i++) {
+      String[] row = lines.get(i + 1).split(", ");
+      assertEquals(String.valueOf(i * 0.5), cell(header, row, "timestamp"));
+      assertEquals(String.valueOf(i), cell(header, row, "count"));
+      assertEquals(String.valueOf(i % 2 == 0), cell(header, row, "enabled"));
+    }
+    assertEquals(20, writer.getWrittenCount());
+    assertEquals(0, writer.getDroppedCount());
+  }
+
+  @Test
+  public void blockingPolicyNeverLosesRows() throws IOException {
+    File file = folder.newFile("blocking.csv");
+    ReflectingCSVWriter<Frame> writer =
+        new ReflectingCSVWriter<>(file.getPath(), Frame.class, 4, OverflowPolicy.BLOCK, 1.0, 64);
+    for (int i = 0; i < 5000; i++) {
+      writer.add(new Frame(i, i, true));
+    }
+    writer.close();
+
+    assertEquals(0, writer.getDroppedCount());
+    assertEquals(5000, writer.getWrittenCount());
+    assertEquals(5001, Files.readAllLines(file.toPath()).size());
+  }
+
+  @Test
+  public void droppingPoliciesAccountForEveryRow() throws IOException {
+    for (OverflowPolicy policy :
+        Arrays.asList(OverflowPolicy.DROP_OLDEST, OverflowPolicy.DROP_NEWEST)) {
+      File file = folder.newFile(policy + ".csv");
+      ReflectingCSVWriter<Frame> writer =
+          new ReflectingCSVWriter<>(file.getPath(), Frame.class, 4, policy, 1.0, 64);
+      for (int i = 0; i < 5000; i++) {
+        writer.add(new Frame(i, i, false));
+      }
+      writer.close();
+
+      long written = writer.getWrittenCount();
+      assertEquals(policy.toString(), 5000, written + writer.getDroppedCount());
+      assertEquals(policy.toString(), written + 1, Files.readAllLines(file.toPath()).size());
+    }
+  }
+
+  @Test
+  public void rowsAddedAfterCloseAreDropped() throws IOException {
+    File file = folder.newFile("closed.csv");
+    ReflectingCSVWriter<Frame> writer = new ReflectingCSVWriter<>(file.getPath(), Frame.class);
+    writer.add(new Frame(0, 0, false));
+    writer.close();
+    writer.add(new Frame(1, 1, true));
+
+    assertEquals(1, writer.getWrittenCount());
+    assertEquals(1, writer.getDroppedCount());
+    assertEquals(2, Files.readAllLines(file.toPath()).size());
+  }
+}
@@ -0,0 +1,82 @@
+package net.teamrush27.frc2019.util;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+
+import com.opencsv.CSVReader;
+import java.io.File;
+import java.io.FileReader;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.List;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class TelemetryUtilTest {
+
+  @Rule public TemporaryFolder folder = new TemporaryFolder();
+
+  private final TelemetryUtil telemetry = TelemetryUtil.getInstance();
+
+  private List<String[]> write() throws IOException {
+    File file = folder.newFile();
+    telemetry.writeToFile(file.getPath());
+    try (CSVReader reader = new CSVReader(new FileReader(file))) {
+      return reader.readAll();
+    }
+  }
+
+  /** @return the row's cells named by {@code columns}, in that order */
+  private static String[] cells(String[] header, String[] row, String... columns) {
+    List<String> names = Arrays.asList(header);
+    String[] cells = new String[columns.length];
+    for (int i = 0; i < columns.length; i++) {
+      cells[i] = row[names.indexOf(columns[i])];
+    }
+    return cells;
+  }
+
+  @Test
+  public void pivotsSamplesIntoOneRowPerTimestamp() throws IOException {
+    int speed = telemetry.registerChannel("pivot.speed");
+    int count = telemetry.registerChannel("pivot.count");
+    int flag = telemetry.registerChannel("pivot.flag");
+
+    telemetry.addDouble(0.02, speed, 1.5);
+    telemetry.addLong(0.02, count, 3);
+    telemetry.addBoolean(0.04, flag, true);
+    telemetry.addDouble(0.04, speed, 2.5);
+    telemetry.addEntry(0.02, "pivot.mode", "auto");
+    // recorded long after the rows around it, and still merged into its own timestamp's row
+    telemetry.addEntry(5.0, "pivot.mode", "teleop");
+    telemetry.addEntry(0.04, "pivot.mode", "late");
+    telemetry.addLong(0.03, count, 4);
+
+    List<String[]> lines = write();
+    String[] header = lines.get(0);
+    assertEquals("timestamp", header[0]);
+
+    String[] columns = {"timestamp", "pivot.speed", "pivot.count", "pivot.flag", "pivot.mode"};
+    assertEquals(5, lines.size());
+    assertArrayEquals(
+        new String[] {"0.02", "1.5", "3", "", "auto"}, cells(header, lines.get(1), columns));
+    assertArrayEquals(
+        new String[] {"0.03", "", "4", "", ""}, cells(header, lines.get(2), columns));
+    assertArrayEquals(
+        new String[] {"0.04", "2.5", "", "true", "late"}, cells(header, lines.get(3), columns));
+    assertArrayEquals(
+        new String[] {"5.0", "", "", "", "teleop"}, cells(header, lines.get(4), columns));
+  }
+
+  @Test
+  public void drainsWhatItWrites() throws IOException {
+    int channel = telemetry.registerChannel("drain.value");
+    telemetry.addDouble(1.0, channel, 1.0);
+    telemetry.addEntry(1.0, "drain.entry", "x");
+    assertEquals(2, write().size());
+
+    // header only: everything was taken by the first write
+    assertEquals(1, write().size());
+  }
+}
@@ -0,0 +1,130 @@
+package net.teamrush27.frc2019.util.crash;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.concurrent.atomic.AtomicBoolean;
+import net.teamrush27.frc2019.util.log.BinaryLogReader;
+import net.teamrush27.frc2019.util.log.BinaryLogSchema;
+import net.teamrush27.frc2019.util.log.BinaryLogSchema.Type;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class FlightRecorderTest {
+
+  // every record carries its sequence number twice, so a torn record cannot pass as whole
+  private static final BinaryLogSchema SCHEMA =
+      new BinaryLogSchema.Builder()
+          .add("sequence", Type.LONG)
+          .add("complement", Type.LONG)
+          .build();
+
+  @Rule public TemporaryFolder folder = new TemporaryFolder();
+
+  private static void record(FlightRecorder recorder, long sequence) {
+    recorder.beginRecord().putLong(sequence).putLong(~sequence);
+    recorder.endRecord();
+  }
+
+  /** @return the first sequence number in the dump, after checking the rest follow on whole */
+  private static long checkDump(String fileName, long expected) throws IOException {
+    try (BinaryLogReader reader = new BinaryLogReader(fileName)) {
+      assertEquals(expected, reader.getRecordCount());
+      long first = reader.getLong(0, 0);
+      for (long i = 0; i < reader.getRecordCount(); i++) {
+        long sequence = reader.getLong(i, 0);
+        assertEquals(first + i, sequence);
+        assertEquals(~sequence, reader.getLong(i, 1));
+      }
+      return first;
+    }
+  }
+
+  private String path(String name) {
+    return folder.getRoot().toPath().resolve(name).toString();
+  }
+
+  @Test
+  public void dumpsEverythingBeforeTheRingFills() throws IOException {
+    FlightRecorder recorder = new FlightRecorder(SCHEMA, 8);
+    for (long i = 0; i < 5; i++) {
+      record(recorder, i);
+    }
+
+    assertEquals(5, recorder.dump(path("partial.bin")));
+    assertEquals(0, checkDump(path("partial.bin"), 5));
+  }
+
+  @Test
+  public void skipsTheSlotTheNextRecordOverwrites() throws IOException {
+    FlightRecorder recorder = new FlightRecorder(SCHEMA, 8);
+    for (long i = 0; i < 20; i++) {
+      record(recorder, i);
+    }
+    assertEquals(20, recorder.getRecordCount());
+
+    // the oldest record, 12, sits in the slot record 20 is written to next
+    assertEquals(7, recorder.dump(path("full.bin")));
+    assertEquals(13, checkDump(path("full.bin"), 7));
+  }
+
+  @Test
+  public void dropsARecordTornMidWrite() throws IOException {
+    FlightRecorder recorder = new FlightRecorder(SCHEMA, 8);
+    for (long i = 0; i < 8; i++) {
+      record(recorder, i);
+    }
+    // half of record 8 lands over record 0 before the dump
+    recorder.beginRecord().putLong(8);
+
+    assertEquals(7, recorder.dump(path("torn.bin")));
+    assertEquals(1, checkDump(path("torn.bin"), 7));
+  }
+
+  @Test(expected = IllegalStateException.class)
+  public void rejectsRecordsOfTheWrongSize() {
+    FlightRecorder recorder = new FlightRecorder(SCHEMA, 8);
+    recorder.beginRecord().putLong(0);
+    recorder.endRecord();
+  }
+
+  @Test
+  public void dumpsWholeRecordsWhileRecording() throws Exception {
+    FlightRecorder recorder = new FlightRecorder(SCHEMA, 1024);
+    AtomicBoolean running = new AtomicBoolean(true);
+    Thread writer =
+        new Thread(
+            () -> {
+              long sequence = 0;
+              while (running.get()) {
+                record(recorder, sequence++);
+              }
+            });
+    writer.start();
+    try {
+      while (recorder.getRecordCount() < 1024) {
+        Thread.yield();
+      }
+      // a writer that laps the ring during the copy leaves nothing whole, so a dump may be empty
+      long last = -1;
+      int nonEmpty = 0;
+      for (int i = 0; i < 200; i++) {
+        String fileName = path("concurrent-" + i + ".bin");
+        int written = recorder.dump(fileName);
+        if (written > 0) {
+          long first = checkDump(fileName, written);
+          assertTrue(first >= last);
+          last = first;
+          nonEmpty++;
+        }
+      }
+      assertTrue(nonEmpty > 0);
+    } finally {
+      running.set(false);
+      writer.join();
+    }
+  }
+}
@@ -0,0 +1,117 @@
+package net.teamrush27.frc2019.util.crash;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.PrintWriter;
+import java.io.StringWriter;
+import java.util.List;
+import net.teamrush27.frc2019.util.crash.StateJournal.Cause;
+import net.teamrush27.frc2019.util.crash.StateJournal.Transition;
+import net.teamrush27.frc2019.util.time.ManualTimeSource;
+import org.junit.Test;
+
+public class StateJournalTest {
+
+  private enum Light {
+    RED,
+    GREEN,
+    YELLOW
+  }
+
+  private static final Light[] CYCLE = Light.values();
+
+  private final ManualTimeSource time = new ManualTimeSource();
+
+  /** Steps the machine through {@code n} transitions, one per second. */
+  private static void cycle(StateJournal journal, ManualTimeSource time, int id, int n) {
+    for (int i = 0; i < n; i++) {
+      time.advance(1.0);
+      journal.record(id, CYCLE[i % 3], CYCLE[(i + 1) % 3], Cause.LOOP);
+    }
+  }
+
+  @Test
+  public void keepsTheNewestTransitionsOnceFull() {
+    StateJournal journal = new StateJournal(time, 8);
+    int id = journal.register("LIGHT", Light.RED);
+    cycle(journal, time, id, 20);
+
+    List<Transition> transitions = journal.lastTransitions(100);
+    assertEquals(8, transitions.size());
+    for (int i = 0; i < 8; i++) {
+      Transition transition = transitions.get(i);
+      int n = 12 + i;
+      assertEquals(n + 1, transition.getTimestamp(), 0);
+      assertEquals("LIGHT", transition.getMachine());
+      assertEquals(CYCLE[n % 3].name(), transition.getFrom());
+      assertEquals(CYCLE[(n + 1) % 3].name(), transition.getTo());
+    }
+
+    List<Transition> last = journal.lastTransitions(3);
+    assertEquals(3, last.size());
+    assertEquals(18, last.get(0).getTimestamp(), 0);
+    assertEquals(20, last.get(2).getTimestamp(), 0);
+  }
+
+  @Test
+  public void tracksEachMachinesCurrentState() {
+    StateJournal journal = new StateJournal(time, 4);
+    int light = journal.register("LIGHT", Light.RED);
+    int other = journal.register("OTHER", Light.YELLOW);
+    assertEquals("RED", journal.getState(light));
+    assertEquals("YELLOW", journal.getState(other));
+
+    cycle(journal, time, light, 10);
+    journal.record(other, null, Light.GREEN, Cause.REQUEST);
+    time.advance(2.5);
+
+    assertEquals("GREEN", journal.getState(light));
+    assertEquals(2.5, journal.timeInState(light), 1e-9);
+    assertEquals("GREEN", journal.getState(other));
+    assertEquals(2.5, journal.timeInState(other), 1e-9);
+
+    Transition newest = journal.lastTransitions(1).get(0);
+    assertEquals("OTHER", newest.getMachine());
+    assertNull(newest.getFrom());
+    assertEquals(Cause.REQUEST, newest.getCause());
+  }
+
+  @Test
+  public void ratesOnlyCountTransitionsStillInTheRing() {
+    StateJournal journal = new StateJournal(time, 8);
+    int light = journal.register("LIGHT", Light.RED);
+    int other = journal.register("OTHER", Light.RED);
+    cycle(journal, time, light, 4);
+    cycle(journal, time, other, 2);
+
+    assertEquals(6 / 10.0, journal.transitionsPerSecond(10), 1e-9);
+    assertEquals(2 / 10.0, journal.transitionsPerSecond(other, 10), 1e-9);
+    assertEquals(3 / 2.5, journal.transitionsPerSecond(2.5), 1e-9);
+
+    cycle(journal, time, light, 30);
+    assertEquals(8 / 100.0, journal.transitionsPerSecond(light, 100), 1e-9);
+    assertEquals(0, journal.transitionsPerSecond(other, 100), 0);
+  }
+
+  @Test
+  public void dumpsStatesAndRetainedTransitions() {
+    StateJournal journal = new StateJournal(time, 4);
+    int id = journal.register("LIGHT", Light.RED);
+    cycle(journal, time, id, 6);
+
+    StringWriter out = new StringWriter();
+    journal.dump(new PrintWriter(out, true));
+    String dump = out.toString();
+    assertTrue(dump, dump.contains("LIGHT RED for 0.000s, 6 transitions"));
+    assertTrue(dump, dump.contains("last 4 of 6 transitions:"));
+    assertTrue(dump, dump.contains("3.000 LIGHT YELLOW to RED (LOOP)"));
+    assertTrue(dump, !dump.contains("2.000 LIGHT"));
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void rejectsCapacitiesThatAreNotPowersOfTwo() {
+    new StateJournal(time, 12);
+  }
+}
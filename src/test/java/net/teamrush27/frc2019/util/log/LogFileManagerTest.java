@@ -0,0 +1,95 @@
+package net.teamrush27.frc2019.util.log;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import net.teamrush27.frc2019.constants.RobotConstants;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class LogFileManagerTest {
+
+  @Rule public TemporaryFolder folder = new TemporaryFolder();
+
+  private String root;
+  private String fallbackRoot;
+  private long diskCap;
+  private long internalDiskCap;
+
+  @Before
+  public void saveConstants() {
+    root = RobotConstants.LOG_ROOT;
+    fallbackRoot = RobotConstants.LOG_FALLBACK_ROOT;
+    diskCap = RobotConstants.LOG_DISK_CAP;
+    internalDiskCap = RobotConstants.LOG_INTERNAL_DISK_CAP;
+  }
+
+  @After
+  public void restoreConstants() {
+    RobotConstants.LOG_ROOT = root;
+    RobotConstants.LOG_FALLBACK_ROOT = fallbackRoot;
+    RobotConstants.LOG_DISK_CAP = diskCap;
+    RobotConstants.LOG_INTERNAL_DISK_CAP = internalDiskCap;
+  }
+
+  /** Waits for everything queued on the manager's background thread so far. */
+  static void drain(LogFileManager manager) throws InterruptedException {
+    CountDownLatch done = new CountDownLatch(1);
+    manager.execute(done::countDown);
+    assertTrue(done.await(10, TimeUnit.SECONDS));
+  }
+
+  private static void session(File root, int number, long bytes) throws IOException {
+    File session = new File(root, String.format("session-%04d", number));
+    assertTrue(session.mkdirs());
+    try (RandomAccessFile file = new RandomAccessFile(new File(session, "OLD-000.bin.gz"), "rw")) {
+      file.setLength(bytes);
+    }
+  }
+
+  @Test
+  public void usbStickKeepsSessionsUnderTheDiskCap() throws Exception {
+    File usb = folder.newFolder("usb");
+    RobotConstants.LOG_ROOT = usb.getPath();
+    RobotConstants.LOG_FALLBACK_ROOT = folder.newFolder("internal").getPath();
+    RobotConstants.LOG_DISK_CAP = 4096;
+    RobotConstants.LOG_INTERNAL_DISK_CAP = 1024;
+    session(usb, 0, 2048);
+    session(usb, 1, 2048);
+
+    LogFileManager manager = new LogFileManager();
+    assertEquals(new File(usb, "session-0002"), manager.getSessionDirectory());
+    drain(manager);
+
+    assertTrue(new File(usb, "session-0000").exists());
+    assertTrue(new File(usb, "session-0001").exists());
+  }
+
+  @Test
+  public void fallbackUsesTheSmallerInternalCap() throws Exception {
+    File internal = folder.newFolder("internal");
+    RobotConstants.LOG_ROOT = new File(folder.getRoot(), "missing").getPath();
+    RobotConstants.LOG_FALLBACK_ROOT = internal.getPath();
+    RobotConstants.LOG_DISK_CAP = 4096;
+    RobotConstants.LOG_INTERNAL_DISK_CAP = 1024;
+    session(internal, 0, 2048);
+    session(internal, 1, 512);
+
+    LogFileManager manager = new LogFileManager();
+    assertEquals(new File(internal, "session-0002"), manager.getSessionDirectory());
+    drain(manager);
+
+    assertFalse(new File(internal, "session-0000").exists());
+    assertTrue(new File(internal, "session-0001").exists());
+    assertTrue(new File(internal, "session-0002").exists());
+  }
+}
@@ -0,0 +1,137 @@
+package net.teamrush27.frc2019.util.log;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.zip.GZIPInputStream;
+import net.teamrush27.frc2019.constants.RobotConstants;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class LogSegmentsTest {
+
+  @Rule public TemporaryFolder folder = new TemporaryFolder();
+
+  private String root;
+  private long segmentBytes;
+  private double segmentPeriod;
+  private File usb;
+
+  @Before
+  public void pointAtTemporaryRoot() throws IOException {
+    root = RobotConstants.LOG_ROOT;
+    segmentBytes = RobotConstants.LOG_SEGMENT_BYTES;
+    segmentPeriod = RobotConstants.LOG_SEGMENT_PERIOD;
+    usb = folder.newFolder("usb");
+    RobotConstants.LOG_ROOT = usb.getPath();
+    RobotConstants.LOG_SEGMENT_BYTES = 100;
+    RobotConstants.LOG_SEGMENT_PERIOD = 3600;
+  }
+
+  @After
+  public void restoreConstants() {
+    RobotConstants.LOG_ROOT = root;
+    RobotConstants.LOG_SEGMENT_BYTES = segmentBytes;
+    RobotConstants.LOG_SEGMENT_PERIOD = segmentPeriod;
+  }
+
+  private static void write(String path, String text) throws IOException {
+    Files.write(new File(path).toPath(), text.getBytes(StandardCharsets.UTF_8));
+  }
+
+  private static String gunzip(File file) throws IOException {
+    ByteArrayOutputStream out = new ByteArrayOutputStream();
+    try (InputStream in = new GZIPInputStream(new FileInputStream(file))) {
+      byte[] buffer = new byte[1024];
+      int read;
+      while ((read = in.read(buffer)) > 0) {
+        out.write(buffer, 0, read);
+      }
+    }
+    return new String(out.toByteArray(), StandardCharsets.UTF_8);
+  }
+
+  @Test
+  public void rollsOverBySizeAndCompressesFinishedSegments() throws Exception {
+    LogFileManager manager = new LogFileManager();
+    LogSegments segments = new LogSegments(manager, "DRIVE-LOGS", ".csv");
+    File session = new File(usb, "session-0000");
+
+    assertFalse(segments.isDue(Long.MAX_VALUE));
+    String first = segments.next();
+    assertEquals(new File(session, "DRIVE-LOGS-000.csv").getPath(), first);
+    assertFalse(segments.isDue(99));
+    assertTrue(segments.isDue(100));
+
+    write(first, "first segment");
+    String second = segments.next();
+    assertEquals(new File(session, "DRIVE-LOGS-001.csv").getPath(), second);
+    write(second, "second segment");
+    segments.finish();
+    assertFalse(segments.isDue(Long.MAX_VALUE));
+    LogFileManagerTest.drain(manager);
+
+    assertFalse(new File(first).exists());
+    assertFalse(new File(second).exists());
+    assertEquals("first segment", gunzip(new File(first + ".gz")));
+    assertEquals("second segment", gunzip(new File(second + ".gz")));
+  }
+
+  @Test
+  public void rollsOverByAge() {
+    LogSegments segments = new LogSegments(new LogFileManager(), "ARM-LOGS", ".csv");
+    segments.next();
+    assertFalse(segments.isDue(0));
+    RobotConstants.LOG_SEGMENT_PERIOD = 0;
+    assertTrue(segments.isDue(0));
+  }
+
+  @Test
+  public void reservedSegmentsBecomeCurrentOnAdvance() throws Exception {
+    LogFileManager manager = new LogFileManager();
+    LogSegments segments = new LogSegments(manager, "WRIST-LOGS", ".bin");
+    File session = new File(usb, "session-0000");
+
+    String first = segments.next();
+    String reserved = segments.reserve();
+    assertEquals(new File(session, "WRIST-LOGS-001.bin").getPath(), reserved);
+    assertTrue(segments.isDue(100));
+
+    write(first, "replaced");
+    segments.advance(reserved);
+    assertFalse(segments.isDue(99));
+    segments.finish(first);
+    assertEquals(new File(session, "WRIST-LOGS-002.bin").getPath(), segments.next());
+    LogFileManagerTest.drain(manager);
+
+    assertEquals("replaced", gunzip(new File(first + ".gz")));
+  }
+
+  @Test
+  public void laterSessionsNeverReuseNamesAndRecoverLeftovers() throws Exception {
+    LogFileManager crashed = new LogFileManager();
+    String leftover = new LogSegments(crashed, "DRIVE-LOGS", ".csv").next();
+    write(leftover, "never closed");
+    File partial = new File(leftover + ".gz.part");
+    write(partial.getPath(), "half compressed");
+
+    LogFileManager manager = new LogFileManager();
+    String next = new LogSegments(manager, "DRIVE-LOGS", ".csv").next();
+    assertEquals(new File(new File(usb, "session-0001"), "DRIVE-LOGS-000.csv").getPath(), next);
+    LogFileManagerTest.drain(manager);
+
+    assertFalse(partial.exists());
+    assertEquals("never closed", gunzip(new File(leftover + ".gz")));
+  }
+}
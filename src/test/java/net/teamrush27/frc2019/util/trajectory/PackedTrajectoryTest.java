@@ -0,0 +1,114 @@
+package net.teamrush27.frc2019.util.trajectory;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.Arrays;
+import java.util.List;
+import net.teamrush27.frc2019.constants.CompBot;
+import net.teamrush27.frc2019.util.math.Pose2d;
+import net.teamrush27.frc2019.util.math.Pose2dWithCurvature;
+import net.teamrush27.frc2019.util.math.Rotation2d;
+import net.teamrush27.frc2019.util.motion.DriveMotionPlanner;
+import net.teamrush27.frc2019.util.trajectory.timing.CentripetalAccelerationConstraint;
+import net.teamrush27.frc2019.util.trajectory.timing.TimedState;
+import net.teamrush27.frc2019.util.trajectory.timing.TimedView;
+import org.junit.Test;
+
+public class PackedTrajectoryTest {
+
+  private static final List<Pose2d> WAYPOINTS =
+      Arrays.asList(
+          new Pose2d(0, 0, Rotation2d.identity()),
+          new Pose2d(110, 114, Rotation2d.identity()),
+          new Pose2d(231, 68, Rotation2d.fromDegrees(-36)));
+
+  private static Trajectory<TimedState<Pose2dWithCurvature>> generate(boolean reversed) {
+    return new DriveMotionPlanner(new CompBot())
+        .generateTrajectory(
+            reversed,
+            WAYPOINTS,
+            Arrays.asList(new CentripetalAccelerationConstraint(110.0)),
+            120,
+            144,
+            9.0);
+  }
+
+  @Test
+  public void roundTripsStates() {
+    Trajectory<TimedState<Pose2dWithCurvature>> trajectory = generate(false);
+    Trajectory<TimedState<Pose2dWithCurvature>> copy =
+        PackedTrajectory.fromTrajectory(trajectory).toTrajectory();
+
+    assertEquals(trajectory.length(), copy.length());
+    for (int i = 0; i < trajectory.length(); i++) {
+      assertSame("state " + i, trajectory.getState(i), copy.getState(i));
+    }
+  }
+
+  @Test
+  public void samplesAsTimedView() {
+    for (boolean reversed : new boolean[] {false, true}) {
+      Trajectory<TimedState<Pose2dWithCurvature>> trajectory = generate(reversed);
+      assertSamplesMatch(
+          PackedTrajectory.fromTrajectory(trajectory), new TimedView<>(trajectory));
+    }
+  }
+
+  @Test
+  public void mirrorSamplesAsMirroredTimedView() {
+    Trajectory<TimedState<Pose2dWithCurvature>> trajectory = generate(false);
+    assertSamplesMatch(
+        PackedTrajectory.fromTrajectory(trajectory).mirror(),
+        new TimedView<>(TrajectoryUtil.mirrorTimed(trajectory)));
+  }
+
+  private static void assertSamplesMatch(
+      PackedTrajectory packed, TimedView<Pose2dWithCurvature> view) {
+    double first = packed.t(0);
+    double last = packed.t(packed.length() - 1);
+    // off both ends, between states, and on every state
+    for (double t = first - 0.05; t < last + 0.05; t += 0.0007) {
+      assertSample(t, packed.sample(t), view.sample(t));
+    }
+    for (int i = 0; i < packed.length(); i++) {
+      assertSample(packed.t(i), packed.sample(packed.t(i)), view.sample(packed.t(i)));
+    }
+  }
+
+  private static void assertSample(
+      double t,
+      TrajectorySamplePoint<TimedState<Pose2dWithCurvature>> expected,
+      TrajectorySamplePoint<TimedState<Pose2dWithCurvature>> actual) {
+    assertEquals("floor at " + t, expected.index_floor(), actual.index_floor());
+    assertEquals("ceil at " + t, expected.index_ceil(), actual.index_ceil());
+    assertSame("state at " + t, expected.state(), actual.state());
+  }
+
+  /** Every field bit for bit, so a packed sample is interchangeable with the original. */
+  private static void assertSame(
+      String message,
+      TimedState<Pose2dWithCurvature> expected,
+      TimedState<Pose2dWithCurvature> actual) {
+    assertEquals(message, Arrays.toString(bits(expected)), Arrays.toString(bits(actual)));
+  }
+
+  private static long[] bits(TimedState<Pose2dWithCurvature> state) {
+    Pose2d pose = state.state().getPose();
+    double[] values = {
+      pose.getTranslation().x(),
+      pose.getTranslation().y(),
+      pose.getRotation().cos(),
+      pose.getRotation().sin(),
+      state.state().getCurvature(),
+      state.state().getDCurvatureDs(),
+      state.t(),
+      state.velocity(),
+      state.acceleration()
+    };
+    long[] bits = new long[values.length];
+    for (int i = 0; i < values.length; i++) {
+      bits[i] = Double.doubleToLongBits(values[i]);
+    }
+    return bits;
+  }
+}
@@ -0,0 +1,183 @@
+package net.teamrush27.frc2019.util.trajectory;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import net.teamrush27.frc2019.constants.CompBot;
+import net.teamrush27.frc2019.util.math.Pose2d;
+import net.teamrush27.frc2019.util.math.Pose2dWithCurvature;
+import net.teamrush27.frc2019.util.math.Rotation2d;
+import net.teamrush27.frc2019.util.trajectory.timing.CentripetalAccelerationConstraint;
+import net.teamrush27.frc2019.util.trajectory.timing.TimedState;
+import net.teamrush27.frc2019.util.trajectory.timing.TimingConstraint;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class TrajectoryCacheTest {
+
+  private static final List<Pose2d> WAYPOINTS =
+      Arrays.asList(
+          new Pose2d(0, 0, Rotation2d.identity()), new Pose2d(110, 114, Rotation2d.identity()));
+
+  @Rule public TemporaryFolder folder = new TemporaryFolder();
+
+  private static Trajectory<TimedState<Pose2dWithCurvature>> generate(
+      TrajectoryCache cache, double maxCentripetalAccel) {
+    List<TimingConstraint<Pose2dWithCurvature>> constraints =
+        Collections.singletonList(new CentripetalAccelerationConstraint(maxCentripetalAccel));
+    return new TrajectoryGenerator(new CompBot(), cache)
+        .generateTrajectory(false, WAYPOINTS, constraints, 120, 144, 9.0);
+  }
+
+  private static TrajectoryCache.Key key(double x) {
+    return new TrajectoryCache.Key().add(true).add(new Pose2d(x, 2, Rotation2d.identity()));
+  }
+
+  private static void assertSameStates(
+      Trajectory<TimedState<Pose2dWithCurvature>> expected,
+      Trajectory<TimedState<Pose2dWithCurvature>> actual) {
+    assertEquals(expected.length(), actual.length());
+    for (int i = 0; i < expected.length(); i++) {
+      TimedState<Pose2dWithCurvature> a = expected.getState(i);
+      TimedState<Pose2dWithCurvature> b = actual.getState(i);
+      assertEquals(a.state().getTranslation().x(), b.state().getTranslation().x(), 0);
+      assertEquals(a.state().getTranslation().y(), b.state().getTranslation().y(), 0);
+      assertEquals(a.state().getRotation().cos(), b.state().getRotation().cos(), 0);
+      assertEquals(a.state().getRotation().sin(), b.state().getRotation().sin(), 0);
+      assertEquals(a.state().getCurvature(), b.state().getCurvature(), 0);
+      assertEquals(a.state().getDCurvatureDs(), b.state().getDCurvatureDs(), 0);
+      assertEquals(a.t(), b.t(), 0);
+      assertEquals(a.velocity(), b.velocity(), 0);
+      assertEquals(a.acceleration(), b.acceleration(), 0);
+    }
+  }
+
+  private static String[] trajectoryFiles(File directory) {
+    String[] names = directory.list((dir, name) -> name.endsWith(TrajectoryCache.EXTENSION));
+    Arrays.sort(names);
+    return names;
+  }
+
+  @Test
+  public void keysFollowEveryInput() {
+    assertEquals(key(1).toString(), key(1).toString());
+    assertNotEquals(key(1).toString(), key(Math.nextUp(1.0)).toString());
+    assertNotEquals(key(0.0).toString(), key(-0.0).toString());
+    assertNotEquals(
+        new TrajectoryCache.Key().add(new CentripetalAccelerationConstraint(110)).toString(),
+        new TrajectoryCache.Key().add(new CentripetalAccelerationConstraint(100)).toString());
+    assertEquals(64, key(1).toString().length());
+  }
+
+  @Test(expected = IllegalArgumentException.class)
+  public void rejectsConstraintsThatCannotBeKeyed() {
+    new TrajectoryCache.Key()
+        .add(
+            new TimingConstraint<Pose2dWithCurvature>() {
+              private final Object limit = new Object();
+
+              @Override
+              public double getMaxVelocity(Pose2dWithCurvature state) {
+                return 0;
+              }
+
+              @Override
+              public MinMaxAcceleration getMinMaxAcceleration(
+                  Pose2dWithCurvature state, double velocity) {
+                return MinMaxAcceleration.kNoLimits;
+              }
+            });
+  }
+
+  @Test
+  public void storesMissesAndLoadsHits() throws IOException {
+    File directory = folder.newFolder("cache");
+    TrajectoryCache first = new TrajectoryCache(directory, true);
+    Trajectory<TimedState<Pose2dWithCurvature>> generated = generate(first, 110);
+    assertEquals(0, first.getHits());
+    assertEquals(1, first.getMisses());
+    assertEquals(1, first.getWrites());
+    assertEquals(1, trajectoryFiles(directory).length);
+
+    TrajectoryCache second = new TrajectoryCache(directory, true);
+    assertSameStates(generated, generate(second, 110));
+    assertEquals(1, second.getHits());
+    assertEquals(0, second.getMisses());
+    assertEquals(0, second.getWrites());
+
+    generate(second, 100);
+    assertEquals(1, second.getMisses());
+    assertEquals(2, trajectoryFiles(directory).length);
+  }
+
+  @Test
+  public void regeneratesOverUnreadableFiles() throws IOException {
+    File directory = folder.newFolder("cache");
+    TrajectoryCache.Key key = key(1);
+    Files.write(
+        new File(directory, key + TrajectoryCache.EXTENSION).toPath(), new byte[] {1, 2, 3});
+
+    TrajectoryCache cache = new TrajectoryCache(directory, true);
+    assertNull(cache.load(key));
+    assertEquals(1, cache.getMisses());
+  }
+
+  @Test
+  public void loadsPrecomputedAheadOfItsOwnDirectory() throws IOException {
+    File deployed = folder.newFolder("deploy");
+    Trajectory<TimedState<Pose2dWithCurvature>> generated =
+        generate(new TrajectoryCache(deployed, true), 110);
+
+    File directory = folder.newFolder("cache");
+    TrajectoryCache cache = new TrajectoryCache(directory, true);
+    cache.addPrecomputed(deployed);
+    assertSameStates(generated, generate(cache, 110));
+    assertEquals(1, cache.getPrecomputedHits());
+    assertEquals(0, cache.getHits() + cache.getMisses() + cache.getWrites());
+    assertEquals(0, trajectoryFiles(directory).length);
+  }
+
+  @Test
+  public void readOnlyCachesNeverWrite() throws IOException {
+    File directory = folder.newFolder("cache");
+    TrajectoryCache cache = new TrajectoryCache(directory, false);
+    generate(cache, 110);
+    assertEquals(1, cache.getMisses());
+    assertEquals(0, cache.getWrites());
+    assertEquals(0, trajectoryFiles(directory).length);
+  }
+
+  @Test
+  public void pruneKeepsOnlyKeysUsedSinceConstruction() throws IOException {
+    File directory = folder.newFolder("cache");
+    TrajectoryCache old = new TrajectoryCache(directory, true);
+    generate(old, 110);
+    generate(old, 100);
+    assertEquals(2, trajectoryFiles(directory).length);
+
+    TrajectoryCache cache = new TrajectoryCache(directory, true);
+    generate(cache, 110);
+    cache.prune();
+    String[] kept = trajectoryFiles(directory);
+    assertEquals(1, kept.length);
+
+    TrajectoryCache check = new TrajectoryCache(directory, true);
+    generate(check, 110);
+    assertEquals(1, check.getHits());
+
+    check.clear();
+    assertEquals(0, trajectoryFiles(directory).length);
+    assertFalse(new File(directory, kept[0]).exists());
+    assertTrue(directory.isDirectory());
+  }
+}